@@ -1,23 +1,67 @@
 package com.realestate.sellerfunnel.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.context.annotation.Bean;
-import java.util.concurrent.Executor;
 
+/**
+ * Executors for background work. Every {@code @Async} method and every
+ * {@code CompletableFuture} stage in the application runs on one of these,
+ * never on the common ForkJoinPool.
+ *
+ * Setting {@code app.async.virtual-threads=true} runs all of them on virtual
+ * threads (Java 21+), which suits the I/O-bound sends and API calls they carry;
+ * the pool settings then only apply as a fallback on older JVMs.
+ */
 @Configuration
 @EnableAsync
 public class AsyncConfig {
-    
+
+    @Value("${app.async.virtual-threads:false}")
+    private boolean virtualThreads;
+
+    /**
+     * Default executor for {@code @Async} methods, imports and campaign preparation.
+     */
     @Bean(name = "taskExecutor")
-    public Executor taskExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(5);
-        executor.setMaxPoolSize(10);
-        executor.setQueueCapacity(25);
-        executor.setThreadNamePrefix("ImportThread-");
-        executor.initialize();
-        return executor;
+    public ManagedExecutor taskExecutor(@Value("${app.async.pool.core-size:5}") int coreSize,
+                                        @Value("${app.async.pool.max-size:20}") int maxSize,
+                                        @Value("${app.async.pool.queue-capacity:200}") int queueCapacity) {
+        return ManagedExecutor.create("taskExecutor", virtualThreads, coreSize, maxSize, queueCapacity, "AsyncThread-");
+    }
+
+    /**
+     * Fixed pool for bulk email workers. Each send uses {@code app.email.bulk.workers}
+     * workers, each holding one SMTP connection, and up to
+     * {@code app.email.scheduled.max-concurrent-campaigns} scheduled campaigns send
+     * at once, so the pool holds that many sets of workers.
+     */
+    @Bean(name = "mailExecutor")
+    public ManagedExecutor mailExecutor(@Value("${app.email.bulk.workers:4}") int workers,
+                                        @Value("${app.email.scheduled.max-concurrent-campaigns:3}") int maxConcurrentCampaigns) {
+        int size = workers * Math.max(1, maxConcurrentCampaigns);
+        return ManagedExecutor.create("mailExecutor", virtualThreads, size, size, Integer.MAX_VALUE, "MailThread-");
+    }
+
+    /**
+     * Workers that drain the campaign outbox. Each running campaign uses
+     * {@code app.campaign.outbox.workers} of these threads.
+     */
+    @Bean(name = "outboxExecutor")
+    public ManagedExecutor outboxExecutor(@Value("${app.campaign.outbox.pool.core-size:4}") int coreSize,
+                                          @Value("${app.campaign.outbox.pool.max-size:16}") int maxSize,
+                                          @Value("${app.campaign.outbox.pool.queue-capacity:100}") int queueCapacity) {
+        return ManagedExecutor.create("outboxExecutor", virtualThreads, coreSize, maxSize, queueCapacity, "OutboxThread-");
+    }
+
+    /**
+     * Stage workers for client import pipelines. Stages block on each other's
+     * queues, so tasks are never queued behind a busy stage: the pool grows to
+     * its maximum and rejects beyond it.
+     */
+    @Bean(name = "importExecutor")
+    public ManagedExecutor importExecutor(@Value("${app.import.pipeline.max-threads:32}") int maxThreads) {
+        return ManagedExecutor.create("importExecutor", virtualThreads, 0, maxThreads, 0, "ImportThread-");
     }
 }
@@ -0,0 +1,147 @@
+package com.realestate.sellerfunnel.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Application executor that runs tasks either on a bounded platform-thread
+ * pool or, when {@code app.async.virtual-threads} is enabled and the JVM
+ * supports it (Java 21+), on one virtual thread per task. Either way it
+ * counts queued, running, completed and rejected tasks for
+ * {@link #getMetrics()}.
+ */
+public class ManagedExecutor implements TaskExecutor, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ManagedExecutor.class);
+
+    private final String name;
+    private final ThreadPoolTaskExecutor pool;
+    private final ExecutorService virtualThreads;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private ManagedExecutor(String name, ThreadPoolTaskExecutor pool, ExecutorService virtualThreads) {
+        this.name = name;
+        this.pool = pool;
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * Create an executor. With {@code virtual} set, pool sizes are ignored
+     * unless virtual threads are unavailable and the pool is used instead.
+     */
+    public static ManagedExecutor create(String name, boolean virtual, int coreSize, int maxSize,
+                                         int queueCapacity, String threadNamePrefix) {
+        if (virtual) {
+            ExecutorService virtualThreads = newVirtualThreadExecutor(threadNamePrefix);
+            if (virtualThreads != null) {
+                return new ManagedExecutor(name, null, virtualThreads);
+            }
+            logger.warn("Virtual threads need Java 21 or later; {} uses a thread pool", name);
+        }
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(coreSize);
+        pool.setMaxPoolSize(maxSize);
+        pool.setQueueCapacity(queueCapacity);
+        pool.setThreadNamePrefix(threadNamePrefix);
+        pool.initialize();
+        return new ManagedExecutor(name, pool, null);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        queued.incrementAndGet();
+        Runnable tracked = () -> {
+            queued.decrementAndGet();
+            active.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                active.decrementAndGet();
+                completed.incrementAndGet();
+            }
+        };
+        try {
+            if (virtualThreads != null) {
+                virtualThreads.execute(tracked);
+            } else {
+                pool.execute(tracked);
+            }
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            rejected.incrementAndGet();
+            throw e;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isVirtual() {
+        return virtualThreads != null;
+    }
+
+    /**
+     * Point-in-time counters: tasks waiting for a thread, tasks running, and
+     * totals completed and rejected since startup.
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("name", name);
+        metrics.put("mode", isVirtual() ? "virtual" : "pool");
+        metrics.put("queueDepth", queued.get());
+        metrics.put("activeCount", active.get());
+        metrics.put("completedCount", completed.get());
+        metrics.put("rejectedCount", rejected.get());
+        if (pool != null) {
+            metrics.put("poolSize", pool.getPoolSize());
+            metrics.put("maxPoolSize", pool.getMaxPoolSize());
+            metrics.put("queueCapacity", pool.getQueueCapacity());
+        }
+        return metrics;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (pool != null) {
+            pool.shutdown();
+        } else {
+            virtualThreads.shutdown();
+            virtualThreads.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Executors.newThreadPerTaskExecutor with a virtual thread factory, looked
+     * up reflectively so the application still builds and runs on Java 17.
+     */
+    private static ExecutorService newVirtualThreadExecutor(String threadNamePrefix) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                .invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
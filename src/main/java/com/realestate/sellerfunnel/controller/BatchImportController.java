@@ -10,12 +10,16 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 @Controller
 @RequestMapping("/admin/clients/batch-import")
 public class BatchImportController {
 
+    private static final Pattern IMPORT_EXTENSIONS = Pattern.compile("\\.(xlsx|csv|ndjson|jsonl)$", Pattern.CASE_INSENSITIVE);
+
     @Autowired
     private BatchImportService batchImportService;
 
@@ -25,21 +29,25 @@ public class BatchImportController {
     }
 
     @PostMapping
-    public String handleBatchImport(@RequestParam("file") MultipartFile file,
+    public String handleBatchImport(@RequestParam("file") List<MultipartFile> files,
+                                  @RequestParam(value = "merge", defaultValue = "false") boolean merge,
                                   RedirectAttributes redirectAttributes) {
-        if (file.isEmpty()) {
+        files = files.stream().filter(file -> !file.isEmpty()).toList();
+        if (files.isEmpty()) {
             redirectAttributes.addFlashAttribute("error", "Please select a file to upload");
             return "redirect:/admin/clients/batch-import";
         }
 
-        String originalFilename = file.getOriginalFilename();
-        if (originalFilename == null || !(originalFilename.endsWith(".xlsx") || originalFilename.endsWith(".csv"))) {
-            redirectAttributes.addFlashAttribute("error", "Please upload an Excel (.xlsx) or CSV (.csv) file");
-            return "redirect:/admin/clients/batch-import";
+        for (MultipartFile file : files) {
+            String originalFilename = file.getOriginalFilename();
+            if (originalFilename == null || !IMPORT_EXTENSIONS.matcher(originalFilename).find()) {
+                redirectAttributes.addFlashAttribute("error", "Please upload Excel (.xlsx), CSV (.csv) or JSON lines (.ndjson, .jsonl) files");
+                return "redirect:/admin/clients/batch-import";
+            }
         }
 
         try {
-            String importId = batchImportService.processLargeImport(file).get();
+            String importId = batchImportService.processLargeImport(files, merge).get();
             redirectAttributes.addFlashAttribute("importId", importId);
             redirectAttributes.addFlashAttribute("message", 
                 "File upload successful. Import processing has started. Use the progress tracker to monitor the import.");
@@ -77,9 +85,12 @@ public class BatchImportController {
         response.put("processedRecords", progress.getProcessedRecords());
         response.put("totalRecords", progress.getTotalRecords());
         response.put("successCount", progress.getSuccessCount());
+        response.put("updatedCount", progress.getUpdatedCount());
+        response.put("duplicateCount", progress.getDuplicateCount());
         response.put("errorCount", progress.getErrorCount());
         response.put("skippedCount", progress.getSkippedCount());
         response.put("recentErrors", progress.getRecentErrors());
+        response.put("stages", progress.getStages());
         
         if (progress.getErrorMessage() != null) {
             response.put("errorMessage", progress.getErrorMessage());
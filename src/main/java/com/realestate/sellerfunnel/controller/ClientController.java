@@ -2,24 +2,35 @@ package com.realestate.sellerfunnel.controller;
 
 import com.realestate.sellerfunnel.model.Client;
 import com.realestate.sellerfunnel.repository.ClientRepository;
+import com.realestate.sellerfunnel.repository.ClientSpecifications;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.multipart.MultipartFile;
+import com.realestate.sellerfunnel.service.ClientExportService;
 import com.realestate.sellerfunnel.service.ClientImportService;
+import com.realestate.sellerfunnel.service.ClientPager;
+import com.realestate.sellerfunnel.service.ClientSearchService;
+import com.realestate.sellerfunnel.service.DashboardMetricsService;
+import com.realestate.sellerfunnel.service.XlsxExportService;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Controller
 @RequestMapping("/admin/clients")
@@ -30,6 +41,25 @@ public class ClientController {
     
     @Autowired
     private ClientImportService clientImportService;
+    
+    @Autowired
+    private ClientExportService clientExportService;
+    
+    @Autowired
+    private XlsxExportService xlsxExportService;
+    
+    @Autowired
+    private ClientSearchService clientSearchService;
+    
+    @Autowired
+    private ClientPager clientPager;
+    
+    @Autowired
+    private DashboardMetricsService dashboardMetricsService;
+    
+    private static final int RECENT_CLIENTS = 10;
+    
+    private static final MediaType XLSX = MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
 
     @GetMapping
     public String listClients(Model model, 
@@ -38,22 +68,30 @@ public class ClientController {
                              @RequestParam(required = false) String clientStatus,
                              @RequestParam(required = false) String leadSource,
                              @RequestParam(required = false) String city,
-                             @RequestParam(required = false) String state) {
+                             @RequestParam(required = false) String state,
+                             @RequestParam(required = false) String cursor,
+                             @RequestParam(required = false) Integer size) {
         
-        List<Client> clients;
+        Specification<Client> specification;
         
         if (search != null && !search.trim().isEmpty()) {
             // Advanced search
-            clients = clientRepository.findByAdvancedSearch(
-                search, search, search, search, clientType, clientStatus, 
-                leadSource, city, state, null, true
-            );
+            specification = ClientSpecifications.isActive()
+                .and(ClientSpecifications.containsText(search))
+                .and(ClientSpecifications.hasClientType(clientType))
+                .and(ClientSpecifications.hasClientStatus(clientStatus))
+                .and(ClientSpecifications.hasLeadSource(leadSource))
+                .and(ClientSpecifications.inCity(city))
+                .and(ClientSpecifications.inState(state));
         } else {
             // Filtered search
-            clients = clientRepository.findByFilters(clientType, clientStatus, leadSource, city, state);
+            specification = ClientSpecifications.campaignFilters(clientType, clientStatus, leadSource, city, state);
         }
         
-        model.addAttribute("clients", clients);
+        ClientPager.ClientPage page = page(specification, cursor, size);
+        model.addAttribute("clients", page.getClients());
+        model.addAttribute("nextCursor", page.getNextCursor());
+        model.addAttribute("firstPage", cursor == null || cursor.isBlank());
         model.addAttribute("search", search);
         model.addAttribute("clientType", clientType);
         model.addAttribute("clientStatus", clientStatus);
@@ -187,8 +225,11 @@ public class ClientController {
     @GetMapping("/dashboard")
     public String dashboard(Model model) {
         // Client statistics
-        model.addAttribute("totalClients", clientRepository.count());
-        model.addAttribute("activeClients", clientRepository.findByIsActiveTrueOrderByCreatedAtDesc().size());
+        DashboardMetricsService.ClientMetrics metrics = dashboardMetricsService.clientMetrics();
+        model.addAttribute("totalClients", metrics.getTotal());
+        model.addAttribute("activeClients", metrics.getActive());
+        model.addAttribute("clientsNeedingContactCount", metrics.getNeedingContact());
+        model.addAttribute("contactedClientsCount", metrics.getContacted());
         
         // Status breakdown
         List<Object[]> statusCounts = clientRepository.countByClientStatus();
@@ -218,67 +259,80 @@ public class ClientController {
         model.addAttribute("sourceCounts", sourceMap);
         
         // Recent clients
-        model.addAttribute("recentClients", clientRepository.findByIsActiveTrueOrderByCreatedAtDesc());
+        model.addAttribute("recentClients", clientPager.firstPage(ClientSpecifications.isActive(), RECENT_CLIENTS));
         
         // Clients needing contact
         LocalDateTime weekAgo = LocalDateTime.now().minusWeeks(1);
-        model.addAttribute("clientsNeedingContact", clientRepository.findClientsNeedingContact(weekAgo));
+        model.addAttribute("clientsNeedingContact",
+            clientRepository.findClientsNeedingContact(weekAgo, PageRequest.of(0, RECENT_CLIENTS)));
         
         // Top contacted clients
-        model.addAttribute("topContactedClients", clientRepository.findTopContactedClients());
+        model.addAttribute("topContactedClients", clientRepository.findTopContactedClients(PageRequest.of(0, RECENT_CLIENTS)));
         
         return "admin/clients/dashboard";
     }
 
+    /**
+     * Ranked client search by name, email, company, phone or city, tolerating typos.
+     */
     @GetMapping("/search")
     @ResponseBody
-    public List<Client> searchClients(@RequestParam String query) {
-        return clientRepository.findByNameContainingIgnoreCase(query);
+    public ClientSearchService.SearchPage searchClients(@RequestParam String query,
+                                                        @RequestParam(defaultValue = "0") int page,
+                                                        @RequestParam(defaultValue = "20") int size) {
+        return clientSearchService.search(query, page, size);
     }
 
     @GetMapping("/export")
-    public String exportClients(Model model) {
-        List<Client> allClients = clientRepository.findByIsActiveTrueOrderByCreatedAtDesc();
-        model.addAttribute("clients", allClients);
+    public String exportClients(Model model,
+                                @RequestParam(required = false) String cursor,
+                                @RequestParam(required = false) Integer size) {
+        ClientPager.ClientPage page = page(ClientSpecifications.isActive(), cursor, size);
+        model.addAttribute("clients", page.getClients());
+        model.addAttribute("nextCursor", page.getNextCursor());
+        model.addAttribute("totalClients", clientRepository.countByIsActiveTrue());
         return "admin/clients/export";
     }
     
+    /**
+     * Stream the active clients as CSV, gzip-compressed when {@code gzip} is set.
+     */
     @GetMapping("/export/csv")
-    public ResponseEntity<String> exportClientsCSV() {
-        List<Client> allClients = clientRepository.findByIsActiveTrueOrderByCreatedAtDesc();
-        
-        StringBuilder csv = new StringBuilder();
-        csv.append("First Name,Last Name,Email,Phone,Company,Job Title,Address,City,State,ZIP Code,Client Type,Status,Lead Source,Email Contact Count,Phone Contact Count,Total Contact Count,Last Contact Date,Notes,Created Date\n");
-        
-        for (Client client : allClients) {
-            csv.append(String.format("\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\"\n",
-                escapeCsvField(client.getFirstName()),
-                escapeCsvField(client.getLastName()),
-                escapeCsvField(client.getEmail()),
-                escapeCsvField(client.getPhoneNumber()),
-                escapeCsvField(client.getCompanyName()),
-                escapeCsvField(client.getJobTitle()),
-                escapeCsvField(client.getAddress()),
-                escapeCsvField(client.getCity()),
-                escapeCsvField(client.getState()),
-                escapeCsvField(client.getZipCode()),
-                escapeCsvField(client.getClientType()),
-                escapeCsvField(client.getClientStatus()),
-                escapeCsvField(client.getLeadSource()),
-                escapeCsvField(client.getEmailContactCount() != null ? client.getEmailContactCount().toString() : "0"),
-                escapeCsvField(client.getPhoneContactCount() != null ? client.getPhoneContactCount().toString() : "0"),
-                escapeCsvField(client.getTotalContactCount() != null ? client.getTotalContactCount().toString() : "0"),
-                escapeCsvField(client.getLastContactDate() != null ? client.getLastContactDate().format(java.time.format.DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm")) : ""),
-                escapeCsvField(client.getNotes()),
-                escapeCsvField(client.getCreatedAt() != null ? client.getCreatedAt().format(java.time.format.DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm")) : "")
-            ));
+    public ResponseEntity<StreamingResponseBody> exportClientsCSV(@RequestParam(defaultValue = "false") boolean gzip) {
+        String filename = "clients_export_" + LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".csv";
+        
+        HttpHeaders headers = new HttpHeaders();
+        if (gzip) {
+            headers.setContentType(MediaType.parseMediaType("application/gzip"));
+            headers.setContentDispositionFormData("attachment", filename + ".gz");
+        } else {
+            headers.setContentType(new MediaType("text", "csv", StandardCharsets.UTF_8));
+            headers.setContentDispositionFormData("attachment", filename);
         }
         
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+                clientExportService.writeActiveClientsCsv(compressed);
+                compressed.finish();
+            } else {
+                clientExportService.writeActiveClientsCsv(out);
+            }
+        };
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+    
+    /**
+     * Stream the active clients as an Excel workbook.
+     */
+    @GetMapping("/export/xlsx")
+    public ResponseEntity<StreamingResponseBody> exportClientsXlsx() {
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.TEXT_PLAIN);
-        headers.setContentDispositionFormData("attachment", "clients_export_" + LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".csv");
+        headers.setContentType(XLSX);
+        headers.setContentDispositionFormData("attachment", "clients_export_" + LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".xlsx");
         
-        return new ResponseEntity<>(csv.toString(), headers, HttpStatus.OK);
+        StreamingResponseBody body = out -> xlsxExportService.writeActiveClients(out);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
     }
     
     @GetMapping("/import")
@@ -320,14 +374,21 @@ public class ClientController {
         return "redirect:/admin/clients/import";
     }
     
-    private String escapeCsvField(String field) {
-        if (field == null) return "";
-        return field.replace("\"", "\"\"");
+    /**
+     * A page of clients, starting over from the first page if the cursor is not one of ours.
+     */
+    private ClientPager.ClientPage page(Specification<Client> specification, String cursor, Integer size) {
+        try {
+            return clientPager.page(specification, cursor, size);
+        } catch (IllegalArgumentException e) {
+            return clientPager.page(specification, null, size);
+        }
     }
-
+    
     private void addClientStatistics(Model model) {
-        model.addAttribute("totalClients", clientRepository.count());
-        model.addAttribute("activeClients", clientRepository.findByIsActiveTrueOrderByCreatedAtDesc().size());
+        DashboardMetricsService.ClientMetrics metrics = dashboardMetricsService.clientMetrics();
+        model.addAttribute("totalClients", metrics.getTotal());
+        model.addAttribute("activeClients", metrics.getActive());
         
         // Status counts
         List<Object[]> statusCounts = clientRepository.countByClientStatus();
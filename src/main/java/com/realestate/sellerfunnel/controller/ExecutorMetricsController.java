@@ -0,0 +1,32 @@
+package com.realestate.sellerfunnel.controller;
+
+import com.realestate.sellerfunnel.config.ManagedExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Controller
+@RequestMapping("/admin/executors")
+public class ExecutorMetricsController {
+
+    @Autowired
+    private List<ManagedExecutor> executors;
+
+    /**
+     * Queue depth, active count and totals for each background executor
+     */
+    @GetMapping
+    @ResponseBody
+    public ResponseEntity<List<Map<String, Object>>> getExecutorMetrics() {
+        return ResponseEntity.ok(executors.stream()
+            .map(ManagedExecutor::getMetrics)
+            .collect(Collectors.toList()));
+    }
+}
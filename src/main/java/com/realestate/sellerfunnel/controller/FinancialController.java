@@ -1,17 +1,25 @@
 package com.realestate.sellerfunnel.controller;
 
 import com.realestate.sellerfunnel.service.FinancialService;
+import com.realestate.sellerfunnel.service.XlsxExportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.servlet.http.HttpSession;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 @Controller
@@ -21,6 +29,9 @@ public class FinancialController {
     @Autowired
     private FinancialService financialService;
 
+    @Autowired
+    private XlsxExportService xlsxExportService;
+
     private boolean isAuthenticated(HttpSession session) {
         Boolean authenticated = (Boolean) session.getAttribute("propertyAuthenticated");
         return authenticated != null && authenticated;
@@ -69,27 +80,69 @@ public class FinancialController {
         return "financials/ledger";
     }
 
+    /**
+     * Stream the ledger as CSV, filtered by room and/or date range; with neither, the whole ledger.
+     */
     @GetMapping(value = "/export.csv")
-    @ResponseBody
-    public String exportCsv(
+    public ResponseEntity<StreamingResponseBody> exportCsv(
             @RequestParam(required = false) Long roomId,
             @RequestParam(required = false) String start,
             @RequestParam(required = false) String end,
             HttpSession session) {
         if (!isAuthenticated(session)) {
-            return "";
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        java.util.List<com.realestate.sellerfunnel.model.Transaction> txs;
-        if (start != null && end != null) {
-            var s = java.time.LocalDateTime.parse(start);
-            var e = java.time.LocalDateTime.parse(end);
-            txs = financialService.transactionsByDateRange(s, e);
-        } else if (roomId != null) {
-            txs = financialService.transactionsForRoom(roomId);
-        } else {
-            txs = financialService.recentTransactions();
+        LocalDateTime from = start != null && !start.isBlank() ? LocalDateTime.parse(start) : null;
+        LocalDateTime to = end != null && !end.isBlank() ? LocalDateTime.parse(end) : null;
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(new MediaType("text", "csv", StandardCharsets.UTF_8));
+        headers.setContentDispositionFormData("attachment", "ledger_export_"
+            + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".csv");
+        
+        StreamingResponseBody body = out -> financialService.exportCsv(roomId, from, to, out);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    /**
+     * Stream the ledger as an Excel workbook, with the same filters as the CSV export.
+     */
+    @GetMapping(value = "/export.xlsx")
+    public ResponseEntity<StreamingResponseBody> exportXlsx(
+            @RequestParam(required = false) Long roomId,
+            @RequestParam(required = false) String start,
+            @RequestParam(required = false) String end,
+            HttpSession session) {
+        if (!isAuthenticated(session)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        return financialService.exportCsv(txs);
+        LocalDateTime from = start != null && !start.isBlank() ? LocalDateTime.parse(start) : null;
+        LocalDateTime to = end != null && !end.isBlank() ? LocalDateTime.parse(end) : null;
+        return xlsx("ledger_export", out -> xlsxExportService.writeTransactions(roomId, from, to, out));
+    }
+
+    @GetMapping(value = "/bookings.xlsx")
+    public ResponseEntity<StreamingResponseBody> exportBookingsXlsx(HttpSession session) {
+        if (!isAuthenticated(session)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return xlsx("bookings_export", xlsxExportService::writeBookings);
+    }
+
+    @GetMapping(value = "/payments.xlsx")
+    public ResponseEntity<StreamingResponseBody> exportPaymentsXlsx(HttpSession session) {
+        if (!isAuthenticated(session)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return xlsx("payments_export", xlsxExportService::writePayments);
+    }
+
+    private static ResponseEntity<StreamingResponseBody> xlsx(String name, StreamingResponseBody body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
+        headers.setContentDispositionFormData("attachment", name + "_"
+            + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".xlsx");
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
     }
 
     @GetMapping("/room/{roomId}/ledger")
@@ -129,7 +129,7 @@ public class HomeController {
     public String admin(Model model) {
         model.addAttribute("buyers", buyerRepository.findAllByOrderByCreatedAtDesc());
         model.addAttribute("sellers", sellerRepository.findAllByOrderByCreatedAtDesc());
-        model.addAttribute("clients", clientRepository.findByIsActiveTrueOrderByCreatedAtDesc());
+        model.addAttribute("clientCount", clientRepository.countByIsActiveTrue());
         return "admin";
     }
     
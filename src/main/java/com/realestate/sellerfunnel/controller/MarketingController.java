@@ -10,6 +10,7 @@ import com.realestate.sellerfunnel.service.AIContentGenerationService;
 import com.realestate.sellerfunnel.service.ContentMemoryService;
 import com.realestate.sellerfunnel.service.CampaignPostSubmissionService;
 import com.realestate.sellerfunnel.service.CampaignValidationService;
+import com.realestate.sellerfunnel.service.DashboardMetricsService;
 import com.realestate.sellerfunnel.model.AIGeneratedContent;
 import com.realestate.sellerfunnel.repository.AIGeneratedContentRepository;
 import com.realestate.sellerfunnel.repository.ClientRepository;
@@ -66,6 +67,9 @@ public class MarketingController {
     @Autowired
     private FacebookPostService facebookPostService;
     
+    @Autowired
+    private DashboardMetricsService dashboardMetricsService;
+    
     @Autowired
     private ClientRepository clientRepository;
     
@@ -74,15 +78,18 @@ public class MarketingController {
 
     @GetMapping("/dashboard")
     public String dashboard(Model model) {
+        DashboardMetricsService.CampaignMetrics campaignMetrics = dashboardMetricsService.campaignMetrics();
+        DashboardMetricsService.ClientMetrics clientMetrics = dashboardMetricsService.clientMetrics();
+        
         // Campaign statistics
-        model.addAttribute("totalCampaigns", campaignRepository.count());
-        model.addAttribute("activeCampaigns", campaignRepository.findActiveCampaigns(LocalDateTime.now()).size());
+        model.addAttribute("totalCampaigns", campaignMetrics.getTotal());
+        model.addAttribute("activeCampaigns", campaignMetrics.getActive());
         model.addAttribute("totalLeads", campaignLeadRepository.count());
         
         // Client statistics
-        model.addAttribute("totalClients", clientRepository.count());
-        model.addAttribute("activeClients", clientRepository.findByIsActiveTrueOrderByCreatedAtDesc().size());
-        model.addAttribute("emailOptedInClients", clientRepository.findByEmailOptedInTrueAndIsActiveTrueOrderByCreatedAtDesc().size());
+        model.addAttribute("totalClients", clientMetrics.getTotal());
+        model.addAttribute("activeClients", clientMetrics.getActive());
+        model.addAttribute("emailOptedInClients", clientMetrics.getEmailOptedIn());
         
         // Client status breakdown
         List<Object[]> statusCounts = clientRepository.countByClientStatus();
@@ -94,27 +101,15 @@ public class MarketingController {
         model.addAttribute("clientStatusCounts", statusMap);
         
         // Recent campaigns
-        model.addAttribute("recentCampaigns", campaignRepository.findAllByOrderByCreatedAtDesc());
+        model.addAttribute("recentCampaigns", campaignRepository.findTop10ByOrderByCreatedAtDesc());
         
         // Lead sources
         model.addAttribute("leadSources", campaignLeadRepository.getLeadCountBySource());
         
         // Monthly stats
-        LocalDateTime startOfMonth = LocalDateTime.now().withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0);
-        LocalDateTime endOfMonth = startOfMonth.plusMonths(1).minusSeconds(1);
-        
-        Double monthlySpend = campaignRepository.getTotalSpendByDateRange(startOfMonth, endOfMonth);
-        Integer monthlyLeads = campaignRepository.getTotalLeadsByDateRange(startOfMonth, endOfMonth);
-        
-        model.addAttribute("monthlySpend", monthlySpend != null ? monthlySpend : 0.0);
-        model.addAttribute("monthlyLeads", monthlyLeads != null ? monthlyLeads : 0);
-        
-        // Calculate cost per lead
-        if (monthlyLeads != null && monthlyLeads > 0 && monthlySpend != null && monthlySpend > 0) {
-            model.addAttribute("costPerLead", monthlySpend / monthlyLeads);
-        } else {
-            model.addAttribute("costPerLead", 0.0);
-        }
+        model.addAttribute("monthlySpend", campaignMetrics.getMonthlySpend());
+        model.addAttribute("monthlyLeads", campaignMetrics.getMonthlyLeads());
+        model.addAttribute("costPerLead", campaignMetrics.getCostPerLead());
         
         return "admin/marketing/dashboard";
     }
@@ -7,12 +7,16 @@ import com.realestate.sellerfunnel.repository.RoomRepository;
 import com.realestate.sellerfunnel.repository.GuestRepository;
 import com.realestate.sellerfunnel.repository.BookingRepository;
 import com.realestate.sellerfunnel.repository.PaymentRepository;
+import com.realestate.sellerfunnel.service.BookingLedgerService;
 import com.realestate.sellerfunnel.service.PaymentService;
+import com.realestate.sellerfunnel.service.PropertyDashboardService;
+import com.realestate.sellerfunnel.service.RentAccrualService;
 import com.realestate.sellerfunnel.service.TransactionService;
 import com.realestate.sellerfunnel.service.UniversalPaymentProtocolService;
 import com.realestate.sellerfunnel.model.Payment;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -22,8 +26,8 @@ import jakarta.servlet.http.HttpSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
 import java.util.HashMap;
@@ -53,6 +57,12 @@ public class PropertyManagementController {
 
     @Autowired
     private TransactionService transactionService;
+    
+    @Autowired
+    private PropertyDashboardService propertyDashboardService;
+
+    @Autowired
+    private BookingLedgerService bookingLedgerService;
 
     // Helper method to check authentication
     private boolean isPropertyAuthenticated(HttpSession session) {
@@ -100,41 +110,24 @@ public class PropertyManagementController {
         String authCheck = redirectToLoginIfNotAuthenticated(session);
         if (authCheck != null) return authCheck;
         try {
-            // Initialize sample data if database is empty
-            initializeSampleDataIfNeeded();
-            
-            // Get statistics with safe fallbacks
-            Long totalRooms = roomRepository.count();
-            Long vacantRooms = roomRepository.countVacantRooms();
-            Long occupiedRooms = roomRepository.countOccupiedRooms();
-            Long activeBookings = bookingRepository.countActiveBookings();
-            Long pendingPayments = bookingRepository.countPendingPayments();
-            Long overduePayments = bookingRepository.countOverduePayments();
-            BigDecimal totalOutstanding = bookingRepository.getTotalOutstandingBalance();
-            
-            // Get recent bookings
-            List<Booking> recentBookings = bookingRepository.findByIsActiveTrueOrderByCreatedAtDesc();
-            if (recentBookings != null && recentBookings.size() > 10) {
-                recentBookings = recentBookings.subList(0, 10);
+            // Counters and lists are kept in memory, updated as rooms, bookings and payments change
+            PropertyDashboardService.Snapshot snapshot = propertyDashboardService.snapshot();
+            if (snapshot.getTotalRooms() == 0) {
+                // Initialize sample data if database is empty
+                initializeSampleDataIfNeeded();
+                snapshot = propertyDashboardService.snapshot();
             }
             
-            // Get overdue bookings
-            List<Booking> overdueBookings = bookingRepository.findOverdueBookings();
-            
-            // Get rooms with outstanding balances
-            List<Booking> outstandingBookings = bookingRepository.findBookingsWithOutstandingBalance();
-            
-            // Set attributes with safe defaults
-            model.addAttribute("totalRooms", totalRooms != null ? totalRooms : 0L);
-            model.addAttribute("vacantRooms", vacantRooms != null ? vacantRooms : 0L);
-            model.addAttribute("occupiedRooms", occupiedRooms != null ? occupiedRooms : 0L);
-            model.addAttribute("activeBookings", activeBookings != null ? activeBookings : 0L);
-            model.addAttribute("pendingPayments", pendingPayments != null ? pendingPayments : 0L);
-            model.addAttribute("overduePayments", overduePayments != null ? overduePayments : 0L);
-            model.addAttribute("totalOutstanding", totalOutstanding != null ? totalOutstanding : BigDecimal.ZERO);
-            model.addAttribute("recentBookings", recentBookings != null ? recentBookings : new java.util.ArrayList<>());
-            model.addAttribute("overdueBookings", overdueBookings != null ? overdueBookings : new java.util.ArrayList<>());
-            model.addAttribute("outstandingBookings", outstandingBookings != null ? outstandingBookings : new java.util.ArrayList<>());
+            model.addAttribute("totalRooms", snapshot.getTotalRooms());
+            model.addAttribute("vacantRooms", snapshot.getVacantRooms());
+            model.addAttribute("occupiedRooms", snapshot.getOccupiedRooms());
+            model.addAttribute("activeBookings", snapshot.getActiveBookings());
+            model.addAttribute("pendingPayments", snapshot.getPendingPayments());
+            model.addAttribute("overduePayments", snapshot.getOverduePayments());
+            model.addAttribute("totalOutstanding", snapshot.getTotalOutstanding());
+            model.addAttribute("recentBookings", snapshot.getRecentBookings());
+            model.addAttribute("overdueBookings", snapshot.getOverdueBookings());
+            model.addAttribute("outstandingBookings", snapshot.getOutstandingBookings());
             
         } catch (Exception e) {
             // Log the error and provide default values
@@ -221,7 +214,7 @@ public class PropertyManagementController {
         }
         
         try {
-            Room room = roomRepository.findById(id)
+            Room room = roomRepository.findWithTransactionsById(id)
                 .orElseThrow(() -> new RuntimeException("Room not found with ID: " + id));
             
             logger.info("Found room: {} - {}", room.getRoomNumber(), room.getRoomName());
@@ -240,26 +233,12 @@ public class PropertyManagementController {
             LocalDateTime nextDueDate = null;
             BigDecimal nextDueAmount = null;
             if (ledgerBooking != null) {
-                String frequency = ledgerBooking.getPaymentFrequency();
+                // The next period the nightly rent accrual will charge
+                RentAccrualService.Frequency frequency = RentAccrualService.Frequency.of(ledgerBooking.getPaymentFrequency());
                 BigDecimal nightly = ledgerBooking.getNightlyRate();
                 if (frequency != null && nightly != null) {
-                    switch (frequency.toUpperCase()) {
-                        case "DAILY":
-                            nextDueDate = LocalDateTime.now().withHour(23).withMinute(59).withSecond(59);
-                            nextDueAmount = nightly;
-                            break;
-                        case "WEEKLY":
-                            nextDueDate = LocalDateTime.now().plusWeeks(1);
-                            nextDueAmount = nightly.multiply(new BigDecimal("7"));
-                            break;
-                        case "MONTHLY":
-                            nextDueDate = LocalDateTime.now().plusMonths(1);
-                            // Approximate month at 30 nights for simplicity
-                            nextDueAmount = nightly.multiply(new BigDecimal("30"));
-                            break;
-                        default:
-                            break;
-                    }
+                    nextDueDate = frequency.nextPeriodStart(LocalDate.now()).atStartOfDay();
+                    nextDueAmount = frequency.charge(nightly);
                 }
             }
             
@@ -617,7 +596,7 @@ public class PropertyManagementController {
     public String viewBooking(@PathVariable Long id, Model model, HttpSession session) {
         String authCheck = redirectToLoginIfNotAuthenticated(session);
         if (authCheck != null) return authCheck;
-        Booking booking = bookingRepository.findById(id)
+        Booking booking = bookingRepository.findWithRoomAndGuestById(id)
             .orElseThrow(() -> new RuntimeException("Booking not found"));
         
         model.addAttribute("booking", booking);
@@ -693,7 +672,13 @@ public class PropertyManagementController {
             room.setIsVacant(false);
             roomRepository.save(room);
         }
-        bookingRepository.save(booking);
+        try {
+            bookingRepository.save(booking);
+        } catch (OptimisticLockingFailureException e) {
+            // The form was loaded before someone else changed the booking
+            redirectAttributes.addFlashAttribute("error", "This booking was changed by someone else. Please review it and try again.");
+            return "redirect:/property/bookings/" + booking.getId();
+        }
         redirectAttributes.addFlashAttribute("message", isNew ? "Booking created successfully!" : "Booking updated successfully!");
         return "redirect:/property/bookings";
     }
@@ -726,11 +711,7 @@ public class PropertyManagementController {
                             RedirectAttributes redirectAttributes) {
         String authCheck = redirectToLoginIfNotAuthenticated(session);
         if (authCheck != null) return authCheck;
-        Booking booking = bookingRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Booking not found"));
-        
-        booking.addPayment(amount);
-        bookingRepository.save(booking);
+        bookingLedgerService.addPayment(id, amount);
         
         redirectAttributes.addFlashAttribute("message", "Payment of $" + amount + " added successfully!");
         return "redirect:/property/bookings/" + id;
@@ -744,20 +725,7 @@ public class PropertyManagementController {
                            RedirectAttributes redirectAttributes) {
         String authCheck = redirectToLoginIfNotAuthenticated(session);
         if (authCheck != null) return authCheck;
-        Booking booking = bookingRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Booking not found"));
-        
-        booking.addCharge(amount);
-        
-        // Add description to notes
-        if (description != null && !description.trim().isEmpty()) {
-            String currentNotes = booking.getNotes() != null ? booking.getNotes() : "";
-            String newNote = LocalDateTime.now().format(DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm")) + 
-                           " - Added charge: $" + amount + " - " + description;
-            booking.setNotes(currentNotes + "\n" + newNote);
-        }
-        
-        bookingRepository.save(booking);
+        bookingLedgerService.addCharge(id, amount, description);
         
         redirectAttributes.addFlashAttribute("message", "Charge of $" + amount + " added successfully!");
         return "redirect:/property/bookings/" + id;
@@ -863,7 +831,7 @@ public class PropertyManagementController {
     public String newPayment(@PathVariable Long bookingId, Model model, HttpSession session) {
         String authCheck = redirectToLoginIfNotAuthenticated(session);
         if (authCheck != null) return authCheck;
-        Booking booking = bookingRepository.findById(bookingId)
+        Booking booking = bookingRepository.findWithRoomAndGuestById(bookingId)
             .orElseThrow(() -> new RuntimeException("Booking not found"));
         
         Payment payment = new Payment();
@@ -0,0 +1,28 @@
+package com.realestate.sellerfunnel.controller;
+
+import com.realestate.sellerfunnel.service.RentAccrualService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.Map;
+
+@Controller
+@RequestMapping("/admin/rent-accruals")
+public class RentAccrualMetricsController {
+
+    @Autowired
+    private RentAccrualService rentAccrualService;
+
+    /**
+     * Run count, and the duration and row counts of the last nightly rent accrual
+     */
+    @GetMapping
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getRentAccrualMetrics() {
+        return ResponseEntity.ok(rentAccrualService.getMetrics());
+    }
+}
@@ -6,6 +6,8 @@ import com.realestate.sellerfunnel.model.Client;
 import com.realestate.sellerfunnel.repository.BuyerRepository;
 import com.realestate.sellerfunnel.repository.SellerRepository;
 import com.realestate.sellerfunnel.repository.ClientRepository;
+import com.realestate.sellerfunnel.repository.ClientSpecifications;
+import com.realestate.sellerfunnel.service.ClientPager;
 import com.realestate.sellerfunnel.service.FileUploadService;
 import com.realestate.sellerfunnel.service.PersonalFollowUpService;
 import jakarta.validation.Valid;
@@ -41,6 +43,9 @@ public class RestHomeController {
     
     @Autowired
     private PersonalFollowUpService personalFollowUpService;
+    
+    @Autowired
+    private ClientPager clientPager;
 
     @GetMapping("/buyers")
     public ResponseEntity<List<Buyer>> getAllBuyers() {
@@ -54,10 +59,17 @@ public class RestHomeController {
         return ResponseEntity.ok(sellers);
     }
 
+    /**
+     * Active clients newest first, one page at a time; pass the returned nextCursor to get the next page.
+     */
     @GetMapping("/clients")
-    public ResponseEntity<List<Client>> getAllClients() {
-        List<Client> clients = clientRepository.findByIsActiveTrueOrderByCreatedAtDesc();
-        return ResponseEntity.ok(clients);
+    public ResponseEntity<ClientPager.ClientPage> getAllClients(@RequestParam(required = false) String cursor,
+                                                                @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(clientPager.page(ClientSpecifications.isActive(), cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @PostMapping("/buyer")
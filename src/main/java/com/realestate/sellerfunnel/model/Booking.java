@@ -7,12 +7,20 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "bookings")
+@EntityListeners(PropertyChangePublisher.class)
+@NamedEntityGraph(name = "Booking.roomAndGuest",
+    attributeNodes = {@NamedAttributeNode("room"), @NamedAttributeNode("guest")})
 public class Booking {
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    // Optimistic lock: concurrent updates to the totals fail rather than overwrite each other
+    @Version
+    @Column(name = "version")
+    private Long version;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "room_id", nullable = false)
     private Room room;
@@ -119,6 +127,9 @@ public class Booking {
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
     
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+    
     public Room getRoom() { return room; }
     public void setRoom(Room room) { this.room = room; }
     
@@ -0,0 +1,137 @@
+package com.realestate.sellerfunnel.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A bulk email or SMS campaign started from the campaign forms. Holds the
+ * message and recipient filters so the send can be resumed after a restart;
+ * the per-recipient state lives in {@link OutboxMessage}.
+ */
+@Entity
+@Table(name = "campaign_sends", indexes = {
+    @Index(name = "idx_campaign_sends_status", columnList = "status")
+})
+public class CampaignSend {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    private String channel; // EMAIL, SMS
+
+    private String subject;
+
+    @Column(columnDefinition = "TEXT")
+    private String message;
+
+    @Column(name = "use_template")
+    private Boolean useTemplate = false;
+
+    @Column(name = "template_name")
+    private String templateName;
+
+    @Column(name = "client_type")
+    private String clientType;
+
+    @Column(name = "client_status")
+    private String clientStatus;
+
+    @Column(name = "lead_source")
+    private String leadSource;
+
+    private String city;
+
+    private String state;
+
+    private String status; // PREPARING, PROCESSING, COMPLETED, FAILED
+
+    @Column(name = "total_recipients")
+    private Integer totalRecipients = 0;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+        if (status == null) {
+            status = "PREPARING";
+        }
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public CampaignSend() {}
+
+    public CampaignSend(String id, String channel) {
+        this.id = id;
+        this.channel = channel;
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getChannel() { return channel; }
+    public void setChannel(String channel) { this.channel = channel; }
+
+    public String getSubject() { return subject; }
+    public void setSubject(String subject) { this.subject = subject; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+
+    public Boolean getUseTemplate() { return useTemplate; }
+    public void setUseTemplate(Boolean useTemplate) { this.useTemplate = useTemplate; }
+
+    public String getTemplateName() { return templateName; }
+    public void setTemplateName(String templateName) { this.templateName = templateName; }
+
+    public String getClientType() { return clientType; }
+    public void setClientType(String clientType) { this.clientType = clientType; }
+
+    public String getClientStatus() { return clientStatus; }
+    public void setClientStatus(String clientStatus) { this.clientStatus = clientStatus; }
+
+    public String getLeadSource() { return leadSource; }
+    public void setLeadSource(String leadSource) { this.leadSource = leadSource; }
+
+    public String getCity() { return city; }
+    public void setCity(String city) { this.city = city; }
+
+    public String getState() { return state; }
+    public void setState(String state) { this.state = state; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Integer getTotalRecipients() { return totalRecipients; }
+    public void setTotalRecipients(Integer totalRecipients) { this.totalRecipients = totalRecipients; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
+}
@@ -6,7 +6,10 @@ import jakarta.validation.constraints.NotBlank;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "clients")
+@Table(name = "clients", indexes = {
+    // Keyset paging newest first; scanned backwards
+    @Index(name = "idx_clients_created_at_id", columnList = "created_at, id")
+})
 public class Client {
     
     @Id
@@ -87,7 +90,8 @@ public class Client {
     @Column(name = "total_contact_count")
     private Integer totalContactCount;
     
-    @Column(name = "created_at")
+    // Never null: keyset paging orders and resumes on it
+    @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
     
     @Column(name = "updated_at")
@@ -95,8 +99,20 @@ public class Client {
     
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
-        updatedAt = LocalDateTime.now();
+        applyDefaults();
+    }
+    
+    /**
+     * Fill in what a new client gets when left empty. Also used by inserts that
+     * bypass JPA, so both paths store the same defaults. A creation date already
+     * set, e.g. an imported date added, is kept.
+     */
+    public void applyDefaults() {
+        LocalDateTime now = LocalDateTime.now();
+        if (createdAt == null) {
+            createdAt = now;
+        }
+        updatedAt = now;
         if (isActive == null) {
             isActive = true;
         }
@@ -5,7 +5,8 @@ import jakarta.validation.constraints.NotBlank;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "email_campaigns")
+@Table(name = "email_campaigns",
+    indexes = @Index(name = "idx_email_campaigns_status_scheduled", columnList = "status, scheduled_date"))
 public class EmailCampaign {
     
     @Id
@@ -7,8 +7,10 @@ import java.time.LocalDateTime;
 @Table(name = "email_logs")
 public class EmailLog {
     
+    // Pooled sequence rather than IDENTITY so EmailLogWriter's saveAll can be sent as JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "email_logs_seq")
+    @SequenceGenerator(name = "email_logs_seq", sequenceName = "email_logs_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne
@@ -0,0 +1,101 @@
+package com.realestate.sellerfunnel.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One recipient of a {@link CampaignSend}. Workers claim PENDING rows (or
+ * SENDING rows whose lease has expired), send them and mark them SENT,
+ * FAILED or SKIPPED, so a restarted or second instance picks up exactly the
+ * rows that are still outstanding. A row whose send failed goes back to
+ * PENDING but is not claimed again before {@code nextAttemptAt}.
+ */
+@Entity
+@Table(name = "campaign_outbox",
+    uniqueConstraints = @UniqueConstraint(name = "uk_campaign_outbox_recipient", columnNames = {"campaign_id", "client_id"}),
+    indexes = @Index(name = "idx_campaign_outbox_claim", columnList = "campaign_id, status, id"))
+public class OutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "campaign_outbox_seq")
+    @SequenceGenerator(name = "campaign_outbox_seq", sequenceName = "campaign_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "campaign_id", length = 36, nullable = false)
+    private String campaignId;
+
+    @Column(name = "client_id", nullable = false)
+    private Long clientId;
+
+    private String recipient;
+
+    private String status; // PENDING, SENDING, SENT, FAILED, SKIPPED
+
+    private Integer attempts = 0;
+
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (status == null) {
+            status = "PENDING";
+        }
+    }
+
+    // Constructors
+    public OutboxMessage() {}
+
+    public OutboxMessage(String campaignId, Long clientId, String recipient) {
+        this.campaignId = campaignId;
+        this.clientId = clientId;
+        this.recipient = recipient;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getCampaignId() { return campaignId; }
+    public void setCampaignId(String campaignId) { this.campaignId = campaignId; }
+
+    public Long getClientId() { return clientId; }
+    public void setClientId(Long clientId) { this.clientId = clientId; }
+
+    public String getRecipient() { return recipient; }
+    public void setRecipient(String recipient) { this.recipient = recipient; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Integer getAttempts() { return attempts; }
+    public void setAttempts(Integer attempts) { this.attempts = attempts; }
+
+    public LocalDateTime getLockedUntil() { return lockedUntil; }
+    public void setLockedUntil(LocalDateTime lockedUntil) { this.lockedUntil = lockedUntil; }
+
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public LocalDateTime getSentAt() { return sentAt; }
+    public void setSentAt(LocalDateTime sentAt) { this.sentAt = sentAt; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -8,6 +8,11 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "payments")
+@EntityListeners(PropertyChangePublisher.class)
+@NamedEntityGraph(name = "Payment.bookingRoomAndGuest",
+    attributeNodes = @NamedAttributeNode(value = "booking", subgraph = "booking"),
+    subgraphs = @NamedSubgraph(name = "booking",
+        attributeNodes = {@NamedAttributeNode("room"), @NamedAttributeNode("guest")}))
 public class Payment {
     
     @Id
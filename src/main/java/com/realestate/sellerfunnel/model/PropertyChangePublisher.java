@@ -0,0 +1,38 @@
+package com.realestate.sellerfunnel.model;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Entity listener on rooms, bookings and payments that publishes a
+ * {@link PropertyChangedEvent} for every write. Hibernate creates it through
+ * Spring, so the publisher is injected; where there is none it does nothing.
+ */
+public class PropertyChangePublisher {
+
+    @Autowired(required = false)
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void changed(Object entity) {
+        if (eventPublisher == null) {
+            return;
+        }
+        if (entity instanceof Room) {
+            eventPublisher.publishEvent(PropertyChangedEvent.room(((Room) entity).getId()));
+        } else if (entity instanceof Booking) {
+            eventPublisher.publishEvent(PropertyChangedEvent.booking(((Booking) entity).getId()));
+        } else if (entity instanceof Payment) {
+            // A payment moves its booking's balance and payment status
+            Booking booking = ((Payment) entity).getBooking();
+            if (booking != null) {
+                eventPublisher.publishEvent(PropertyChangedEvent.booking(booking.getId()));
+            }
+        }
+    }
+}
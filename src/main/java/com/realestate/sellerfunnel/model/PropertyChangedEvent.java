@@ -0,0 +1,27 @@
+package com.realestate.sellerfunnel.model;
+
+/**
+ * Published when a room, or a booking or one of its payments, is written.
+ * Exactly one of the ids is set.
+ */
+public class PropertyChangedEvent {
+
+    private final Long roomId;
+    private final Long bookingId;
+
+    private PropertyChangedEvent(Long roomId, Long bookingId) {
+        this.roomId = roomId;
+        this.bookingId = bookingId;
+    }
+
+    public static PropertyChangedEvent room(Long roomId) {
+        return new PropertyChangedEvent(roomId, null);
+    }
+
+    public static PropertyChangedEvent booking(Long bookingId) {
+        return new PropertyChangedEvent(null, bookingId);
+    }
+
+    public Long getRoomId() { return roomId; }
+    public Long getBookingId() { return bookingId; }
+}
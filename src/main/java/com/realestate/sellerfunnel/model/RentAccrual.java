@@ -0,0 +1,61 @@
+package com.realestate.sellerfunnel.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One rent period charged to a booking by the accrual run. A booking is next
+ * charged for a period starting at or after the latest {@code periodEnd}, so
+ * its charged periods never overlap, and the unique key keeps two runs at once
+ * from charging the same period twice.
+ */
+@Entity
+@Table(name = "rent_accruals",
+    uniqueConstraints = @UniqueConstraint(name = "uk_rent_accruals_period", columnNames = {"booking_id", "period_start"}),
+    indexes = @Index(name = "idx_rent_accruals_run", columnList = "run_id, booking_id"))
+public class RentAccrual {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+
+    @Column(name = "room_id", nullable = false)
+    private Long roomId;
+
+    @Column(name = "frequency", nullable = false)
+    private String frequency; // DAILY, WEEKLY, MONTHLY
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    @Column(name = "period_end", nullable = false)
+    private LocalDate periodEnd; // First day of the next period
+
+    @Column(name = "amount", nullable = false)
+    private BigDecimal amount;
+
+    @Column(name = "run_id", length = 36, nullable = false)
+    private String runId;
+
+    @Column(name = "accrued_at")
+    private LocalDateTime accruedAt;
+
+    // Constructors
+    public RentAccrual() {}
+
+    // Getters
+    public Long getId() { return id; }
+    public Long getBookingId() { return bookingId; }
+    public Long getRoomId() { return roomId; }
+    public String getFrequency() { return frequency; }
+    public LocalDate getPeriodStart() { return periodStart; }
+    public LocalDate getPeriodEnd() { return periodEnd; }
+    public BigDecimal getAmount() { return amount; }
+    public String getRunId() { return runId; }
+    public LocalDateTime getAccruedAt() { return accruedAt; }
+}
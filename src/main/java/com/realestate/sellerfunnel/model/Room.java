@@ -10,6 +10,8 @@ import java.util.List;
 
 @Entity
 @Table(name = "rooms")
+@EntityListeners(PropertyChangePublisher.class)
+@NamedEntityGraph(name = "Room.transactions", attributeNodes = @NamedAttributeNode("transactions"))
 public class Room {
     
     @Id
@@ -61,7 +63,8 @@ public class Room {
     @JsonIgnoreProperties("room")
     private List<Transaction> transactions = new ArrayList<>();
 
-    @Column(name = "balance")
+    // Kept by TransactionService with atomic SQL; never written back from a loaded room
+    @Column(name = "balance", updatable = false)
     private BigDecimal balance = BigDecimal.ZERO;
     
     @PrePersist
@@ -155,6 +158,13 @@ public class Room {
     
     // Helper methods
     public String getDisplayName() {
+        return displayName(roomNumber, roomName);
+    }
+    
+    /**
+     * The room number, followed by the friendly name when there is one.
+     */
+    public static String displayName(String roomNumber, String roomName) {
         if (roomName != null && !roomName.trim().isEmpty()) {
             return roomNumber + " - " + roomName;
         }
@@ -171,20 +181,4 @@ public class Room {
         }
         return "Not Assigned";
     }
-
-    public void addTransaction(Transaction transaction) {
-        transactions.add(transaction);
-        transaction.setRoom(this);
-        calculateBalance();
-    }
-
-    public void calculateBalance() {
-        if (transactions == null) {
-            this.balance = BigDecimal.ZERO;
-            return;
-        }
-        this.balance = transactions.stream()
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-    }
 }
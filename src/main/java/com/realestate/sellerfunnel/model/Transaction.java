@@ -6,7 +6,11 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+    @Index(name = "idx_transactions_created_at", columnList = "created_at"),
+    @Index(name = "idx_transactions_room_created_at", columnList = "room_id, created_at")
+})
+@NamedEntityGraph(name = "Transaction.room", attributeNodes = @NamedAttributeNode("room"))
 public class Transaction {
 
     @Id
@@ -0,0 +1,35 @@
+package com.realestate.sellerfunnel.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The fields of a booking the property dashboard shows or counts, with its
+ * room and guest names, read as a flat projection.
+ */
+public interface BookingDashboardRow {
+
+    Long getId();
+
+    Long getRoomId();
+
+    String getRoomNumber();
+
+    String getRoomName();
+
+    String getGuestFirstName();
+
+    String getGuestLastName();
+
+    LocalDateTime getCheckInDate();
+
+    String getBookingStatus();
+
+    String getPaymentStatus();
+
+    BigDecimal getCurrentBalance();
+
+    Boolean getActive();
+
+    LocalDateTime getCreatedAt();
+}
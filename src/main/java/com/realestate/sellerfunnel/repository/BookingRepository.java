@@ -3,24 +3,47 @@ package com.realestate.sellerfunnel.repository;
 import com.realestate.sellerfunnel.model.Booking;
 import com.realestate.sellerfunnel.model.Room;
 import com.realestate.sellerfunnel.model.Guest;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
     
+    // List views show each booking's room and guest, so those are loaded in the same select
+    @EntityGraph("Booking.roomAndGuest")
     List<Booking> findByIsActiveTrueOrderByCreatedAtDesc();
     
+    @EntityGraph("Booking.roomAndGuest")
+    Optional<Booking> findWithRoomAndGuestById(Long id);
+    
+    String DASHBOARD_ROW = "SELECT b.id AS id, r.id AS roomId, r.roomNumber AS roomNumber, r.roomName AS roomName, " +
+        "g.firstName AS guestFirstName, g.lastName AS guestLastName, b.checkInDate AS checkInDate, " +
+        "b.bookingStatus AS bookingStatus, b.paymentStatus AS paymentStatus, b.currentBalance AS currentBalance, " +
+        "b.isActive AS active, b.createdAt AS createdAt FROM Booking b JOIN b.room r JOIN b.guest g ";
+    
+    // Every active booking as the property dashboard sees it
+    @Query(DASHBOARD_ROW + "WHERE b.isActive = true")
+    List<BookingDashboardRow> findActiveDashboardRows();
+    
+    // The given bookings, active or not, to refresh the property dashboard after they change
+    @Query(DASHBOARD_ROW + "WHERE b.id IN :ids")
+    List<BookingDashboardRow> findDashboardRowsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @EntityGraph("Booking.roomAndGuest")
     List<Booking> findByRoomAndIsActiveTrueOrderByCreatedAtDesc(Room room);
     
+    @EntityGraph("Booking.roomAndGuest")
     List<Booking> findByGuestAndIsActiveTrueOrderByCreatedAtDesc(Guest guest);
     
+    @EntityGraph("Booking.roomAndGuest")
     List<Booking> findByBookingStatusAndIsActiveTrue(String bookingStatus);
     
     List<Booking> findByPaymentStatusAndIsActiveTrue(String paymentStatus);
@@ -30,6 +53,7 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     @Query("SELECT b FROM Booking b WHERE b.isActive = true AND b.bookingStatus = 'ACTIVE' ORDER BY b.checkInDate ASC")
     List<Booking> findActiveBookings();
     
+    @EntityGraph("Booking.roomAndGuest")
     @Query("SELECT b FROM Booking b WHERE b.isActive = true AND b.bookingStatus = 'ACTIVE' AND b.guest = :guest")
     List<Booking> findActiveBookingsByGuest(@Param("guest") Guest guest);
     
@@ -48,6 +72,7 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     @Query("SELECT b FROM Booking b WHERE b.isActive = true AND b.paymentFrequency = :frequency")
     List<Booking> findByPaymentFrequency(@Param("frequency") String frequency);
     
+    @EntityGraph("Booking.roomAndGuest")
     @Query("SELECT b FROM Booking b WHERE b.isActive = true AND (b.guest.firstName LIKE %:searchTerm% OR b.guest.lastName LIKE %:searchTerm% OR b.guest.email LIKE %:searchTerm% OR b.room.roomNumber LIKE %:searchTerm%)")
     List<Booking> findBySearchTerm(@Param("searchTerm") String searchTerm);
     
@@ -87,6 +112,7 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     @Query("SELECT b FROM Booking b WHERE b.isActive = true AND b.checkInDate <= :date AND b.checkOutDate IS NULL AND b.bookingStatus = 'ACTIVE'")
     List<Booking> findExtendedStayBookings(@Param("date") LocalDateTime date);
     
+    @EntityGraph("Booking.roomAndGuest")
     @Query("SELECT b FROM Booking b WHERE b.room = :room AND b.isActive = true AND b.bookingStatus = 'ACTIVE'")
     Optional<Booking> findActiveBookingByRoom(@Param("room") Room room);
 }
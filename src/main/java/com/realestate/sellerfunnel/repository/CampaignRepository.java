@@ -12,6 +12,8 @@ public interface CampaignRepository extends JpaRepository<Campaign, Long> {
     
     List<Campaign> findAllByOrderByCreatedAtDesc();
     
+    List<Campaign> findTop10ByOrderByCreatedAtDesc();
+    
     List<Campaign> findByStatusOrderByCreatedAtDesc(String status);
     
     List<Campaign> findByTypeOrderByCreatedAtDesc(String type);
@@ -30,5 +32,13 @@ public interface CampaignRepository extends JpaRepository<Campaign, Long> {
     @Query("SELECT SUM(c.leads) FROM Campaign c WHERE c.createdAt >= :startDate AND c.createdAt <= :endDate")
     Integer getTotalLeadsByDateRange(LocalDateTime startDate, LocalDateTime endDate);
     
+    // Dashboard tiles in one pass: campaign counts plus spend and leads of campaigns created in the period
+    @Query("SELECT COUNT(c) AS total, " +
+           "SUM(CASE WHEN c.status = 'ACTIVE' AND c.endDate > :now THEN 1 ELSE 0 END) AS active, " +
+           "SUM(CASE WHEN c.createdAt >= :startDate AND c.createdAt <= :endDate THEN c.cost ELSE 0 END) AS periodSpend, " +
+           "SUM(CASE WHEN c.createdAt >= :startDate AND c.createdAt <= :endDate THEN c.leads ELSE 0 END) AS periodLeads " +
+           "FROM Campaign c")
+    CampaignTileCounts countTiles(LocalDateTime now, LocalDateTime startDate, LocalDateTime endDate);
+    
     List<Campaign> findByNameIgnoreCase(String name);
 }
\ No newline at end of file
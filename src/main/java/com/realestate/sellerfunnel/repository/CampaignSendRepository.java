@@ -0,0 +1,43 @@
+package com.realestate.sellerfunnel.repository;
+
+import com.realestate.sellerfunnel.model.CampaignSend;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CampaignSendRepository extends JpaRepository<CampaignSend, String> {
+    
+    // Find campaigns in a given state, e.g. PROCESSING sends to resume
+    List<CampaignSend> findByStatus(String status);
+    
+    // Find campaigns whose recipient list was still being built when last touched before the cutoff
+    List<CampaignSend> findByStatusAndUpdatedAtBefore(String status, LocalDateTime cutoff);
+    
+    // Move a campaign between states only if it is still in the expected one
+    @Modifying
+    @Transactional
+    @Query("UPDATE CampaignSend c SET c.status = :newStatus, c.updatedAt = :now, " +
+           "c.completedAt = CASE WHEN :newStatus IN ('COMPLETED', 'FAILED') THEN :now ELSE c.completedAt END " +
+           "WHERE c.id = :id AND c.status = :expectedStatus")
+    int transition(@Param("id") String id, @Param("expectedStatus") String expectedStatus,
+                   @Param("newStatus") String newStatus, @Param("now") LocalDateTime now);
+    
+    // Take over a campaign whose recipient list stopped being built, e.g. because its node crashed
+    @Modifying
+    @Transactional
+    @Query("UPDATE CampaignSend c SET c.updatedAt = :now WHERE c.id = :id AND c.status = 'PREPARING' AND c.updatedAt < :cutoff")
+    int claimStalePreparing(@Param("id") String id, @Param("cutoff") LocalDateTime cutoff, @Param("now") LocalDateTime now);
+    
+    // Record that a campaign is still being worked on
+    @Modifying
+    @Transactional
+    @Query("UPDATE CampaignSend c SET c.updatedAt = :now WHERE c.id = :id")
+    int touch(@Param("id") String id, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,18 @@
+package com.realestate.sellerfunnel.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Campaign counts and this period's spend and leads for the marketing
+ * dashboard, read in one aggregate query. Sums are null when there are no campaigns.
+ */
+public interface CampaignTileCounts {
+
+    Long getTotal();
+
+    Long getActive();
+
+    BigDecimal getPeriodSpend();
+
+    Long getPeriodLeads();
+}
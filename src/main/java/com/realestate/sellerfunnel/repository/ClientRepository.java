@@ -1,17 +1,22 @@
 package com.realestate.sellerfunnel.repository;
 
 import com.realestate.sellerfunnel.model.Client;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ClientRepository extends JpaRepository<Client, Long> {
+public interface ClientRepository extends JpaRepository<Client, Long>, JpaSpecificationExecutor<Client> {
     
     // Find by email
     Optional<Client> findByEmail(String email);
@@ -64,10 +69,6 @@ public interface ClientRepository extends JpaRepository<Client, Long> {
     // Find clients by company name
     List<Client> findByCompanyNameContainingIgnoreCaseOrderByCreatedAtDesc(String companyName);
     
-    // Find clients by name (first or last name)
-    @Query("SELECT c FROM Client c WHERE LOWER(c.firstName) LIKE LOWER(CONCAT('%', :name, '%')) OR LOWER(c.lastName) LIKE LOWER(CONCAT('%', :name, '%')) ORDER BY c.createdAt DESC")
-    List<Client> findByNameContainingIgnoreCase(@Param("name") String name);
-    
     // Enhanced search by multiple criteria
     @Query("SELECT c FROM Client c WHERE " +
            "(:firstName IS NULL OR LOWER(c.firstName) LIKE LOWER(CONCAT('%', :firstName, '%'))) AND " +
@@ -141,10 +142,18 @@ public interface ClientRepository extends JpaRepository<Client, Long> {
     @Query("SELECT c.email, COUNT(c) FROM Client c GROUP BY c.email HAVING COUNT(c) > 1")
     List<Object[]> findDuplicateEmails();
     
+    // Of the given lower-cased emails, return those already on file; one query per import batch
+    @Query("SELECT DISTINCT LOWER(c.email) FROM Client c WHERE LOWER(c.email) IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+    
     // Find clients with no recent contact
     @Query("SELECT c FROM Client c WHERE c.lastContactDate IS NULL OR c.lastContactDate <= :date ORDER BY c.lastContactDate ASC NULLS FIRST")
     List<Client> findClientsNeedingContact(@Param("date") LocalDateTime date);
     
+    // The first clients needing contact, for dashboards that only show a few
+    @Query("SELECT c FROM Client c WHERE c.lastContactDate IS NULL OR c.lastContactDate <= :date ORDER BY c.lastContactDate ASC NULLS FIRST")
+    List<Client> findClientsNeedingContact(@Param("date") LocalDateTime date, Pageable pageable);
+    
     // Find clients by contact date range
     @Query("SELECT c FROM Client c WHERE c.lastContactDate BETWEEN :startDate AND :endDate ORDER BY c.lastContactDate DESC")
     List<Client> findByContactDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
@@ -153,6 +162,9 @@ public interface ClientRepository extends JpaRepository<Client, Long> {
     @Query("SELECT c FROM Client c WHERE c.totalContactCount > 0 ORDER BY c.totalContactCount DESC")
     List<Client> findTopContactedClients();
     
+    @Query("SELECT c FROM Client c WHERE c.totalContactCount > 0 ORDER BY c.totalContactCount DESC")
+    List<Client> findTopContactedClients(Pageable pageable);
+    
     // Find clients by email contact count
     @Query("SELECT c FROM Client c WHERE c.emailContactCount >= :minEmails ORDER BY c.emailContactCount DESC")
     List<Client> findByEmailContactCount(@Param("minEmails") Integer minEmails);
@@ -163,4 +175,30 @@ public interface ClientRepository extends JpaRepository<Client, Long> {
     
     // Count active clients
     long countByIsActiveTrue();
+    
+    // Every dashboard tile count in one pass over the table
+    @Query("SELECT COUNT(c) AS total, " +
+           "SUM(CASE WHEN c.isActive = true THEN 1 ELSE 0 END) AS active, " +
+           "SUM(CASE WHEN c.isActive = true AND c.emailOptedIn = true THEN 1 ELSE 0 END) AS emailOptedIn, " +
+           "SUM(CASE WHEN c.isActive = true AND c.smsOptedIn = true THEN 1 ELSE 0 END) AS smsOptedIn, " +
+           "SUM(CASE WHEN c.lastContactDate IS NULL OR c.lastContactDate <= :contactedBefore THEN 1 ELSE 0 END) AS needingContact, " +
+           "SUM(CASE WHEN c.totalContactCount > 0 THEN 1 ELSE 0 END) AS contacted " +
+           "FROM Client c")
+    ClientTileCounts countTiles(@Param("contactedBefore") LocalDateTime contactedBefore);
+    
+    // Record one email contact for each client, in a single statement per chunk of a campaign
+    @Modifying
+    @Transactional
+    @Query("UPDATE Client c SET c.emailContactCount = COALESCE(c.emailContactCount, 0) + 1, " +
+           "c.totalContactCount = COALESCE(c.totalContactCount, 0) + 1, " +
+           "c.lastContactDate = :contactedAt, c.updatedAt = :contactedAt WHERE c.id IN :ids")
+    int incrementEmailContacts(@Param("ids") Collection<Long> ids, @Param("contactedAt") LocalDateTime contactedAt);
+    
+    // Record one SMS contact for each client, in a single statement per chunk of a campaign
+    @Modifying
+    @Transactional
+    @Query("UPDATE Client c SET c.smsContactCount = COALESCE(c.smsContactCount, 0) + 1, " +
+           "c.totalContactCount = COALESCE(c.totalContactCount, 0) + 1, " +
+           "c.lastContactDate = :contactedAt, c.updatedAt = :contactedAt WHERE c.id IN :ids")
+    int incrementSmsContacts(@Param("ids") Collection<Long> ids, @Param("contactedAt") LocalDateTime contactedAt);
 } 
\ No newline at end of file
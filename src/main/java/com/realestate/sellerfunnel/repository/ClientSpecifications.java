@@ -0,0 +1,144 @@
+package com.realestate.sellerfunnel.repository;
+
+import com.realestate.sellerfunnel.model.Client;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reusable query conditions for {@link ClientRepository}. Blank filter values
+ * mean "no filter" and produce a condition that matches every row.
+ */
+public final class ClientSpecifications {
+
+    private ClientSpecifications() {
+    }
+
+    public static Specification<Client> isActive() {
+        return (root, query, cb) -> cb.isTrue(root.get("isActive"));
+    }
+
+    public static Specification<Client> emailOptedIn() {
+        return (root, query, cb) -> cb.isTrue(root.get("emailOptedIn"));
+    }
+
+    public static Specification<Client> smsOptedIn() {
+        return (root, query, cb) -> cb.isTrue(root.get("smsOptedIn"));
+    }
+
+    public static Specification<Client> hasEmail() {
+        return notBlank("email");
+    }
+
+    public static Specification<Client> hasPhoneNumber() {
+        return notBlank("phoneNumber");
+    }
+
+    public static Specification<Client> hasClientType(String clientType) {
+        return equalTo("clientType", clientType);
+    }
+
+    public static Specification<Client> hasClientStatus(String clientStatus) {
+        return equalTo("clientStatus", clientStatus);
+    }
+
+    public static Specification<Client> hasLeadSource(String leadSource) {
+        return equalTo("leadSource", leadSource);
+    }
+
+    public static Specification<Client> inCity(String city) {
+        return equalTo("city", city);
+    }
+
+    public static Specification<Client> inState(String state) {
+        return equalTo("state", state);
+    }
+
+    /**
+     * Target audience of an automated campaign: "ALL" or blank matches everyone,
+     * anything else is a client type.
+     */
+    public static Specification<Client> inAudience(String targetAudience) {
+        if ("ALL".equals(targetAudience)) {
+            return matchAll();
+        }
+        return hasClientType(targetAudience);
+    }
+
+    /**
+     * Active, email opted-in clients matching the automated campaign filters.
+     */
+    public static Specification<Client> emailAudience(String targetAudience, String clientTypeFilter,
+                                                      String leadSourceFilter) {
+        return isActive()
+            .and(emailOptedIn())
+            .and(inAudience(targetAudience))
+            .and(hasClientType(clientTypeFilter))
+            .and(hasLeadSource(leadSourceFilter));
+    }
+
+    /**
+     * Filters of the email and SMS campaign forms, matching what findByFilters selects.
+     */
+    public static Specification<Client> campaignFilters(String clientType, String clientStatus, String leadSource,
+                                                        String city, String state) {
+        return isActive()
+            .and(emailOptedIn())
+            .and(hasClientType(clientType))
+            .and(hasClientStatus(clientStatus))
+            .and(hasLeadSource(leadSource))
+            .and(inCity(city))
+            .and(inState(state));
+    }
+
+    /**
+     * Rows after the given id, for keyset paging in id order.
+     */
+    public static Specification<Client> idGreaterThan(Long id) {
+        if (id == null) {
+            return matchAll();
+        }
+        return (root, query, cb) -> cb.greaterThan(root.get("id"), id);
+    }
+
+    /**
+     * Rows after the given one in newest-first order, for keyset paging on (createdAt, id).
+     */
+    public static Specification<Client> olderThan(LocalDateTime createdAt, Long id) {
+        return (root, query, cb) -> cb.or(
+            cb.lessThan(root.get("createdAt"), createdAt),
+            cb.and(cb.equal(root.get("createdAt"), createdAt), cb.lessThan(root.get("id"), id)));
+    }
+
+    /**
+     * Name, email or phone number containing the text, ignoring case.
+     */
+    public static Specification<Client> containsText(String text) {
+        if (text == null || text.isBlank()) {
+            return matchAll();
+        }
+        String pattern = "%" + text.trim().toLowerCase() + "%";
+        return (root, query, cb) -> cb.or(
+            cb.like(cb.lower(root.get("firstName")), pattern),
+            cb.like(cb.lower(root.get("lastName")), pattern),
+            cb.like(cb.lower(root.get("email")), pattern),
+            cb.like(root.get("phoneNumber"), pattern));
+    }
+
+    private static Specification<Client> equalTo(String attribute, String value) {
+        if (value == null || value.isEmpty()) {
+            return matchAll();
+        }
+        return (root, query, cb) -> cb.equal(root.get(attribute), value);
+    }
+
+    private static Specification<Client> notBlank(String attribute) {
+        return (root, query, cb) -> cb.and(
+            cb.isNotNull(root.get(attribute)),
+            cb.notEqual(cb.trim(root.get(attribute)), ""));
+    }
+
+    private static Specification<Client> matchAll() {
+        return (root, query, cb) -> cb.conjunction();
+    }
+}
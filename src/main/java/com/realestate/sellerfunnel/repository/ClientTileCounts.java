@@ -0,0 +1,20 @@
+package com.realestate.sellerfunnel.repository;
+
+/**
+ * Client counts for the dashboard tiles, read in one aggregate query.
+ * Sums are null when there are no clients.
+ */
+public interface ClientTileCounts {
+
+    Long getTotal();
+
+    Long getActive();
+
+    Long getEmailOptedIn();
+
+    Long getSmsOptedIn();
+
+    Long getNeedingContact();
+
+    Long getContacted();
+}
@@ -1,12 +1,16 @@
 package com.realestate.sellerfunnel.repository;
 
 import com.realestate.sellerfunnel.model.EmailCampaign;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -22,6 +26,30 @@ public interface EmailCampaignRepository extends JpaRepository<EmailCampaign, Lo
     @Query("SELECT ec FROM EmailCampaign ec WHERE ec.status = 'SCHEDULED' AND ec.scheduledDate <= :now ORDER BY ec.scheduledDate ASC")
     List<EmailCampaign> findScheduledCampaignsReadyToSend(@Param("now") LocalDateTime now);
     
+    // Ids of scheduled campaigns that are due, oldest first; served by idx_email_campaigns_status_scheduled
+    @Query("SELECT ec.id FROM EmailCampaign ec WHERE ec.status = 'SCHEDULED' AND ec.scheduledDate <= :now ORDER BY ec.scheduledDate ASC")
+    List<Long> findDueScheduledCampaignIds(@Param("now") LocalDateTime now, Pageable pageable);
+    
+    // Move a due campaign from SCHEDULED to SENDING; returns 0 if another node already took it
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailCampaign ec SET ec.status = 'SENDING', ec.updatedAt = :now WHERE ec.id = :id AND ec.status = 'SCHEDULED'")
+    int claimScheduledCampaign(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    // Keep claims alive for campaigns this node is still sending
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailCampaign ec SET ec.updatedAt = :now WHERE ec.id IN :ids AND ec.status = 'SENDING'")
+    int touchSendingCampaigns(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+    
+    // Fail scheduled campaigns whose sending node stopped keeping its claim alive
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailCampaign ec SET ec.status = 'FAILED', ec.updatedAt = :now, " +
+           "ec.notes = CONCAT(COALESCE(ec.notes, ''), ' Sending was interrupted; check who received it before rescheduling.') " +
+           "WHERE ec.status = 'SENDING' AND ec.isScheduled = true AND ec.updatedAt < :cutoff")
+    int failStaleSendingCampaigns(@Param("cutoff") LocalDateTime cutoff, @Param("now") LocalDateTime now);
+    
     // Find campaigns by target audience
     List<EmailCampaign> findByTargetAudienceOrderByCreatedAtDesc(String targetAudience);
     
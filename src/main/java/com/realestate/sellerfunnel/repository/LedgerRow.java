@@ -0,0 +1,35 @@
+package com.realestate.sellerfunnel.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One ledger line with its room's number and name, read as a flat projection
+ * so exports load neither transactions nor rooms as entities.
+ */
+public interface LedgerRow {
+
+    LocalDateTime getCreatedAt();
+
+    String getRoomNumber();
+
+    String getRoomName();
+
+    String getDescription();
+
+    String getTransactionType();
+
+    String getTransactionCategory();
+
+    BigDecimal getAmount();
+
+    BigDecimal getRunningBalance();
+
+    String getPaidBy();
+
+    String getCollectedBy();
+
+    String getReferenceNumber();
+
+    String getNotes();
+}
@@ -0,0 +1,66 @@
+package com.realestate.sellerfunnel.repository;
+
+import com.realestate.sellerfunnel.model.OutboxMessage;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+    
+    // Lock the next claimable rows of a campaign, leaving failed rows whose retry is not yet due.
+    // Lock timeout -2 is Hibernate's SKIP LOCKED, so concurrent workers get disjoint rows
+    // instead of waiting on each other.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT m FROM OutboxMessage m WHERE m.campaignId = :campaignId AND " +
+           "((m.status = 'PENDING' AND (m.nextAttemptAt IS NULL OR m.nextAttemptAt <= :now)) " +
+           "OR (m.status = 'SENDING' AND m.lockedUntil < :now)) ORDER BY m.id")
+    List<OutboxMessage> lockClaimable(@Param("campaignId") String campaignId,
+                                      @Param("now") LocalDateTime now,
+                                      Pageable pageable);
+    
+    // Highest client already queued, so building the recipient list can continue after a crash
+    @Query("SELECT MAX(m.clientId) FROM OutboxMessage m WHERE m.campaignId = :campaignId")
+    Long findMaxClientId(@Param("campaignId") String campaignId);
+    
+    long countByCampaignId(String campaignId);
+    
+    // Rows still waiting to be sent or in flight
+    @Query("SELECT COUNT(m) FROM OutboxMessage m WHERE m.campaignId = :campaignId AND m.status IN ('PENDING', 'SENDING')")
+    long countOutstanding(@Param("campaignId") String campaignId);
+    
+    // Count rows by status for progress reporting
+    @Query("SELECT m.status, COUNT(m) FROM OutboxMessage m WHERE m.campaignId = :campaignId GROUP BY m.status")
+    List<Object[]> countByStatus(@Param("campaignId") String campaignId);
+    
+    // Latest errors for progress reporting
+    List<OutboxMessage> findTop10ByCampaignIdAndLastErrorIsNotNullOrderByIdDesc(String campaignId);
+    
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = 'SENT', m.sentAt = :now, m.lockedUntil = NULL, m.lastError = NULL " +
+           "WHERE m.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = :status, m.lockedUntil = NULL, m.lastError = :error WHERE m.id = :id")
+    int markFinished(@Param("id") Long id, @Param("status") String status, @Param("error") String error);
+    
+    // Return a failed row to the queue, not to be claimed before nextAttemptAt
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = 'PENDING', m.lockedUntil = NULL, m.lastError = :error, " +
+           "m.nextAttemptAt = :nextAttemptAt WHERE m.id = :id")
+    int markRetry(@Param("id") Long id, @Param("error") String error,
+                  @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+}
@@ -1,6 +1,7 @@
 package com.realestate.sellerfunnel.repository;
 
 import com.realestate.sellerfunnel.model.Payment;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -16,10 +17,12 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     // Find payments by booking
     List<Payment> findByBookingIdAndIsActiveTrueOrderByCreatedAtDesc(Long bookingId);
     
-    // Find payments by status
+    // Find payments by status; like the other payments list queries, the booking's room and guest come in the same select
+    @EntityGraph("Payment.bookingRoomAndGuest")
     List<Payment> findByPaymentStatusAndIsActiveTrue(String paymentStatus);
     
     // Find payments by payment method
+    @EntityGraph("Payment.bookingRoomAndGuest")
     List<Payment> findByPaymentMethodAndIsActiveTrue(String paymentMethod);
     
     // Find payments by device type
@@ -65,12 +68,14 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     BigDecimal sumCompletedUppPayments();
     
     // Find recent payments
+    @EntityGraph("Payment.bookingRoomAndGuest")
     List<Payment> findTop10ByIsActiveTrueOrderByCreatedAtDesc();
     
     // Find failed payments
     List<Payment> findByPaymentStatusAndIsActiveTrueOrderByCreatedAtDesc(String paymentStatus);
     
     // Search payments by description
+    @EntityGraph("Payment.bookingRoomAndGuest")
     @Query("SELECT p FROM Payment p WHERE p.description LIKE %:searchTerm% AND p.isActive = true ORDER BY p.createdAt DESC")
     List<Payment> searchByDescription(@Param("searchTerm") String searchTerm);
     
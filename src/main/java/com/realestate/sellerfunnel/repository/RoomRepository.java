@@ -1,10 +1,12 @@
 package com.realestate.sellerfunnel.repository;
 
 import com.realestate.sellerfunnel.model.Room;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +21,10 @@ public interface RoomRepository extends JpaRepository<Room, Long> {
     
     Optional<Room> findByRoomNumber(String roomNumber);
     
+    // The room page lists the room's ledger, loaded with the room
+    @EntityGraph("Room.transactions")
+    Optional<Room> findWithTransactionsById(Long id);
+    
     List<Room> findByRoomTypeAndIsActiveTrue(String roomType);
     
     List<Room> findByGateKeyAssignedTrueAndIsActiveTrue();
@@ -26,6 +32,13 @@ public interface RoomRepository extends JpaRepository<Room, Long> {
     @Query("SELECT r FROM Room r WHERE r.isActive = true AND (r.roomNumber LIKE %:searchTerm% OR r.roomName LIKE %:searchTerm% OR r.roomType LIKE %:searchTerm%)")
     List<Room> findBySearchTerm(@Param("searchTerm") String searchTerm);
     
+    // id, isActive and isVacant of every room, for the property dashboard counters
+    @Query("SELECT r.id, r.isActive, r.isVacant FROM Room r")
+    List<Object[]> findOccupancy();
+    
+    @Query("SELECT r.id, r.isActive, r.isVacant FROM Room r WHERE r.id IN :ids")
+    List<Object[]> findOccupancyByIdIn(@Param("ids") Collection<Long> ids);
+    
     @Query("SELECT COUNT(r) FROM Room r WHERE r.isVacant = true AND r.isActive = true")
     Long countVacantRooms();
     
@@ -1,16 +1,23 @@
 package com.realestate.sellerfunnel.repository;
 
 import com.realestate.sellerfunnel.model.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 
+    // Ledger views show each line's room, so it is loaded in the same select
+    @EntityGraph("Transaction.room")
     java.util.List<Transaction> findTop50ByOrderByCreatedAtDesc();
 
+    @EntityGraph("Transaction.room")
     java.util.List<Transaction> findByRoomIdOrderByCreatedAtDesc(Long roomId);
     
     java.util.List<Transaction> findByRoomIdOrderByCreatedAtAsc(Long roomId);
@@ -23,10 +30,31 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
 
     java.util.List<Transaction> findByTransactionCategoryOrderByCreatedAtDesc(String transactionCategory);
 
+    @EntityGraph("Transaction.room")
     @Query("SELECT t FROM Transaction t WHERE t.createdAt BETWEEN :start AND :end ORDER BY t.createdAt DESC")
     java.util.List<Transaction> findByDateRange(@Param("start") java.time.LocalDateTime start,
                                                @Param("end") java.time.LocalDateTime end);
 
+    /**
+     * Ledger lines between two instants, newest first, optionally for one room. The
+     * room is joined into the row, and rows are fetched from the database in chunks
+     * as the stream is read; it must be consumed and closed inside a transaction.
+     */
+    @Query("SELECT t.createdAt AS createdAt, r.roomNumber AS roomNumber, r.roomName AS roomName, "
+         + "t.description AS description, t.transactionType AS transactionType, "
+         + "t.transactionCategory AS transactionCategory, t.amount AS amount, t.runningBalance AS runningBalance, "
+         + "t.paidBy AS paidBy, t.collectedBy AS collectedBy, t.referenceNumber AS referenceNumber, t.notes AS notes "
+         + "FROM Transaction t JOIN t.room r "
+         + "WHERE (:roomId IS NULL OR r.id = :roomId) AND t.createdAt BETWEEN :start AND :end "
+         + "ORDER BY t.createdAt DESC")
+    @QueryHints({
+        @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    java.util.stream.Stream<LedgerRow> streamLedger(@Param("roomId") Long roomId,
+                                                    @Param("start") java.time.LocalDateTime start,
+                                                    @Param("end") java.time.LocalDateTime end);
+
     @Query("SELECT SUM(t.amount) FROM Transaction t WHERE t.transactionType = 'PAYMENT'")
     java.math.BigDecimal getTotalPayments();
 
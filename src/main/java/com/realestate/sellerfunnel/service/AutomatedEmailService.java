@@ -5,7 +5,13 @@ import com.realestate.sellerfunnel.model.Client;
 import com.realestate.sellerfunnel.model.AIGeneratedContent;
 import com.realestate.sellerfunnel.repository.EmailCampaignRepository;
 import com.realestate.sellerfunnel.repository.ClientRepository;
+import com.realestate.sellerfunnel.repository.ClientSpecifications;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
@@ -15,6 +21,12 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 
 @Service
 public class AutomatedEmailService {
@@ -33,6 +45,26 @@ public class AutomatedEmailService {
     @Autowired
     private ClientRepository clientRepository;
     
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
+    
+    @Value("${app.email.scheduled.max-concurrent-campaigns:3}")
+    private int maxConcurrentCampaigns = 3;
+    
+    @Value("${app.email.scheduled.stale-claim-minutes:10}")
+    private int staleClaimMinutes = 10;
+    
+    // Scheduled campaigns this node is sending right now
+    private Semaphore dispatchSlots;
+    
+    private final Set<Long> sendingCampaignIds = ConcurrentHashMap.newKeySet();
+    
+    @PostConstruct
+    public void initDispatchSlots() {
+        dispatchSlots = new Semaphore(Math.max(1, maxConcurrentCampaigns));
+    }
+    
     /**
      * Schedule an email campaign with AI-generated content
      */
@@ -80,8 +112,7 @@ public class AutomatedEmailService {
                             ", Body ID: " + bodyContent.getId());
             
             // Get estimated recipient count
-            List<Client> targetClients = getTargetClients(targetAudience, clientTypeFilter, leadSourceFilter);
-            campaign.setTotalRecipients(targetClients.size());
+            campaign.setTotalRecipients((int) countTargetClients(targetAudience, clientTypeFilter, leadSourceFilter));
             
             return emailCampaignRepository.save(campaign);
             
@@ -199,21 +230,76 @@ public class AutomatedEmailService {
     @Scheduled(fixedRate = 60000) // Every minute
     public void processScheduledEmails() {
         try {
-            List<EmailCampaign> scheduledCampaigns = emailCampaignRepository
-                .findByStatusOrderByCreatedAtDesc("SCHEDULED");
-            // Filter for campaigns that should be sent now
-            scheduledCampaigns = scheduledCampaigns.stream()
-                .filter(c -> c.getScheduledDate() != null && c.getScheduledDate().isBefore(LocalDateTime.now()))
-                .collect(java.util.stream.Collectors.toList());
-            
-            for (EmailCampaign campaign : scheduledCampaigns) {
-                processScheduledCampaign(campaign);
+            recoverClaims();
+            
+            int available = dispatchSlots.availablePermits();
+            if (available == 0) {
+                return;
+            }
+            
+            // Only due rows are read, and no more than can start now; the rest wait for the next run
+            List<Long> dueIds = emailCampaignRepository.findDueScheduledCampaignIds(
+                LocalDateTime.now(), PageRequest.of(0, available));
+            
+            for (Long campaignId : dueIds) {
+                if (!dispatchSlots.tryAcquire()) {
+                    break;
+                }
+                if (!dispatch(campaignId)) {
+                    dispatchSlots.release();
+                }
             }
         } catch (Exception e) {
             logger.error("Error processing scheduled emails: {}", e.getMessage());
         }
     }
     
+    /**
+     * Refresh the claims on campaigns this node is sending, and fail scheduled
+     * campaigns left SENDING by a node that stopped refreshing its claims, e.g.
+     * because it died mid-send. They are not resent: the recipients already
+     * sent to are not recorded, so a resend would reach them twice.
+     */
+    private void recoverClaims() {
+        LocalDateTime now = LocalDateTime.now();
+        if (!sendingCampaignIds.isEmpty()) {
+            emailCampaignRepository.touchSendingCampaigns(List.copyOf(sendingCampaignIds), now);
+        }
+        int failed = emailCampaignRepository.failStaleSendingCampaigns(now.minusMinutes(staleClaimMinutes), now);
+        if (failed > 0) {
+            logger.warn("Marked {} interrupted scheduled campaign(s) as failed", failed);
+        }
+    }
+    
+    /**
+     * Claim a due campaign and send it in the background. Returns false if
+     * another node claimed it first.
+     */
+    private boolean dispatch(Long campaignId) {
+        if (emailCampaignRepository.claimScheduledCampaign(campaignId, LocalDateTime.now()) == 0) {
+            return false;
+        }
+        EmailCampaign campaign = emailCampaignRepository.findById(campaignId).orElse(null);
+        if (campaign == null) {
+            return false;
+        }
+        sendingCampaignIds.add(campaignId);
+        try {
+            CompletableFuture.runAsync(() -> processScheduledCampaign(campaign), taskExecutor)
+                .whenComplete((ignored, error) -> {
+                    sendingCampaignIds.remove(campaignId);
+                    dispatchSlots.release();
+                });
+        } catch (RejectedExecutionException e) {
+            sendingCampaignIds.remove(campaignId);
+            logger.warn("No thread available for campaign {}; it will be retried", campaign.getCampaignName());
+            campaign.setStatus("SCHEDULED");
+            emailCampaignRepository.save(campaign);
+            return false;
+        }
+        return true;
+    }
+    
     /**
      * Process a single scheduled campaign
      */
@@ -221,25 +307,26 @@ public class AutomatedEmailService {
         try {
             logger.info("Processing scheduled campaign: {}", campaign.getCampaignName());
             
-            // Update status to sending
-            campaign.setStatus("SENDING");
-            emailCampaignRepository.save(campaign);
-            
-            // Get target clients
-            List<Client> targetClients = getTargetClients(
+            // Count target clients, then read them page by page while sending
+            long recipientCount = countTargetClients(
+                campaign.getTargetAudience(),
+                campaign.getClientTypeFilter(),
+                campaign.getLeadSourceFilter()
+            );
+            RecipientCursor targetClients = streamTargetClients(
                 campaign.getTargetAudience(),
                 campaign.getClientTypeFilter(),
                 campaign.getLeadSourceFilter()
             );
             
             // Send the campaign
-            EmailService.EmailCampaignResult result = emailService.sendEmailCampaign(campaign, targetClients);
+            EmailService.EmailCampaignResult result = emailService.sendEmailCampaign(campaign, targetClients, recipientCount);
             
             // Update campaign with results
             campaign.setStatus("SENT");
             campaign.setSentDate(LocalDateTime.now());
             campaign.setSentCount(result.getSentCount());
-            campaign.setTotalRecipients(targetClients.size());
+            campaign.setTotalRecipients((int) recipientCount);
             
             emailCampaignRepository.save(campaign);
             
@@ -260,40 +347,25 @@ public class AutomatedEmailService {
      * Get target clients based on filters
      */
     public List<Client> getTargetClients(String targetAudience, String clientTypeFilter, String leadSourceFilter) {
-        List<Client> clients = new java.util.ArrayList<>();
-        
-        // Get all active clients
-        List<Client> allClients = clientRepository.findByIsActiveTrueOrderByCreatedAtDesc();
-        
-        for (Client client : allClients) {
-            // Check if client matches target audience
-            if (targetAudience != null && !targetAudience.isEmpty()) {
-                if (!targetAudience.equals("ALL") && !targetAudience.equals(client.getClientType())) {
-                    continue;
-                }
-            }
-            
-            // Check client type filter
-            if (clientTypeFilter != null && !clientTypeFilter.isEmpty()) {
-                if (!clientTypeFilter.equals(client.getClientType())) {
-                    continue;
-                }
-            }
-            
-            // Check lead source filter
-            if (leadSourceFilter != null && !leadSourceFilter.isEmpty()) {
-                if (!leadSourceFilter.equals(client.getLeadSource())) {
-                    continue;
-                }
-            }
-            
-            // Check if client has opted in for emails
-            if (client.getEmailOptedIn() != null && client.getEmailOptedIn()) {
-                clients.add(client);
-            }
-        }
-        
-        return clients;
+        return clientRepository.findAll(
+            ClientSpecifications.emailAudience(targetAudience, clientTypeFilter, leadSourceFilter),
+            Sort.by(Sort.Direction.DESC, "createdAt"));
+    }
+    
+    /**
+     * Count target clients without loading them
+     */
+    public long countTargetClients(String targetAudience, String clientTypeFilter, String leadSourceFilter) {
+        return clientRepository.count(
+            ClientSpecifications.emailAudience(targetAudience, clientTypeFilter, leadSourceFilter));
+    }
+    
+    /**
+     * Target clients read in keyset pages, for sending to large audiences
+     */
+    public RecipientCursor streamTargetClients(String targetAudience, String clientTypeFilter, String leadSourceFilter) {
+        return new RecipientCursor(clientRepository,
+            ClientSpecifications.emailAudience(targetAudience, clientTypeFilter, leadSourceFilter));
     }
     
     /**
@@ -399,8 +471,8 @@ public class AutomatedEmailService {
                 3
             );
             
-            // Get all opted-in clients
-            List<Client> targetClients = getTargetClients("ALL", null, null);
+            // Count all opted-in clients; they are read page by page when sending
+            long recipientCount = countTargetClients("ALL", null, null);
             
             // Create the email campaign
             EmailCampaign campaign = new EmailCampaign();
@@ -411,14 +483,15 @@ public class AutomatedEmailService {
             campaign.setIsScheduled(false);
             campaign.setStatus("SENDING");
             campaign.setNotes("Bulk email with AI-generated content. Subject ID: " + subjectContent.getId() + 
-                            ", Body ID: " + bodyContent.getId() + ". Sent to " + targetClients.size() + " recipients.");
-            campaign.setTotalRecipients(targetClients.size());
+                            ", Body ID: " + bodyContent.getId() + ". Sent to " + recipientCount + " recipients.");
+            campaign.setTotalRecipients((int) recipientCount);
             
             // Save campaign first
             campaign = emailCampaignRepository.save(campaign);
             
             // Send the campaign immediately
-            EmailService.EmailCampaignResult result = emailService.sendEmailCampaign(campaign, targetClients);
+            EmailService.EmailCampaignResult result = emailService.sendEmailCampaign(
+                campaign, streamTargetClients("ALL", null, null), recipientCount);
             
             // Update campaign with results
             campaign.setStatus("SENT");
@@ -469,8 +542,8 @@ public class AutomatedEmailService {
                 3
             );
             
-            // Get filtered clients
-            List<Client> targetClients = getTargetClients(targetAudience, clientTypeFilter, leadSourceFilter);
+            // Count filtered clients; they are read page by page when sending
+            long recipientCount = countTargetClients(targetAudience, clientTypeFilter, leadSourceFilter);
             
             // Create the email campaign
             EmailCampaign campaign = new EmailCampaign();
@@ -483,14 +556,15 @@ public class AutomatedEmailService {
             campaign.setIsScheduled(false);
             campaign.setStatus("SENDING");
             campaign.setNotes("Filtered bulk email with AI-generated content. Subject ID: " + subjectContent.getId() + 
-                            ", Body ID: " + bodyContent.getId() + ". Sent to " + targetClients.size() + " recipients.");
-            campaign.setTotalRecipients(targetClients.size());
+                            ", Body ID: " + bodyContent.getId() + ". Sent to " + recipientCount + " recipients.");
+            campaign.setTotalRecipients((int) recipientCount);
             
             // Save campaign first
             campaign = emailCampaignRepository.save(campaign);
             
             // Send the campaign immediately
-            EmailService.EmailCampaignResult result = emailService.sendEmailCampaign(campaign, targetClients);
+            EmailService.EmailCampaignResult result = emailService.sendEmailCampaign(
+                campaign, streamTargetClients(targetAudience, clientTypeFilter, leadSourceFilter), recipientCount);
             
             // Update campaign with results
             campaign.setStatus("SENT");
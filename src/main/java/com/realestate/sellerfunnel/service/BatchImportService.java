@@ -2,42 +2,62 @@ package com.realestate.sellerfunnel.service;
 
 import com.realestate.sellerfunnel.model.Client;
 import com.realestate.sellerfunnel.repository.ClientRepository;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class BatchImportService {
     private static final Logger logger = LoggerFactory.getLogger(BatchImportService.class);
     private static final int BATCH_SIZE = 500;
     
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
+    
+    @Autowired
+    @Qualifier("importExecutor")
+    private Executor importExecutor;
+    
+    @Value("${app.import.pipeline.validators:4}")
+    private int validatorThreads;
+    
+    @Value("${app.import.pipeline.queue-capacity:1000}")
+    private int queueCapacity;
+    
     @Autowired
     private ClientRepository clientRepository;
     
     @Autowired
     private ClientImportService clientImportService;
     
+    @Autowired
+    private ClientMergeService clientMergeService;
+    
     private final Map<String, ImportProgress> importProgress = new ConcurrentHashMap<>();
     
     public static class ImportProgress {
         private int totalRecords;
         private int processedRecords;
         private int successCount;
+        private int updatedCount;
+        private int duplicateCount;
         private int errorCount;
         private int skippedCount;
         private String status; // PROCESSING, COMPLETED, FAILED
@@ -45,6 +65,40 @@ public class BatchImportService {
         private LocalDateTime startTime;
         private LocalDateTime endTime;
         private List<String> recentErrors = new ArrayList<>();
+        private final Map<String, StageProgress> stages = new LinkedHashMap<>();
+        
+        /**
+         * Items handled by one pipeline stage and its throughput while it was busy.
+         */
+        public static class StageProgress {
+            private final String name;
+            private final AtomicLong items = new AtomicLong();
+            private final AtomicLong firstNanos = new AtomicLong(Long.MIN_VALUE);
+            private volatile long lastNanos;
+            
+            StageProgress(String name) {
+                this.name = name;
+            }
+            
+            void record(int count) {
+                long now = System.nanoTime();
+                firstNanos.compareAndSet(Long.MIN_VALUE, now);
+                items.addAndGet(count);
+                lastNanos = now;
+            }
+            
+            public String getName() { return name; }
+            public long getItems() { return items.get(); }
+            
+            public double getItemsPerSecond() {
+                long first = firstNanos.get();
+                long elapsed = lastNanos - first;
+                if (first == Long.MIN_VALUE || elapsed <= 0) {
+                    return 0;
+                }
+                return items.get() * 1_000_000_000.0 / elapsed;
+            }
+        }
         
         public ImportProgress(int totalRecords) {
             this.totalRecords = totalRecords;
@@ -71,6 +125,31 @@ public class BatchImportService {
             processedRecords++;
         }
         
+        /**
+         * Count a persisted batch: new clients as successes, merged clients as updated,
+         * and clients already up to date as skipped. Duplicates are imported clients
+         * whose email is on file more than once, already counted as updated or skipped.
+         */
+        public synchronized void addMerged(int inserted, int updated, int unchanged, int duplicates) {
+            successCount += inserted;
+            updatedCount += updated;
+            skippedCount += unchanged;
+            duplicateCount += duplicates;
+            processedRecords += inserted + updated + unchanged;
+        }
+        
+        public synchronized void addTotalRecords(int records) {
+            totalRecords += records;
+        }
+        
+        public synchronized StageProgress stage(String name) {
+            return stages.computeIfAbsent(name, StageProgress::new);
+        }
+        
+        public synchronized List<StageProgress> getStages() {
+            return new ArrayList<>(stages.values());
+        }
+        
         public double getProgress() {
             return totalRecords == 0 ? 0 : (double) processedRecords / totalRecords * 100;
         }
@@ -79,134 +158,110 @@ public class BatchImportService {
         public int getTotalRecords() { return totalRecords; }
         public int getProcessedRecords() { return processedRecords; }
         public int getSuccessCount() { return successCount; }
+        public int getUpdatedCount() { return updatedCount; }
+        public int getDuplicateCount() { return duplicateCount; }
         public int getErrorCount() { return errorCount; }
         public int getSkippedCount() { return skippedCount; }
         public String getStatus() { return status; }
         public String getErrorMessage() { return errorMessage; }
         public LocalDateTime getStartTime() { return startTime; }
         public LocalDateTime getEndTime() { return endTime; }
-        public List<String> getRecentErrors() { return recentErrors; }
+        public synchronized List<String> getRecentErrors() { return new ArrayList<>(recentErrors); }
         
         // Setters
         public void setStatus(String status) { this.status = status; }
         public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
         public void setEndTime(LocalDateTime endTime) { this.endTime = endTime; }
+        public void setTotalRecords(int totalRecords) { this.totalRecords = totalRecords; }
     }
     
     @Async
     public CompletableFuture<String> processLargeImport(MultipartFile file) throws IOException {
+        return processLargeImport(List.of(file), false);
+    }
+    
+    /**
+     * Import every sheet of every file as one job, returning its id for progress tracking.
+     * In merge mode clients already on file are updated from the import instead of skipped.
+     */
+    @Async
+    public CompletableFuture<String> processLargeImport(List<MultipartFile> files, boolean merge) throws IOException {
         String importId = UUID.randomUUID().toString();
         
-        // Save file temporarily
-        Path tempFile = Files.createTempFile("import_", ".xlsx");
-        file.transferTo(tempFile.toFile());
+        // Save files temporarily
+        List<ClientImportPipeline.Source> sources = new ArrayList<>(files.size());
+        List<Path> tempFiles = new ArrayList<>(files.size());
+        try {
+            for (MultipartFile file : files) {
+                Path tempFile = Files.createTempFile("import_", extensionOf(file.getOriginalFilename()));
+                tempFiles.add(tempFile);
+                file.transferTo(tempFile.toFile());
+                String name = file.getOriginalFilename() != null ? file.getOriginalFilename() : tempFile.getFileName().toString();
+                sources.add(new ClientImportPipeline.Source(name, tempFile.toFile()));
+            }
+        } catch (IOException | RuntimeException e) {
+            deleteTempFiles(tempFiles);
+            throw e;
+        }
+        
+        // Registered before processing starts so the progress page can find it straight away;
+        // the total grows as each sheet's dimension is read
+        ImportProgress progress = new ImportProgress(0);
+        importProgress.put(importId, progress);
         
         // Start processing in background
-        CompletableFuture.runAsync(() -> {
-            try {
-                processFile(tempFile.toFile(), importId);
-            } catch (Exception e) {
-                logger.error("Error processing import {}: {}", importId, e.getMessage(), e);
-                ImportProgress progress = importProgress.get(importId);
-                if (progress != null) {
-                    progress.setStatus("FAILED");
-                    progress.setErrorMessage(e.getMessage());
-                    progress.setEndTime(LocalDateTime.now());
-                }
-            } finally {
+        try {
+            CompletableFuture.runAsync(() -> {
                 try {
-                    Files.deleteIfExists(tempFile);
-                } catch (IOException e) {
-                    logger.warn("Could not delete temporary file: {}", tempFile);
+                    processFiles(sources, merge, progress);
+                } catch (Exception e) {
+                    logger.error("Error processing import {}: {}", importId, e.getMessage(), e);
+                } finally {
+                    deleteTempFiles(tempFiles);
                 }
-            }
-        });
+            }, taskExecutor);
+        } catch (RejectedExecutionException e) {
+            importProgress.remove(importId);
+            deleteTempFiles(tempFiles);
+            throw e;
+        }
         
         return CompletableFuture.completedFuture(importId);
     }
     
-    private void processFile(File file, String importId) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook(new FileInputStream(file))) {
-            Sheet sheet = workbook.getSheetAt(0);
-            
-            // Get header row
-            Row headerRow = sheet.getRow(0);
-            if (headerRow == null) {
-                throw new IllegalArgumentException("No header row found in Excel file");
-            }
-            
-            Map<String, Integer> columnMap = clientImportService.createColumnMap(headerRow);
-            int totalRows = sheet.getLastRowNum();
-            
-            ImportProgress progress = new ImportProgress(totalRows);
-            importProgress.put(importId, progress);
-            
-            List<Client> batch = new ArrayList<>(BATCH_SIZE);
-            Set<String> existingEmails = new HashSet<>();
-            
-            // Process rows in batches
-            for (int i = 1; i <= totalRows; i++) {
-                Row row = sheet.getRow(i);
-                if (row == null) {
-                    progress.incrementSkipped();
-                    continue;
-                }
-                
-                try {
-                    Client client = clientImportService.createClientFromRow(row, columnMap);
-                    if (client != null) {
-                        String email = client.getEmail();
-                        if (email == null || email.trim().isEmpty()) {
-                            progress.incrementError("Row " + (i + 1) + ": Email is required");
-                            continue;
-                        }
-                        
-                        // Check for duplicates in current batch and database
-                        if (existingEmails.contains(email.toLowerCase())) {
-                            progress.incrementSkipped();
-                            continue;
-                        }
-                        
-                        Optional<Client> existingClient = clientRepository.findByEmail(email);
-                        if (existingClient.isPresent()) {
-                            progress.incrementSkipped();
-                            continue;
-                        }
-                        
-                        existingEmails.add(email.toLowerCase());
-                        batch.add(client);
-                        progress.incrementSuccess();
-                        
-                        // Save batch when it reaches the batch size
-                        if (batch.size() >= BATCH_SIZE) {
-                            clientRepository.saveAll(batch);
-                            batch.clear();
-                        }
-                    }
-                } catch (Exception e) {
-                    progress.incrementError("Row " + (i + 1) + ": " + e.getMessage());
-                }
-            }
-            
-            // Save any remaining clients in the last batch
-            if (!batch.isEmpty()) {
-                clientRepository.saveAll(batch);
-            }
+    private void processFiles(List<ClientImportPipeline.Source> sources, boolean merge,
+                              ImportProgress progress) throws Exception {
+        try {
+            new ClientImportPipeline(clientImportService, clientRepository, merge ? clientMergeService : null,
+                                     importExecutor, progress,
+                                     validatorThreads, BATCH_SIZE, queueCapacity).run(sources);
             
             progress.setStatus("COMPLETED");
             progress.setEndTime(LocalDateTime.now());
             
         } catch (Exception e) {
-            ImportProgress progress = importProgress.get(importId);
-            if (progress != null) {
-                progress.setStatus("FAILED");
-                progress.setErrorMessage(e.getMessage());
-                progress.setEndTime(LocalDateTime.now());
-            }
+            progress.setStatus("FAILED");
+            progress.setErrorMessage(e.getMessage());
+            progress.setEndTime(LocalDateTime.now());
             throw e;
         }
     }
     
+    private static String extensionOf(String filename) {
+        int dot = filename != null ? filename.lastIndexOf('.') : -1;
+        return dot >= 0 ? filename.substring(dot) : ".xlsx";
+    }
+    
+    private void deleteTempFiles(List<Path> tempFiles) {
+        for (Path tempFile : tempFiles) {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException e) {
+                logger.warn("Could not delete temporary file: {}", tempFile);
+            }
+        }
+    }
+    
     public ImportProgress getImportProgress(String importId) {
         return importProgress.get(importId);
     }
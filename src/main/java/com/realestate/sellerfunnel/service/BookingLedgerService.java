@@ -0,0 +1,72 @@
+package com.realestate.sellerfunnel.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Adds payments and charges to a booking's totals. Each posting moves the
+ * totals with an atomic UPDATE in the caller's transaction, so it commits or
+ * rolls back together with the payment it belongs to, and two postings to the
+ * same booking at once are ordered by the row lock rather than one
+ * overwriting the other.
+ *
+ * The UPDATE also bumps the booking's version, so a booking loaded before the
+ * posting fails its version check if saved afterwards instead of writing back
+ * stale totals.
+ */
+@Service
+public class BookingLedgerService {
+
+    private static final DateTimeFormatter NOTE_TIME = DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm");
+
+    private static final String ADD_TO_TOTALS = "UPDATE bookings SET"
+        + " total_charges = COALESCE(total_charges, 0) + ?, total_payments = COALESCE(total_payments, 0) + ?,"
+        + " notes = CASE WHEN CAST(? AS VARCHAR) IS NULL THEN notes ELSE CONCAT(COALESCE(notes, ''), CAST(? AS VARCHAR)) END,"
+        + " version = COALESCE(version, 0) + 1, updated_at = LOCALTIMESTAMP WHERE id = ?";
+
+    // Booking.updateBalance, applied to the totals just written while the row is still locked
+    private static final String UPDATE_BALANCE = "UPDATE bookings SET current_balance = total_charges - total_payments,"
+        + " payment_status = CASE WHEN total_charges - total_payments <= 0 THEN 'PAID'"
+        + " WHEN total_payments > 0 THEN 'PARTIAL' ELSE 'PENDING' END WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PropertyDashboardService propertyDashboardService;
+
+    /**
+     * Add a payment, or a refund when {@code amount} is negative, to the booking's totals.
+     */
+    @Transactional
+    public void addPayment(Long bookingId, BigDecimal amount) {
+        addToTotals(bookingId, BigDecimal.ZERO, amount, null);
+    }
+
+    /**
+     * Add a charge to the booking's totals, noting {@code description} on the booking when given.
+     */
+    @Transactional
+    public void addCharge(Long bookingId, BigDecimal amount, String description) {
+        String note = null;
+        if (description != null && !description.trim().isEmpty()) {
+            note = "\n" + LocalDateTime.now().format(NOTE_TIME) + " - Added charge: $" + amount + " - " + description;
+        }
+        addToTotals(bookingId, amount, BigDecimal.ZERO, note);
+    }
+
+    private void addToTotals(Long bookingId, BigDecimal charges, BigDecimal payments, String note) {
+        if (jdbcTemplate.update(ADD_TO_TOTALS, charges, payments, note, note, bookingId) == 0) {
+            throw new RuntimeException("Booking not found");
+        }
+        jdbcTemplate.update(UPDATE_BALANCE, bookingId);
+        // Written past Hibernate, so the dashboard is told directly
+        propertyDashboardService.bookingChanged(bookingId);
+    }
+}
@@ -0,0 +1,271 @@
+package com.realestate.sellerfunnel.service;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * High-throughput send path shared by the bulk email methods.
+ *
+ * The calling thread feeds recipients into a bounded queue; a fixed number of
+ * workers on the mail executor take from it, build each message and push it
+ * over their own SMTP connection. A connection is reused for up to
+ * {@code app.email.bulk.max-messages-per-connection} messages before the
+ * worker reconnects. The send rate is capped by {@link SendRateLimiter}.
+ * Callers that pace themselves can send over a {@link #openConnection()}.
+ */
+@Service
+public class BulkEmailSender {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkEmailSender.class);
+
+    private static final Object END_OF_INPUT = new Object();
+
+    // How often a producer blocked on a full queue checks that a worker is still taking from it
+    private static final long WORKER_CHECK_MS = 1000;
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Autowired
+    private SendRateLimiter sendRateLimiter;
+
+    @Autowired
+    @Qualifier("mailExecutor")
+    private Executor mailExecutor;
+
+    @Value("${app.email.bulk.workers:4}")
+    private int workers;
+
+    @Value("${app.email.bulk.max-messages-per-connection:100}")
+    private int maxMessagesPerConnection;
+
+    @Value("${app.email.bulk.queue-capacity:500}")
+    private int queueCapacity;
+
+    /**
+     * Builds the message for one recipient. Runs on a worker thread.
+     */
+    @FunctionalInterface
+    public interface MessageComposer<T> {
+        MimeMessage compose(T item) throws Exception;
+    }
+
+    /**
+     * Receives the outcome of each message. Called from worker threads, so
+     * implementations must be thread-safe. An exception thrown here is logged
+     * and does not stop the worker.
+     */
+    public interface DeliveryListener<T> {
+        void onSent(T item, MimeMessage message);
+
+        void onFailed(T item, MimeMessage message, Exception error);
+    }
+
+    /**
+     * Send one message per item and block until every item has been handled.
+     * Items are handed to the workers no faster than the SMTP host's rate limit.
+     *
+     * @throws IllegalStateException if the workers stopped before every item was handled
+     */
+    public <T> void send(Iterable<T> items, MessageComposer<T> composer, DeliveryListener<T> listener) {
+        int workerCount = Math.max(1, workers);
+        BlockingQueue<Object> queue = new ArrayBlockingQueue<>(Math.max(workerCount, queueCapacity));
+
+        List<CompletableFuture<Void>> running = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            running.add(CompletableFuture.runAsync(() -> drain(queue, composer, listener), mailExecutor));
+        }
+
+        // Only the calling thread waits for permits, so workers and their connections never idle on the limit
+        TokenBucket rateLimit = sendRateLimiter.smtp(mailSender);
+        boolean workersRunning = true;
+        try {
+            for (T item : items) {
+                rateLimit.acquire(1);
+                if (!offer(queue, item, running)) {
+                    workersRunning = false;
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            logger.warn("Bulk send interrupted; stopping after queued messages");
+            Thread.currentThread().interrupt();
+        } finally {
+            for (int i = 0; i < workerCount && workersRunning; i++) {
+                workersRunning = offerUninterruptibly(queue, END_OF_INPUT, running);
+            }
+        }
+
+        CompletableFuture.allOf(running.toArray(new CompletableFuture[0])).join();
+        if (!workersRunning || queue.stream().anyMatch(next -> next != END_OF_INPUT)) {
+            throw new IllegalStateException("Bulk send workers stopped before every message was sent");
+        }
+    }
+
+    /**
+     * An SMTP connection the caller sends over itself, without rate limiting.
+     * Not thread-safe; close it when done.
+     */
+    public Connection openConnection() {
+        return new Connection();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void drain(BlockingQueue<Object> queue, MessageComposer<T> composer, DeliveryListener<T> listener) {
+        Connection connection = new Connection();
+        try {
+            while (true) {
+                Object next = queue.take();
+                if (next == END_OF_INPUT) {
+                    return;
+                }
+                deliver((T) next, composer, listener, connection);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            connection.close();
+        }
+    }
+
+    private <T> void deliver(T item, MessageComposer<T> composer, DeliveryListener<T> listener,
+                             Connection connection) {
+        MimeMessage message = null;
+        try {
+            message = composer.compose(item);
+            connection.send(message);
+        } catch (Exception e) {
+            logger.debug("Bulk message failed: {}", e.getMessage());
+            try {
+                listener.onFailed(item, message, e);
+            } catch (RuntimeException listenerError) {
+                logger.error("Delivery listener failed handling a failed message", listenerError);
+            }
+            return;
+        }
+        try {
+            listener.onSent(item, message);
+        } catch (RuntimeException listenerError) {
+            logger.error("Delivery listener failed handling a sent message", listenerError);
+        }
+    }
+
+    /**
+     * Wait for room in the queue, giving up if every worker has stopped.
+     */
+    private static boolean offer(BlockingQueue<Object> queue, Object value, List<CompletableFuture<Void>> running)
+            throws InterruptedException {
+        while (!queue.offer(value, WORKER_CHECK_MS, TimeUnit.MILLISECONDS)) {
+            if (running.stream().allMatch(CompletableFuture::isDone)) {
+                logger.error("Bulk send workers have all stopped; {} messages left in the queue", queue.size());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean offerUninterruptibly(BlockingQueue<Object> queue, Object value,
+                                                List<CompletableFuture<Void>> running) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return offer(queue, value, running);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * One worker's SMTP connection. Falls back to {@link JavaMailSender#send}
+     * when the configured sender does not expose its session.
+     */
+    public class Connection implements AutoCloseable {
+        private Transport transport;
+        private int sentOnTransport;
+
+        private Connection() {
+        }
+
+        public void send(MimeMessage message) throws MessagingException {
+            if (!(mailSender instanceof JavaMailSenderImpl)) {
+                mailSender.send(message);
+                return;
+            }
+
+            if (transport != null && (sentOnTransport >= maxMessagesPerConnection || !transport.isConnected())) {
+                close();
+            }
+            if (transport == null) {
+                transport = connect((JavaMailSenderImpl) mailSender);
+                sentOnTransport = 0;
+            }
+
+            if (message.getSentDate() == null) {
+                message.setSentDate(new Date());
+            }
+            message.saveChanges();
+            try {
+                transport.sendMessage(message, message.getAllRecipients());
+                sentOnTransport++;
+            } catch (SendFailedException e) {
+                // Rejected recipients leave the connection usable
+                throw e;
+            } catch (MessagingException e) {
+                // The connection state is unknown after a failure; start fresh for the next message
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (transport != null) {
+                try {
+                    transport.close();
+                } catch (MessagingException e) {
+                    logger.debug("Error closing SMTP connection: {}", e.getMessage());
+                }
+                transport = null;
+            }
+        }
+
+        private Transport connect(JavaMailSenderImpl sender) throws MessagingException {
+            String protocol = sender.getProtocol() != null ? sender.getProtocol() : "smtp";
+            Transport opened = sender.getSession().getTransport(protocol);
+            String username = sender.getUsername();
+            String password = sender.getPassword();
+            if (username != null && username.isEmpty()) {
+                username = null;
+                password = null;
+            }
+            opened.connect(sender.getHost(), sender.getPort(), username, password);
+            return opened;
+        }
+    }
+}
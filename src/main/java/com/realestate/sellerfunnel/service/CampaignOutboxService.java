@@ -0,0 +1,438 @@
+package com.realestate.sellerfunnel.service;
+
+import com.realestate.sellerfunnel.model.CampaignSend;
+import com.realestate.sellerfunnel.model.Client;
+import com.realestate.sellerfunnel.model.OutboxMessage;
+import com.realestate.sellerfunnel.repository.CampaignSendRepository;
+import com.realestate.sellerfunnel.repository.ClientRepository;
+import com.realestate.sellerfunnel.repository.OutboxMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * Durable send queue for email and SMS campaigns.
+ *
+ * Starting a campaign stores a {@link CampaignSend} and one {@link OutboxMessage}
+ * per recipient. Workers then claim PENDING rows in batches with
+ * {@code SELECT ... FOR UPDATE SKIP LOCKED}, deliver them through the campaign's
+ * channel and record the outcome of each row, so any number of workers on any
+ * number of instances can drain the same campaign without sending twice.
+ * Before each claim a worker takes a batch worth of permits from the channel's
+ * rate limit; while it waits for them it holds no thread.
+ *
+ * A claimed row carries a lease; if its worker dies the lease expires and the
+ * row is claimed again. A row whose send failed waits before it is claimed
+ * again, twice as long after each attempt, until it runs out of attempts.
+ * Campaigns left PROCESSING by a restart, and recipient lists whose build
+ * stopped part way, are picked up by {@link #resumeCampaigns()}.
+ */
+@Service
+public class CampaignOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CampaignOutboxService.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    /**
+     * Sends one kind of campaign message. Registered by the campaign services.
+     */
+    public interface Channel {
+
+        /**
+         * Clients that should receive the campaign.
+         */
+        Specification<Client> recipients(CampaignSend send);
+
+        /**
+         * Address recorded on the outbox row, e.g. the email or phone number.
+         */
+        String recipientAddress(Client client);
+
+        /**
+         * Send-rate limit of the provider this channel delivers through.
+         */
+        TokenBucket rateLimit(CampaignSend send);
+
+        /**
+         * Deliver a claimed batch, reporting every message to the results.
+         * Permits for the batch have already been taken from the rate limit.
+         */
+        void deliver(CampaignSend send, List<OutboxMessage> batch, DeliveryResults results) throws Exception;
+
+        /**
+         * Update contact counts for clients that were sent to. Runs in the
+         * transaction that marks their rows SENT.
+         */
+        void recordContacts(List<Long> clientIds);
+    }
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    private CampaignSendRepository campaignSendRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    @Qualifier("outboxExecutor")
+    private Executor outboxExecutor;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.campaign.outbox.workers:2}")
+    private int workers = 2;
+
+    @Value("${app.campaign.outbox.batch-size:50}")
+    private int batchSize = 50;
+
+    @Value("${app.campaign.outbox.lease-seconds:300}")
+    private long leaseSeconds = 300;
+
+    @Value("${app.campaign.outbox.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    @Value("${app.campaign.outbox.retry-backoff-seconds:60}")
+    private long retryBackoffSeconds = 60;
+
+    @Value("${app.campaign.outbox.max-retry-backoff-seconds:3600}")
+    private long maxRetryBackoffSeconds = 3600;
+
+    @Value("${app.campaign.outbox.stale-preparing-minutes:5}")
+    private long stalePreparingMinutes = 5;
+
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+
+    // Campaigns this instance is currently draining
+    private final Set<String> draining = ConcurrentHashMap.newKeySet();
+
+    public void registerChannel(String name, Channel channel) {
+        channels.put(name, channel);
+    }
+
+    /**
+     * Store the campaign, queue a row for every recipient, and start sending.
+     * Blocks while the recipient list is built; delivery runs on the outbox workers.
+     */
+    public void start(CampaignSend send) {
+        send.setStatus("PREPARING");
+        campaignSendRepository.save(send);
+        prepare(send);
+    }
+
+    /**
+     * Progress of a stored campaign, or null if there is no such campaign.
+     */
+    public OutboxProgress getProgress(String campaignId) {
+        CampaignSend send = campaignSendRepository.findById(campaignId).orElse(null);
+        if (send == null) {
+            return null;
+        }
+        Map<String, Long> counts = new HashMap<>();
+        for (Object[] row : outboxMessageRepository.countByStatus(campaignId)) {
+            counts.put((String) row[0], (Long) row[1]);
+        }
+        List<String> recentErrors = outboxMessageRepository
+            .findTop10ByCampaignIdAndLastErrorIsNotNullOrderByIdDesc(campaignId).stream()
+            .map(m -> m.getRecipient() + ": " + m.getLastError())
+            .collect(Collectors.toList());
+        return new OutboxProgress(send, counts, recentErrors);
+    }
+
+    /**
+     * Resume campaigns that have rows left but no worker on this instance,
+     * e.g. after a restart, and finish recipient lists whose build was cut short.
+     */
+    @Scheduled(fixedDelayString = "${app.campaign.outbox.poll-interval-ms:30000}",
+               initialDelayString = "${app.campaign.outbox.poll-interval-ms:30000}")
+    public void resumeCampaigns() {
+        for (CampaignSend send : campaignSendRepository.findByStatus("PROCESSING")) {
+            if (channels.containsKey(send.getChannel()) && !draining.contains(send.getId())) {
+                logger.info("Resuming {} campaign {}", send.getChannel(), send.getId());
+                drain(send.getId());
+            }
+        }
+
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(stalePreparingMinutes);
+        for (CampaignSend send : campaignSendRepository.findByStatusAndUpdatedAtBefore("PREPARING", cutoff)) {
+            if (!channels.containsKey(send.getChannel())) {
+                continue;
+            }
+            // Only one instance wins the takeover
+            if (campaignSendRepository.claimStalePreparing(send.getId(), cutoff, LocalDateTime.now()) == 1) {
+                logger.info("Resuming recipient list of {} campaign {}", send.getChannel(), send.getId());
+                CompletableFuture.runAsync(() -> prepare(send), outboxExecutor);
+            }
+        }
+    }
+
+    private void prepare(CampaignSend send) {
+        try {
+            long total = enqueueRecipients(send);
+            send.setTotalRecipients((int) total);
+            campaignSendRepository.save(send);
+            campaignSendRepository.transition(send.getId(), "PREPARING", "PROCESSING", LocalDateTime.now());
+            drain(send.getId());
+        } catch (Exception e) {
+            logger.error("Error queueing recipients of campaign {}: {}", send.getId(), e.getMessage(), e);
+            send.setErrorMessage(truncate(e.getMessage()));
+            campaignSendRepository.save(send);
+            campaignSendRepository.transition(send.getId(), "PREPARING", "FAILED", LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Insert outbox rows page by page, continuing after the highest client
+     * already queued, and return the number of rows the campaign now has.
+     */
+    private long enqueueRecipients(CampaignSend send) {
+        Channel channel = channelFor(send);
+        String campaignId = send.getId();
+        Long afterId = outboxMessageRepository.findMaxClientId(campaignId);
+
+        new RecipientCursor(clientRepository, channel.recipients(send)).forEachPage(afterId, page -> {
+            List<OutboxMessage> rows = new ArrayList<>(page.size());
+            for (Client client : page) {
+                rows.add(new OutboxMessage(campaignId, client.getId(), channel.recipientAddress(client)));
+            }
+            outboxMessageRepository.saveAll(rows);
+            campaignSendRepository.touch(campaignId, LocalDateTime.now());
+        });
+
+        return outboxMessageRepository.countByCampaignId(campaignId);
+    }
+
+    private void drain(String campaignId) {
+        if (!draining.add(campaignId)) {
+            return;
+        }
+        CampaignSend send = campaignSendRepository.findById(campaignId).orElse(null);
+        if (send == null) {
+            draining.remove(campaignId);
+            return;
+        }
+        Channel channel = channelFor(send);
+
+        CompletableFuture<?>[] runs = new CompletableFuture<?>[Math.max(1, workers)];
+        for (int i = 0; i < runs.length; i++) {
+            runs[i] = work(send, channel);
+        }
+        CompletableFuture.allOf(runs).whenComplete((ignored, error) -> {
+            draining.remove(campaignId);
+            if (error != null) {
+                logger.error("Outbox worker for campaign {} stopped: {}", campaignId, error.getMessage());
+                return;
+            }
+            finishIfDone(campaignId);
+        });
+    }
+
+    /**
+     * Wait for permits, then claim, deliver and record one batch, repeating
+     * until no claimable rows are left. Each step runs as its own task on the
+     * outbox executor.
+     */
+    private CompletableFuture<Void> work(CampaignSend send, Channel channel) {
+        TokenBucket rateLimit = channel.rateLimit(send);
+        return rateLimit.acquire(batchSize, outboxExecutor).thenComposeAsync(ignored -> {
+            List<OutboxMessage> batch = claim(send.getId());
+            if (batch.size() < batchSize) {
+                rateLimit.release(batchSize - batch.size());
+            }
+            if (batch.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            DeliveryResults results = new DeliveryResults();
+            try {
+                channel.deliver(send, batch, results);
+            } catch (Exception e) {
+                logger.error("Error delivering batch of campaign {}: {}", send.getId(), e.getMessage(), e);
+                for (OutboxMessage message : batch) {
+                    if (!results.isReported(message)) {
+                        results.failed(message, e.getMessage());
+                    }
+                }
+            }
+            complete(channel, batch, results);
+            return work(send, channel);
+        }, outboxExecutor);
+    }
+
+    List<OutboxMessage> claim(String campaignId) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        return transaction.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxMessage> batch = outboxMessageRepository.lockClaimable(campaignId, now,
+                PageRequest.of(0, batchSize));
+            for (OutboxMessage message : batch) {
+                message.setStatus("SENDING");
+                message.setLockedUntil(now.plusSeconds(leaseSeconds));
+                message.setAttempts(message.getAttempts() == null ? 1 : message.getAttempts() + 1);
+            }
+            return batch;
+        });
+    }
+
+    void complete(Channel channel, List<OutboxMessage> batch, DeliveryResults results) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            List<Long> sentIds = new ArrayList<>();
+            List<Long> contacted = new ArrayList<>();
+            for (OutboxMessage message : batch) {
+                Outcome outcome = results.outcomes.get(message.getId());
+                if (outcome == null) {
+                    outcome = Outcome.retry("No delivery result reported");
+                }
+                if (outcome.status.equals("SENT")) {
+                    sentIds.add(message.getId());
+                    contacted.add(message.getClientId());
+                } else if (outcome.status.equals("RETRY")) {
+                    int attempts = message.getAttempts() == null ? 1 : message.getAttempts();
+                    if (attempts >= maxAttempts) {
+                        outboxMessageRepository.markFinished(message.getId(), "FAILED", truncate(outcome.detail));
+                    } else {
+                        outboxMessageRepository.markRetry(message.getId(), truncate(outcome.detail),
+                            LocalDateTime.now().plusSeconds(retryBackoff(attempts)));
+                    }
+                } else {
+                    outboxMessageRepository.markFinished(message.getId(), outcome.status, truncate(outcome.detail));
+                }
+            }
+            if (!sentIds.isEmpty()) {
+                outboxMessageRepository.markSent(sentIds, LocalDateTime.now());
+                channel.recordContacts(contacted);
+            }
+        });
+    }
+
+    /**
+     * Seconds to wait before the next attempt: the base backoff, doubled after
+     * each failed attempt, up to the maximum.
+     */
+    long retryBackoff(int attempts) {
+        int doublings = Math.min(Math.max(attempts - 1, 0), 30);
+        return Math.min(retryBackoffSeconds << doublings, maxRetryBackoffSeconds);
+    }
+
+    private void finishIfDone(String campaignId) {
+        if (outboxMessageRepository.countOutstanding(campaignId) == 0) {
+            campaignSendRepository.transition(campaignId, "PROCESSING", "COMPLETED", LocalDateTime.now());
+        }
+    }
+
+    private Channel channelFor(CampaignSend send) {
+        Channel channel = channels.get(send.getChannel());
+        if (channel == null) {
+            throw new IllegalStateException("No outbox channel registered for " + send.getChannel());
+        }
+        return channel;
+    }
+
+    private static String truncate(String text) {
+        if (text == null || text.length() <= MAX_ERROR_LENGTH) {
+            return text;
+        }
+        return text.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private static class Outcome {
+        private final String status; // SENT, RETRY, FAILED, SKIPPED
+        private final String detail;
+
+        private Outcome(String status, String detail) {
+            this.status = status;
+            this.detail = detail;
+        }
+
+        static Outcome retry(String error) {
+            return new Outcome("RETRY", error);
+        }
+    }
+
+    /**
+     * Outcome of each message in a delivered batch.
+     */
+    public static class DeliveryResults {
+        private final Map<Long, Outcome> outcomes = new LinkedHashMap<>();
+
+        public void sent(OutboxMessage message) {
+            outcomes.put(message.getId(), new Outcome("SENT", null));
+        }
+
+        /**
+         * A failure worth retrying; the row goes back to PENDING, after a backoff, until it runs out of attempts.
+         */
+        public void failed(OutboxMessage message, String error) {
+            outcomes.put(message.getId(), Outcome.retry(error));
+        }
+
+        /**
+         * A failure that retrying will not fix, such as an invalid address.
+         */
+        public void rejected(OutboxMessage message, String error) {
+            outcomes.put(message.getId(), new Outcome("FAILED", error));
+        }
+
+        public void skipped(OutboxMessage message, String reason) {
+            outcomes.put(message.getId(), new Outcome("SKIPPED", reason));
+        }
+
+        boolean isReported(OutboxMessage message) {
+            return outcomes.containsKey(message.getId());
+        }
+    }
+
+    /**
+     * Stored state of a campaign and the number of outbox rows in each status.
+     */
+    public static class OutboxProgress {
+        private final CampaignSend send;
+        private final Map<String, Long> counts;
+        private final List<String> recentErrors;
+
+        public OutboxProgress(CampaignSend send, Map<String, Long> counts, List<String> recentErrors) {
+            this.send = send;
+            this.counts = counts;
+            this.recentErrors = recentErrors;
+        }
+
+        public String getStatus() { return send.getStatus(); }
+        public String getErrorMessage() { return send.getErrorMessage(); }
+        public LocalDateTime getStartTime() { return send.getCreatedAt(); }
+        public LocalDateTime getEndTime() { return send.getCompletedAt(); }
+        public int getTotalRecipients() { return send.getTotalRecipients() == null ? 0 : send.getTotalRecipients(); }
+        public int getSentCount() { return count("SENT"); }
+        public int getFailedCount() { return count("FAILED"); }
+        public int getSkippedCount() { return count("SKIPPED"); }
+        public int getProcessedCount() { return getSentCount() + getFailedCount() + getSkippedCount(); }
+        public List<String> getRecentErrors() { return Collections.unmodifiableList(recentErrors); }
+
+        private int count(String status) {
+            return counts.getOrDefault(status, 0L).intValue();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.realestate.sellerfunnel.service;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a file through a {@link FileChannel} into one reusable byte array so
+ * text importers can parse records in place. A record cut off at the end of
+ * the buffer is moved to the front and the rest read after it; the buffer
+ * only grows when a single record does not fit.
+ */
+final class ChannelBuffer implements Closeable {
+
+    private static final int DEFAULT_CAPACITY = 256 * 1024;
+
+    private final FileChannel channel;
+    private byte[] data;
+    private int limit;
+    private boolean eof;
+
+    ChannelBuffer(File file) throws IOException {
+        this(file, DEFAULT_CAPACITY);
+    }
+
+    ChannelBuffer(File file, int capacity) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.data = new byte[capacity];
+    }
+
+    byte[] data() {
+        return data;
+    }
+
+    /** End of the valid bytes in {@link #data()}. */
+    int limit() {
+        return limit;
+    }
+
+    /** True once the channel has no more bytes; everything up to {@link #limit()} is the last of the file. */
+    boolean eof() {
+        return eof;
+    }
+
+    /**
+     * Keep the bytes from {@code from} on, moved to the front, and read more after them.
+     *
+     * @return false when the file has no more bytes
+     */
+    boolean refill(int from) throws IOException {
+        if (eof) {
+            return false;
+        }
+        int kept = limit - from;
+        if (from == 0 && limit == data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        } else if (kept > 0) {
+            System.arraycopy(data, from, data, 0, kept);
+        }
+        limit = kept;
+        int read = channel.read(ByteBuffer.wrap(data, limit, data.length - limit));
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    /**
+     * Position after a UTF-8 byte order mark at the start of the data, if there is one.
+     */
+    int skipByteOrderMark() {
+        if (limit >= 3 && (data[0] & 0xFF) == 0xEF && (data[1] & 0xFF) == 0xBB && (data[2] & 0xFF) == 0xBF) {
+            return 3;
+        }
+        return 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,128 @@
+package com.realestate.sellerfunnel.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Writes client exports straight from a database cursor. Rows are fetched
+ * {@code fetchSize} at a time inside a read-only transaction (PostgreSQL only
+ * uses a server-side cursor with auto-commit off) and each one is written to
+ * the output as it is read, so memory use does not grow with the number of
+ * clients.
+ */
+@Service
+public class ClientExportService {
+
+    /** Column titles, in the order of {@link #ACTIVE_CLIENTS_SQL}. */
+    static final List<String> COLUMNS = List.of("First Name", "Last Name", "Email", "Phone", "Company", "Job Title",
+        "Address", "City", "State", "ZIP Code", "Client Type", "Status", "Lead Source", "Email Contact Count",
+        "Phone Contact Count", "Total Contact Count", "Last Contact Date", "Notes", "Created Date");
+
+    static final String CSV_HEADER = String.join(",", COLUMNS) + "\n";
+
+    static final String ACTIVE_CLIENTS_SQL = "SELECT first_name, last_name, email, phone_number, company_name,"
+        + " job_title, address, city, state, zip_code, client_type, client_status, lead_source,"
+        + " email_contact_count, phone_contact_count, total_contact_count, last_contact_date, notes, created_at"
+        + " FROM clients WHERE is_active = TRUE ORDER BY created_at DESC";
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.export.fetch-size:1000}")
+    private int fetchSize = 1000;
+
+    /**
+     * Write every active client, newest first, as CSV with every field quoted.
+     * The stream is flushed but left open so the caller can finish a compressing wrapper.
+     */
+    public void writeActiveClientsCsv(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write(CSV_HEADER);
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        try {
+            transaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(ACTIVE_CLIENTS_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                return statement;
+            }, (RowCallbackHandler) row -> writeCsvRow(writer, row)));
+        } catch (UncheckedIOException e) {
+            // Usually the client closing the download
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private static void writeCsvRow(Writer writer, ResultSet row) throws SQLException {
+        try {
+            for (int column = 1; column <= 13; column++) {
+                writeField(writer, row.getString(column));
+                writer.write(',');
+            }
+            for (int column = 14; column <= 16; column++) {
+                int count = row.getInt(column);
+                writeField(writer, Integer.toString(count));
+                writer.write(',');
+            }
+            writeDate(writer, row.getTimestamp(17));
+            writer.write(',');
+            writeField(writer, row.getString(18));
+            writer.write(',');
+            writeDate(writer, row.getTimestamp(19));
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write a value in quotes, doubling any quotes inside; null is written as an empty field.
+     */
+    static void writeField(Writer writer, String value) throws IOException {
+        writer.write('"');
+        if (value != null) {
+            int start = 0;
+            for (int quote = value.indexOf('"'); quote >= 0; quote = value.indexOf('"', quote + 1)) {
+                writer.write(value, start, quote + 1 - start);
+                writer.write('"');
+                start = quote + 1;
+            }
+            writer.write(value, start, value.length() - start);
+        }
+        writer.write('"');
+    }
+
+    private static void writeDate(Writer writer, Timestamp timestamp) throws IOException {
+        writer.write('"');
+        if (timestamp != null) {
+            DATE_FORMAT.formatTo(timestamp.toLocalDateTime(), writer);
+        }
+        writer.write('"');
+    }
+}
@@ -0,0 +1,405 @@
+package com.realestate.sellerfunnel.service;
+
+import com.realestate.sellerfunnel.model.Client;
+import com.realestate.sellerfunnel.repository.ClientRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Imports clients from one or more .xlsx (every sheet), .csv or JSON-lines
+ * (.ndjson, .jsonl) files in four stages connected by bounded queues:
+ * <ol>
+ *   <li>parse - one task per file streams its rows</li>
+ *   <li>validate - several tasks normalize cells and build clients</li>
+ *   <li>dedup - one task drops emails seen earlier in the job or, unless
+ *       merging, already on file</li>
+ *   <li>persist - the calling thread saves each deduplicated batch, or merges
+ *       it into the clients on file through {@link ClientMergeService}</li>
+ * </ol>
+ * A full queue blocks the stage feeding it, so memory stays bounded however
+ * far parsing runs ahead of the database. The first unexpected failure in
+ * any stage stops the others and is rethrown from {@link #run}.
+ */
+class ClientImportPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClientImportPipeline.class);
+
+    static final String PARSE = "parse";
+    static final String VALIDATE = "validate";
+    static final String DEDUP = "dedup";
+    static final String PERSIST = "persist";
+
+    private static final ParsedRow END_OF_ROWS = new ParsedRow(null, -1, null, null);
+    private static final ValidRow END_OF_CLIENTS = new ValidRow(null, null);
+    private static final List<Client> END_OF_BATCHES = new ArrayList<>(0);
+
+    /**
+     * An uploaded file and the name to report its rows under.
+     */
+    static class Source {
+        private final String name;
+        private final File file;
+
+        Source(String name, File file) {
+            this.name = name;
+            this.file = file;
+        }
+    }
+
+    private static class ParsedRow {
+        private final String location;
+        private final int rowNum;
+        private final List<String> values;
+        private final Map<String, Integer> columnMap;
+
+        ParsedRow(String location, int rowNum, List<String> values, Map<String, Integer> columnMap) {
+            this.location = location;
+            this.rowNum = rowNum;
+            this.values = values;
+            this.columnMap = columnMap;
+        }
+
+        String describe() {
+            return location + " row " + (rowNum + 1);
+        }
+    }
+
+    private static class ValidRow {
+        private final String row;
+        private final Client client;
+
+        ValidRow(String row, Client client) {
+            this.row = row;
+            this.client = client;
+        }
+    }
+
+    /** Thrown inside a stage once another stage has failed. */
+    private static class Aborted extends RuntimeException {
+        Aborted() {
+            super(null, null, false, false);
+        }
+    }
+
+    private final ClientImportService clientImportService;
+    private final ClientRepository clientRepository;
+    private final ClientMergeService clientMergeService;
+    private final Executor executor;
+    private final BatchImportService.ImportProgress progress;
+    private final int validators;
+    private final int batchSize;
+
+    private final BlockingQueue<ParsedRow> parsed;
+    private final BlockingQueue<ValidRow> validated;
+    private final BlockingQueue<List<Client>> batches;
+
+    private volatile Throwable failure;
+
+    /**
+     * @param clientMergeService merges batches into existing clients, or null to only add new clients
+     */
+    ClientImportPipeline(ClientImportService clientImportService, ClientRepository clientRepository,
+                         ClientMergeService clientMergeService, Executor executor, BatchImportService.ImportProgress progress,
+                         int validators, int batchSize, int queueCapacity) {
+        this.clientImportService = clientImportService;
+        this.clientRepository = clientRepository;
+        this.clientMergeService = clientMergeService;
+        this.executor = executor;
+        this.progress = progress;
+        this.validators = validators;
+        this.batchSize = batchSize;
+        this.parsed = new ArrayBlockingQueue<>(queueCapacity);
+        this.validated = new ArrayBlockingQueue<>(queueCapacity);
+        // Each entry holds a whole batch, so a few are enough to keep the database busy
+        this.batches = new ArrayBlockingQueue<>(4);
+    }
+
+    /**
+     * Run the import to completion on the calling thread and the executor.
+     */
+    void run(List<Source> sources) throws Exception {
+        int tasks = sources.size() + validators + 1;
+        CountDownLatch stagesDone = new CountDownLatch(tasks);
+        AtomicInteger parsersLeft = new AtomicInteger(sources.size());
+        AtomicInteger validatorsLeft = new AtomicInteger(validators);
+
+        List<Runnable> stages = new ArrayList<>(tasks);
+        for (Source source : sources) {
+            stages.add(() -> {
+                parse(source);
+                if (parsersLeft.decrementAndGet() == 0) {
+                    for (int i = 0; i < validators; i++) {
+                        put(parsed, END_OF_ROWS);
+                    }
+                }
+            });
+        }
+        for (int i = 0; i < validators; i++) {
+            stages.add(() -> {
+                validate();
+                if (validatorsLeft.decrementAndGet() == 0) {
+                    put(validated, END_OF_CLIENTS);
+                }
+            });
+        }
+        stages.add(this::dedup);
+
+        int submitted = 0;
+        try {
+            for (Runnable stage : stages) {
+                executor.execute(guarded(stage, stagesDone));
+                submitted++;
+            }
+        } catch (RejectedExecutionException e) {
+            fail(e);
+            for (int i = submitted; i < tasks; i++) {
+                stagesDone.countDown();
+            }
+        }
+
+        try {
+            persist();
+        } catch (Aborted e) {
+            // Reported below
+        } catch (Exception e) {
+            fail(e);
+        }
+        // Let every stage stop before the caller deletes the files they read
+        stagesDone.await();
+
+        if (failure instanceof Exception) {
+            throw (Exception) failure;
+        } else if (failure != null) {
+            throw new IllegalStateException(failure);
+        }
+    }
+
+    private void parse(Source source) {
+        BatchImportService.ImportProgress.StageProgress stage = progress.stage(PARSE);
+        RowHandler handler = new RowHandler() {
+            private String location = source.name;
+            private Map<String, Integer> columnMap;
+            private int nextRow = 1;
+
+            @Override
+            public void startSheet(String sheetName) {
+                location = source.name + " / " + sheetName;
+                columnMap = null;
+                nextRow = 1;
+            }
+
+            @Override
+            public void lastRowNum(int lastRowNum) {
+                progress.addTotalRecords(lastRowNum);
+            }
+
+            @Override
+            public void row(int rowNum, List<String> values) {
+                skipTo(rowNum);
+                if (columnMap == null) {
+                    columnMap = clientImportService.createColumnMap(values);
+                    return;
+                }
+                put(parsed, new ParsedRow(location, rowNum, copyMappedColumns(values, columnMap), columnMap));
+                stage.record(1);
+            }
+
+            @Override
+            public void invalidRow(int rowNum, String message) {
+                skipTo(rowNum);
+                progress.incrementError(location + " row " + (rowNum + 1) + ": " + message);
+            }
+
+            private void skipTo(int rowNum) {
+                // Empty rows are not reported by the readers; a header below row 0 counts as skipped too
+                int skipUntil = columnMap == null ? rowNum + 1 : rowNum;
+                for (; nextRow < skipUntil; nextRow++) {
+                    progress.incrementSkipped();
+                }
+                nextRow = rowNum + 1;
+            }
+        };
+
+        try {
+            String name = source.name.toLowerCase();
+            if (name.endsWith(".csv")) {
+                CsvRowReader.read(source.file, handler);
+            } else if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+                JsonLinesRowReader.read(source.file, handler);
+            } else {
+                ExcelRowReader.readAllSheets(source.file, handler);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // An unreadable file fails its own rows, not the rest of the job
+            progress.incrementError(source.name + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Copy only the cells a client is built from; the readers reuse their row, and text
+     * readers decode a cell only when it is read.
+     */
+    private static List<String> copyMappedColumns(List<String> values, Map<String, Integer> columnMap) {
+        List<String> copy = new ArrayList<>(Collections.nCopies(values.size(), (String) null));
+        for (int column : columnMap.values()) {
+            if (column < values.size()) {
+                copy.set(column, values.get(column));
+            }
+        }
+        return copy;
+    }
+
+    private void validate() {
+        BatchImportService.ImportProgress.StageProgress stage = progress.stage(VALIDATE);
+        for (ParsedRow row = take(parsed); row != END_OF_ROWS; row = take(parsed)) {
+            try {
+                ClientRowNormalizer.normalize(row.values, row.columnMap);
+                Client client = clientImportService.createClientFromValues(row.values, row.columnMap);
+                put(validated, new ValidRow(row.describe(), client));
+            } catch (Aborted e) {
+                throw e;
+            } catch (Exception e) {
+                progress.incrementError(row.describe() + ": " + e.getMessage());
+            }
+            stage.record(1);
+        }
+    }
+
+    private void dedup() {
+        BatchImportService.ImportProgress.StageProgress stage = progress.stage(DEDUP);
+        Set<String> seenEmails = new HashSet<>();
+        List<Client> batch = new ArrayList<>(batchSize);
+        for (ValidRow row = take(validated); row != END_OF_CLIENTS; row = take(validated)) {
+            if (!seenEmails.add(row.client.getEmail().toLowerCase())) {
+                progress.incrementSkipped();
+            } else {
+                batch.add(row.client);
+                if (batch.size() >= batchSize) {
+                    pass(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            stage.record(1);
+        }
+        if (!batch.isEmpty()) {
+            pass(batch);
+        }
+        put(batches, END_OF_BATCHES);
+    }
+
+    private void pass(List<Client> batch) {
+        if (clientMergeService != null) {
+            // Clients on file are updated, not skipped
+            put(batches, batch);
+        } else {
+            dropExisting(batch);
+        }
+    }
+
+    /**
+     * Check the batch's emails against the database in one query and pass the new clients on.
+     */
+    private void dropExisting(List<Client> batch) {
+        Set<String> emails = new HashSet<>();
+        for (Client client : batch) {
+            emails.add(client.getEmail().toLowerCase());
+        }
+        Set<String> onFile = new HashSet<>(clientRepository.findExistingEmails(emails));
+        if (!onFile.isEmpty()) {
+            batch.removeIf(client -> {
+                boolean exists = onFile.contains(client.getEmail().toLowerCase());
+                if (exists) {
+                    progress.incrementSkipped();
+                }
+                return exists;
+            });
+        }
+        if (!batch.isEmpty()) {
+            put(batches, batch);
+        }
+    }
+
+    private void persist() {
+        BatchImportService.ImportProgress.StageProgress stage = progress.stage(PERSIST);
+        for (List<Client> batch = take(batches); batch != END_OF_BATCHES; batch = take(batches)) {
+            if (clientMergeService != null) {
+                ClientMergeService.MergeResult result = clientMergeService.merge(batch);
+                progress.addMerged(result.getInserted(), result.getUpdated(), result.getUnchanged(),
+                                   result.getDuplicates());
+            } else {
+                clientRepository.saveAll(batch);
+                progress.addMerged(batch.size(), 0, 0, 0);
+            }
+            stage.record(batch.size());
+        }
+    }
+
+    private Runnable guarded(Runnable stage, CountDownLatch stagesDone) {
+        return () -> {
+            try {
+                stage.run();
+            } catch (Aborted e) {
+                // Another stage failed first
+            } catch (Throwable t) {
+                fail(t);
+            } finally {
+                stagesDone.countDown();
+            }
+        };
+    }
+
+    private void fail(Throwable t) {
+        if (failure == null) {
+            failure = t;
+            logger.error("Import pipeline failed: {}", t.getMessage(), t);
+        }
+    }
+
+    private <T> void put(BlockingQueue<T> queue, T item) {
+        try {
+            while (!queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                checkAborted();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(e);
+            throw new Aborted();
+        }
+    }
+
+    private <T> T take(BlockingQueue<T> queue) {
+        try {
+            T item;
+            while ((item = queue.poll(100, TimeUnit.MILLISECONDS)) == null) {
+                checkAborted();
+            }
+            return item;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(e);
+            throw new Aborted();
+        }
+    }
+
+    private void checkAborted() {
+        if (failure != null) {
+            throw new Aborted();
+        }
+    }
+}
@@ -2,85 +2,156 @@ package com.realestate.sellerfunnel.service;
 
 import com.realestate.sellerfunnel.model.Client;
 import com.realestate.sellerfunnel.repository.ClientRepository;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Function;
 
 @Service
 public class ClientImportService {
 
+    private static final int IMPORT_BATCH_SIZE = 500;
+    
     @Autowired
     private ClientRepository clientRepository;
 
     public ImportResult importClientsFromExcel(MultipartFile file) throws IOException {
         ImportResult result = new ImportResult();
         
-        try (Workbook workbook = new XSSFWorkbook(file.getInputStream())) {
-            Sheet sheet = workbook.getSheetAt(0);
+        // The streaming reader needs random access to the zip, so read from a temporary copy
+        Path tempFile = Files.createTempFile("client_import_", ".xlsx");
+        try {
+            file.transferTo(tempFile);
             
-            // Get header row to map columns
-            Row headerRow = sheet.getRow(0);
-            if (headerRow == null) {
+            ImportRowHandler handler = new ImportRowHandler(result);
+            ExcelRowReader.read(tempFile.toFile(), handler);
+            handler.finish();
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Collects streamed rows into batches and saves the clients whose email is not on file yet.
+     */
+    private class ImportRowHandler implements RowHandler {
+        private final ImportResult result;
+        private final Map<Integer, Client> batch = new LinkedHashMap<>();
+        private final Set<String> seenEmails = new HashSet<>();
+        private Map<String, Integer> columnMap;
+        
+        ImportRowHandler(ImportResult result) {
+            this.result = result;
+        }
+        
+        @Override
+        public void row(int rowNum, List<String> values) {
+            if (columnMap == null) {
+                // First row with content maps column names to indexes
+                columnMap = createColumnMap(values);
+                return;
+            }
+            try {
+                Client client = createClientFromValues(values, columnMap);
+                // Check for duplicate email within the file; the database is checked per batch
+                if (!seenEmails.add(client.getEmail().toLowerCase())) {
+                    result.addSkipped("Row " + (rowNum + 1) + ": Email already exists - " + client.getEmail());
+                    return;
+                }
+                batch.put(rowNum, client);
+                if (batch.size() >= IMPORT_BATCH_SIZE) {
+                    saveBatch();
+                }
+            } catch (Exception e) {
+                result.addError("Row " + (rowNum + 1) + ": " + e.getMessage());
+            }
+        }
+        
+        void finish() {
+            if (columnMap == null) {
                 result.addError("No header row found in Excel file");
-                return result;
+            } else if (!batch.isEmpty()) {
+                saveBatch();
             }
+        }
+        
+        private void saveBatch() {
+            Set<String> emails = new HashSet<>();
+            for (Client client : batch.values()) {
+                emails.add(client.getEmail().toLowerCase());
+            }
+            Set<String> onFile = new HashSet<>(clientRepository.findExistingEmails(emails));
             
-            Map<String, Integer> columnMap = createColumnMap(headerRow);
+            Map<Integer, Client> newClients = new LinkedHashMap<>();
+            for (Map.Entry<Integer, Client> entry : batch.entrySet()) {
+                Client client = entry.getValue();
+                if (onFile.contains(client.getEmail().toLowerCase())) {
+                    result.addSkipped("Row " + (entry.getKey() + 1) + ": Email already exists - " + client.getEmail());
+                } else {
+                    newClients.put(entry.getKey(), client);
+                }
+            }
+            batch.clear();
             
-            // Process data rows
-            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-                Row row = sheet.getRow(i);
-                if (row == null) continue;
-                
-                try {
-                    Client client = createClientFromRow(row, columnMap);
-                    if (client != null) {
-                        // Check for duplicate email
-                        Optional<Client> existingClient = clientRepository.findByEmail(client.getEmail());
-                        if (existingClient.isPresent()) {
-                            result.addSkipped("Row " + (i + 1) + ": Email already exists - " + client.getEmail());
-                        } else {
-                            clientRepository.save(client);
-                            result.addSuccess("Row " + (i + 1) + ": " + client.getFirstName() + " " + client.getLastName());
-                        }
+            try {
+                clientRepository.saveAll(newClients.values());
+                newClients.forEach((rowNum, client) ->
+                    result.addSuccess("Row " + (rowNum + 1) + ": " + client.getFirstName() + " " + client.getLastName()));
+            } catch (Exception e) {
+                // Fall back to row-by-row saves so one bad row does not fail its whole batch
+                newClients.forEach((rowNum, client) -> {
+                    try {
+                        // Ids assigned by the rolled-back batch insert are not in the database
+                        client.setId(null);
+                        clientRepository.save(client);
+                        result.addSuccess("Row " + (rowNum + 1) + ": " + client.getFirstName() + " " + client.getLastName());
+                    } catch (Exception rowError) {
+                        result.addError("Row " + (rowNum + 1) + ": " + rowError.getMessage());
                     }
-                } catch (Exception e) {
-                    result.addError("Row " + (i + 1) + ": " + e.getMessage());
-                }
+                });
             }
         }
-        
-        return result;
     }
     
-    public Map<String, Integer> createColumnMap(Row headerRow) {
+    /**
+     * Map lower-cased header names to column indexes
+     */
+    public Map<String, Integer> createColumnMap(List<String> headers) {
         Map<String, Integer> columnMap = new HashMap<>();
         
-        for (int i = 0; i < headerRow.getLastCellNum(); i++) {
-            Cell cell = headerRow.getCell(i);
-            if (cell != null) {
-                String headerValue = cell.getStringCellValue().trim().toLowerCase();
-                columnMap.put(headerValue, i);
+        for (int i = 0; i < headers.size(); i++) {
+            String header = headers.get(i);
+            if (header != null) {
+                columnMap.put(header.trim().toLowerCase(), i);
             }
         }
         
         return columnMap;
     }
     
-    public Client createClientFromRow(Row row, Map<String, Integer> columnMap) {
+    /**
+     * Build a client from one row of cell values, as produced by {@link ExcelRowReader}
+     */
+    public Client createClientFromValues(List<String> values, Map<String, Integer> columnMap) {
+        return createClient(column -> column == null || column >= values.size() ? null : values.get(column), columnMap);
+    }
+    
+    private Client createClient(Function<Integer, String> cellValue, Map<String, Integer> columnMap) {
         Client client = new Client();
         
         // Required fields
-        String firstName = getCellValueAsString(row, columnMap.get("first name"));
-        String lastName = getCellValueAsString(row, columnMap.get("last name"));
-        String email = getCellValueAsString(row, columnMap.get("email"));
+        String firstName = cellValue.apply(columnMap.get("first name"));
+        String lastName = cellValue.apply(columnMap.get("last name"));
+        String email = cellValue.apply(columnMap.get("email"));
         
         if (firstName == null || lastName == null || email == null) {
             throw new IllegalArgumentException("First name, last name, and email are required");
@@ -91,31 +162,31 @@ public class ClientImportService {
         client.setEmail(email);
         
         // Optional fields
-        client.setPhoneNumber(getCellValueAsString(row, columnMap.get("phone")));
-        client.setClientType(getCellValueAsString(row, columnMap.get("client type")));
-        client.setClientStatus(getCellValueAsString(row, columnMap.get("client status")));
-        client.setLeadSource(getCellValueAsString(row, columnMap.get("lead source")));
-        client.setCompanyName(getCellValueAsString(row, columnMap.get("company")));
-        client.setJobTitle(getCellValueAsString(row, columnMap.get("job title")));
-        client.setAddress(getCellValueAsString(row, columnMap.get("address")));
-        client.setCity(getCellValueAsString(row, columnMap.get("city")));
-        client.setState(getCellValueAsString(row, columnMap.get("state")));
-        client.setZipCode(getCellValueAsString(row, columnMap.get("zip code")));
-        client.setNotes(getCellValueAsString(row, columnMap.get("notes")));
+        client.setPhoneNumber(cellValue.apply(columnMap.get("phone")));
+        client.setClientType(cellValue.apply(columnMap.get("client type")));
+        client.setClientStatus(cellValue.apply(columnMap.get("client status")));
+        client.setLeadSource(cellValue.apply(columnMap.get("lead source")));
+        client.setCompanyName(cellValue.apply(columnMap.get("company")));
+        client.setJobTitle(cellValue.apply(columnMap.get("job title")));
+        client.setAddress(cellValue.apply(columnMap.get("address")));
+        client.setCity(cellValue.apply(columnMap.get("city")));
+        client.setState(cellValue.apply(columnMap.get("state")));
+        client.setZipCode(cellValue.apply(columnMap.get("zip code")));
+        client.setNotes(cellValue.apply(columnMap.get("notes")));
         
         // Boolean fields
-        String activeStr = getCellValueAsString(row, columnMap.get("active"));
+        String activeStr = cellValue.apply(columnMap.get("active"));
         if (activeStr != null) {
             client.setIsActive("yes".equalsIgnoreCase(activeStr) || "true".equalsIgnoreCase(activeStr) || "1".equals(activeStr));
         }
         
-        String emailOptedInStr = getCellValueAsString(row, columnMap.get("email opted in"));
+        String emailOptedInStr = cellValue.apply(columnMap.get("email opted in"));
         if (emailOptedInStr != null) {
             client.setEmailOptedIn("yes".equalsIgnoreCase(emailOptedInStr) || "true".equalsIgnoreCase(emailOptedInStr) || "1".equals(emailOptedInStr));
         }
         
         // Date fields
-        String dateAddedStr = getCellValueAsString(row, columnMap.get("date added"));
+        String dateAddedStr = cellValue.apply(columnMap.get("date added"));
         if (dateAddedStr != null && !dateAddedStr.trim().isEmpty()) {
             try {
                 LocalDateTime dateAdded = parseDate(dateAddedStr);
@@ -127,7 +198,7 @@ public class ClientImportService {
         }
         
         // Contact counts
-        String emailCountStr = getCellValueAsString(row, columnMap.get("email contact count"));
+        String emailCountStr = cellValue.apply(columnMap.get("email contact count"));
         if (emailCountStr != null && !emailCountStr.trim().isEmpty()) {
             try {
                 client.setEmailContactCount(Integer.parseInt(emailCountStr.trim()));
@@ -136,7 +207,7 @@ public class ClientImportService {
             }
         }
         
-        String phoneCountStr = getCellValueAsString(row, columnMap.get("phone contact count"));
+        String phoneCountStr = cellValue.apply(columnMap.get("phone contact count"));
         if (phoneCountStr != null && !phoneCountStr.trim().isEmpty()) {
             try {
                 client.setPhoneContactCount(Integer.parseInt(phoneCountStr.trim()));
@@ -148,28 +219,6 @@ public class ClientImportService {
         return client;
     }
     
-    private String getCellValueAsString(Row row, Integer columnIndex) {
-        if (columnIndex == null) return null;
-        
-        Cell cell = row.getCell(columnIndex);
-        if (cell == null) return null;
-        
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue().trim();
-            case NUMERIC:
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    return cell.getDateCellValue().toString();
-                } else {
-                    return String.valueOf((int) cell.getNumericCellValue());
-                }
-            case BOOLEAN:
-                return String.valueOf(cell.getBooleanCellValue());
-            default:
-                return null;
-        }
-    }
-    
     private LocalDateTime parseDate(String dateStr) {
         // Try different date formats
         String[] formats = {
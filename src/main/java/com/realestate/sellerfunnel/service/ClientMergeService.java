@@ -0,0 +1,345 @@
+package com.realestate.sellerfunnel.service;
+
+import com.realestate.sellerfunnel.model.Client;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Merges imported clients into the clients table by email. Each batch is
+ * loaded into a session-local staging table - with COPY on PostgreSQL, batched
+ * inserts elsewhere - and applied with two set-based statements: one UPDATE
+ * for clients already on file and one INSERT for the rest.
+ *
+ * A column only overwrites the stored value when the import has a value for it
+ * and the value differs, so re-importing an unchanged sheet writes nothing.
+ * New clients take the values {@link Client#applyDefaults()} gives the columns
+ * the import left empty. On PostgreSQL the INSERT skips emails another session
+ * inserted in the meantime, through the unique index on lower(email).
+ */
+@Service
+public class ClientMergeService {
+
+    private static final String STAGE_TABLE = "client_merge_stage";
+
+    /** Columns taken from the import, in staging and COPY order after email_key and email. */
+    private static final List<StagedColumn> COLUMNS = List.of(
+        new StagedColumn("first_name", "VARCHAR(255)", Types.VARCHAR, Client::getFirstName),
+        new StagedColumn("last_name", "VARCHAR(255)", Types.VARCHAR, Client::getLastName),
+        new StagedColumn("phone_number", "VARCHAR(255)", Types.VARCHAR, Client::getPhoneNumber),
+        new StagedColumn("company_name", "VARCHAR(255)", Types.VARCHAR, Client::getCompanyName),
+        new StagedColumn("job_title", "VARCHAR(255)", Types.VARCHAR, Client::getJobTitle),
+        new StagedColumn("address", "VARCHAR(500)", Types.VARCHAR, Client::getAddress),
+        new StagedColumn("city", "VARCHAR(255)", Types.VARCHAR, Client::getCity),
+        new StagedColumn("state", "VARCHAR(255)", Types.VARCHAR, Client::getState),
+        new StagedColumn("zip_code", "VARCHAR(255)", Types.VARCHAR, Client::getZipCode),
+        new StagedColumn("client_type", "VARCHAR(255)", Types.VARCHAR, Client::getClientType),
+        new StagedColumn("client_status", "VARCHAR(255)", Types.VARCHAR, Client::getClientStatus),
+        new StagedColumn("lead_source", "VARCHAR(255)", Types.VARCHAR, Client::getLeadSource),
+        new StagedColumn("notes", "VARCHAR(1000)", Types.VARCHAR, Client::getNotes),
+        new StagedColumn("is_active", "BOOLEAN", Types.BOOLEAN, Client::getIsActive),
+        new StagedColumn("email_opted_in", "BOOLEAN", Types.BOOLEAN, Client::getEmailOptedIn),
+        new StagedColumn("email_contact_count", "INTEGER", Types.INTEGER, Client::getEmailContactCount),
+        new StagedColumn("phone_contact_count", "INTEGER", Types.INTEGER, Client::getPhoneContactCount),
+        // The imported date added; set on new clients only
+        new StagedColumn("created_at", "TIMESTAMP", Types.TIMESTAMP, client -> timestamp(client.getCreatedAt()), true));
+
+    /** Columns the import does not carry, filled on new clients from {@link Client#applyDefaults()}. */
+    private static final List<StagedColumn> DEFAULTED_COLUMNS = List.of(
+        new StagedColumn("business_id", "VARCHAR(255)", Types.VARCHAR, Client::getBusinessId),
+        new StagedColumn("sms_opted_in", "BOOLEAN", Types.BOOLEAN, Client::getSmsOptedIn),
+        new StagedColumn("sms_contact_count", "INTEGER", Types.INTEGER, Client::getSmsContactCount),
+        new StagedColumn("total_contact_count", "INTEGER", Types.INTEGER, Client::getTotalContactCount),
+        new StagedColumn("updated_at", "TIMESTAMP", Types.TIMESTAMP, client -> timestamp(client.getUpdatedAt())));
+
+    private static final String CREATE_STAGE = createStageSql();
+    /** H2 commits the open transaction on DDL unless the temporary table is TRANSACTIONAL. */
+    private static final String CREATE_STAGE_H2 = CREATE_STAGE + " TRANSACTIONAL";
+    private static final String COPY_STAGE = "COPY " + STAGE_TABLE + " (" + stageColumnList("")
+        + ") FROM STDIN WITH (FORMAT csv)";
+    private static final String INSERT_STAGE = insertStageSql();
+    private static final String UPDATE_EXISTING = updateExistingSql();
+    /** H2 has no UPDATE ... FROM; its MERGE does the same join. */
+    private static final String UPDATE_EXISTING_H2 = updateExistingMergeSql();
+    private static final String COUNT_MATCHES = countMatchesSql();
+    private static final String INSERT_NEW = insertNewSql();
+    /** A unique violation means another session inserted the email after the NOT EXISTS check. */
+    private static final String INSERT_NEW_POSTGRES = INSERT_NEW + " ON CONFLICT DO NOTHING";
+
+    private static class StagedColumn {
+        private final String name;
+        private final String type;
+        private final int sqlType;
+        private final Function<Client, Object> value;
+        private final boolean insertOnly;
+
+        StagedColumn(String name, String type, int sqlType, Function<Client, Object> value) {
+            this(name, type, sqlType, value, false);
+        }
+
+        StagedColumn(String name, String type, int sqlType, Function<Client, Object> value, boolean insertOnly) {
+            this.name = name;
+            this.type = type;
+            this.sqlType = sqlType;
+            this.value = value;
+            this.insertOnly = insertOnly;
+        }
+    }
+
+    /**
+     * How many staged clients were inserted, updated or already up to date, and
+     * how many matched more than one client on file by email.
+     */
+    public static class MergeResult {
+        private final int inserted;
+        private final int updated;
+        private final int unchanged;
+        private final int duplicates;
+
+        MergeResult(int inserted, int updated, int unchanged, int duplicates) {
+            this.inserted = inserted;
+            this.updated = updated;
+            this.unchanged = unchanged;
+            this.duplicates = duplicates;
+        }
+
+        public int getInserted() { return inserted; }
+        public int getUpdated() { return updated; }
+        public int getUnchanged() { return unchanged; }
+        /** Imported clients whose email is on file more than once; every match was updated. */
+        public int getDuplicates() { return duplicates; }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Merge one batch in a single transaction. Emails must be unique within
+     * the batch, ignoring case.
+     */
+    public MergeResult merge(List<Client> clients) {
+        if (clients.isEmpty()) {
+            return new MergeResult(0, 0, 0, 0);
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        return transaction.execute(status -> jdbcTemplate.execute((ConnectionCallback<MergeResult>) connection -> {
+            boolean postgres = connection.isWrapperFor(PGConnection.class);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(postgres ? CREATE_STAGE : CREATE_STAGE_H2);
+                // In case the database kept rows past ON COMMIT DELETE ROWS
+                statement.executeUpdate("DELETE FROM " + STAGE_TABLE);
+            }
+            if (postgres) {
+                copyStage(connection, clients);
+            } else {
+                insertStage(connection, clients);
+            }
+            int duplicates;
+            int updated;
+            try (Statement statement = connection.createStatement()) {
+                try (ResultSet matches = statement.executeQuery(COUNT_MATCHES)) {
+                    matches.next();
+                    duplicates = matches.getInt(1);
+                    updated = matches.getInt(2);
+                }
+                statement.executeUpdate(postgres ? UPDATE_EXISTING : UPDATE_EXISTING_H2);
+            }
+            int inserted = insertNew(connection, postgres ? INSERT_NEW_POSTGRES : INSERT_NEW);
+            return new MergeResult(inserted, updated, clients.size() - inserted - updated, duplicates);
+        }));
+    }
+
+    private static int insertNew(Connection connection, String sql) throws SQLException {
+        Client defaults = new Client();
+        defaults.applyDefaults();
+        try (PreparedStatement insert = connection.prepareStatement(sql)) {
+            int index = 1;
+            for (StagedColumn column : COLUMNS) {
+                insert.setObject(index++, column.value.apply(defaults), column.sqlType);
+            }
+            for (StagedColumn column : DEFAULTED_COLUMNS) {
+                insert.setObject(index++, column.value.apply(defaults), column.sqlType);
+            }
+            return insert.executeUpdate();
+        }
+    }
+
+    private static Timestamp timestamp(LocalDateTime value) {
+        return value == null ? null : Timestamp.valueOf(value);
+    }
+
+    private static void copyStage(Connection connection, List<Client> clients) throws SQLException {
+        StringBuilder csv = new StringBuilder(clients.size() * 160);
+        for (Client client : clients) {
+            appendCsv(csv, client.getEmail().toLowerCase());
+            csv.append(',');
+            appendCsv(csv, client.getEmail());
+            for (StagedColumn column : COLUMNS) {
+                csv.append(',');
+                appendCsv(csv, column.value.apply(client));
+            }
+            csv.append('\n');
+        }
+        try {
+            connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_STAGE, new StringReader(csv.toString()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write a value as a COPY CSV field: nothing for null, quoted when it could be misread.
+     */
+    static void appendCsv(StringBuilder csv, Object value) {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        boolean quote = text.isEmpty();
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r' || c == '\\';
+        }
+        if (!quote) {
+            csv.append(text);
+            return;
+        }
+        csv.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                csv.append('"');
+            }
+            csv.append(c);
+        }
+        csv.append('"');
+    }
+
+    private static void insertStage(Connection connection, List<Client> clients) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_STAGE)) {
+            for (Client client : clients) {
+                insert.setString(1, client.getEmail().toLowerCase());
+                insert.setString(2, client.getEmail());
+                for (int i = 0; i < COLUMNS.size(); i++) {
+                    StagedColumn column = COLUMNS.get(i);
+                    insert.setObject(i + 3, column.value.apply(client), column.sqlType);
+                }
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private static String createStageSql() {
+        StringBuilder sql = new StringBuilder("CREATE LOCAL TEMPORARY TABLE IF NOT EXISTS " + STAGE_TABLE
+            + " (email_key VARCHAR(255) PRIMARY KEY, email VARCHAR(255)");
+        for (StagedColumn column : COLUMNS) {
+            sql.append(", ").append(column.name).append(' ').append(column.type);
+        }
+        return sql.append(") ON COMMIT DELETE ROWS").toString();
+    }
+
+    private static String stageColumnList(String prefix) {
+        StringBuilder list = new StringBuilder(prefix + "email_key, " + prefix + "email");
+        for (StagedColumn column : COLUMNS) {
+            list.append(", ").append(prefix).append(column.name);
+        }
+        return list.toString();
+    }
+
+    private static String insertStageSql() {
+        return "INSERT INTO " + STAGE_TABLE + " (" + stageColumnList("") + ") VALUES (?, ?"
+            + ", ?".repeat(COLUMNS.size()) + ")";
+    }
+
+    /**
+     * Staged emails on file more than once, and staged emails with a stored client to change.
+     */
+    private static String countMatchesSql() {
+        return "SELECT COUNT(CASE WHEN m.matches > 1 THEN 1 END), COUNT(CASE WHEN m.changed > 0 THEN 1 END)"
+            + " FROM (SELECT s.email_key, COUNT(*) AS matches, SUM(CASE WHEN " + changes() + " THEN 1 ELSE 0 END)"
+            + " AS changed FROM " + STAGE_TABLE + " s JOIN clients c ON LOWER(c.email) = s.email_key"
+            + " GROUP BY s.email_key) m";
+    }
+
+    private static String updateExistingSql() {
+        return "UPDATE clients c SET " + assignments() + " FROM " + STAGE_TABLE + " s"
+            + " WHERE LOWER(c.email) = s.email_key AND (" + changes() + ")";
+    }
+
+    private static String updateExistingMergeSql() {
+        return "MERGE INTO clients c USING " + STAGE_TABLE + " s ON (LOWER(c.email) = s.email_key)"
+            + " WHEN MATCHED AND (" + changes() + ") THEN UPDATE SET " + assignments();
+    }
+
+    /**
+     * Take each column from the import when it has a value.
+     */
+    private static String assignments() {
+        List<String> assignments = new ArrayList<>();
+        for (StagedColumn column : COLUMNS) {
+            if (column.insertOnly) {
+                continue;
+            }
+            assignments.add(column.name + " = COALESCE(s." + column.name + ", c." + column.name + ")");
+        }
+        return String.join(", ", assignments) + ", updated_at = CURRENT_TIMESTAMP";
+    }
+
+    /**
+     * True when any imported value differs from the stored one.
+     */
+    private static String changes() {
+        List<String> changes = new ArrayList<>();
+        for (StagedColumn column : COLUMNS) {
+            if (column.insertOnly) {
+                continue;
+            }
+            changes.add("(s." + column.name + " IS NOT NULL AND s." + column.name
+                        + " IS DISTINCT FROM c." + column.name + ")");
+        }
+        return String.join(" OR ", changes);
+    }
+
+    /**
+     * Insert the staged clients with no match. Each staged column takes the
+     * bound default when empty, and the columns the import does not carry take
+     * theirs, in {@link #COLUMNS} then {@link #DEFAULTED_COLUMNS} order.
+     */
+    private static String insertNewSql() {
+        StringBuilder columns = new StringBuilder("email");
+        StringBuilder values = new StringBuilder("s.email");
+        for (StagedColumn column : COLUMNS) {
+            columns.append(", ").append(column.name);
+            values.append(", COALESCE(s.").append(column.name).append(", ?)");
+        }
+        for (StagedColumn column : DEFAULTED_COLUMNS) {
+            columns.append(", ").append(column.name);
+            values.append(", ?");
+        }
+        return "INSERT INTO clients (" + columns + ") SELECT " + values + " FROM " + STAGE_TABLE + " s"
+            + " WHERE NOT EXISTS (SELECT 1 FROM clients c WHERE LOWER(c.email) = s.email_key)";
+    }
+}
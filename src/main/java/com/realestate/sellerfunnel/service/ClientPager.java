@@ -0,0 +1,108 @@
+package com.realestate.sellerfunnel.service;
+
+import com.realestate.sellerfunnel.model.Client;
+import com.realestate.sellerfunnel.repository.ClientRepository;
+import com.realestate.sellerfunnel.repository.ClientSpecifications;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Pages through clients newest first with keyset paging on (created_at, id).
+ * Each page is read with "older than the last row of the previous page"
+ * rather than an offset, so every page costs the same however deep it is and
+ * clients added meanwhile do not shift rows between pages.
+ *
+ * The position is handed to callers as an opaque cursor token that only this
+ * class decodes.
+ */
+@Service
+public class ClientPager {
+
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
+    /**
+     * One page of clients and the cursor for the next, which is null on the last page.
+     */
+    public static class ClientPage {
+        private final List<Client> clients;
+        private final int size;
+        private final String nextCursor;
+
+        ClientPage(List<Client> clients, int size, String nextCursor) {
+            this.clients = clients;
+            this.size = size;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<Client> getClients() { return clients; }
+        public int getSize() { return size; }
+        public String getNextCursor() { return nextCursor; }
+        public boolean isHasMore() { return nextCursor != null; }
+    }
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Value("${app.clients.page-size:50}")
+    private int defaultPageSize = 50;
+
+    /**
+     * Load the page of clients matching {@code specification} that follows {@code cursor},
+     * or the first page when it is blank.
+     *
+     * @param size clients per page, the configured default when null, capped at {@link #MAX_PAGE_SIZE}
+     * @throws IllegalArgumentException if the cursor was not issued by this class
+     */
+    public ClientPage page(Specification<Client> specification, String cursor, Integer size) {
+        int pageSize = Math.max(1, Math.min(size != null ? size : defaultPageSize, MAX_PAGE_SIZE));
+        Specification<Client> after = cursor == null || cursor.isBlank()
+            ? specification
+            : specification.and(afterCursor(cursor));
+
+        // One extra row tells whether there is a next page without counting
+        List<Client> clients = clientRepository.findBy(after,
+            query -> query.sortBy(NEWEST_FIRST).limit(pageSize + 1).all());
+        if (clients.size() <= pageSize) {
+            return new ClientPage(clients, pageSize, null);
+        }
+        List<Client> page = clients.subList(0, pageSize);
+        Client last = page.get(pageSize - 1);
+        return new ClientPage(page, pageSize, encodeCursor(last.getCreatedAt(), last.getId()));
+    }
+
+    /**
+     * Like {@link #page}, returning just the clients of the first page.
+     */
+    public List<Client> firstPage(Specification<Client> specification, int size) {
+        return page(specification, null, size).getClients();
+    }
+
+    static String encodeCursor(LocalDateTime createdAt, Long id) {
+        // Databases keep microseconds; a client still in memory after saving can carry nanoseconds
+        String position = createdAt.truncatedTo(ChronoUnit.MICROS) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Specification<Client> afterCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.lastIndexOf('|');
+            LocalDateTime createdAt = LocalDateTime.parse(position.substring(0, separator));
+            long id = Long.parseLong(position.substring(separator + 1));
+            return ClientSpecifications.olderThan(createdAt, id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid page cursor", e);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.realestate.sellerfunnel.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+
+/**
+ * Validates and normalizes the cells of an imported client row before the
+ * client is built: email syntax, phone numbers to E.164 and dates to
+ * {@code yyyy-MM-dd HH:mm:ss}. Invalid values are reported as
+ * IllegalArgumentException so the row can be counted as an error.
+ */
+public final class ClientRowNormalizer {
+
+    /** Country code assumed for phone numbers written without one. */
+    static final String DEFAULT_COUNTRY_CODE = "1";
+
+    private static final Pattern EMAIL = Pattern.compile("^[A-Za-z0-9._%+'-]+@[A-Za-z0-9-]+(\\.[A-Za-z0-9-]+)*\\.[A-Za-z]{2,}$");
+
+    private static final DateTimeFormatter OUTPUT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final List<DateTimeFormatter> DATE_TIMES = List.of(
+        strict("uuuu-MM-dd HH:mm:ss"),
+        strict("uuuu-MM-dd'T'HH:mm:ss"),
+        strict("uuuu-MM-dd HH:mm"),
+        strict("M/d/uuuu H:mm:ss"),
+        strict("M/d/uuuu H:mm"),
+        strict("d/M/uuuu H:mm:ss")
+    );
+
+    // Month first, as Excel formats dates in US locales; day first only when the month would be invalid
+    private static final List<DateTimeFormatter> DATES = List.of(
+        strict("uuuu-MM-dd"),
+        strict("M/d/uuuu"),
+        strict("M/d/uu"),
+        strict("d/M/uuuu")
+    );
+
+    private ClientRowNormalizer() {
+    }
+
+    /**
+     * Normalize the email, phone and date added cells of a row in place.
+     */
+    public static void normalize(List<String> values, Map<String, Integer> columnMap) {
+        apply(values, columnMap.get("email"), ClientRowNormalizer::normalizeEmail);
+        apply(values, columnMap.get("phone"), ClientRowNormalizer::normalizePhone);
+        apply(values, columnMap.get("date added"), value -> normalizeDate(value).format(OUTPUT));
+    }
+
+    public static String normalizeEmail(String email) {
+        String trimmed = email.trim();
+        if (!EMAIL.matcher(trimmed).matches()) {
+            throw new IllegalArgumentException("Invalid email address: " + email);
+        }
+        return trimmed;
+    }
+
+    /**
+     * Convert a phone number to E.164, e.g. {@code (808) 555-0100} to {@code +18085550100}.
+     */
+    public static String normalizePhone(String phone) {
+        String trimmed = phone.trim();
+        StringBuilder digits = new StringBuilder(trimmed.length());
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+
+        String number;
+        if (trimmed.startsWith("+")) {
+            number = digits.toString();
+        } else if (digits.length() > 2 && trimmed.startsWith("00")) {
+            number = digits.substring(2);
+        } else if (digits.length() == 10) {
+            number = DEFAULT_COUNTRY_CODE + digits;
+        } else if (digits.length() == 11 && digits.toString().startsWith(DEFAULT_COUNTRY_CODE)) {
+            number = digits.toString();
+        } else {
+            throw new IllegalArgumentException("Invalid phone number: " + phone);
+        }
+
+        if (number.length() < 8 || number.length() > 15 || number.startsWith("0")) {
+            throw new IllegalArgumentException("Invalid phone number: " + phone);
+        }
+        return "+" + number;
+    }
+
+    public static LocalDateTime normalizeDate(String date) {
+        String trimmed = date.trim();
+        for (DateTimeFormatter formatter : DATE_TIMES) {
+            try {
+                return LocalDateTime.parse(trimmed, formatter);
+            } catch (DateTimeParseException e) {
+                // Try the next format
+            }
+        }
+        for (DateTimeFormatter formatter : DATES) {
+            try {
+                return LocalDate.parse(trimmed, formatter).atStartOfDay();
+            } catch (DateTimeParseException e) {
+                // Try the next format
+            }
+        }
+        throw new IllegalArgumentException("Unable to parse date: " + date);
+    }
+
+    private static void apply(List<String> values, Integer column, UnaryOperator<String> normalizer) {
+        if (column == null || column >= values.size()) {
+            return;
+        }
+        String value = values.get(column);
+        if (value != null && !value.isEmpty()) {
+            values.set(column, normalizer.apply(value));
+        }
+    }
+
+    private static DateTimeFormatter strict(String pattern) {
+        return DateTimeFormatter.ofPattern(pattern).withResolverStyle(ResolverStyle.STRICT);
+    }
+}
@@ -0,0 +1,213 @@
+package com.realestate.sellerfunnel.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Ranked client search over name, email, company, phone and city.
+ *
+ * On PostgreSQL with pg_trgm the clients are matched by trigram word
+ * similarity against {@link #SEARCH_DOCUMENT}, which tolerates typos and
+ * matches word prefixes, and ordered nearest first through the GiST index
+ * {@link DatabaseMaintenanceService} creates on that expression, so a page
+ * costs about the same however many clients match. Elsewhere the search falls
+ * back to a substring match with exact prefix hits ranked first.
+ */
+@Service
+public class ClientSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClientSearchService.class);
+
+    /** Text searched for each client; the index must be created on exactly this expression. */
+    static final String SEARCH_DOCUMENT = "lower(coalesce(first_name, '') || ' ' || coalesce(last_name, '')"
+        + " || ' ' || coalesce(email, '') || ' ' || coalesce(company_name, '')"
+        + " || ' ' || coalesce(phone_number, '') || ' ' || coalesce(city, ''))";
+
+    public static final int MAX_PAGE_SIZE = 100;
+    static final int MAX_QUERY_LENGTH = 100;
+
+    private static final String HIT_COLUMNS = "id, first_name, last_name, email, phone_number, company_name, city,"
+        + " client_status";
+
+    private static final String TRIGRAM_SEARCH = "SELECT " + HIT_COLUMNS + ", 1 - (? <<-> " + SEARCH_DOCUMENT
+        + ") AS score FROM clients WHERE ? <% " + SEARCH_DOCUMENT
+        + " ORDER BY ? <<-> " + SEARCH_DOCUMENT + ", id LIMIT ? OFFSET ?";
+
+    private static final String SUBSTRING_SEARCH = "SELECT " + HIT_COLUMNS + ", CASE WHEN"
+        + " lower(first_name) LIKE ? ESCAPE '\\' OR lower(last_name) LIKE ? ESCAPE '\\'"
+        + " OR lower(email) LIKE ? ESCAPE '\\' THEN 1.0 ELSE 0.5 END AS score"
+        + " FROM clients WHERE " + SEARCH_DOCUMENT + " LIKE ? ESCAPE '\\'"
+        + " ORDER BY score DESC, id LIMIT ? OFFSET ?";
+
+    private static final RowMapper<Hit> HIT_MAPPER = (row, rowNum) -> new Hit(row.getLong("id"),
+        row.getString("first_name"), row.getString("last_name"), row.getString("email"),
+        row.getString("phone_number"), row.getString("company_name"), row.getString("city"),
+        row.getString("client_status"), row.getDouble("score"));
+
+    /**
+     * One matching client, with enough of it to show in a result list.
+     */
+    public static class Hit {
+        private final long id;
+        private final String firstName;
+        private final String lastName;
+        private final String email;
+        private final String phoneNumber;
+        private final String companyName;
+        private final String city;
+        private final String clientStatus;
+        private final double score;
+
+        Hit(long id, String firstName, String lastName, String email, String phoneNumber, String companyName,
+            String city, String clientStatus, double score) {
+            this.id = id;
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.email = email;
+            this.phoneNumber = phoneNumber;
+            this.companyName = companyName;
+            this.city = city;
+            this.clientStatus = clientStatus;
+            this.score = score;
+        }
+
+        public long getId() { return id; }
+        public String getFirstName() { return firstName; }
+        public String getLastName() { return lastName; }
+        public String getEmail() { return email; }
+        public String getPhoneNumber() { return phoneNumber; }
+        public String getCompanyName() { return companyName; }
+        public String getCity() { return city; }
+        public String getClientStatus() { return clientStatus; }
+        /** Between 0 and 1, higher is a closer match. */
+        public double getScore() { return score; }
+    }
+
+    /**
+     * One page of hits, best first.
+     */
+    public static class SearchPage {
+        private final String query;
+        private final int page;
+        private final int size;
+        private final boolean hasMore;
+        private final List<Hit> results;
+
+        SearchPage(String query, int page, int size, boolean hasMore, List<Hit> results) {
+            this.query = query;
+            this.page = page;
+            this.size = size;
+            this.hasMore = hasMore;
+            this.results = results;
+        }
+
+        public String getQuery() { return query; }
+        public int getPage() { return page; }
+        public int getSize() { return size; }
+        public boolean isHasMore() { return hasMore; }
+        public List<Hit> getResults() { return results; }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /** Lowest word similarity that counts as a match; pg_trgm's default of 0.6 misses most one-letter typos. */
+    @Value("${app.search.similarity-threshold:0.4}")
+    private String similarityThreshold = "0.4";
+
+    private volatile Boolean trigramAvailable;
+
+    /**
+     * Search clients. A blank query returns an empty page; {@code size} is capped at {@link #MAX_PAGE_SIZE}.
+     */
+    public SearchPage search(String query, int page, int size) {
+        String normalized = normalize(query);
+        int pageNumber = Math.max(0, page);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        if (normalized.isEmpty()) {
+            return new SearchPage("", pageNumber, pageSize, false, List.of());
+        }
+
+        // One extra row tells whether there is a next page without counting every match
+        int limit = pageSize + 1;
+        long offset = (long) pageNumber * pageSize;
+        List<Hit> hits = isTrigramAvailable()
+            ? trigramSearch(normalized, limit, offset)
+            : substringSearch(normalized, limit, offset);
+
+        boolean hasMore = hits.size() > pageSize;
+        return new SearchPage(normalized, pageNumber, pageSize, hasMore, hasMore ? hits.subList(0, pageSize) : hits);
+    }
+
+    private List<Hit> trigramSearch(String query, int limit, long offset) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction.execute(status -> {
+            // Local to this transaction, so pooled connections keep the server default
+            jdbcTemplate.queryForObject("SELECT set_config('pg_trgm.word_similarity_threshold', ?, true)",
+                String.class, similarityThreshold);
+            return jdbcTemplate.query(TRIGRAM_SEARCH, HIT_MAPPER, query, query, query, limit, offset);
+        });
+    }
+
+    private List<Hit> substringSearch(String query, int limit, long offset) {
+        String escaped = escapeLike(query);
+        String prefix = escaped + "%";
+        return jdbcTemplate.query(SUBSTRING_SEARCH, HIT_MAPPER, prefix, prefix, prefix, "%" + escaped + "%",
+            limit, offset);
+    }
+
+    /**
+     * Whether pg_trgm is installed; checked once, since it only appears at startup.
+     */
+    private boolean isTrigramAvailable() {
+        Boolean available = trigramAvailable;
+        if (available == null) {
+            available = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+                if (!"PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())) {
+                    return false;
+                }
+                try (Statement statement = connection.createStatement();
+                     ResultSet result = statement.executeQuery("SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm'")) {
+                    return result.next();
+                }
+            });
+            if (!available) {
+                logger.info("pg_trgm is not available; client search uses substring matching");
+            }
+            trigramAvailable = available;
+        }
+        return available;
+    }
+
+    /**
+     * Trim, lower-case and collapse whitespace, cut to {@link #MAX_QUERY_LENGTH} characters.
+     */
+    static String normalize(String query) {
+        if (query == null) {
+            return "";
+        }
+        String normalized = query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        return normalized.length() > MAX_QUERY_LENGTH ? normalized.substring(0, MAX_QUERY_LENGTH).trim() : normalized;
+    }
+
+    static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,163 @@
+package com.realestate.sellerfunnel.service;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Reads an RFC 4180 CSV file (UTF-8, comma separated, optional quotes with
+ * doubled quotes inside, LF or CRLF line ends) row by row. Bytes are parsed in
+ * place in a {@link ChannelBuffer}; cells reach the handler as byte ranges and
+ * are only decoded when read.
+ *
+ * The file is read twice: a quick pass counts the records so progress has a
+ * total, then the parsing pass reports them.
+ */
+public final class CsvRowReader {
+
+    private CsvRowReader() {
+    }
+
+    public static void read(File file, RowHandler handler) throws IOException {
+        int lastRowNum = lastRecordIndex(file);
+        if (lastRowNum >= 0) {
+            handler.lastRowNum(lastRowNum);
+        }
+
+        try (ChannelBuffer in = new ChannelBuffer(file)) {
+            in.refill(0);
+            int pos = in.skipByteOrderMark();
+            FieldRow row = new FieldRow();
+            int rowNum = 0;
+            while (true) {
+                if (pos >= in.limit()) {
+                    if (!in.refill(pos)) {
+                        break;
+                    }
+                    pos = 0;
+                }
+                int next;
+                try {
+                    next = parseRecord(in.data(), pos, in.limit(), in.eof(), row);
+                } catch (IllegalArgumentException e) {
+                    // Only an unterminated quote at the end of the file gets here; nothing follows it
+                    handler.invalidRow(rowNum, e.getMessage());
+                    return;
+                }
+                if (next < 0) {
+                    // Record cut off by the end of the buffer; read on and parse it again
+                    in.refill(pos);
+                    pos = 0;
+                    continue;
+                }
+                if (!row.isBlank()) {
+                    handler.row(rowNum, row);
+                }
+                rowNum++;
+                pos = next;
+            }
+        }
+    }
+
+    /**
+     * Parse one record starting at {@code pos} into {@code row}.
+     *
+     * @return the position after the record's line end, or -1 when the record
+     *         runs past {@code limit} and the file has more bytes
+     */
+    static int parseRecord(byte[] data, int pos, int limit, boolean eof, FieldRow row) {
+        row.clear(data);
+        int i = pos;
+        while (true) {
+            if (i < limit && data[i] == '"') {
+                int start = i + 1;
+                byte kind = FieldRow.PLAIN;
+                i = start;
+                while (true) {
+                    if (i >= limit) {
+                        if (eof) {
+                            throw new IllegalArgumentException("Unterminated quoted field");
+                        }
+                        return -1;
+                    }
+                    if (data[i] == '"') {
+                        if (i + 1 >= limit && !eof) {
+                            return -1;
+                        }
+                        if (i + 1 < limit && data[i + 1] == '"') {
+                            kind = FieldRow.CSV_ESCAPED;
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                row.add(start, i, kind);
+                i++;
+                // Anything between the closing quote and the next separator is ignored
+                while (i < limit && data[i] != ',' && data[i] != '\n' && data[i] != '\r') {
+                    i++;
+                }
+            } else {
+                int start = i;
+                while (i < limit && data[i] != ',' && data[i] != '\n' && data[i] != '\r') {
+                    i++;
+                }
+                row.add(start, i, FieldRow.PLAIN);
+            }
+
+            if (i >= limit) {
+                return eof ? limit : -1;
+            }
+            if (data[i] == ',') {
+                i++;
+                continue;
+            }
+            if (data[i] == '\r') {
+                if (i + 1 >= limit && !eof) {
+                    return -1;
+                }
+                if (i + 1 < limit && data[i + 1] == '\n') {
+                    i++;
+                }
+            }
+            return i + 1;
+        }
+    }
+
+    /**
+     * Index of the last record with content, counting line ends outside quotes; -1 for an empty file.
+     */
+    private static int lastRecordIndex(File file) throws IOException {
+        int record = 0;
+        int lastWithContent = -1;
+        boolean content = false;
+        boolean quoted = false;
+        try (ChannelBuffer in = new ChannelBuffer(file)) {
+            int pos = 0;
+            if (in.refill(0)) {
+                pos = in.skipByteOrderMark();
+            }
+            do {
+                byte[] data = in.data();
+                for (int i = pos, limit = in.limit(); i < limit; i++) {
+                    byte b = data[i];
+                    if (b == '"') {
+                        quoted = !quoted;
+                        content = true;
+                    } else if (b == '\n' && !quoted) {
+                        if (content) {
+                            lastWithContent = record;
+                        }
+                        record++;
+                        content = false;
+                    } else if ((b & 0xFF) > ' ' && b != ',') {
+                        content = true;
+                    }
+                }
+                pos = 0;
+            } while (in.refill(in.limit()));
+        }
+        return content ? record : lastWithContent;
+    }
+}
@@ -0,0 +1,108 @@
+package com.realestate.sellerfunnel.service;
+
+import com.realestate.sellerfunnel.repository.CampaignRepository;
+import com.realestate.sellerfunnel.repository.CampaignTileCounts;
+import com.realestate.sellerfunnel.repository.ClientRepository;
+import com.realestate.sellerfunnel.repository.ClientTileCounts;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Counts behind the client and marketing dashboard tiles. Each entity's tiles
+ * come from a single aggregate query with conditional sums, so a render costs
+ * one round trip per entity rather than loading rows to count them.
+ */
+@Service
+public class DashboardMetricsService {
+
+    /** Clients not contacted for this long count as needing contact. */
+    static final int CONTACT_INTERVAL_WEEKS = 1;
+
+    /**
+     * Client tile counts.
+     */
+    public static class ClientMetrics {
+        private final long total;
+        private final long active;
+        private final long emailOptedIn;
+        private final long smsOptedIn;
+        private final long needingContact;
+        private final long contacted;
+
+        ClientMetrics(ClientTileCounts counts) {
+            this.total = orZero(counts.getTotal());
+            this.active = orZero(counts.getActive());
+            this.emailOptedIn = orZero(counts.getEmailOptedIn());
+            this.smsOptedIn = orZero(counts.getSmsOptedIn());
+            this.needingContact = orZero(counts.getNeedingContact());
+            this.contacted = orZero(counts.getContacted());
+        }
+
+        public long getTotal() { return total; }
+        /** Active clients. */
+        public long getActive() { return active; }
+        /** Active clients opted in to email. */
+        public long getEmailOptedIn() { return emailOptedIn; }
+        /** Active clients opted in to SMS. */
+        public long getSmsOptedIn() { return smsOptedIn; }
+        /** Clients never contacted or not contacted within {@link #CONTACT_INTERVAL_WEEKS}. */
+        public long getNeedingContact() { return needingContact; }
+        /** Clients contacted at least once. */
+        public long getContacted() { return contacted; }
+    }
+
+    /**
+     * Campaign tile counts, with the spend and leads of campaigns created this month.
+     */
+    public static class CampaignMetrics {
+        private final long total;
+        private final long active;
+        private final BigDecimal monthlySpend;
+        private final long monthlyLeads;
+
+        CampaignMetrics(CampaignTileCounts counts) {
+            this.total = orZero(counts.getTotal());
+            this.active = orZero(counts.getActive());
+            this.monthlySpend = counts.getPeriodSpend() != null ? counts.getPeriodSpend() : BigDecimal.ZERO;
+            this.monthlyLeads = orZero(counts.getPeriodLeads());
+        }
+
+        public long getTotal() { return total; }
+        public long getActive() { return active; }
+        public BigDecimal getMonthlySpend() { return monthlySpend; }
+        public long getMonthlyLeads() { return monthlyLeads; }
+
+        /** Spend divided by leads, or zero before there is both. */
+        public double getCostPerLead() {
+            if (monthlyLeads == 0 || monthlySpend.signum() <= 0) {
+                return 0.0;
+            }
+            return monthlySpend.doubleValue() / monthlyLeads;
+        }
+    }
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private CampaignRepository campaignRepository;
+
+    public ClientMetrics clientMetrics() {
+        LocalDateTime contactedBefore = LocalDateTime.now().minusWeeks(CONTACT_INTERVAL_WEEKS);
+        return new ClientMetrics(clientRepository.countTiles(contactedBefore));
+    }
+
+    public CampaignMetrics campaignMetrics() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime startOfMonth = now.toLocalDate().withDayOfMonth(1).atStartOfDay();
+        LocalDateTime endOfMonth = startOfMonth.plusMonths(1).minusSeconds(1);
+        return new CampaignMetrics(campaignRepository.countTiles(now, startOfMonth, endOfMonth));
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0L;
+    }
+}
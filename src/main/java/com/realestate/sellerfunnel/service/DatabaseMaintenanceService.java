@@ -0,0 +1,74 @@
+package com.realestate.sellerfunnel.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+
+/**
+ * Applies schema adjustments that Hibernate's ddl-auto=update cannot make on
+ * an existing PostgreSQL database. Every statement is idempotent and runs on
+ * each startup; H2 schemas are created fresh and are skipped.
+ */
+@Service
+public class DatabaseMaintenanceService implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseMaintenanceService.class);
+
+    private static final List<String> POSTGRES_STATEMENTS = List.of(
+        // email_logs moved from IDENTITY to a pooled sequence; start it past ids already in the table
+        "SELECT setval('email_logs_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM email_logs) + 50, " +
+            "(SELECT last_value FROM email_logs_seq)))",
+        // Import dedup looks clients up by lower(email); not unique because duplicates already exist
+        "CREATE INDEX IF NOT EXISTS idx_clients_lower_email ON clients (lower(email))",
+        // Lets the import merge's ON CONFLICT skip emails inserted concurrently; fails, and is
+        // retried next startup, while duplicate emails remain
+        "CREATE UNIQUE INDEX IF NOT EXISTS uk_clients_lower_email ON clients (lower(email))",
+        // Client search; without the extension ClientSearchService falls back to substring matching
+        "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+        // GiST rather than GIN so the nearest matches come straight off the index in order
+        "CREATE INDEX IF NOT EXISTS idx_clients_search_trgm ON clients USING gist ((" +
+            ClientSearchService.SEARCH_DOCUMENT + ") gist_trgm_ops)",
+        // Bookings gained an optimistic lock version; rows from before it start at zero
+        "UPDATE bookings SET version = 0 WHERE version IS NULL",
+        // Client paging keys on created_at, so it may not be null; older rows take their last update time
+        "UPDATE clients SET created_at = COALESCE(updated_at, LOCALTIMESTAMP) WHERE created_at IS NULL",
+        "ALTER TABLE clients ALTER COLUMN created_at SET NOT NULL"
+    );
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!isPostgres()) {
+            return;
+        }
+        for (String sql : POSTGRES_STATEMENTS) {
+            try {
+                jdbcTemplate.execute(sql);
+            } catch (Exception e) {
+                logger.warn("Schema maintenance statement failed: {} - {}", sql, e.getMessage());
+            }
+        }
+    }
+
+    private boolean isPostgres() {
+        try (Connection connection = dataSource.getConnection()) {
+            return "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        } catch (Exception e) {
+            logger.warn("Could not determine database type: {}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package com.realestate.sellerfunnel.service;
 
+import com.realestate.sellerfunnel.model.CampaignSend;
 import com.realestate.sellerfunnel.model.Client;
+import com.realestate.sellerfunnel.model.OutboxMessage;
 import com.realestate.sellerfunnel.repository.ClientRepository;
+import com.realestate.sellerfunnel.repository.ClientSpecifications;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.scheduling.annotation.Async;
@@ -13,18 +18,25 @@ import org.springframework.stereotype.Service;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
+import java.io.UnsupportedEncodingException;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
 public class EmailCampaignService {
     private static final Logger logger = LoggerFactory.getLogger(EmailCampaignService.class);
-    private static final int BATCH_SIZE = 50;
-    private static final int RATE_LIMIT_DELAY = 1000; // 1 second delay between batches
+    private static final String CHANNEL = "EMAIL";
+    
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
     
     @Autowired
     private JavaMailSender emailSender;
@@ -41,27 +53,64 @@ public class EmailCampaignService {
     @Autowired
     private SettingsService settingsService;
     
+    @Autowired
+    private CampaignOutboxService outboxService;
+    
+    @Autowired
+    private SendRateLimiter sendRateLimiter;
+    
+    @Autowired
+    private BulkEmailSender bulkEmailSender;
+    
     @Value("${app.email.sender-name:}")
     private String defaultSenderName;
     
     @Value("${app.email.sender-email:}")
     private String defaultSenderEmail;
 
-    private String getSenderName() {
-        var s = settingsService.getSettingsOrDefault();
-        return (s.getEmailSenderName() != null && !s.getEmailSenderName().isEmpty()) ? s.getEmailSenderName() : (defaultSenderName != null && !defaultSenderName.isEmpty() ? defaultSenderName : "Real Estate Team");
-    }
-
-    private String getSenderEmail() {
+    private InternetAddress getSender() throws UnsupportedEncodingException {
         var s = settingsService.getSettingsOrDefault();
-        return (s.getEmailSenderEmail() != null && !s.getEmailSenderEmail().isEmpty()) ? s.getEmailSenderEmail() : defaultSenderEmail;
+        String name = (s.getEmailSenderName() != null && !s.getEmailSenderName().isEmpty()) ? s.getEmailSenderName() : (defaultSenderName != null && !defaultSenderName.isEmpty() ? defaultSenderName : "Real Estate Team");
+        String email = (s.getEmailSenderEmail() != null && !s.getEmailSenderEmail().isEmpty()) ? s.getEmailSenderEmail() : defaultSenderEmail;
+        return new InternetAddress(email, name, "UTF-8");
     }
     
     private final Map<String, CampaignProgress> campaignProgress = new ConcurrentHashMap<>();
     
+    @PostConstruct
+    public void registerOutboxChannel() {
+        outboxService.registerChannel(CHANNEL, new CampaignOutboxService.Channel() {
+            @Override
+            public Specification<Client> recipients(CampaignSend send) {
+                return EmailCampaignService.this.recipients(send);
+            }
+            
+            @Override
+            public String recipientAddress(Client client) {
+                return client.getEmail();
+            }
+            
+            @Override
+            public TokenBucket rateLimit(CampaignSend send) {
+                return sendRateLimiter.smtp(emailSender);
+            }
+            
+            @Override
+            public void deliver(CampaignSend send, List<OutboxMessage> batch,
+                                CampaignOutboxService.DeliveryResults results) throws Exception {
+                deliverBatch(send, batch, results);
+            }
+            
+            @Override
+            public void recordContacts(List<Long> clientIds) {
+                clientRepository.incrementEmailContacts(clientIds, LocalDateTime.now());
+            }
+        });
+    }
+    
     public static class CampaignProgress {
         private final String campaignId;
-        private final int totalRecipients;
+        private int totalRecipients;
         private int processedCount;
         private int successCount;
         private int errorCount;
@@ -101,6 +150,26 @@ public class EmailCampaignService {
             return totalRecipients == 0 ? 0 : (double) processedCount / totalRecipients * 100;
         }
         
+        /**
+         * Replace the counters with the stored state of the campaign's outbox.
+         */
+        public synchronized void update(CampaignOutboxService.OutboxProgress stored) {
+            if (stored.getTotalRecipients() > 0) {
+                totalRecipients = stored.getTotalRecipients();
+            }
+            successCount = stored.getSentCount();
+            errorCount = stored.getFailedCount();
+            skippedCount = stored.getSkippedCount();
+            processedCount = stored.getProcessedCount();
+            status = stored.getStatus();
+            errorMessage = stored.getErrorMessage();
+            if (stored.getStartTime() != null) {
+                startTime = stored.getStartTime();
+            }
+            endTime = stored.getEndTime();
+            recentErrors = new ArrayList<>(stored.getRecentErrors());
+        }
+        
         // Getters
         public String getCampaignId() { return campaignId; }
         public int getTotalRecipients() { return totalRecipients; }
@@ -137,20 +206,19 @@ public class EmailCampaignService {
         
         CompletableFuture.runAsync(() -> {
             try {
-                // Get filtered clients
-                List<Client> clients = clientRepository.findByFilters(
-                    clientType, clientStatus, leadSource, city, state);
+                CampaignSend send = new CampaignSend(campaignId, CHANNEL);
+                send.setClientType(clientType);
+                send.setClientStatus(clientStatus);
+                send.setLeadSource(leadSource);
+                send.setCity(city);
+                send.setState(state);
                 
-                // Filter for email opted-in clients
-                clients = clients.stream()
-                    .filter(client -> Boolean.TRUE.equals(client.getEmailOptedIn()))
-                    .filter(client -> client.getEmail() != null && !client.getEmail().trim().isEmpty())
-                    .collect(Collectors.toList());
+                long recipientCount = clientRepository.count(recipients(send));
                 
-                CampaignProgress progress = new CampaignProgress(campaignId, clients.size());
+                CampaignProgress progress = new CampaignProgress(campaignId, (int) recipientCount);
                 campaignProgress.put(campaignId, progress);
                 
-                if (clients.isEmpty()) {
+                if (recipientCount == 0) {
                     progress.setStatus("COMPLETED");
                     progress.setEndTime(LocalDateTime.now());
                     return;
@@ -170,30 +238,13 @@ public class EmailCampaignService {
                     }
                 }
                 
-                progress.setStatus("PROCESSING");
-                
-                // Process clients in batches
-                List<Client> currentBatch = new ArrayList<>();
-                for (Client client : clients) {
-                    currentBatch.add(client);
-                    
-                    if (currentBatch.size() >= BATCH_SIZE) {
-                        processBatch(currentBatch, finalSubject, finalMessage, useTemplate, templateName, progress);
-                        currentBatch = new ArrayList<>();
-                        Thread.sleep(RATE_LIMIT_DELAY);
-                    }
-                }
-                
-                // Process remaining clients
-                if (!currentBatch.isEmpty()) {
-                    processBatch(currentBatch, finalSubject, finalMessage, useTemplate, templateName, progress);
-                }
-                
-                // Save updated clients
-                clientRepository.saveAll(clients);
+                send.setSubject(finalSubject);
+                send.setMessage(finalMessage);
+                send.setUseTemplate(useTemplate);
+                send.setTemplateName(templateName);
                 
-                progress.setStatus("COMPLETED");
-                progress.setEndTime(LocalDateTime.now());
+                // Queue a row per recipient; outbox workers do the sending
+                outboxService.start(send);
                 
             } catch (Exception e) {
                 logger.error("Error processing email campaign {}: {}", campaignId, e.getMessage(), e);
@@ -204,48 +255,80 @@ public class EmailCampaignService {
                     progress.setEndTime(LocalDateTime.now());
                 }
             }
-        });
+        }, taskExecutor);
         
         return CompletableFuture.completedFuture(campaignId);
     }
     
-    private void processBatch(List<Client> batch, String subject, String messageText, 
-                            boolean useTemplate, String templateName, CampaignProgress progress) {
-        for (Client client : batch) {
-            try {
-                MimeMessage message = emailSender.createMimeMessage();
-                MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-                
-                helper.setFrom(getSenderEmail(), getSenderName());
-                helper.setTo(client.getEmail());
-                helper.setSubject(subject);
-                
-                String content;
-                if (useTemplate) {
-                    Context context = new Context();
-                    context.setVariable("client", client);
-                    context.setVariable("message", messageText);
-                    content = templateEngine.process(templateName, context);
-                } else {
-                    content = messageText;
+    private Specification<Client> recipients(CampaignSend send) {
+        return ClientSpecifications
+            .campaignFilters(send.getClientType(), send.getClientStatus(), send.getLeadSource(),
+                             send.getCity(), send.getState())
+            .and(ClientSpecifications.hasEmail());
+    }
+    
+    /**
+     * Send a claimed outbox batch over one SMTP connection and report each message's outcome
+     */
+    private void deliverBatch(CampaignSend send, List<OutboxMessage> batch,
+                              CampaignOutboxService.DeliveryResults results) throws Exception {
+        Map<Long, Client> clients = new HashMap<>();
+        clientRepository.findAllById(batch.stream().map(OutboxMessage::getClientId).collect(Collectors.toList()))
+            .forEach(client -> clients.put(client.getId(), client));
+        InternetAddress sender = getSender();
+        
+        try (BulkEmailSender.Connection connection = bulkEmailSender.openConnection()) {
+            for (OutboxMessage outboxMessage : batch) {
+                Client client = clients.get(outboxMessage.getClientId());
+                if (client == null) {
+                    results.skipped(outboxMessage, "Client no longer exists");
+                    continue;
+                }
+                try {
+                    connection.send(composeMessage(client, outboxMessage.getRecipient(), sender, send));
+                    results.sent(outboxMessage);
+                } catch (Exception e) {
+                    logger.error("Error sending email to {}: {}", outboxMessage.getRecipient(), e.getMessage());
+                    results.failed(outboxMessage, e.getMessage());
                 }
-                
-                helper.setText(content, true);
-                
-                emailSender.send(message);
-                
-                progress.incrementSuccess();
-                client.incrementEmailContact();
-                
-            } catch (Exception e) {
-                logger.error("Error sending email to {}: {}", client.getEmail(), e.getMessage());
-                progress.incrementError("Failed to send to " + client.getEmail() + ": " + e.getMessage());
             }
         }
     }
     
+    private MimeMessage composeMessage(Client client, String recipient, InternetAddress sender,
+                                       CampaignSend send) throws Exception {
+        MimeMessage message = emailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        
+        helper.setFrom(sender);
+        helper.setTo(recipient);
+        helper.setSubject(send.getSubject());
+        
+        String content;
+        if (Boolean.TRUE.equals(send.getUseTemplate())) {
+            Context context = new Context();
+            context.setVariable("client", client);
+            context.setVariable("message", send.getMessage());
+            content = templateEngine.process(send.getTemplateName(), context);
+        } else {
+            content = send.getMessage();
+        }
+        
+        helper.setText(content, true);
+        
+        return message;
+    }
+    
     public CampaignProgress getCampaignProgress(String campaignId) {
-        return campaignProgress.get(campaignId);
+        CampaignOutboxService.OutboxProgress stored = outboxService.getProgress(campaignId);
+        if (stored == null) {
+            // Not queued yet, or finished without sending anything
+            return campaignProgress.get(campaignId);
+        }
+        CampaignProgress progress = campaignProgress.computeIfAbsent(campaignId,
+            id -> new CampaignProgress(id, stored.getTotalRecipients()));
+        progress.update(stored);
+        return progress;
     }
     
     public void cleanupOldCampaigns() {
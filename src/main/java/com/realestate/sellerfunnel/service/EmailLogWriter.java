@@ -0,0 +1,209 @@
+package com.realestate.sellerfunnel.service;
+
+import com.realestate.sellerfunnel.model.EmailLog;
+import com.realestate.sellerfunnel.repository.EmailLogRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Buffers EmailLog records and writes them in JDBC batches from a single
+ * background thread, so send threads no longer pay one INSERT per message.
+ *
+ * A batch is flushed when it reaches {@code app.email.log.batch-size} records
+ * or when the oldest record has waited {@code app.email.log.flush-interval-ms}.
+ * {@link #write} blocks while the queue is full, and everything still queued is
+ * written on shutdown. Logs written after shutdown are saved on the caller's thread.
+ */
+@Service
+public class EmailLogWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailLogWriter.class);
+
+    @Autowired
+    private EmailLogRepository emailLogRepository;
+
+    @Value("${app.email.log.queue-capacity:10000}")
+    private int queueCapacity = 10000;
+
+    @Value("${app.email.log.batch-size:200}")
+    private int batchSize = 200;
+
+    @Value("${app.email.log.flush-interval-ms:500}")
+    private long flushIntervalMs = 500;
+
+    private BlockingQueue<EmailLog> queue;
+
+    // Logs queued or being written, by tracking ID, so status callbacks can reach them before they hit the database
+    private final Map<String, EmailLog> pending = new ConcurrentHashMap<>();
+
+    private final Object flushLock = new Object();
+
+    // Writers enqueue under the read lock; stop takes the write lock, so no log is queued after the final drain
+    private final ReadWriteLock runningLock = new ReentrantReadWriteLock();
+
+    private volatile boolean running;
+
+    private Thread flusher;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        running = true;
+        flusher = new Thread(this::runFlusher, "EmailLogWriter");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        runningLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            runningLock.writeLock().unlock();
+        }
+        flusher.interrupt();
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Anything the flusher did not get to is written on the caller's thread
+        flushRemaining();
+    }
+
+    /**
+     * Queue a log for writing, waiting for space if the queue is full.
+     */
+    public void write(EmailLog emailLog) {
+        runningLock.readLock().lock();
+        try {
+            if (running && enqueue(emailLog)) {
+                return;
+            }
+        } finally {
+            runningLock.readLock().unlock();
+        }
+        emailLogRepository.save(emailLog);
+    }
+
+    private boolean enqueue(EmailLog emailLog) {
+        String trackingId = emailLog.getTrackingId();
+        if (trackingId != null) {
+            pending.put(trackingId, emailLog);
+        }
+        try {
+            queue.put(emailLog);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (trackingId != null) {
+                pending.remove(trackingId, emailLog);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Apply an update to a log that has not been written yet.
+     *
+     * @return false if no buffered log has this tracking ID, in which case the
+     *         caller should update the stored row instead
+     */
+    public boolean updatePending(String trackingId, Consumer<EmailLog> update) {
+        synchronized (flushLock) {
+            EmailLog emailLog = pending.get(trackingId);
+            if (emailLog == null) {
+                return false;
+            }
+            update.accept(emailLog);
+            return true;
+        }
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    private void runFlusher() {
+        List<EmailLog> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                EmailLog first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.currentTimeMillis() + flushIntervalMs;
+                while (batch.size() < batchSize) {
+                    long wait = deadline - System.currentTimeMillis();
+                    if (wait <= 0) {
+                        break;
+                    }
+                    EmailLog next = queue.poll(wait, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                // Shutdown; keep what we already took
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flushRemaining() {
+        List<EmailLog> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<EmailLog> batch) {
+        // Held until the rows are committed so updatePending never edits a log after it was written
+        synchronized (flushLock) {
+            try {
+                emailLogRepository.saveAll(batch);
+            } catch (Exception e) {
+                logger.error("Batch write of {} email logs failed, retrying one by one: {}", batch.size(), e.getMessage());
+                for (EmailLog emailLog : batch) {
+                    try {
+                        // Ids assigned by the rolled-back batch insert are not in the database
+                        emailLog.setId(null);
+                        emailLogRepository.save(emailLog);
+                    } catch (Exception rowError) {
+                        logger.error("Dropping email log for {}: {}", emailLog.getRecipientEmail(), rowError.getMessage());
+                    }
+                }
+            } finally {
+                for (EmailLog emailLog : batch) {
+                    if (emailLog.getTrackingId() != null) {
+                        pending.remove(emailLog.getTrackingId(), emailLog);
+                    }
+                }
+            }
+        }
+    }
+}
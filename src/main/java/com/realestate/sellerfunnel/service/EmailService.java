@@ -4,6 +4,8 @@ import com.realestate.sellerfunnel.model.Client;
 import com.realestate.sellerfunnel.model.EmailCampaign;
 import com.realestate.sellerfunnel.model.EmailLog;
 import com.realestate.sellerfunnel.repository.EmailLogRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.javamail.JavaMailSender;
@@ -17,10 +19,13 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.stream.StreamSupport;
 
 @Service
 public class EmailService {
     
+    private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
+    
     @Autowired
     private JavaMailSender mailSender;
     
@@ -30,6 +35,12 @@ public class EmailService {
     @Autowired
     private EmailLogRepository emailLogRepository;
     
+    @Autowired
+    private BulkEmailSender bulkEmailSender;
+    
+    @Autowired
+    private EmailLogWriter emailLogWriter;
+    
     @Value("${spring.mail.username}")
     private String defaultSenderEmail;
     
@@ -41,51 +52,16 @@ public class EmailService {
      */
     public boolean sendEmail(Client client, String subject, String content, String senderName, String senderEmail) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setTo(client.getEmail());
-            helper.setSubject(subject);
-            helper.setText(content, true); // true indicates HTML content
-            helper.setFrom(senderEmail != null ? senderEmail : defaultSenderEmail, 
-                          senderName != null ? senderName : defaultSenderName);
-            
-            mailSender.send(message);
+            mailSender.send(buildMessage(client, subject, content, senderName, senderEmail));
             
-            // Log the email
-            EmailLog emailLog = new EmailLog();
-            emailLog.setClient(client);
-            emailLog.setRecipientEmail(client.getEmail());
-            emailLog.setRecipientName(client.getFullName());
-            emailLog.setSubjectLine(subject);
-            emailLog.setContent(content);
-            emailLog.setSenderEmail(senderEmail != null ? senderEmail : defaultSenderEmail);
-            emailLog.setSenderName(senderName != null ? senderName : defaultSenderName);
-            emailLog.setStatus("SENT");
-            emailLog.setSentDate(LocalDateTime.now());
-            emailLog.setTrackingId(generateTrackingId());
-            
-            emailLogRepository.save(emailLog);
+            logEmail(client, subject, content, senderName, senderEmail, null);
             
             // Update client's last contact date
             client.setLastContactDate(LocalDateTime.now());
             
             return true;
         } catch (Exception e) {
-            // Log failed email
-            EmailLog emailLog = new EmailLog();
-            emailLog.setClient(client);
-            emailLog.setRecipientEmail(client.getEmail());
-            emailLog.setRecipientName(client.getFullName());
-            emailLog.setSubjectLine(subject);
-            emailLog.setContent(content);
-            emailLog.setSenderEmail(senderEmail != null ? senderEmail : defaultSenderEmail);
-            emailLog.setSenderName(senderName != null ? senderName : defaultSenderName);
-            emailLog.setStatus("FAILED");
-            emailLog.setErrorMessage(e.getMessage());
-            emailLog.setTrackingId(generateTrackingId());
-            
-            emailLogRepository.save(emailLog);
+            logEmail(client, subject, content, senderName, senderEmail, e);
             
             return false;
         }
@@ -95,32 +71,15 @@ public class EmailService {
      * Send email campaign to multiple clients
      */
     public EmailCampaignResult sendEmailCampaign(EmailCampaign campaign, List<Client> clients) {
-        EmailCampaignResult result = new EmailCampaignResult();
-        result.setTotalRecipients(clients.size());
-        
-        for (Client client : clients) {
-            if (!client.getEmailOptedIn() || !client.getIsActive()) {
-                result.incrementSkipped();
-                continue;
-            }
-            
-            try {
-                // Personalize content for the client
-                String personalizedContent = personalizeContent(campaign.getContent(), client);
-                String personalizedSubject = personalizeContent(campaign.getSubjectLine(), client);
-                
-                boolean sent = sendEmail(client, personalizedSubject, personalizedContent, 
-                                       campaign.getSenderName(), campaign.getSenderEmail());
-                
-                if (sent) {
-                    result.incrementSent();
-                } else {
-                    result.incrementFailed();
-                }
-            } catch (Exception e) {
-                result.incrementFailed();
-            }
-        }
+        return sendEmailCampaign(campaign, clients, clients.size());
+    }
+    
+    /**
+     * Send email campaign to clients read lazily, e.g. from a {@link RecipientCursor}
+     */
+    public EmailCampaignResult sendEmailCampaign(EmailCampaign campaign, Iterable<Client> clients, long totalRecipients) {
+        EmailCampaignResult result = sendPersonalized(clients, totalRecipients, campaign.getSubjectLine(),
+                campaign.getContent(), campaign.getSenderName(), campaign.getSenderEmail());
         
         // Update campaign statistics
         campaign.setSentDate(LocalDateTime.now());
@@ -161,59 +120,109 @@ public class EmailService {
     }
     
     /**
-     * Send bulk emails with rate limiting
+     * Send bulk emails, paced by the SMTP host's rate limit
      */
     public EmailCampaignResult sendBulkEmails(List<Client> clients, String subject, String content, 
-                                            String senderName, String senderEmail, int delayMs) {
+                                            String senderName, String senderEmail) {
+        return sendPersonalized(clients, clients.size(), subject, content, senderName, senderEmail);
+    }
+    
+    /**
+     * Personalize and send to every eligible client through the bulk sender
+     */
+    private EmailCampaignResult sendPersonalized(Iterable<Client> clients, long totalRecipients, String subject,
+                                                 String content, String senderName, String senderEmail) {
         EmailCampaignResult result = new EmailCampaignResult();
-        result.setTotalRecipients(clients.size());
+        result.setTotalRecipients((int) totalRecipients);
+        
+        // Filtered lazily so a cursor is read one page at a time
+        Iterable<OutgoingEmail> eligible = StreamSupport.stream(clients.spliterator(), false)
+            .filter(client -> {
+                if (!Boolean.TRUE.equals(client.getEmailOptedIn()) || !Boolean.TRUE.equals(client.getIsActive())) {
+                    result.incrementSkipped();
+                    return false;
+                }
+                return true;
+            })
+            .map(OutgoingEmail::new)::iterator;
         
-        for (Client client : clients) {
-            if (!client.getEmailOptedIn() || !client.getIsActive()) {
-                result.incrementSkipped();
-                continue;
+        PersonalizationTemplate subjectTemplate = compileTemplate(subject, "subject");
+        PersonalizationTemplate contentTemplate = compileTemplate(content, "content");
+        
+        // Personalization runs on the worker that sends the message, which also reports the outcome
+        bulkEmailSender.send(eligible, email -> {
+            email.subject = subjectTemplate.render(email.client);
+            email.content = contentTemplate.render(email.client);
+            return buildMessage(email.client, email.subject, email.content, senderName, senderEmail);
+        }, new BulkEmailSender.DeliveryListener<OutgoingEmail>() {
+            @Override
+            public void onSent(OutgoingEmail email, MimeMessage message) {
+                logEmail(email.client, email.subject, email.content, senderName, senderEmail, null);
+                email.client.setLastContactDate(LocalDateTime.now());
+                result.incrementSent();
             }
             
-            try {
-                String personalizedContent = personalizeContent(content, client);
-                String personalizedSubject = personalizeContent(subject, client);
-                
-                boolean sent = sendEmail(client, personalizedSubject, personalizedContent, 
-                                       senderName, senderEmail);
-                
-                if (sent) {
-                    result.incrementSent();
-                } else {
-                    result.incrementFailed();
-                }
-                
-                // Rate limiting
-                if (delayMs > 0) {
-                    Thread.sleep(delayMs);
-                }
-            } catch (Exception e) {
+            @Override
+            public void onFailed(OutgoingEmail email, MimeMessage message, Exception error) {
+                logEmail(email.client, email.subject, email.content, senderName, senderEmail, error);
                 result.incrementFailed();
             }
-        }
+        });
         
         return result;
     }
     
     /**
-     * Personalize content with client information
+     * Compile a subject or body once per send, warning about placeholders that will not be filled
      */
-    private String personalizeContent(String content, Client client) {
-        if (content == null) return "";
+    private PersonalizationTemplate compileTemplate(String source, String part) {
+        PersonalizationTemplate template = PersonalizationTemplate.compile(source);
+        if (template.hasUnknownPlaceholders()) {
+            logger.warn("Email {} has unknown placeholders {}; they will be sent as written",
+                        part, template.getUnknownPlaceholders());
+        }
+        return template;
+    }
+    
+    /**
+     * Build the MIME message for a single client
+     */
+    private MimeMessage buildMessage(Client client, String subject, String content,
+                                     String senderName, String senderEmail) throws Exception {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        
+        helper.setTo(client.getEmail());
+        helper.setSubject(subject);
+        helper.setText(content, true); // true indicates HTML content
+        helper.setFrom(senderEmail != null ? senderEmail : defaultSenderEmail, 
+                      senderName != null ? senderName : defaultSenderName);
+        return message;
+    }
+    
+    /**
+     * Record a sent email, or a failed one when error is not null
+     */
+    private void logEmail(Client client, String subject, String content, String senderName,
+                          String senderEmail, Exception error) {
+        EmailLog emailLog = new EmailLog();
+        emailLog.setClient(client);
+        emailLog.setRecipientEmail(client.getEmail());
+        emailLog.setRecipientName(client.getFullName());
+        emailLog.setSubjectLine(subject);
+        emailLog.setContent(content);
+        emailLog.setSenderEmail(senderEmail != null ? senderEmail : defaultSenderEmail);
+        emailLog.setSenderName(senderName != null ? senderName : defaultSenderName);
+        if (error == null) {
+            emailLog.setStatus("SENT");
+            emailLog.setSentDate(LocalDateTime.now());
+        } else {
+            emailLog.setStatus("FAILED");
+            emailLog.setErrorMessage(error.getMessage());
+        }
+        emailLog.setTrackingId(generateTrackingId());
         
-        return content
-            .replace("{{firstName}}", client.getFirstName() != null ? client.getFirstName() : "")
-            .replace("{{lastName}}", client.getLastName() != null ? client.getLastName() : "")
-            .replace("{{fullName}}", client.getFullName())
-            .replace("{{email}}", client.getEmail())
-            .replace("{{company}}", client.getCompanyName() != null ? client.getCompanyName() : "")
-            .replace("{{city}}", client.getCity() != null ? client.getCity() : "")
-            .replace("{{state}}", client.getState() != null ? client.getState() : "")
-            .replace("{{phone}}", client.getPhoneNumber() != null ? client.getPhoneNumber() : "");
+        emailLogWriter.write(emailLog);
     }
     
     /**
@@ -227,28 +236,36 @@ public class EmailService {
      * Update email status (for webhook callbacks)
      */
     public void updateEmailStatus(String trackingId, String status) {
+        // Logs from a campaign still being written are updated in the buffer
+        if (emailLogWriter.updatePending(trackingId, emailLog -> applyStatus(emailLog, status))) {
+            return;
+        }
+        
         emailLogRepository.findByTrackingId(trackingId).ifPresent(emailLog -> {
-            emailLog.setStatus(status);
-            
-            switch (status) {
-                case "DELIVERED":
-                    emailLog.setDeliveredDate(LocalDateTime.now());
-                    break;
-                case "OPENED":
-                    emailLog.setOpenedDate(LocalDateTime.now());
-                    break;
-                case "CLICKED":
-                    emailLog.setClickedDate(LocalDateTime.now());
-                    break;
-                case "BOUNCED":
-                    emailLog.setBouncedDate(LocalDateTime.now());
-                    break;
-            }
-            
+            applyStatus(emailLog, status);
             emailLogRepository.save(emailLog);
         });
     }
     
+    private void applyStatus(EmailLog emailLog, String status) {
+        emailLog.setStatus(status);
+        
+        switch (status) {
+            case "DELIVERED":
+                emailLog.setDeliveredDate(LocalDateTime.now());
+                break;
+            case "OPENED":
+                emailLog.setOpenedDate(LocalDateTime.now());
+                break;
+            case "CLICKED":
+                emailLog.setClickedDate(LocalDateTime.now());
+                break;
+            case "BOUNCED":
+                emailLog.setBouncedDate(LocalDateTime.now());
+                break;
+        }
+    }
+    
     /**
      * Test email configuration
      */
@@ -269,6 +286,19 @@ public class EmailService {
         }
     }
     
+    /**
+     * Personalized subject and body for one recipient
+     */
+    private static class OutgoingEmail {
+        private final Client client;
+        private String subject;
+        private String content;
+        
+        OutgoingEmail(Client client) {
+            this.client = client;
+        }
+    }
+    
     /**
      * Result class for email campaign operations
      */
@@ -278,9 +308,9 @@ public class EmailService {
         private int failedCount;
         private int skippedCount;
         
-        public void incrementSent() { sentCount++; }
-        public void incrementFailed() { failedCount++; }
-        public void incrementSkipped() { skippedCount++; }
+        public synchronized void incrementSent() { sentCount++; }
+        public synchronized void incrementFailed() { failedCount++; }
+        public synchronized void incrementSkipped() { skippedCount++; }
         
         // Getters and Setters
         public int getTotalRecipients() { return totalRecipients; }
@@ -0,0 +1,151 @@
+package com.realestate.sellerfunnel.service;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.AreaReference;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the sheets of an .xlsx file row by row with POI's SAX event
+ * model, so memory use does not grow with the number of rows. Only the
+ * current row and the workbook's shared string table are held in memory.
+ *
+ * Cell values are passed as the text Excel would display, trimmed, with
+ * missing cells as null.
+ */
+public final class ExcelRowReader {
+
+    private ExcelRowReader() {
+    }
+
+    /**
+     * Read the first sheet.
+     */
+    public static void read(File file, RowHandler handler) throws IOException {
+        read(file, handler, false);
+    }
+
+    /**
+     * Read every sheet in workbook order; row numbers restart at 0 for each sheet.
+     */
+    public static void readAllSheets(File file, RowHandler handler) throws IOException {
+        read(file, handler, true);
+    }
+
+    private static void read(File file, RowHandler handler, boolean allSheets) throws IOException {
+        OPCPackage pkg;
+        try {
+            pkg = OPCPackage.open(file, PackageAccess.READ);
+        } catch (OpenXML4JException | RuntimeException e) {
+            throw new IOException("Not a valid .xlsx file: " + e.getMessage(), e);
+        }
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+            StylesTable styles = reader.getStylesTable();
+
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                throw new IllegalArgumentException("Excel file has no sheets");
+            }
+            do {
+                try (InputStream sheet = sheets.next()) {
+                    handler.startSheet(sheets.getSheetName());
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new SheetHandler(styles, strings, handler));
+                    parser.parse(new InputSource(sheet));
+                }
+            } while (allSheets && sheets.hasNext());
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Could not read Excel file: " + e.getMessage(), e);
+        } finally {
+            // Read-only packages are released with revert(); close() would try to save
+            pkg.revert();
+        }
+    }
+
+    /**
+     * Collects the cells of each row and reports the sheet dimension.
+     */
+    private static class SheetHandler extends XSSFSheetXMLHandler {
+        private final RowHandler handler;
+
+        SheetHandler(StylesTable styles, ReadOnlySharedStringsTable strings, RowHandler handler) {
+            this(styles, strings, new RowCollector(handler));
+        }
+
+        private SheetHandler(StylesTable styles, ReadOnlySharedStringsTable strings, RowCollector collector) {
+            super(styles, null, strings, collector, new DataFormatter(), false);
+            this.handler = collector.handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            if ("dimension".equals(localName)) {
+                String ref = attributes.getValue("ref");
+                if (ref != null) {
+                    handler.lastRowNum(lastRowOf(ref));
+                }
+            }
+            super.startElement(uri, localName, qName, attributes);
+        }
+
+        private static int lastRowOf(String ref) {
+            if (!ref.contains(":")) {
+                return new CellReference(ref).getRow();
+            }
+            return new AreaReference(ref, SpreadsheetVersion.EXCEL2007).getLastCell().getRow();
+        }
+    }
+
+    private static class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final RowHandler handler;
+        private final List<String> values = new ArrayList<>();
+
+        RowCollector(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            values.clear();
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (!values.isEmpty()) {
+                handler.row(rowNum, values);
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : values.size();
+            while (values.size() < column) {
+                values.add(null);
+            }
+            String value = formattedValue == null ? null : formattedValue.trim();
+            values.add(value);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.realestate.sellerfunnel.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+
+/**
+ * One row of a text import held as byte ranges into the reader's buffer.
+ * A cell is decoded to a String only when it is read, so columns nobody asks
+ * for are never allocated. Values are trimmed and empty cells read as null,
+ * matching {@link ExcelRowReader}. The row is only valid during the
+ * {@link RowHandler#row} call it is passed to.
+ */
+final class FieldRow extends AbstractList<String> {
+
+    static final byte PLAIN = 0;
+    /** CSV quoted field containing doubled quotes. */
+    static final byte CSV_ESCAPED = 1;
+    /** JSON string containing backslash escapes. */
+    static final byte JSON_ESCAPED = 2;
+
+    private byte[] data;
+    private int size;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private byte[] kinds = new byte[16];
+
+    /**
+     * Start an empty row over {@code data}, to be filled with {@link #add}.
+     */
+    void clear(byte[] data) {
+        this.data = data;
+        this.size = 0;
+    }
+
+    /**
+     * Start a row of {@code size} missing cells over {@code data}, to be filled with {@link #set}.
+     */
+    void reset(byte[] data, int size) {
+        this.data = data;
+        ensureCapacity(size);
+        this.size = size;
+        Arrays.fill(starts, 0, size, -1);
+    }
+
+    void add(int start, int end, byte kind) {
+        ensureCapacity(size + 1);
+        set(size++, start, end, kind);
+    }
+
+    void set(int column, int start, int end, byte kind) {
+        starts[column] = start;
+        ends[column] = end;
+        kinds[column] = kind;
+    }
+
+    /**
+     * True when the row has no non-blank cell.
+     */
+    boolean isBlank() {
+        for (int i = 0; i < size; i++) {
+            int start = starts[i];
+            if (start >= 0) {
+                for (int b = start; b < ends[i]; b++) {
+                    if ((data[b] & 0xFF) > ' ') {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int start = starts[index];
+        if (start < 0) {
+            return null;
+        }
+        int end = ends[index];
+        while (start < end && (data[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (data[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return null;
+        }
+        String value = new String(data, start, end - start, StandardCharsets.UTF_8);
+        switch (kinds[index]) {
+            case CSV_ESCAPED:
+                return value.replace("\"\"", "\"");
+            case JSON_ESCAPED:
+                return unescapeJson(value);
+            default:
+                return value;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > starts.length) {
+            int length = Math.max(capacity, starts.length * 2);
+            starts = Arrays.copyOf(starts, length);
+            ends = Arrays.copyOf(ends, length);
+            kinds = Arrays.copyOf(kinds, length);
+        }
+    }
+
+    static String unescapeJson(String value) {
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i + 1 >= value.length()) {
+                out.append(c);
+                continue;
+            }
+            char escaped = value.charAt(++i);
+            switch (escaped) {
+                case 'b': out.append('\b'); break;
+                case 'f': out.append('\f'); break;
+                case 'n': out.append('\n'); break;
+                case 'r': out.append('\r'); break;
+                case 't': out.append('\t'); break;
+                case 'u':
+                    if (i + 4 >= value.length()) {
+                        throw new IllegalArgumentException("Invalid \\u escape in " + value);
+                    }
+                    out.append((char) Integer.parseInt(value.substring(i + 1, i + 5), 16));
+                    i += 4;
+                    break;
+                default: out.append(escaped);
+            }
+        }
+        return out.toString();
+    }
+}
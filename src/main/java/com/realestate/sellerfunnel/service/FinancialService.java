@@ -2,15 +2,28 @@ package com.realestate.sellerfunnel.service;
 
 import com.realestate.sellerfunnel.model.Room;
 import com.realestate.sellerfunnel.model.Transaction;
+import com.realestate.sellerfunnel.repository.LedgerRow;
 import com.realestate.sellerfunnel.repository.RoomRepository;
 import com.realestate.sellerfunnel.repository.TransactionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.time.format.DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
 @Service
 public class FinancialService {
@@ -21,6 +34,9 @@ public class FinancialService {
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     public BigDecimal calculateTotalHoldings() {
         return roomRepository.findAll().stream()
                 .map(room -> room.getBalance() != null ? room.getBalance() : BigDecimal.ZERO)
@@ -109,36 +125,66 @@ public class FinancialService {
         return summary;
     }
 
-    public String exportCsv(List<Transaction> txs) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("date,room,description,type,category,amount,running_balance,paid_by,collected_by,reference,notes\n");
-        java.time.format.DateTimeFormatter fmt = java.time.format.DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    /**
+     * Write the ledger as CSV, newest first, optionally limited to one room and a
+     * date range. Rows are read from a cursor and written as they arrive, so the
+     * range can cover years of transactions. The stream is flushed, not closed.
+     */
+    public void exportCsv(Long roomId, LocalDateTime start, LocalDateTime end, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write("date,room,description,type,category,amount,running_balance,paid_by,collected_by,reference,notes\n");
+        LocalDateTime from = start != null ? start : LocalDateTime.of(1970, 1, 1, 0, 0);
+        LocalDateTime to = end != null ? end : LocalDateTime.of(9999, 12, 31, 23, 59);
         
-        for (Transaction t : txs) {
-            String roomName = t.getRoom() != null ? t.getRoom().getDisplayName() : "";
-            sb.append(fmt.format(t.getCreatedAt() != null ? t.getCreatedAt() : LocalDateTime.now())).append(',')
-              .append(escape(roomName)).append(',')
-              .append(escape(nullToEmpty(t.getDescription()))).append(',')
-              .append(escape(nullToEmpty(t.getTransactionType()))).append(',')
-              .append(escape(nullToEmpty(t.getTransactionCategory()))).append(',')
-              .append(t.getAmount() != null ? t.getAmount() : BigDecimal.ZERO).append(',')
-              .append(t.getRunningBalance() != null ? t.getRunningBalance() : BigDecimal.ZERO).append(',')
-              .append(escape(nullToEmpty(t.getPaidBy()))).append(',')
-              .append(escape(nullToEmpty(t.getCollectedBy()))).append(',')
-              .append(escape(nullToEmpty(t.getReferenceNumber()))).append(',')
-              .append(escape(nullToEmpty(t.getNotes()))).append('\n');
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        try {
+            transaction.executeWithoutResult(status -> {
+                try (Stream<LedgerRow> rows = transactionRepository.streamLedger(roomId, from, to)) {
+                    rows.forEach(row -> writeCsvRow(writer, row));
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
-        
-        return sb.toString();
+        writer.flush();
     }
 
-    private static String escape(String s) {
-        String v = s.replace("\"", "\"\"");
-        return '"' + v + '"';
+    private static void writeCsvRow(Writer writer, LedgerRow row) {
+        try {
+            ISO_LOCAL_DATE_TIME.formatTo(row.getCreatedAt() != null ? row.getCreatedAt() : LocalDateTime.now(), writer);
+            writer.write(',');
+            writeQuoted(writer, row.getRoomNumber() != null ? Room.displayName(row.getRoomNumber(), row.getRoomName()) : null);
+            writer.write(',');
+            writeQuoted(writer, row.getDescription());
+            writer.write(',');
+            writeQuoted(writer, row.getTransactionType());
+            writer.write(',');
+            writeQuoted(writer, row.getTransactionCategory());
+            writer.write(',');
+            writer.write((row.getAmount() != null ? row.getAmount() : BigDecimal.ZERO).toString());
+            writer.write(',');
+            writer.write((row.getRunningBalance() != null ? row.getRunningBalance() : BigDecimal.ZERO).toString());
+            writer.write(',');
+            writeQuoted(writer, row.getPaidBy());
+            writer.write(',');
+            writeQuoted(writer, row.getCollectedBy());
+            writer.write(',');
+            writeQuoted(writer, row.getReferenceNumber());
+            writer.write(',');
+            writeQuoted(writer, row.getNotes());
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
-    private static String nullToEmpty(String s) { 
-        return s == null ? "" : s; 
+    private static void writeQuoted(Writer writer, String s) throws IOException {
+        writer.write('"');
+        if (s != null) {
+            writer.write(s.replace("\"", "\"\""));
+        }
+        writer.write('"');
     }
 
     // Inner classes for summary data
@@ -0,0 +1,288 @@
+package com.realestate.sellerfunnel.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads a JSON-lines (NDJSON) file with one flat JSON object per line, as
+ * rows of a sheet. A first pass collects every key used in the file; they are
+ * reported as a header row 0, with camelCase and snake_case keys spelled as
+ * the Excel column names ({@code firstName} and {@code first_name} both
+ * become {@code first name}). The first line of the file is then row 1.
+ *
+ * Lines are tokenized in place in a {@link ChannelBuffer}: keys are matched
+ * against the header by their bytes and values are only decoded when read.
+ * Nested objects and arrays are passed on as their raw JSON text, and a line
+ * that is not a JSON object is reported through {@link RowHandler#invalidRow}.
+ */
+public final class JsonLinesRowReader {
+
+    /** Keys in the order first seen, as raw bytes for matching, and the column each maps to. */
+    private final List<byte[]> keys = new ArrayList<>();
+    private final List<Integer> keyColumns = new ArrayList<>();
+    private final List<String> columnNames = new ArrayList<>();
+
+    // Results of the last scanString call
+    private int stringEnd;
+    private boolean stringEscaped;
+
+    private JsonLinesRowReader() {
+    }
+
+    public static void read(File file, RowHandler handler) throws IOException {
+        new JsonLinesRowReader().readFile(file, handler);
+    }
+
+    private void readFile(File file, RowHandler handler) throws IOException {
+        FieldRow row = new FieldRow();
+
+        // First pass: collect the keys and find the last line with an object
+        int[] lastLine = {-1};
+        forEachLine(file, (data, start, end, line) -> {
+            try {
+                if (parseObject(data, start, end, row, true)) {
+                    lastLine[0] = line;
+                }
+            } catch (IllegalArgumentException e) {
+                lastLine[0] = line;
+            }
+        });
+        if (lastLine[0] < 0) {
+            return;
+        }
+        handler.lastRowNum(lastLine[0] + 1);
+        handler.row(0, columnNames);
+
+        forEachLine(file, (data, start, end, line) -> {
+            try {
+                row.reset(data, columnNames.size());
+                if (parseObject(data, start, end, row, false) && !row.isBlank()) {
+                    handler.row(line + 1, row);
+                }
+            } catch (IllegalArgumentException e) {
+                handler.invalidRow(line + 1, e.getMessage());
+            }
+        });
+    }
+
+    private interface LineConsumer {
+        void accept(byte[] data, int start, int end, int line);
+    }
+
+    /**
+     * Call {@code consumer} with the byte range of each line, without its line end.
+     */
+    private static void forEachLine(File file, LineConsumer consumer) throws IOException {
+        try (ChannelBuffer in = new ChannelBuffer(file)) {
+            in.refill(0);
+            int pos = in.skipByteOrderMark();
+            int line = 0;
+            while (true) {
+                if (pos >= in.limit()) {
+                    if (!in.refill(pos)) {
+                        return;
+                    }
+                    pos = 0;
+                }
+                byte[] data = in.data();
+                int limit = in.limit();
+                int end = pos;
+                while (end < limit && data[end] != '\n') {
+                    end++;
+                }
+                if (end == limit && !in.eof()) {
+                    // Line cut off by the end of the buffer
+                    in.refill(pos);
+                    pos = 0;
+                    continue;
+                }
+                int contentEnd = end > pos && data[end - 1] == '\r' ? end - 1 : end;
+                consumer.accept(data, pos, contentEnd, line++);
+                pos = end + 1;
+            }
+        }
+    }
+
+    /**
+     * Tokenize the object on one line. In the key pass new keys are added to
+     * the header; otherwise each value is set on {@code row} at its key's column.
+     *
+     * @return false for a blank line
+     */
+    private boolean parseObject(byte[] data, int start, int end, FieldRow row, boolean collectKeys) {
+        int i = skipWhitespace(data, start, end);
+        if (i == end) {
+            return false;
+        }
+        if (data[i] != '{') {
+            throw new IllegalArgumentException("Line is not a JSON object");
+        }
+        i = skipWhitespace(data, i + 1, end);
+        if (i < end && data[i] == '}') {
+            return true;
+        }
+        while (true) {
+            if (i >= end || data[i] != '"') {
+                throw new IllegalArgumentException("Expected a quoted key");
+            }
+            int keyStart = i + 1;
+            scanString(data, keyStart, end);
+            int keyEnd = stringEnd;
+            boolean keyEscaped = stringEscaped;
+            i = skipWhitespace(data, keyEnd + 1, end);
+            if (i >= end || data[i] != ':') {
+                throw new IllegalArgumentException("Expected ':' after key");
+            }
+            i = skipWhitespace(data, i + 1, end);
+            if (i >= end) {
+                throw new IllegalArgumentException("Missing value");
+            }
+
+            int valueStart;
+            int valueEnd;
+            byte kind = FieldRow.PLAIN;
+            byte first = data[i];
+            if (first == '"') {
+                valueStart = i + 1;
+                scanString(data, valueStart, end);
+                valueEnd = stringEnd;
+                kind = stringEscaped ? FieldRow.JSON_ESCAPED : FieldRow.PLAIN;
+                i = valueEnd + 1;
+            } else if (first == '{' || first == '[') {
+                valueStart = i;
+                i = skipNested(data, i, end);
+                valueEnd = i;
+            } else {
+                valueStart = i;
+                while (i < end && data[i] != ',' && data[i] != '}' && (data[i] & 0xFF) > ' ') {
+                    i++;
+                }
+                valueEnd = i;
+                if (valueEnd - valueStart == 4 && data[valueStart] == 'n' && data[valueStart + 1] == 'u'
+                        && data[valueStart + 2] == 'l' && data[valueStart + 3] == 'l') {
+                    valueStart = -1;
+                }
+            }
+
+            int column = column(data, keyStart, keyEnd, keyEscaped, collectKeys);
+            if (!collectKeys && column >= 0 && valueStart >= 0) {
+                row.set(column, valueStart, valueEnd, kind);
+            }
+
+            i = skipWhitespace(data, i, end);
+            if (i < end && data[i] == ',') {
+                i = skipWhitespace(data, i + 1, end);
+                continue;
+            }
+            if (i < end && data[i] == '}') {
+                return true;
+            }
+            throw new IllegalArgumentException("Expected ',' or '}'");
+        }
+    }
+
+    /**
+     * Column of a key, matched by its bytes so known keys allocate nothing.
+     */
+    private int column(byte[] data, int start, int end, boolean escaped, boolean addMissing) {
+        int length = end - start;
+        if (!escaped) {
+            for (int k = 0; k < keys.size(); k++) {
+                byte[] key = keys.get(k);
+                if (key.length == length && Arrays.equals(key, 0, length, data, start, end)) {
+                    return keyColumns.get(k);
+                }
+            }
+        }
+        String name = new String(data, start, length, StandardCharsets.UTF_8);
+        if (escaped) {
+            name = FieldRow.unescapeJson(name);
+            byte[] unescaped = name.getBytes(StandardCharsets.UTF_8);
+            for (int k = 0; k < keys.size(); k++) {
+                if (Arrays.equals(keys.get(k), unescaped)) {
+                    return keyColumns.get(k);
+                }
+            }
+        }
+        if (!addMissing) {
+            return -1;
+        }
+        // Spellings of the same column (firstName, first_name) share it
+        String columnName = columnName(name);
+        int column = columnNames.indexOf(columnName);
+        if (column < 0) {
+            column = columnNames.size();
+            columnNames.add(columnName);
+        }
+        keys.add(name.getBytes(StandardCharsets.UTF_8));
+        keyColumns.add(column);
+        return column;
+    }
+
+    /**
+     * Spell a JSON key as an import column name: firstName and first_name become "first name".
+     */
+    static String columnName(String key) {
+        StringBuilder name = new StringBuilder(key.length() + 4);
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c == '_' || c == '-') {
+                name.append(' ');
+            } else if (Character.isUpperCase(c) && i > 0 && Character.isLowerCase(key.charAt(i - 1))) {
+                name.append(' ').append(Character.toLowerCase(c));
+            } else {
+                name.append(Character.toLowerCase(c));
+            }
+        }
+        return name.toString();
+    }
+
+    /**
+     * Find the closing quote of a string starting at {@code start}; sets stringEnd and stringEscaped.
+     */
+    private void scanString(byte[] data, int start, int end) {
+        boolean escaped = false;
+        for (int i = start; i < end; i++) {
+            byte b = data[i];
+            if (b == '\\') {
+                escaped = true;
+                i++;
+            } else if (b == '"') {
+                stringEnd = i;
+                stringEscaped = escaped;
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Unterminated string");
+    }
+
+    /**
+     * Position after the object or array starting at {@code start}.
+     */
+    private int skipNested(byte[] data, int start, int end) {
+        int depth = 0;
+        for (int i = start; i < end; i++) {
+            byte b = data[i];
+            if (b == '"') {
+                scanString(data, i + 1, end);
+                i = stringEnd;
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if ((b == '}' || b == ']') && --depth == 0) {
+                return i + 1;
+            }
+        }
+        throw new IllegalArgumentException("Unterminated object or array");
+    }
+
+    private static int skipWhitespace(byte[] data, int i, int end) {
+        while (i < end && (data[i] == ' ' || data[i] == '\t' || data[i] == '\r')) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -30,6 +30,9 @@ public class PaymentService {
     @Autowired
     private UniversalPaymentProtocolService uppService;
     
+    @Autowired
+    private BookingLedgerService bookingLedgerService;
+    
     private final ObjectMapper objectMapper = new ObjectMapper();
     
     /**
@@ -157,11 +160,10 @@ public class PaymentService {
     }
     
     /**
-     * Update booking with payment information
+     * Update booking with payment information, in the same transaction as the payment
      */
     private void updateBookingPayment(Booking booking, BigDecimal amount) {
-        booking.addPayment(amount);
-        bookingRepository.save(booking);
+        bookingLedgerService.addPayment(booking.getId(), amount);
         logger.info("Updated booking {} with payment of ${}", booking.getId(), amount);
     }
     
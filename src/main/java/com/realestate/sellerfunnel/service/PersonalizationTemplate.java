@@ -0,0 +1,153 @@
+package com.realestate.sellerfunnel.service;
+
+import com.realestate.sellerfunnel.model.Client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Email subject or body with {{placeholder}} tokens, parsed once and rendered
+ * per recipient in a single pass.
+ *
+ * Supported placeholders: firstName, lastName, fullName, email, company, city,
+ * state and phone. Anything else is left in the output as written and listed
+ * by {@link #getUnknownPlaceholders()}.
+ */
+public final class PersonalizationTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    // Headroom per placeholder when presizing the output buffer
+    private static final int FIELD_ESTIMATE = 24;
+
+    // Buffers above this size are not kept for reuse
+    private static final int MAX_RETAINED_BUFFER = 1 << 20;
+
+    private static final Map<String, Function<Client, String>> FIELDS = Map.of(
+        "firstName", Client::getFirstName,
+        "lastName", Client::getLastName,
+        "fullName", Client::getFullName,
+        "email", Client::getEmail,
+        "company", Client::getCompanyName,
+        "city", Client::getCity,
+        "state", Client::getState,
+        "phone", Client::getPhoneNumber
+    );
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(StringBuilder::new);
+
+    // Literal text is a String, a placeholder is a Function<Client, String>
+    private final Object[] segments;
+    private final int estimatedLength;
+    private final Set<String> unknownPlaceholders;
+
+    private PersonalizationTemplate(Object[] segments, int estimatedLength, Set<String> unknownPlaceholders) {
+        this.segments = segments;
+        this.estimatedLength = estimatedLength;
+        this.unknownPlaceholders = unknownPlaceholders;
+    }
+
+    /**
+     * Parse a template. A null source compiles to an empty template.
+     */
+    public static PersonalizationTemplate compile(String source) {
+        if (source == null || source.isEmpty()) {
+            return new PersonalizationTemplate(new Object[0], 0, Collections.emptySet());
+        }
+
+        List<Object> segments = new ArrayList<>();
+        Set<String> unknown = new LinkedHashSet<>();
+        StringBuilder literal = new StringBuilder();
+        int literalLength = 0;
+        int fieldCount = 0;
+
+        int pos = 0;
+        while (pos < source.length()) {
+            int open = source.indexOf(OPEN, pos);
+            int close = open < 0 ? -1 : source.indexOf(CLOSE, open + OPEN.length());
+            if (open < 0 || close < 0) {
+                literal.append(source, pos, source.length());
+                break;
+            }
+            // Use the innermost opening so "{{ {{firstName}}" still resolves firstName
+            open = Math.max(open, source.lastIndexOf(OPEN, close - 1));
+
+            String name = source.substring(open + OPEN.length(), close);
+            Function<Client, String> field = FIELDS.get(name);
+            if (field == null) {
+                // Keep unknown placeholders verbatim, as the old String.replace chain did
+                unknown.add(name);
+                literal.append(source, pos, close + CLOSE.length());
+            } else {
+                literal.append(source, pos, open);
+                if (literal.length() > 0) {
+                    segments.add(literal.toString());
+                    literalLength += literal.length();
+                    literal.setLength(0);
+                }
+                segments.add(field);
+                fieldCount++;
+            }
+            pos = close + CLOSE.length();
+        }
+        if (literal.length() > 0) {
+            segments.add(literal.toString());
+            literalLength += literal.length();
+        }
+
+        return new PersonalizationTemplate(segments.toArray(), literalLength + fieldCount * FIELD_ESTIMATE,
+                                           Collections.unmodifiableSet(unknown));
+    }
+
+    /**
+     * Render for one client; missing client values render as empty text.
+     */
+    public String render(Client client) {
+        if (segments.length == 1 && segments[0] instanceof String) {
+            return (String) segments[0];
+        }
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        renderTo(client, out);
+        String result = out.toString();
+        if (out.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.remove();
+        }
+        return result;
+    }
+
+    /**
+     * Append the rendered text for one client to the given builder.
+     */
+    @SuppressWarnings("unchecked")
+    public void renderTo(Client client, StringBuilder out) {
+        out.ensureCapacity(out.length() + estimatedLength);
+        for (Object segment : segments) {
+            if (segment instanceof String) {
+                out.append((String) segment);
+            } else {
+                String value = ((Function<Client, String>) segment).apply(client);
+                if (value != null) {
+                    out.append(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Placeholder names in the source that are not supported, in order of first use.
+     */
+    public Set<String> getUnknownPlaceholders() {
+        return unknownPlaceholders;
+    }
+
+    public boolean hasUnknownPlaceholders() {
+        return !unknownPlaceholders.isEmpty();
+    }
+}
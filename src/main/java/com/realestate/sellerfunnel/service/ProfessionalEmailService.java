@@ -3,7 +3,6 @@ package com.realestate.sellerfunnel.service;
 import com.realestate.sellerfunnel.model.Client;
 import com.realestate.sellerfunnel.model.EmailCampaign;
 import com.realestate.sellerfunnel.model.EmailLog;
-import com.realestate.sellerfunnel.repository.EmailLogRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.javamail.JavaMailSender;
@@ -17,9 +16,11 @@ import org.slf4j.LoggerFactory;
 import jakarta.mail.internet.MimeMessage;
 import jakarta.mail.internet.InternetAddress;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class ProfessionalEmailService {
@@ -33,7 +34,10 @@ public class ProfessionalEmailService {
     private TemplateEngine templateEngine;
     
     @Autowired
-    private EmailLogRepository emailLogRepository;
+    private EmailLogWriter emailLogWriter;
+    
+    @Autowired
+    private BulkEmailSender bulkEmailSender;
     
     @Value("${app.email.sender-email}")
     private String defaultSenderEmail;
@@ -62,49 +66,8 @@ public class ProfessionalEmailService {
     public boolean sendProfessionalEmail(Client client, String subject, String htmlContent, 
                                        String senderName, String senderEmail) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            // Set recipient
-            helper.setTo(new InternetAddress(client.getEmail(), client.getFirstName() + " " + client.getLastName()));
-            
-            // Set sender with proper from domain if configured
-            String fromEmail = (senderEmail != null && !senderEmail.isEmpty()) ? senderEmail : defaultSenderEmail;
-            String displayName = (senderName != null && !senderName.isEmpty()) ? senderName : defaultSenderName;
-            
-            if (fromDomain != null && !fromDomain.isEmpty() && !fromEmail.contains("@" + fromDomain)) {
-                // Use domain-based from address for better deliverability
-                String localPart = fromEmail.split("@")[0];
-                fromEmail = localPart + "@" + fromDomain;
-            }
-            
-            helper.setFrom(new InternetAddress(fromEmail, displayName));
-            
-            // Set reply-to if configured
-            if (replyToEmail != null && !replyToEmail.isEmpty()) {
-                helper.setReplyTo(replyToEmail);
-            }
-            
-            // Set subject
-            helper.setSubject(subject);
-            
-            // Set HTML content
-            helper.setText(htmlContent, true);
-            
-            // Add professional headers
-            message.addHeader("X-Mailer", "Real Estate Connect CRM");
-            message.addHeader("X-Priority", "3");
-            message.addHeader("Importance", "Normal");
-            message.addHeader("List-Unsubscribe", "<mailto:unsubscribe@" + (fromDomain.isEmpty() ? "yourdomain.com" : fromDomain) + ">");
-            
-            // Add DKIM headers if enabled
-            if (dkimEnabled && dkimDomain != null && !dkimDomain.isEmpty()) {
-                message.addHeader("X-DKIM-Domain", dkimDomain);
-                message.addHeader("X-DKIM-Selector", dkimSelector);
-            }
-            
             // Send the email
-            mailSender.send(message);
+            mailSender.send(buildProfessionalMessage(client, subject, htmlContent, senderName, senderEmail));
             
             // Log the email
             logEmailSent(client, subject, htmlContent, "SUCCESS", null);
@@ -119,14 +82,63 @@ public class ProfessionalEmailService {
         }
     }
     
+    /**
+     * Build a message with the professional headers, without sending it
+     */
+    private MimeMessage buildProfessionalMessage(Client client, String subject, String htmlContent,
+                                                 String senderName, String senderEmail) throws Exception {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        
+        // Set recipient
+        helper.setTo(new InternetAddress(client.getEmail(), client.getFirstName() + " " + client.getLastName()));
+        
+        // Set sender with proper from domain if configured
+        String fromEmail = (senderEmail != null && !senderEmail.isEmpty()) ? senderEmail : defaultSenderEmail;
+        String displayName = (senderName != null && !senderName.isEmpty()) ? senderName : defaultSenderName;
+        
+        if (fromDomain != null && !fromDomain.isEmpty() && !fromEmail.contains("@" + fromDomain)) {
+            // Use domain-based from address for better deliverability
+            String localPart = fromEmail.split("@")[0];
+            fromEmail = localPart + "@" + fromDomain;
+        }
+        
+        helper.setFrom(new InternetAddress(fromEmail, displayName));
+        
+        // Set reply-to if configured
+        if (replyToEmail != null && !replyToEmail.isEmpty()) {
+            helper.setReplyTo(replyToEmail);
+        }
+        
+        // Set subject
+        helper.setSubject(subject);
+        
+        // Set HTML content
+        helper.setText(htmlContent, true);
+        
+        // Add professional headers
+        message.addHeader("X-Mailer", "Real Estate Connect CRM");
+        message.addHeader("X-Priority", "3");
+        message.addHeader("Importance", "Normal");
+        message.addHeader("List-Unsubscribe", "<mailto:unsubscribe@" + (fromDomain.isEmpty() ? "yourdomain.com" : fromDomain) + ">");
+        
+        // Add DKIM headers if enabled
+        if (dkimEnabled && dkimDomain != null && !dkimDomain.isEmpty()) {
+            message.addHeader("X-DKIM-Domain", dkimDomain);
+            message.addHeader("X-DKIM-Selector", dkimSelector);
+        }
+        
+        return message;
+    }
+    
     /**
      * Send campaign email with tracking and personalization
      */
     public boolean sendCampaignEmail(EmailCampaign campaign, Client client) {
         try {
             // Personalize content
-            String personalizedContent = personalizeEmailContent(campaign.getHtmlContent(), client);
-            String personalizedSubject = personalizeEmailContent(campaign.getSubject(), client);
+            String personalizedContent = PersonalizationTemplate.compile(campaign.getHtmlContent()).render(client);
+            String personalizedSubject = PersonalizationTemplate.compile(campaign.getSubject()).render(client);
             
             // Add campaign tracking
             String trackingId = UUID.randomUUID().toString();
@@ -149,39 +161,73 @@ public class ProfessionalEmailService {
         result.setCampaignId(campaign.getId());
         result.setTotalRecipients(recipients.size());
         
-        int successCount = 0;
-        int failureCount = 0;
-        
+        List<Client> eligible = new ArrayList<>(recipients.size());
         for (Client client : recipients) {
             if (client.getEmailOptedIn() && client.getIsActive()) {
-                if (sendCampaignEmail(campaign, client)) {
-                    successCount++;
-                } else {
-                    failureCount++;
-                }
-                
-                // Small delay to avoid overwhelming SMTP server
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
+                eligible.add(client);
             } else {
                 logger.debug("Skipping client {} - not opted in or inactive", client.getEmail());
             }
         }
         
-        result.setSuccessfulSends(successCount);
-        result.setFailedSends(failureCount);
+        AtomicInteger successCount = new AtomicInteger();
+        AtomicInteger failureCount = new AtomicInteger();
+        
+        // Parse the placeholders once for the whole campaign
+        PersonalizationTemplate subjectTemplate = PersonalizationTemplate.compile(campaign.getSubject());
+        PersonalizationTemplate contentTemplate = PersonalizationTemplate.compile(campaign.getHtmlContent());
+        if (contentTemplate.hasUnknownPlaceholders() || subjectTemplate.hasUnknownPlaceholders()) {
+            logger.warn("Campaign {} has unknown placeholders {} {}; they will be sent as written", campaign.getId(),
+                        subjectTemplate.getUnknownPlaceholders(), contentTemplate.getUnknownPlaceholders());
+        }
+        
+        // Worker pool size bounds the load on the SMTP server, so no per-message delay is needed here
+        bulkEmailSender.send(eligible, client -> buildCampaignMessage(campaign, subjectTemplate, contentTemplate, client),
+                new BulkEmailSender.DeliveryListener<Client>() {
+            @Override
+            public void onSent(Client client, MimeMessage message) {
+                logEmailSent(client, subjectOf(message), null, "SUCCESS", null);
+                successCount.incrementAndGet();
+            }
+            
+            @Override
+            public void onFailed(Client client, MimeMessage message, Exception error) {
+                logger.error("Error sending campaign email to {}: {}", client.getEmail(), error.getMessage());
+                logEmailSent(client, subjectOf(message), null, "FAILED", error.getMessage());
+                failureCount.incrementAndGet();
+            }
+        });
+        
+        result.setSuccessfulSends(successCount.get());
+        result.setFailedSends(failureCount.get());
         result.setCompletedAt(LocalDateTime.now());
         
         logger.info("Bulk campaign sent: {} successful, {} failed out of {} total", 
-                   successCount, failureCount, recipients.size());
+                   successCount.get(), failureCount.get(), recipients.size());
         
         return result;
     }
     
+    private MimeMessage buildCampaignMessage(EmailCampaign campaign, PersonalizationTemplate subjectTemplate,
+                                             PersonalizationTemplate contentTemplate, Client client) throws Exception {
+        String personalizedContent = contentTemplate.render(client);
+        String personalizedSubject = subjectTemplate.render(client);
+        
+        String trackingId = UUID.randomUUID().toString();
+        String contentWithTracking = addEmailTracking(personalizedContent, campaign.getId(), client.getId(), trackingId);
+        
+        return buildProfessionalMessage(client, personalizedSubject, contentWithTracking,
+                                        campaign.getSenderName(), campaign.getSenderEmail());
+    }
+    
+    private String subjectOf(MimeMessage message) {
+        try {
+            return message != null ? message.getSubject() : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+    
     /**
      * Create professional email templates
      */
@@ -211,16 +257,6 @@ public class ProfessionalEmailService {
         return templateEngine.process("email/market-update", context);
     }
     
-    private String personalizeEmailContent(String content, Client client) {
-        if (content == null) return "";
-        
-        return content
-            .replace("{{firstName}}", client.getFirstName() != null ? client.getFirstName() : "")
-            .replace("{{lastName}}", client.getLastName() != null ? client.getLastName() : "")
-            .replace("{{fullName}}", client.getFirstName() + " " + client.getLastName())
-            .replace("{{email}}", client.getEmail() != null ? client.getEmail() : "");
-    }
-    
     private String addEmailTracking(String content, Long campaignId, Long clientId, String trackingId) {
         // Add invisible tracking pixel
         String trackingPixel = String.format(
@@ -246,7 +282,7 @@ public class ProfessionalEmailService {
         log.setErrorMessage(errorMessage);
         log.setSentAt(LocalDateTime.now());
         
-        emailLogRepository.save(log);
+        emailLogWriter.write(log);
     }
     
     public boolean isConfigured() {
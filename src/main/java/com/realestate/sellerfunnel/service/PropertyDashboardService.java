@@ -0,0 +1,498 @@
+package com.realestate.sellerfunnel.service;
+
+import com.realestate.sellerfunnel.model.PropertyChangedEvent;
+import com.realestate.sellerfunnel.model.Room;
+import com.realestate.sellerfunnel.repository.BookingDashboardRow;
+import com.realestate.sellerfunnel.repository.BookingRepository;
+import com.realestate.sellerfunnel.repository.RoomRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the property dashboard in memory so a render is a single read of the
+ * current {@link Snapshot}.
+ *
+ * A {@link PropertyChangedEvent} reports every room, booking and payment
+ * write. Once the writing transaction commits, only the changed rooms and
+ * bookings are read back, and the counters are adjusted by the difference
+ * between their old and new state. A scheduled reconciliation reloads
+ * everything, which also picks up writes that bypass JPA, such as bulk
+ * updates, and renamed guests.
+ *
+ * The database is read without holding the lock. Each read takes a ticket
+ * first, and a room or booking is only replaced by a read with a later ticket
+ * than the one that last set it, so a slow read never overwrites a newer one.
+ */
+@Service
+public class PropertyDashboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PropertyDashboardService.class);
+
+    static final int RECENT_BOOKINGS = 10;
+
+    private static final Comparator<BookingSummary> NEWEST_FIRST = Comparator
+        .comparing(BookingSummary::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+        .thenComparing(BookingSummary::getId, Comparator.reverseOrder());
+
+    private static final Comparator<BookingSummary> LARGEST_BALANCE_FIRST = Comparator
+        .comparing(BookingSummary::getCurrentBalance, Comparator.reverseOrder())
+        .thenComparing(BookingSummary::getId);
+
+    /**
+     * An active booking as the dashboard shows it.
+     */
+    public static class BookingSummary {
+        private final Long id;
+        private final Long roomId;
+        private final String roomNumber;
+        private final String roomName;
+        private final String guestName;
+        private final LocalDateTime checkInDate;
+        private final String bookingStatus;
+        private final String paymentStatus;
+        private final BigDecimal currentBalance;
+        private final LocalDateTime createdAt;
+
+        public BookingSummary(BookingDashboardRow row) {
+            this.id = row.getId();
+            this.roomId = row.getRoomId();
+            this.roomNumber = row.getRoomNumber();
+            this.roomName = row.getRoomName();
+            this.guestName = row.getGuestFirstName() + " " + row.getGuestLastName();
+            this.checkInDate = row.getCheckInDate();
+            this.bookingStatus = row.getBookingStatus();
+            this.paymentStatus = row.getPaymentStatus();
+            this.currentBalance = row.getCurrentBalance() != null ? row.getCurrentBalance() : BigDecimal.ZERO;
+            this.createdAt = row.getCreatedAt();
+        }
+
+        public Long getId() { return id; }
+        public Long getRoomId() { return roomId; }
+        public String getRoomNumber() { return roomNumber; }
+        public String getRoomName() { return roomName; }
+        public String getGuestName() { return guestName; }
+        public LocalDateTime getCheckInDate() { return checkInDate; }
+        public String getBookingStatus() { return bookingStatus; }
+        public String getPaymentStatus() { return paymentStatus; }
+        public BigDecimal getCurrentBalance() { return currentBalance; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+
+        public String getDisplayName() {
+            return Room.displayName(roomNumber, roomName) + " - " + guestName;
+        }
+
+        boolean isActiveStay() { return "ACTIVE".equals(bookingStatus); }
+        boolean isPending() { return "PENDING".equals(paymentStatus); }
+        boolean isOverdue() { return "OVERDUE".equals(paymentStatus); }
+        boolean isOutstanding() { return currentBalance.signum() > 0; }
+    }
+
+    /**
+     * Everything the dashboard shows, as of one moment. Never modified once published.
+     */
+    public static class Snapshot {
+        private final long totalRooms;
+        private final long vacantRooms;
+        private final long occupiedRooms;
+        private final long activeBookings;
+        private final long pendingPayments;
+        private final long overduePayments;
+        private final BigDecimal totalOutstanding;
+        private final List<BookingSummary> recentBookings;
+        private final List<BookingSummary> overdueBookings;
+        private final List<BookingSummary> outstandingBookings;
+        private final LocalDateTime asOf;
+
+        Snapshot(Counters counters, List<BookingSummary> recentBookings, List<BookingSummary> overdueBookings,
+                 List<BookingSummary> outstandingBookings) {
+            this.totalRooms = counters.totalRooms;
+            this.vacantRooms = counters.vacantRooms;
+            this.occupiedRooms = counters.occupiedRooms;
+            this.activeBookings = counters.activeBookings;
+            this.pendingPayments = counters.pendingPayments;
+            this.overduePayments = counters.overduePayments;
+            this.totalOutstanding = counters.totalOutstanding;
+            this.recentBookings = List.copyOf(recentBookings);
+            this.overdueBookings = List.copyOf(overdueBookings);
+            this.outstandingBookings = List.copyOf(outstandingBookings);
+            this.asOf = LocalDateTime.now();
+        }
+
+        public long getTotalRooms() { return totalRooms; }
+        public long getVacantRooms() { return vacantRooms; }
+        public long getOccupiedRooms() { return occupiedRooms; }
+        public long getActiveBookings() { return activeBookings; }
+        public long getPendingPayments() { return pendingPayments; }
+        public long getOverduePayments() { return overduePayments; }
+        public BigDecimal getTotalOutstanding() { return totalOutstanding; }
+        /** The newest active bookings, at most {@link #RECENT_BOOKINGS}. */
+        public List<BookingSummary> getRecentBookings() { return recentBookings; }
+        /** Active bookings marked overdue, largest balance first. */
+        public List<BookingSummary> getOverdueBookings() { return overdueBookings; }
+        /** Active bookings with a balance owing, largest first. */
+        public List<BookingSummary> getOutstandingBookings() { return outstandingBookings; }
+        public LocalDateTime getAsOf() { return asOf; }
+    }
+
+    /** Running totals, adjusted by each room or booking as it enters or leaves the state. */
+    static class Counters {
+        long totalRooms;
+        long vacantRooms;
+        long occupiedRooms;
+        long activeBookings;
+        long pendingPayments;
+        long overduePayments;
+        BigDecimal totalOutstanding = BigDecimal.ZERO;
+
+        void addRoom(RoomState room, int sign) {
+            totalRooms += sign;
+            if (room.active) {
+                if (room.vacant) {
+                    vacantRooms += sign;
+                } else {
+                    occupiedRooms += sign;
+                }
+            }
+        }
+
+        void addBooking(BookingSummary booking, int sign) {
+            if (booking.isActiveStay()) {
+                activeBookings += sign;
+            }
+            if (booking.isPending()) {
+                pendingPayments += sign;
+            }
+            if (booking.isOverdue()) {
+                overduePayments += sign;
+            }
+            if (booking.isOutstanding()) {
+                BigDecimal balance = booking.getCurrentBalance();
+                totalOutstanding = sign > 0 ? totalOutstanding.add(balance) : totalOutstanding.subtract(balance);
+            }
+        }
+
+        boolean sameAs(Counters other) {
+            return totalRooms == other.totalRooms && vacantRooms == other.vacantRooms
+                && occupiedRooms == other.occupiedRooms && activeBookings == other.activeBookings
+                && pendingPayments == other.pendingPayments && overduePayments == other.overduePayments
+                && totalOutstanding.compareTo(other.totalOutstanding) == 0;
+        }
+    }
+
+    private static class RoomState {
+        private final boolean active;
+        private final boolean vacant;
+
+        RoomState(Object[] row) {
+            this.active = Boolean.TRUE.equals(row[1]);
+            this.vacant = Boolean.TRUE.equals(row[2]);
+        }
+    }
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    // Guarded by this; every room, and only active bookings
+    private final Map<Long, RoomState> rooms = new HashMap<>();
+    private final Map<Long, BookingSummary> bookings = new HashMap<>();
+    private Counters counters = new Counters();
+
+    // Guarded by this. Tickets of the reads that last set a room or booking,
+    // kept only while newer than the last reload's ticket
+    private final Map<Long, Long> roomTickets = new HashMap<>();
+    private final Map<Long, Long> bookingTickets = new HashMap<>();
+    private long lastTicket;
+    private long loadedTicket;
+    private long failedTicket;
+    private int reloading;
+    private boolean loaded;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * The current dashboard, loading it from the database on first use.
+     */
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        while (current == null) {
+            reconcile();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    /**
+     * Reload every room and active booking, replacing the in-memory state.
+     * Counters that drifted from the database are logged.
+     */
+    @Scheduled(fixedDelayString = "${app.property-dashboard.reconcile-interval-ms:300000}",
+               initialDelayString = "${app.property-dashboard.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        long ticket;
+        synchronized (this) {
+            reloading++;
+            ticket = ++lastTicket;
+        }
+        Map<Long, RoomState> freshRooms = new HashMap<>();
+        Map<Long, BookingSummary> freshBookings = new HashMap<>();
+        try {
+            for (Object[] row : roomRepository.findOccupancy()) {
+                freshRooms.put((Long) row[0], new RoomState(row));
+            }
+            for (BookingDashboardRow row : bookingRepository.findActiveDashboardRows()) {
+                freshBookings.put(row.getId(), new BookingSummary(row));
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                reloading--;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            reloading--;
+            if (ticket < loadedTicket) {
+                // A reload that started later has already been applied
+                return;
+            }
+            // Rooms and bookings read back after this reload started are newer than its rows
+            keepNewer(roomTickets, ticket, rooms, freshRooms);
+            keepNewer(bookingTickets, ticket, bookings, freshBookings);
+            Counters previous = counters;
+            rooms.clear();
+            bookings.clear();
+            counters = new Counters();
+            freshRooms.forEach(this::putRoom);
+            freshBookings.forEach(this::putBooking);
+            if (loaded && !previous.sameAs(counters)) {
+                logger.info("Property dashboard counters drifted from the database and were reloaded");
+            }
+            loadedTicket = ticket;
+            // A refresh that failed after this reload started may have lost a change
+            loaded = ticket > failedTicket;
+            if (loaded) {
+                publish();
+            } else {
+                snapshot = null;
+            }
+        }
+    }
+
+    @EventListener
+    public void propertyChanged(PropertyChangedEvent event) {
+        roomChanged(event.getRoomId());
+        bookingChanged(event.getBookingId());
+    }
+
+    /**
+     * Record that a room was written; it is read back once the transaction commits.
+     */
+    public void roomChanged(Long roomId) {
+        if (roomId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingChanges().roomIds.add(roomId);
+        } else {
+            apply(Set.of(roomId), Set.of());
+        }
+    }
+
+    /**
+     * Record that a booking, or one of its payments, was written.
+     */
+    public void bookingChanged(Long bookingId) {
+        if (bookingId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingChanges().bookingIds.add(bookingId);
+        } else {
+            apply(Set.of(), Set.of(bookingId));
+        }
+    }
+
+    /**
+     * Read back the given rooms and bookings and adjust the counters by their change.
+     */
+    void apply(Set<Long> roomIds, Set<Long> bookingIds) {
+        long ticket;
+        synchronized (this) {
+            if (!loaded && reloading == 0) {
+                // Nothing loaded yet; the first read loads everything
+                return;
+            }
+            ticket = ++lastTicket;
+        }
+        try {
+            Map<Long, RoomState> foundRooms = new HashMap<>();
+            Set<Long> refreshBookings = new HashSet<>(bookingIds);
+            if (!roomIds.isEmpty()) {
+                for (Object[] row : roomRepository.findOccupancyByIdIn(roomIds)) {
+                    foundRooms.put((Long) row[0], new RoomState(row));
+                }
+                // Bookings show their room's number and name
+                synchronized (this) {
+                    for (BookingSummary booking : bookings.values()) {
+                        if (roomIds.contains(booking.getRoomId())) {
+                            refreshBookings.add(booking.getId());
+                        }
+                    }
+                }
+            }
+            Map<Long, BookingDashboardRow> foundBookings = new HashMap<>();
+            if (!refreshBookings.isEmpty()) {
+                for (BookingDashboardRow row : bookingRepository.findDashboardRowsByIdIn(refreshBookings)) {
+                    foundBookings.put(row.getId(), row);
+                }
+            }
+            synchronized (this) {
+                for (Long id : roomIds) {
+                    if (isNewer(roomTickets, id, ticket)) {
+                        // A deleted room is not found and leaves the counts
+                        putRoom(id, foundRooms.get(id));
+                    }
+                }
+                for (Long id : refreshBookings) {
+                    if (isNewer(bookingTickets, id, ticket)) {
+                        BookingDashboardRow row = foundBookings.get(id);
+                        // Deleted or no longer active bookings leave the dashboard
+                        putBooking(id, row != null && Boolean.TRUE.equals(row.getActive()) ? new BookingSummary(row) : null);
+                    }
+                }
+                if (loaded) {
+                    publish();
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not refresh the property dashboard, reloading it on next read: {}", e.getMessage());
+            synchronized (this) {
+                failedTicket = ticket;
+                loaded = false;
+                snapshot = null;
+            }
+        }
+    }
+
+    /** Whether a read with {@code ticket} is newer than the one that last set {@code id}, recording it if so. Holds this. */
+    private boolean isNewer(Map<Long, Long> tickets, Long id, long ticket) {
+        if (ticket <= tickets.getOrDefault(id, loadedTicket)) {
+            return false;
+        }
+        tickets.put(id, ticket);
+        return true;
+    }
+
+    /** Carry into {@code fresh} every entry set by a read after the reload with {@code ticket}. Holds this. */
+    private static <T> void keepNewer(Map<Long, Long> tickets, long ticket, Map<Long, T> current, Map<Long, T> fresh) {
+        for (Map.Entry<Long, Long> entry : tickets.entrySet()) {
+            if (entry.getValue() > ticket) {
+                T value = current.get(entry.getKey());
+                if (value != null) {
+                    fresh.put(entry.getKey(), value);
+                } else {
+                    fresh.remove(entry.getKey());
+                }
+            }
+        }
+        tickets.values().removeIf(read -> read <= ticket);
+    }
+
+    /** Replace a room, or remove it when {@code room} is null, keeping the counters in step. Holds this. */
+    private void putRoom(Long id, RoomState room) {
+        RoomState previous = room != null ? rooms.put(id, room) : rooms.remove(id);
+        if (previous != null) {
+            counters.addRoom(previous, -1);
+        }
+        if (room != null) {
+            counters.addRoom(room, 1);
+        }
+    }
+
+    /** Replace a booking, or remove it when {@code booking} is null, keeping the counters in step. Holds this. */
+    private void putBooking(Long id, BookingSummary booking) {
+        BookingSummary previous = booking != null ? bookings.put(id, booking) : bookings.remove(id);
+        if (previous != null) {
+            counters.addBooking(previous, -1);
+        }
+        if (booking != null) {
+            counters.addBooking(booking, 1);
+        }
+    }
+
+    /** Rebuild the lists and publish a new snapshot. Holds this. */
+    private void publish() {
+        List<BookingSummary> newest = new ArrayList<>(bookings.values());
+        newest.sort(NEWEST_FIRST);
+        List<BookingSummary> overdue = new ArrayList<>();
+        List<BookingSummary> outstanding = new ArrayList<>();
+        for (BookingSummary booking : bookings.values()) {
+            if (booking.isOverdue()) {
+                overdue.add(booking);
+            }
+            if (booking.isOutstanding()) {
+                outstanding.add(booking);
+            }
+        }
+        overdue.sort(LARGEST_BALANCE_FIRST);
+        outstanding.sort(LARGEST_BALANCE_FIRST);
+        snapshot = new Snapshot(counters, newest.subList(0, Math.min(RECENT_BOOKINGS, newest.size())),
+            overdue, outstanding);
+    }
+
+    /**
+     * Changes recorded in the current transaction, applied after it commits.
+     */
+    private PendingChanges pendingChanges() {
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending;
+    }
+
+    private class PendingChanges implements TransactionSynchronization {
+        private final Set<Long> roomIds = new HashSet<>();
+        private final Set<Long> bookingIds = new HashSet<>();
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(PropertyDashboardService.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(PropertyDashboardService.this, this);
+        }
+
+        @Override
+        public void afterCommit() {
+            apply(roomIds, bookingIds);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(PropertyDashboardService.this);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.realestate.sellerfunnel.service;
+
+import com.realestate.sellerfunnel.model.Client;
+import com.realestate.sellerfunnel.repository.ClientRepository;
+import com.realestate.sellerfunnel.repository.ClientSpecifications;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Iterates the clients matching a specification in id order, loading one page
+ * at a time with keyset paging (id > last seen id). Only the current page is
+ * held in memory, and each page is read in its own short query, so a long
+ * send never keeps a connection or transaction open.
+ */
+public class RecipientCursor implements Iterable<Client> {
+
+    public static final int DEFAULT_PAGE_SIZE = 500;
+
+    private final ClientRepository clientRepository;
+    private final Specification<Client> specification;
+    private final int pageSize;
+
+    public RecipientCursor(ClientRepository clientRepository, Specification<Client> specification) {
+        this(clientRepository, specification, DEFAULT_PAGE_SIZE);
+    }
+
+    public RecipientCursor(ClientRepository clientRepository, Specification<Client> specification, int pageSize) {
+        this.clientRepository = clientRepository;
+        this.specification = specification;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Load the page of clients that follows the given id, or the first page when it is null.
+     */
+    public List<Client> nextPage(Long afterId) {
+        return clientRepository.findBy(specification.and(ClientSpecifications.idGreaterThan(afterId)),
+            query -> query.sortBy(Sort.by("id")).limit(pageSize).all());
+    }
+
+    /**
+     * Hand each page to the handler in turn, e.g. to send a chunk and then
+     * record its contact counts before the next page is read.
+     */
+    public void forEachPage(Consumer<List<Client>> handler) {
+        forEachPage(null, handler);
+    }
+
+    /**
+     * Like {@link #forEachPage(Consumer)}, starting after the given client id.
+     */
+    public void forEachPage(Long afterId, Consumer<List<Client>> handler) {
+        Long lastId = afterId;
+        while (true) {
+            List<Client> page = nextPage(lastId);
+            if (page.isEmpty()) {
+                return;
+            }
+            handler.accept(page);
+            if (page.size() < pageSize) {
+                return;
+            }
+            lastId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    @Override
+    public Iterator<Client> iterator() {
+        return new Iterator<>() {
+            private List<Client> page = Collections.emptyList();
+            private int index;
+            private Long lastId;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                if (index < page.size()) {
+                    return true;
+                }
+                if (exhausted) {
+                    return false;
+                }
+                page = nextPage(lastId);
+                index = 0;
+                if (page.size() < pageSize) {
+                    exhausted = true;
+                }
+                if (!page.isEmpty()) {
+                    lastId = page.get(page.size() - 1).getId();
+                }
+                return !page.isEmpty();
+            }
+
+            @Override
+            public Client next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.get(index++);
+            }
+        };
+    }
+}
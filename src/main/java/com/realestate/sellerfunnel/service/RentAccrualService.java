@@ -0,0 +1,322 @@
+package com.realestate.sellerfunnel.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Charges rent to active bookings each night. Periods follow the calendar: a
+ * DAILY booking is charged for each day, a WEEKLY one for each week from
+ * Monday and a MONTHLY one for each month from the 1st, for every period that
+ * began after check-in (the check-in period itself is charged at check-in, as
+ * before). Periods missed because a run did not happen are charged by the next
+ * one, as far back as {@code app.rent-accrual.backfill-days}. A booking never
+ * charged by a run before starts with the period containing the run date, so
+ * bookings already open when accrual was switched on, whose rent was posted
+ * by hand until then, are not charged again for earlier periods.
+ *
+ * Bookings are worked through in id ranges, each in a transaction of its own
+ * and each with a fixed handful of set-based statements: record the periods
+ * due, add them to the bookings' totals, move the room balances and append
+ * the ledger lines. Each charged period is recorded in {@code rent_accruals},
+ * and only periods starting at or after the end of a booking's last charged
+ * one are due, so a repeated or resumed run charges only what is still
+ * missing. Bookings whose balance is more than one period's charge are
+ * flagged OVERDUE in the same pass.
+ *
+ * A booking whose frequency changes is charged under the new frequency from
+ * the first new period starting after its last charged one; nights between
+ * the two, if any, are left to be charged by hand.
+ */
+@Service
+public class RentAccrualService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RentAccrualService.class);
+
+    /** How often a booking is charged, and the nights each charge covers. */
+    public enum Frequency {
+        // A month is approximated at 30 nights for simplicity
+        DAILY(1), WEEKLY(7), MONTHLY(30);
+
+        private final int nights;
+
+        Frequency(int nights) {
+            this.nights = nights;
+        }
+
+        /** The first day of the period containing {@code date}. */
+        public LocalDate periodStart(LocalDate date) {
+            switch (this) {
+                case WEEKLY: return date.with(DayOfWeek.MONDAY);
+                case MONTHLY: return date.withDayOfMonth(1);
+                default: return date;
+            }
+        }
+
+        /** The first day of the period after the one containing {@code date}, when it is next charged. */
+        public LocalDate nextPeriodStart(LocalDate date) {
+            switch (this) {
+                case WEEKLY: return periodStart(date).plusWeeks(1);
+                case MONTHLY: return periodStart(date).plusMonths(1);
+                default: return date.plusDays(1);
+            }
+        }
+
+        public BigDecimal charge(BigDecimal nightlyRate) {
+            return nightlyRate.multiply(BigDecimal.valueOf(nights));
+        }
+
+        /** The frequency named by a booking's payment frequency, or null when it names none. */
+        public static Frequency of(String paymentFrequency) {
+            if (paymentFrequency == null) {
+                return null;
+            }
+            try {
+                return valueOf(paymentFrequency.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    private static final String CHARGEABLE = "b.is_active = TRUE AND b.booking_status = 'ACTIVE'";
+
+    private static final String NEXT_BATCH_END = "SELECT MAX(id) FROM (SELECT b.id FROM bookings b WHERE "
+        + CHARGEABLE + " AND b.id > ? ORDER BY b.id LIMIT ?) batch";
+
+    /** Completed by {@link #periods}: one row for each period of each frequency that may be due. */
+    private static final String INSERT_ACCRUALS =
+        "INSERT INTO rent_accruals (booking_id, room_id, frequency, period_start, period_end, amount, run_id, accrued_at)"
+        + " SELECT b.id, b.room_id, p.frequency, p.period_start, p.period_end, b.nightly_rate * p.nights, ?, ?"
+        + " FROM bookings b JOIN (%s) AS p (frequency, period_start, period_end, nights, current_start)"
+        + " ON p.frequency = UPPER(b.payment_frequency)"
+        + " WHERE b.id > ? AND b.id <= ? AND " + CHARGEABLE
+        + " AND b.check_out_date IS NULL AND b.nightly_rate IS NOT NULL AND b.check_in_date < p.period_start"
+        + " AND p.period_start >= COALESCE((SELECT MAX(a.period_end) FROM rent_accruals a WHERE a.booking_id = b.id),"
+        + " p.current_start)";
+
+    private static final String BATCH_ACCRUALS = "SELECT id, booking_id, room_id, frequency, period_start, amount"
+        + " FROM rent_accruals WHERE run_id = ? AND booking_id > ? AND booking_id <= ?";
+
+    // A booking may be charged several missed periods at once
+    private static final String BATCH_BOOKING_ACCRUALS = "SELECT booking_id, SUM(amount) AS amount,"
+        + " MAX(amount) AS period_amount FROM (" + BATCH_ACCRUALS + ") batch GROUP BY booking_id";
+
+    private static final String BATCH_ROOM_ACCRUALS = "SELECT room_id, SUM(amount) AS amount FROM ("
+        + BATCH_ACCRUALS + ") batch GROUP BY room_id";
+
+    // Booking.updateBalance, plus OVERDUE when the balance still covers earlier periods
+    private static final String NEW_BALANCE = "COALESCE(b.total_charges, 0) + a.amount - COALESCE(b.total_payments, 0)";
+
+    private static final String SET_BOOKING_TOTALS = " total_charges = COALESCE(b.total_charges, 0) + a.amount,"
+        + " current_balance = " + NEW_BALANCE + ","
+        + " payment_status = CASE WHEN " + NEW_BALANCE + " <= 0 THEN 'PAID'"
+        + " WHEN " + NEW_BALANCE + " > a.period_amount THEN 'OVERDUE'"
+        + " WHEN COALESCE(b.total_payments, 0) > 0 THEN 'PARTIAL' ELSE 'PENDING' END,"
+        // Bump the optimistic lock so a booking loaded before this run is not saved over it
+        + " version = COALESCE(b.version, 0) + 1, updated_at = LOCALTIMESTAMP";
+
+    private static final String UPDATE_BOOKINGS = "UPDATE bookings b SET" + SET_BOOKING_TOTALS
+        + " FROM (" + BATCH_BOOKING_ACCRUALS + ") a WHERE b.id = a.booking_id";
+
+    private static final String MERGE_BOOKINGS = "MERGE INTO bookings b USING (" + BATCH_BOOKING_ACCRUALS + ") a"
+        + " ON b.id = a.booking_id WHEN MATCHED THEN UPDATE SET" + SET_BOOKING_TOTALS;
+
+    private static final String COUNT_OVERDUE = "SELECT COUNT(*) FROM bookings b JOIN (" + BATCH_BOOKING_ACCRUALS + ") a"
+        + " ON b.id = a.booking_id WHERE b.payment_status = 'OVERDUE'";
+
+    private static final String UPDATE_ROOMS = "UPDATE rooms r SET balance = COALESCE(r.balance, 0) + a.amount"
+        + " FROM (" + BATCH_ROOM_ACCRUALS + ") a WHERE r.id = a.room_id";
+
+    private static final String MERGE_ROOMS = "MERGE INTO rooms r USING (" + BATCH_ROOM_ACCRUALS + ") a"
+        + " ON r.id = a.room_id WHEN MATCHED THEN UPDATE SET balance = COALESCE(r.balance, 0) + a.amount";
+
+    // The room row is locked by the balance update, so its balance is the one after this batch's
+    // charges; each line's running balance is that less the charges after it, oldest period first
+    private static final String INSERT_LEDGER_LINES = "INSERT INTO transactions (room_id, description, amount,"
+        + " collected_by, transaction_type, transaction_category, running_balance, reference_number, notes, created_at)"
+        + " SELECT a.room_id, CONCAT(a.frequency, ' rent from ', CAST(a.period_start AS VARCHAR)), a.amount,"
+        + " 'System', 'CHARGE', 'RENT',"
+        + " r.balance - SUM(a.amount) OVER (PARTITION BY a.room_id)"
+        + " + SUM(a.amount) OVER (PARTITION BY a.room_id ORDER BY a.period_start, a.booking_id),"
+        + " CONCAT('ACCRUAL-', a.id), CONCAT('Booking #', a.booking_id), ?"
+        + " FROM (" + BATCH_ACCRUALS + ") a JOIN rooms r ON r.id = a.room_id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PropertyDashboardService propertyDashboardService;
+
+    @Value("${app.rent-accrual.batch-size:1000}")
+    private int batchSize = 1000;
+
+    @Value("${app.rent-accrual.backfill-days:31}")
+    private int backfillDays = 31;
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong totalAccrued = new AtomicLong();
+    private volatile RunResult lastRun;
+    private volatile Boolean postgres;
+
+    /**
+     * Charge the periods due today to every active booking.
+     */
+    @Scheduled(cron = "${app.rent-accrual.cron:0 15 0 * * *}")
+    public void accrueDue() {
+        accrue(LocalDate.now());
+    }
+
+    /**
+     * Charge every active booking for the periods begun by {@code date} that it has not been charged yet.
+     */
+    public RunResult accrue(LocalDate date) {
+        long started = System.nanoTime();
+        RunResult result = new RunResult(date, LocalDateTime.now());
+        String runId = UUID.randomUUID().toString();
+        String insertAccruals = String.format(INSERT_ACCRUALS, periods(date.minusDays(backfillDays), date));
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        long from = 0;
+        Long to;
+        while ((to = jdbcTemplate.queryForObject(NEXT_BATCH_END, Long.class, from, batchSize)) != null) {
+            long lower = from;
+            long upper = to;
+            try {
+                transaction.executeWithoutResult(status -> accrueBatch(insertAccruals, runId, result, lower, upper));
+            } catch (RuntimeException e) {
+                // Nothing of the batch was kept; the next run charges it
+                result.failedBatches++;
+                logger.warn("Rent accrual failed for bookings {} to {}: {}", lower + 1, upper, e.getMessage());
+            }
+            result.batches++;
+            from = upper;
+        }
+
+        result.durationMillis = (System.nanoTime() - started) / 1_000_000;
+        runs.incrementAndGet();
+        totalAccrued.addAndGet(result.accrued);
+        lastRun = result;
+        logger.info("Rent accrual for {} charged {} periods to {} bookings ({} overdue) in {} batches, {} failed, in {} ms",
+            date, result.accrued, result.bookings, result.overdue, result.batches, result.failedBatches,
+            result.durationMillis);
+        if (result.accrued > 0) {
+            propertyDashboardService.reconcile();
+        }
+        return result;
+    }
+
+    /**
+     * A VALUES list of every period of every frequency starting from {@code from} to {@code to}, inclusive,
+     * each with the start of its frequency's period containing {@code to}. The dates are written as
+     * literals; they come from {@link LocalDate}, not from input.
+     */
+    static String periods(LocalDate from, LocalDate to) {
+        List<String> rows = new ArrayList<>();
+        for (Frequency frequency : Frequency.values()) {
+            for (LocalDate start = frequency.periodStart(from); !start.isAfter(to); start = frequency.nextPeriodStart(start)) {
+                if (!start.isBefore(from)) {
+                    rows.add("('" + frequency.name() + "', DATE '" + start + "', DATE '"
+                        + frequency.nextPeriodStart(start) + "', " + frequency.nights + ", DATE '"
+                        + frequency.periodStart(to) + "')");
+                }
+            }
+        }
+        return "VALUES " + String.join(", ", rows);
+    }
+
+    private void accrueBatch(String insertAccruals, String runId, RunResult result, long from, long to) {
+        int accrued = jdbcTemplate.update(insertAccruals, runId, result.startedAt, from, to);
+        if (accrued == 0) {
+            return;
+        }
+        boolean isPostgres = isPostgres();
+        int bookings = jdbcTemplate.update(isPostgres ? UPDATE_BOOKINGS : MERGE_BOOKINGS, runId, from, to);
+        Integer overdue = jdbcTemplate.queryForObject(COUNT_OVERDUE, Integer.class, runId, from, to);
+        jdbcTemplate.update(isPostgres ? UPDATE_ROOMS : MERGE_ROOMS, runId, from, to);
+        jdbcTemplate.update(INSERT_LEDGER_LINES, LocalDateTime.now(), runId, from, to);
+
+        result.accrued += accrued;
+        result.bookings += bookings;
+        result.overdue += overdue != null ? overdue : 0;
+    }
+
+    /**
+     * Run count and totals, and what the last run did
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("runs", runs.get());
+        metrics.put("totalAccrued", totalAccrued.get());
+        RunResult last = lastRun;
+        if (last != null) {
+            metrics.put("lastRunDate", last.getDate().toString());
+            metrics.put("lastRunStartedAt", last.getStartedAt().toString());
+            metrics.put("lastRunMillis", last.getDurationMillis());
+            metrics.put("lastRunAccrued", last.getAccrued());
+            metrics.put("lastRunBookings", last.getBookings());
+            metrics.put("lastRunOverdue", last.getOverdue());
+            metrics.put("lastRunBatches", last.getBatches());
+            metrics.put("lastRunFailedBatches", last.getFailedBatches());
+        }
+        return metrics;
+    }
+
+    private boolean isPostgres() {
+        Boolean isPostgres = postgres;
+        if (isPostgres == null) {
+            isPostgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName()));
+            postgres = isPostgres;
+        }
+        return isPostgres;
+    }
+
+    /** What one accrual run charged, and how long it took. */
+    public static class RunResult {
+        private final LocalDate date;
+        private final LocalDateTime startedAt;
+        private int batches;
+        private int failedBatches;
+        private int accrued;
+        private int bookings;
+        private int overdue;
+        private long durationMillis;
+
+        RunResult(LocalDate date, LocalDateTime startedAt) {
+            this.date = date;
+            this.startedAt = startedAt;
+        }
+
+        public LocalDate getDate() { return date; }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public int getBatches() { return batches; }
+        public int getFailedBatches() { return failedBatches; }
+        /** Periods charged; a booking behind by missed runs is charged several. */
+        public int getAccrued() { return accrued; }
+        public int getBookings() { return bookings; }
+        public int getOverdue() { return overdue; }
+        public long getDurationMillis() { return durationMillis; }
+    }
+}
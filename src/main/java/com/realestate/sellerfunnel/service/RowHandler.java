@@ -0,0 +1,36 @@
+package com.realestate.sellerfunnel.service;
+
+import java.util.List;
+
+/**
+ * Receives the rows of an import file from {@link ExcelRowReader},
+ * {@link CsvRowReader} or {@link JsonLinesRowReader}. Rows without any
+ * values are not reported.
+ */
+public interface RowHandler {
+
+    /**
+     * Called before each sheet's rows are read; text formats have a single unnamed sheet.
+     */
+    default void startSheet(String sheetName) {
+    }
+
+    /**
+     * Called before the sheet's first row with its last row index, when it is known up front.
+     */
+    default void lastRowNum(int lastRowNum) {
+    }
+
+    /**
+     * @param rowNum 0-based row index
+     * @param values cell values by column index, null where a cell is missing; shorter than the
+     *               header when trailing cells are missing. The list is reused for the next row.
+     */
+    void row(int rowNum, List<String> values);
+
+    /**
+     * Called instead of {@link #row} for a row that could not be parsed.
+     */
+    default void invalidRow(int rowNum, String message) {
+    }
+}
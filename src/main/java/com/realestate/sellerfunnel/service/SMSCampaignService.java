@@ -1,22 +1,34 @@
 package com.realestate.sellerfunnel.service;
 
+import com.realestate.sellerfunnel.model.CampaignSend;
 import com.realestate.sellerfunnel.model.Client;
+import com.realestate.sellerfunnel.model.OutboxMessage;
 import com.realestate.sellerfunnel.repository.ClientRepository;
+import com.realestate.sellerfunnel.repository.ClientSpecifications;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
 public class SMSCampaignService {
     private static final Logger logger = LoggerFactory.getLogger(SMSCampaignService.class);
+    private static final String CHANNEL = "SMS";
+    
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
     
     @Autowired
     private SMSService smsService;
@@ -27,11 +39,45 @@ public class SMSCampaignService {
     @Autowired
     private AIContentGenerationService aiContentService;
     
+    @Autowired
+    private CampaignOutboxService outboxService;
+    
     private final Map<String, CampaignProgress> campaignProgress = new ConcurrentHashMap<>();
     
+    @PostConstruct
+    public void registerOutboxChannel() {
+        outboxService.registerChannel(CHANNEL, new CampaignOutboxService.Channel() {
+            @Override
+            public Specification<Client> recipients(CampaignSend send) {
+                return SMSCampaignService.this.recipients(send);
+            }
+            
+            @Override
+            public String recipientAddress(Client client) {
+                return client.getPhoneNumber();
+            }
+            
+            @Override
+            public TokenBucket rateLimit(CampaignSend send) {
+                return smsService.rateLimit();
+            }
+            
+            @Override
+            public void deliver(CampaignSend send, List<OutboxMessage> batch,
+                                CampaignOutboxService.DeliveryResults results) {
+                deliverBatch(send, batch, results);
+            }
+            
+            @Override
+            public void recordContacts(List<Long> clientIds) {
+                clientRepository.incrementSmsContacts(clientIds, LocalDateTime.now());
+            }
+        });
+    }
+    
     public static class CampaignProgress {
         private final String campaignId;
-        private final int totalRecipients;
+        private int totalRecipients;
         private int processedCount;
         private int successCount;
         private int errorCount;
@@ -71,6 +117,26 @@ public class SMSCampaignService {
             return totalRecipients == 0 ? 0 : (double) processedCount / totalRecipients * 100;
         }
         
+        /**
+         * Replace the counters with the stored state of the campaign's outbox.
+         */
+        public synchronized void update(CampaignOutboxService.OutboxProgress stored) {
+            if (stored.getTotalRecipients() > 0) {
+                totalRecipients = stored.getTotalRecipients();
+            }
+            successCount = stored.getSentCount();
+            errorCount = stored.getFailedCount();
+            skippedCount = stored.getSkippedCount();
+            processedCount = stored.getProcessedCount();
+            status = stored.getStatus();
+            errorMessage = stored.getErrorMessage();
+            if (stored.getStartTime() != null) {
+                startTime = stored.getStartTime();
+            }
+            endTime = stored.getEndTime();
+            recentErrors = new ArrayList<>(stored.getRecentErrors());
+        }
+        
         // Getters
         public String getCampaignId() { return campaignId; }
         public int getTotalRecipients() { return totalRecipients; }
@@ -104,20 +170,19 @@ public class SMSCampaignService {
         
         CompletableFuture.runAsync(() -> {
             try {
-                // Get filtered clients
-                List<Client> clients = clientRepository.findByFilters(
-                    clientType, clientStatus, leadSource, city, state);
+                CampaignSend send = new CampaignSend(campaignId, CHANNEL);
+                send.setClientType(clientType);
+                send.setClientStatus(clientStatus);
+                send.setLeadSource(leadSource);
+                send.setCity(city);
+                send.setState(state);
                 
-                // Filter for SMS opted-in clients
-                clients = clients.stream()
-                    .filter(client -> Boolean.TRUE.equals(client.getSmsOptedIn()))
-                    .filter(client -> client.getPhoneNumber() != null && !client.getPhoneNumber().trim().isEmpty())
-                    .collect(Collectors.toList());
+                long recipientCount = clientRepository.count(recipients(send));
                 
-                CampaignProgress progress = new CampaignProgress(campaignId, clients.size());
+                CampaignProgress progress = new CampaignProgress(campaignId, (int) recipientCount);
                 campaignProgress.put(campaignId, progress);
                 
-                if (clients.isEmpty()) {
+                if (recipientCount == 0) {
                     progress.setStatus("COMPLETED");
                     progress.setEndTime(LocalDateTime.now());
                     return;
@@ -141,28 +206,10 @@ public class SMSCampaignService {
                     }
                 }
                 
-                progress.setStatus("PROCESSING");
-                
-                // Send messages
-                SMSService.BatchSMSResult result = smsService.sendBulkSMS(clients, finalMessage).get();
-                
-                // Update progress
-                result.getSuccesses().forEach(r -> progress.incrementSuccess());
-                result.getErrors().forEach(r -> progress.incrementError(r.getMessage()));
-                result.getSkipped().forEach(r -> {
-                    progress.incrementSkipped();
-                    progress.recentErrors.add("Skipped " + r.getClientName() + ": " + r.getMessage());
-                });
-                result.getInvalid().forEach(r -> {
-                    progress.incrementError("Invalid: " + r.getMessage());
-                    progress.recentErrors.add("Invalid " + r.getClientName() + ": " + r.getMessage());
-                });
-                
-                // Save updated clients
-                clientRepository.saveAll(clients);
+                send.setMessage(finalMessage);
                 
-                progress.setStatus("COMPLETED");
-                progress.setEndTime(LocalDateTime.now());
+                // Queue a row per recipient; outbox workers do the sending
+                outboxService.start(send);
                 
             } catch (Exception e) {
                 logger.error("Error processing SMS campaign {}: {}", campaignId, e.getMessage(), e);
@@ -173,13 +220,55 @@ public class SMSCampaignService {
                     progress.setEndTime(LocalDateTime.now());
                 }
             }
-        });
+        }, taskExecutor);
         
         return CompletableFuture.completedFuture(campaignId);
     }
     
+    private Specification<Client> recipients(CampaignSend send) {
+        return ClientSpecifications
+            .campaignFilters(send.getClientType(), send.getClientStatus(), send.getLeadSource(),
+                             send.getCity(), send.getState())
+            .and(ClientSpecifications.smsOptedIn())
+            .and(ClientSpecifications.hasPhoneNumber());
+    }
+    
+    /**
+     * Send a claimed outbox batch and report each message's outcome
+     */
+    private void deliverBatch(CampaignSend send, List<OutboxMessage> batch,
+                              CampaignOutboxService.DeliveryResults results) {
+        Map<Long, OutboxMessage> byClient = new HashMap<>();
+        batch.forEach(m -> byClient.put(m.getClientId(), m));
+        List<Client> clients = clientRepository.findAllById(byClient.keySet());
+        
+        // The outbox has already taken permits for this batch
+        SMSService.BatchSMSResult result = smsService.sendBatch(clients, send.getMessage());
+        
+        result.getSuccesses().forEach(r -> results.sent(byClient.get(r.getClientId())));
+        result.getErrors().forEach(r -> results.failed(byClient.get(r.getClientId()), r.getMessage()));
+        result.getSkipped().forEach(r -> results.skipped(byClient.get(r.getClientId()), r.getMessage()));
+        result.getInvalid().forEach(r -> results.rejected(byClient.get(r.getClientId()), "Invalid: " + r.getMessage()));
+        
+        // Clients deleted since the campaign was queued
+        Set<Long> found = clients.stream().map(Client::getId).collect(Collectors.toSet());
+        byClient.forEach((clientId, m) -> {
+            if (!found.contains(clientId)) {
+                results.skipped(m, "Client no longer exists");
+            }
+        });
+    }
+    
     public CampaignProgress getCampaignProgress(String campaignId) {
-        return campaignProgress.get(campaignId);
+        CampaignOutboxService.OutboxProgress stored = outboxService.getProgress(campaignId);
+        if (stored == null) {
+            // Not queued yet, or finished without sending anything
+            return campaignProgress.get(campaignId);
+        }
+        CampaignProgress progress = campaignProgress.computeIfAbsent(campaignId,
+            id -> new CampaignProgress(id, stored.getTotalRecipients()));
+        progress.update(stored);
+        return progress;
     }
     
     public void cleanupOldCampaigns() {
@@ -9,21 +9,29 @@ import com.twilio.type.PhoneNumber;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class SMSService {
     private static final Logger logger = LoggerFactory.getLogger(SMSService.class);
-    private static final int BATCH_SIZE = 50; // Twilio's recommended batch size
-    private static final int RATE_LIMIT_DELAY = 1000; // 1 second delay between batches
+    
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
     
     @Autowired
     private SettingsService settingsService;
+    
+    @Autowired
+    private SendRateLimiter sendRateLimiter;
 
     @Value("${twilio.account-sid:}")
     private String defaultAccountSid;
@@ -71,81 +79,141 @@ public class SMSService {
                 (cfg.messagingServiceSid != null && !cfg.messagingServiceSid.isEmpty()));
     }
     
+    /**
+     * Send to every client at the Twilio account's rate limit. While waiting
+     * for permits no thread is held; sending resumes on the task executor.
+     */
     public CompletableFuture<BatchSMSResult> sendBulkSMS(List<Client> clients, String messageText) {
         return CompletableFuture.supplyAsync(() -> {
             if (!isConfigured()) {
                 throw new IllegalStateException("Twilio is not configured");
             }
             
-            BatchSMSResult result = new BatchSMSResult();
-            List<Client> currentBatch = new ArrayList<>();
             EffectiveTwilioConfig cfg = getEffectiveConfig();
             // Initialize Twilio with effective settings before sending
             Twilio.init(cfg.accountSid, cfg.authToken);
             
+            BulkSend bulk = new BulkSend(messageText, cfg, sendRateLimiter.twilio(cfg.accountSid));
             for (Client client : clients) {
-                if (!isValidPhoneNumber(client.getPhoneNumber())) {
-                    result.addInvalid(client, "Invalid phone number format");
-                    continue;
-                }
-                
-                if (!Boolean.TRUE.equals(client.getSmsOptedIn())) {
-                    result.addSkipped(client, "Client has not opted in for SMS");
-                    continue;
+                if (isSendable(client, bulk.result)) {
+                    bulk.recipients.add(client);
                 }
-                
-                currentBatch.add(client);
-                
-                if (currentBatch.size() >= BATCH_SIZE) {
-                    processBatch(currentBatch, messageText, result, cfg);
-                    currentBatch = new ArrayList<>();
-                    try {
-                        Thread.sleep(RATE_LIMIT_DELAY);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        throw new RuntimeException("SMS sending interrupted", e);
+            }
+            return bulk;
+        }, taskExecutor).thenCompose(bulk -> {
+            sendFrom(bulk, 0, false);
+            return bulk.done;
+        });
+    }
+    
+    /**
+     * Send to every client now, on the calling thread. For callers that have
+     * already taken permits from {@link #rateLimit()} for the whole list.
+     */
+    public BatchSMSResult sendBatch(List<Client> clients, String messageText) {
+        if (!isConfigured()) {
+            throw new IllegalStateException("Twilio is not configured");
+        }
+        
+        EffectiveTwilioConfig cfg = getEffectiveConfig();
+        Twilio.init(cfg.accountSid, cfg.authToken);
+        
+        BatchSMSResult result = new BatchSMSResult();
+        for (Client client : clients) {
+            if (isSendable(client, result)) {
+                sendOne(client, messageText, result, cfg);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Send-rate limit of the configured Twilio account.
+     */
+    public TokenBucket rateLimit() {
+        return sendRateLimiter.twilio(getEffectiveConfig().accountSid);
+    }
+    
+    private boolean isSendable(Client client, BatchSMSResult result) {
+        if (!isValidPhoneNumber(client.getPhoneNumber())) {
+            result.addInvalid(client, "Invalid phone number format");
+            return false;
+        }
+        
+        if (!Boolean.TRUE.equals(client.getSmsOptedIn())) {
+            result.addSkipped(client, "Client has not opted in for SMS");
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Send from the given recipient on, one permit per message. When the limit
+     * is reached the rest is rescheduled for when the permit is due.
+     */
+    private void sendFrom(BulkSend bulk, int index, boolean permitHeld) {
+        try {
+            while (index < bulk.recipients.size()) {
+                if (!permitHeld) {
+                    long wait = bulk.rateLimit.reserve(1);
+                    if (wait > 0) {
+                        int resumeAt = index;
+                        CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS, taskExecutor)
+                            .execute(() -> sendFrom(bulk, resumeAt, true));
+                        return;
                     }
                 }
+                permitHeld = false;
+                sendOne(bulk.recipients.get(index++), bulk.messageText, bulk.result, bulk.cfg);
             }
-            
-            // Process remaining clients
-            if (!currentBatch.isEmpty()) {
-                processBatch(currentBatch, messageText, result, cfg);
+            bulk.done.complete(bulk.result);
+        } catch (Exception e) {
+            bulk.done.completeExceptionally(e);
+        }
+    }
+    
+    private void sendOne(Client client, String messageText, BatchSMSResult result, EffectiveTwilioConfig cfg) {
+        try {
+            MessageCreator creator;
+            if (cfg.messagingServiceSid != null && !cfg.messagingServiceSid.isEmpty()) {
+                creator = Message.creator(
+                    new PhoneNumber(client.getPhoneNumber()),
+                    cfg.messagingServiceSid,
+                    messageText
+                );
+            } else {
+                creator = Message.creator(
+                    new PhoneNumber(client.getPhoneNumber()),
+                    new PhoneNumber(cfg.fromPhoneNumber),
+                    messageText
+                );
             }
+            if (cfg.statusCallbackUrl != null && !cfg.statusCallbackUrl.isEmpty()) {
+                creator.setStatusCallback(java.net.URI.create(cfg.statusCallbackUrl));
+            }
+            creator.create();
             
-            return result;
-        });
+            result.addSuccess(client);
+            client.incrementSmsContact();
+            
+        } catch (Exception e) {
+            logger.error("Error sending SMS to {}: {}", client.getPhoneNumber(), e.getMessage());
+            result.addError(client, e.getMessage());
+        }
     }
     
-    private void processBatch(List<Client> batch, String messageText, BatchSMSResult result, EffectiveTwilioConfig cfg) {
-        for (Client client : batch) {
-            try {
-                MessageCreator creator;
-                if (cfg.messagingServiceSid != null && !cfg.messagingServiceSid.isEmpty()) {
-                    creator = Message.creator(
-                        new PhoneNumber(client.getPhoneNumber()),
-                        cfg.messagingServiceSid,
-                        messageText
-                    );
-                } else {
-                    creator = Message.creator(
-                        new PhoneNumber(client.getPhoneNumber()),
-                        new PhoneNumber(cfg.fromPhoneNumber),
-                        messageText
-                    );
-                }
-                if (cfg.statusCallbackUrl != null && !cfg.statusCallbackUrl.isEmpty()) {
-                    creator.setStatusCallback(java.net.URI.create(cfg.statusCallbackUrl));
-                }
-                creator.create();
-                
-                result.addSuccess(client);
-                client.incrementSmsContact();
-                
-            } catch (Exception e) {
-                logger.error("Error sending SMS to {}: {}", client.getPhoneNumber(), e.getMessage());
-                result.addError(client, e.getMessage());
-            }
+    private static class BulkSend {
+        final String messageText;
+        final EffectiveTwilioConfig cfg;
+        final TokenBucket rateLimit;
+        final BatchSMSResult result = new BatchSMSResult();
+        final List<Client> recipients = new ArrayList<>();
+        final CompletableFuture<BatchSMSResult> done = new CompletableFuture<>();
+        
+        BulkSend(String messageText, EffectiveTwilioConfig cfg, TokenBucket rateLimit) {
+            this.messageText = messageText;
+            this.cfg = cfg;
+            this.rateLimit = rateLimit;
         }
     }
     
@@ -196,22 +264,23 @@ public class SMSService {
     }
     
     public static class SMSResult {
+        private final Long clientId;
         private final String clientName;
         private final String phoneNumber;
         private final String message;
         
         public SMSResult(Client client) {
-            this.clientName = client.getFullName();
-            this.phoneNumber = client.getPhoneNumber();
-            this.message = null;
+            this(client, null);
         }
         
         public SMSResult(Client client, String message) {
+            this.clientId = client.getId();
             this.clientName = client.getFullName();
             this.phoneNumber = client.getPhoneNumber();
             this.message = message;
         }
         
+        public Long getClientId() { return clientId; }
         public String getClientName() { return clientName; }
         public String getPhoneNumber() { return phoneNumber; }
         public String getMessage() { return message; }
@@ -0,0 +1,61 @@
+package com.realestate.sellerfunnel.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared send-rate limits, one {@link TokenBucket} per provider account, so
+ * every code path that sends through the same SMTP host or Twilio account
+ * draws from the same budget.
+ *
+ * Rates are read from {@code app.rate-limit.<provider>.permits-per-second}
+ * and {@code app.rate-limit.<provider>.burst}, where provider is
+ * {@code smtp} or {@code twilio}.
+ */
+@Service
+public class SendRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(SendRateLimiter.class);
+
+    private static final double DEFAULT_SMTP_RATE = 50;
+    private static final double DEFAULT_TWILIO_RATE = 10;
+
+    @Autowired
+    private Environment environment;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Limit for messages sent through the given mail sender's SMTP host.
+     */
+    public TokenBucket smtp(JavaMailSender mailSender) {
+        String host = mailSender instanceof JavaMailSenderImpl ? ((JavaMailSenderImpl) mailSender).getHost() : null;
+        return bucket("smtp", host, DEFAULT_SMTP_RATE);
+    }
+
+    /**
+     * Limit for messages sent through the given Twilio account.
+     */
+    public TokenBucket twilio(String accountSid) {
+        return bucket("twilio", accountSid, DEFAULT_TWILIO_RATE);
+    }
+
+    private TokenBucket bucket(String provider, String account, double defaultRate) {
+        String key = provider + ":" + (account != null ? account : "default");
+        return buckets.computeIfAbsent(key, k -> {
+            double rate = environment.getProperty("app.rate-limit." + provider + ".permits-per-second",
+                Double.class, defaultRate);
+            double burst = environment.getProperty("app.rate-limit." + provider + ".burst", Double.class, rate);
+            logger.info("Send rate limit for {}: {}/s, burst {}", k, rate, burst);
+            return new TokenBucket(rate, burst);
+        });
+    }
+}
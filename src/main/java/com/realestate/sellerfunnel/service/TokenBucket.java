@@ -0,0 +1,96 @@
+package com.realestate.sellerfunnel.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket that refills at a fixed rate up to a burst capacity.
+ *
+ * Permits are reserved rather than waited for: {@link #reserve(int)} takes
+ * them immediately, letting the bucket go into debt, and returns how long the
+ * caller must wait before using them. Later callers queue behind that debt, so
+ * concurrent senders share the rate fairly without holding a lock while they wait.
+ */
+public final class TokenBucket {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double permitsPerSecond;
+    private final double capacity;
+    private final LongSupplier clock;
+
+    private double available;
+    private long lastRefill;
+
+    public TokenBucket(double permitsPerSecond, double capacity) {
+        this(permitsPerSecond, capacity, System::nanoTime);
+    }
+
+    TokenBucket(double permitsPerSecond, double capacity, LongSupplier clock) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = Math.max(1, capacity);
+        this.clock = clock;
+        this.available = this.capacity;
+        this.lastRefill = clock.getAsLong();
+    }
+
+    /**
+     * Take permits now and return the nanoseconds to wait before using them; 0 means go ahead.
+     */
+    public synchronized long reserve(int permits) {
+        long now = clock.getAsLong();
+        available = Math.min(capacity, available + (now - lastRefill) * permitsPerSecond / NANOS_PER_SECOND);
+        lastRefill = now;
+
+        available -= permits;
+        if (available >= 0) {
+            return 0;
+        }
+        return (long) Math.ceil(-available / permitsPerSecond * NANOS_PER_SECOND);
+    }
+
+    /**
+     * Return permits that were reserved but not used.
+     */
+    public synchronized void release(int permits) {
+        available = Math.min(capacity, available + permits);
+    }
+
+    /**
+     * Reserve permits and return a future that completes on the executor once
+     * they may be used. No thread is held while waiting.
+     */
+    public CompletableFuture<Void> acquire(int permits, Executor executor) {
+        long wait = reserve(permits);
+        if (wait == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> { },
+            CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS, executor));
+    }
+
+    /**
+     * Reserve permits and wait on the calling thread until they may be used.
+     * For threads that are dedicated to one send, such as a bulk send's producer.
+     */
+    public void acquire(int permits) throws InterruptedException {
+        long deadline = System.nanoTime() + reserve(permits);
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+}
@@ -1,10 +1,12 @@
 package com.realestate.sellerfunnel.service;
 
-import com.realestate.sellerfunnel.model.Room;
 import com.realestate.sellerfunnel.model.Transaction;
 import com.realestate.sellerfunnel.repository.RoomRepository;
 import com.realestate.sellerfunnel.repository.TransactionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SingleColumnRowMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -12,15 +14,52 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
+/**
+ * Posts to the room ledger. Transactions are only ever appended: posting one
+ * moves the room's balance by its amount with a single atomic UPDATE that
+ * returns the new balance, which becomes the transaction's running balance.
+ * Neither the room nor its transaction list is loaded, so posting costs the
+ * same however long the ledger grows, and the row lock taken by the UPDATE
+ * keeps concurrent postings to one room in order.
+ */
 @Service
 public class TransactionService {
 
+    /** A transaction's effect on the balance: credits reduce what the guest owes. */
+    static final String SIGNED_AMOUNT =
+        "CASE WHEN transaction_type IN ('PAYMENT', 'DEPOSIT', 'REFUND') THEN -amount ELSE amount END";
+
+    private static final String ADD_TO_BALANCE_RETURNING =
+        "UPDATE rooms SET balance = COALESCE(balance, 0) + ? WHERE id = ? RETURNING balance";
+
+    // H2 has no RETURNING; a data change delta table reads the updated row in the same statement
+    private static final String ADD_TO_BALANCE_FINAL_TABLE =
+        "SELECT balance FROM FINAL TABLE (UPDATE rooms SET balance = COALESCE(balance, 0) + ? WHERE id = ?)";
+
+    private static final String RUNNING_BALANCES = "SELECT id, SUM(" + SIGNED_AMOUNT + ")"
+        + " OVER (ORDER BY created_at, id) AS running_balance FROM transactions WHERE room_id = ?";
+
+    private static final String UPDATE_RUNNING_BALANCES = "UPDATE transactions t SET running_balance = r.running_balance"
+        + " FROM (" + RUNNING_BALANCES + ") r"
+        + " WHERE t.id = r.id AND t.running_balance IS DISTINCT FROM r.running_balance";
+
+    private static final String MERGE_RUNNING_BALANCES = "MERGE INTO transactions t USING (" + RUNNING_BALANCES + ") r"
+        + " ON t.id = r.id WHEN MATCHED THEN UPDATE SET running_balance = r.running_balance";
+
+    private static final String UPDATE_ROOM_BALANCE = "UPDATE rooms SET balance ="
+        + " (SELECT COALESCE(SUM(" + SIGNED_AMOUNT + "), 0) FROM transactions WHERE room_id = ?) WHERE id = ?";
+
     @Autowired
     private TransactionRepository transactionRepository;
 
     @Autowired
     private RoomRepository roomRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgres;
+
     @Transactional
     public Transaction addTransaction(Long roomId, String description, BigDecimal amount, String paidBy, String collectedBy) {
         return addTransaction(roomId, description, amount, paidBy, collectedBy, "PAYMENT", "RENT", null, null);
@@ -30,38 +69,26 @@ public class TransactionService {
     public Transaction addTransaction(Long roomId, String description, BigDecimal amount, String paidBy, 
                                     String collectedBy, String transactionType, String transactionCategory, 
                                     String referenceNumber, String notes) {
-        Room room = roomRepository.findById(roomId)
-                .orElseThrow(() -> new RuntimeException("Room not found with ID: " + roomId));
-
-        // Get current balance from room
-        BigDecimal currentBalance = room.getBalance() != null ? room.getBalance() : BigDecimal.ZERO;
-        
-        // Calculate new running balance based on transaction type
         BigDecimal transactionAmount = amount != null ? amount : BigDecimal.ZERO;
-        BigDecimal newBalance;
-        
+        BigDecimal delta;
         if ("PAYMENT".equals(transactionType) || "DEPOSIT".equals(transactionType) || "REFUND".equals(transactionType)) {
             // Credits reduce the balance (customer owes less)
-            newBalance = currentBalance.subtract(transactionAmount);
+            delta = transactionAmount.negate();
         } else {
             // Debits increase the balance (customer owes more)
-            newBalance = currentBalance.add(transactionAmount);
+            delta = transactionAmount;
         }
+        BigDecimal newBalance = addToRoomBalance(roomId, delta);
 
-        Transaction transaction = new Transaction(room, description, transactionAmount, paidBy, transactionType, transactionCategory);
+        // A reference stands in for the room, so neither it nor its transactions are loaded
+        Transaction transaction = new Transaction(roomRepository.getReferenceById(roomId), description,
+                transactionAmount, paidBy, transactionType, transactionCategory);
         transaction.setCollectedBy(collectedBy);
         transaction.setRunningBalance(newBalance);
         transaction.setReferenceNumber(referenceNumber);
         transaction.setNotes(notes);
 
-        // Update room balance
-        room.setBalance(newBalance);
-        room.addTransaction(transaction);
-
-        transactionRepository.save(transaction);
-        roomRepository.save(room);
-
-        return transaction;
+        return transactionRepository.save(transaction);
     }
 
     @Transactional
@@ -94,29 +121,38 @@ public class TransactionService {
         return transactionRepository.findByRoomIdAndCreatedAtBetweenOrderByCreatedAtDesc(roomId, startDate, endDate);
     }
 
+    /**
+     * Rebuild a room's running balances and balance from its ledger, oldest first, with one
+     * windowed UPDATE over the transactions and one over the room.
+     */
     @Transactional
     public void recalculateRoomBalance(Long roomId) {
-        Room room = roomRepository.findById(roomId)
-                .orElseThrow(() -> new RuntimeException("Room not found with ID: " + roomId));
-
-        List<Transaction> transactions = transactionRepository.findByRoomIdOrderByCreatedAtAsc(roomId);
-        
-        BigDecimal runningBalance = BigDecimal.ZERO;
-        
-        for (Transaction transaction : transactions) {
-            if ("PAYMENT".equals(transaction.getTransactionType()) || 
-                "DEPOSIT".equals(transaction.getTransactionType()) || 
-                "REFUND".equals(transaction.getTransactionType())) {
-                runningBalance = runningBalance.subtract(transaction.getAmount());
-            } else {
-                runningBalance = runningBalance.add(transaction.getAmount());
-            }
-            
-            transaction.setRunningBalance(runningBalance);
-            transactionRepository.save(transaction);
+        if (jdbcTemplate.update(UPDATE_ROOM_BALANCE, roomId, roomId) == 0) {
+            throw new RuntimeException("Room not found with ID: " + roomId);
+        }
+        jdbcTemplate.update(isPostgres() ? UPDATE_RUNNING_BALANCES : MERGE_RUNNING_BALANCES, roomId);
+    }
+
+    /**
+     * Move a room's balance by {@code delta} and return the new balance, in one statement.
+     */
+    private BigDecimal addToRoomBalance(Long roomId, BigDecimal delta) {
+        List<BigDecimal> balance = jdbcTemplate.query(
+                isPostgres() ? ADD_TO_BALANCE_RETURNING : ADD_TO_BALANCE_FINAL_TABLE,
+                SingleColumnRowMapper.newInstance(BigDecimal.class), delta, roomId);
+        if (balance.isEmpty()) {
+            throw new RuntimeException("Room not found with ID: " + roomId);
+        }
+        return balance.get(0);
+    }
+
+    private boolean isPostgres() {
+        Boolean isPostgres = postgres;
+        if (isPostgres == null) {
+            isPostgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName()));
+            postgres = isPostgres;
         }
-        
-        room.setBalance(runningBalance);
-        roomRepository.save(room);
+        return isPostgres;
     }
 }
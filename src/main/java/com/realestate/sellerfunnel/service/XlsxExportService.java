@@ -0,0 +1,253 @@
+package com.realestate.sellerfunnel.service;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes clients, bookings, payments and ledger transactions as XLSX files.
+ *
+ * Rows are read from a database cursor ({@code fetchSize} rows per round trip,
+ * inside a read-only transaction) into an {@link SXSSFWorkbook}, which keeps
+ * only the last {@link #ROW_WINDOW} rows in memory and flushes older ones to a
+ * gzip-compressed temporary file. The finished file is copied to the output
+ * and the temporary file deleted, so memory use is the same for a thousand rows
+ * or a million. A sheet that reaches Excel's row limit continues on a new one.
+ */
+@Service
+public class XlsxExportService {
+
+    static final int ROW_WINDOW = 100;
+
+    private static final String BOOKINGS_SQL = "SELECT b.id, r.room_number, g.first_name, g.last_name, g.email,"
+        + " b.check_in_date, b.expected_check_out_date, b.check_out_date, b.nightly_rate, b.payment_frequency,"
+        + " b.number_of_nights, b.total_charges, b.total_payments, b.current_balance, b.booking_status,"
+        + " b.payment_status, b.created_at"
+        + " FROM bookings b JOIN rooms r ON r.id = b.room_id JOIN guests g ON g.id = b.guest_id"
+        + " ORDER BY b.check_in_date DESC, b.id DESC";
+
+    private static final List<String> BOOKING_COLUMNS = List.of("Booking", "Room", "Guest First Name",
+        "Guest Last Name", "Guest Email", "Check In", "Expected Check Out", "Check Out", "Nightly Rate",
+        "Payment Frequency", "Nights", "Total Charges", "Total Payments", "Current Balance", "Booking Status",
+        "Payment Status", "Created");
+
+    private static final String PAYMENTS_SQL = "SELECT p.id, p.booking_id, r.room_number, p.amount, p.currency,"
+        + " p.payment_method, p.payment_status, p.description, p.customer_email, p.processed_at, p.created_at"
+        + " FROM payments p JOIN bookings b ON b.id = p.booking_id JOIN rooms r ON r.id = b.room_id"
+        + " ORDER BY p.created_at DESC, p.id DESC";
+
+    private static final List<String> PAYMENT_COLUMNS = List.of("Payment", "Booking", "Room", "Amount", "Currency",
+        "Method", "Status", "Description", "Customer Email", "Processed", "Created");
+
+    private static final String TRANSACTIONS_SQL = "SELECT t.created_at, r.room_number, r.room_name, t.description,"
+        + " t.transaction_type, t.transaction_category, t.amount, t.running_balance, t.paid_by, t.collected_by,"
+        + " t.reference_number, t.notes"
+        + " FROM transactions t JOIN rooms r ON r.id = t.room_id WHERE t.created_at BETWEEN ? AND ?";
+
+    private static final List<String> TRANSACTION_COLUMNS = List.of("Date", "Room", "Room Name", "Description",
+        "Type", "Category", "Amount", "Running Balance", "Paid By", "Collected By", "Reference", "Notes");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.export.fetch-size:1000}")
+    private int fetchSize = 1000;
+
+    /** Data rows per sheet, below its header row. */
+    int maxRowsPerSheet = SpreadsheetVersion.EXCEL2007.getLastRowIndex();
+
+    /** Characters per cell; Excel rejects longer text, so it is cut to this length. */
+    int maxTextLength = SpreadsheetVersion.EXCEL2007.getMaxTextLength();
+
+    public void writeActiveClients(OutputStream out) throws IOException {
+        write(out, "Clients", ClientExportService.COLUMNS, ClientExportService.ACTIVE_CLIENTS_SQL);
+    }
+
+    public void writeBookings(OutputStream out) throws IOException {
+        write(out, "Bookings", BOOKING_COLUMNS, BOOKINGS_SQL);
+    }
+
+    public void writePayments(OutputStream out) throws IOException {
+        write(out, "Payments", PAYMENT_COLUMNS, PAYMENTS_SQL);
+    }
+
+    /**
+     * Ledger transactions newest first, optionally for one room and a date range.
+     */
+    public void writeTransactions(Long roomId, LocalDateTime start, LocalDateTime end, OutputStream out)
+            throws IOException {
+        List<Object> params = new ArrayList<>();
+        params.add(Timestamp.valueOf(start != null ? start : LocalDateTime.of(1970, 1, 1, 0, 0)));
+        params.add(Timestamp.valueOf(end != null ? end : LocalDateTime.of(9999, 12, 31, 23, 59)));
+        String sql = TRANSACTIONS_SQL;
+        if (roomId != null) {
+            sql += " AND t.room_id = ?";
+            params.add(roomId);
+        }
+        write(out, "Transactions", TRANSACTION_COLUMNS, sql + " ORDER BY t.created_at DESC", params.toArray());
+    }
+
+    private void write(OutputStream out, String sheetName, List<String> columns, String sql, Object... params)
+            throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            SheetWriter writer = new SheetWriter(workbook, sheetName, columns, maxRowsPerSheet, maxTextLength);
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            transaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                for (int i = 0; i < params.length; i++) {
+                    statement.setObject(i + 1, params[i]);
+                }
+                return statement;
+            }, (RowCallbackHandler) writer::writeRow));
+            workbook.write(out);
+        } finally {
+            workbook.close();
+        }
+    }
+
+    /**
+     * Appends result rows to the current sheet, typing each cell by its column's SQL type.
+     */
+    private static class SheetWriter {
+        private final SXSSFWorkbook workbook;
+        private final String sheetName;
+        private final List<String> columns;
+        private final int maxDataRows;
+        private final int maxTextLength;
+        private final CellStyle headerStyle;
+        private final CellStyle dateStyle;
+        private final CellStyle moneyStyle;
+
+        private int[] sqlTypes;
+        private int[] scales;
+        private SXSSFSheet sheet;
+        private int sheetCount;
+        private int nextRow;
+
+        SheetWriter(SXSSFWorkbook workbook, String sheetName, List<String> columns, int maxDataRows,
+                    int maxTextLength) {
+            this.workbook = workbook;
+            this.sheetName = sheetName;
+            this.columns = columns;
+            this.maxDataRows = maxDataRows;
+            this.maxTextLength = maxTextLength;
+
+            Font bold = workbook.createFont();
+            bold.setBold(true);
+            headerStyle = workbook.createCellStyle();
+            headerStyle.setFont(bold);
+            dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd hh:mm"));
+            moneyStyle = workbook.createCellStyle();
+            moneyStyle.setDataFormat(workbook.createDataFormat().getFormat("#,##0.00"));
+            newSheet();
+        }
+
+        void writeRow(ResultSet rs) throws SQLException {
+            if (sqlTypes == null) {
+                ResultSetMetaData meta = rs.getMetaData();
+                sqlTypes = new int[meta.getColumnCount()];
+                scales = new int[sqlTypes.length];
+                for (int i = 0; i < sqlTypes.length; i++) {
+                    sqlTypes[i] = meta.getColumnType(i + 1);
+                    scales[i] = meta.getScale(i + 1);
+                }
+            }
+            if (nextRow > maxDataRows) {
+                newSheet();
+            }
+            Row row = sheet.createRow(nextRow++);
+            for (int i = 0; i < sqlTypes.length; i++) {
+                writeCell(row, i, rs, i + 1);
+            }
+        }
+
+        private void writeCell(Row row, int column, ResultSet rs, int index) throws SQLException {
+            switch (sqlTypes[column]) {
+                case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT -> {
+                    long value = rs.getLong(index);
+                    if (!rs.wasNull()) {
+                        row.createCell(column).setCellValue(value);
+                    }
+                }
+                case Types.NUMERIC, Types.DECIMAL, Types.REAL, Types.FLOAT, Types.DOUBLE -> {
+                    double value = rs.getDouble(index);
+                    if (!rs.wasNull()) {
+                        Cell cell = row.createCell(column);
+                        cell.setCellValue(value);
+                        if (scales[column] > 0) {
+                            cell.setCellStyle(moneyStyle);
+                        }
+                    }
+                }
+                case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE, Types.DATE -> {
+                    Timestamp value = rs.getTimestamp(index);
+                    if (value != null) {
+                        Cell cell = row.createCell(column);
+                        cell.setCellValue(value.toLocalDateTime());
+                        cell.setCellStyle(dateStyle);
+                    }
+                }
+                case Types.BOOLEAN, Types.BIT -> {
+                    boolean value = rs.getBoolean(index);
+                    if (!rs.wasNull()) {
+                        row.createCell(column).setCellValue(value);
+                    }
+                }
+                default -> {
+                    String value = rs.getString(index);
+                    if (value != null) {
+                        if (value.length() > maxTextLength) {
+                            value = value.substring(0, maxTextLength);
+                        }
+                        row.createCell(column).setCellValue(value);
+                    }
+                }
+            }
+        }
+
+        private void newSheet() {
+            sheetCount++;
+            sheet = workbook.createSheet(sheetCount == 1 ? sheetName : sheetName + " " + sheetCount);
+            sheet.createFreezePane(0, 1);
+            Row header = sheet.createRow(0);
+            for (int i = 0; i < columns.size(); i++) {
+                Cell cell = header.createCell(i);
+                cell.setCellValue(columns.get(i));
+                cell.setCellStyle(headerStyle);
+            }
+            nextRow = 1;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.realestate.sellerfunnel.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ManagedExecutorTest {
+
+    private ManagedExecutor executor;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (executor != null) {
+            executor.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Metrics report queued, running, completed and rejected tasks")
+    void metricsTrackTasks() throws Exception {
+        executor = ManagedExecutor.create("test", false, 1, 1, 1, "Test-");
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        executor.execute(() -> {
+            started.countDown();
+            awaitQuietly(release);
+        });
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+        executor.execute(() -> { });
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+
+        Map<String, Object> metrics = executor.getMetrics();
+        assertEquals("pool", metrics.get("mode"));
+        assertEquals(1, metrics.get("activeCount"));
+        assertEquals(1, metrics.get("queueDepth"));
+        assertEquals(1L, metrics.get("rejectedCount"));
+
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 2000;
+        while ((Long) executor.getMetrics().get("completedCount") < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2L, executor.getMetrics().get("completedCount"));
+        assertEquals(0, executor.getMetrics().get("queueDepth"));
+    }
+
+    @Test
+    @DisplayName("Virtual mode runs tasks, falling back to a pool before Java 21")
+    void virtualModeRunsTasks() throws Exception {
+        executor = ManagedExecutor.create("test", true, 1, 2, 10, "Test-");
+        CountDownLatch ran = new CountDownLatch(1);
+
+        executor.execute(ran::countDown);
+
+        assertTrue(ran.await(2, TimeUnit.SECONDS));
+        assertEquals(Runtime.version().feature() >= 21, executor.isVirtual());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -3,11 +3,15 @@ package com.realestate.sellerfunnel.controller;
 import com.realestate.sellerfunnel.model.Booking;
 import com.realestate.sellerfunnel.model.Guest;
 import com.realestate.sellerfunnel.model.Room;
+import com.realestate.sellerfunnel.repository.BookingDashboardRow;
 import com.realestate.sellerfunnel.repository.BookingRepository;
 import com.realestate.sellerfunnel.repository.GuestRepository;
 import com.realestate.sellerfunnel.repository.PaymentRepository;
 import com.realestate.sellerfunnel.repository.RoomRepository;
+import com.realestate.sellerfunnel.service.BookingLedgerService;
 import com.realestate.sellerfunnel.service.PaymentService;
+import com.realestate.sellerfunnel.service.PropertyDashboardService;
+import com.realestate.sellerfunnel.service.TransactionService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -41,6 +45,9 @@ class DashboardAndBookingControllerTest {
     @MockBean private BookingRepository bookingRepository;
     @MockBean private PaymentRepository paymentRepository;
     @MockBean private PaymentService paymentService;
+    @MockBean private TransactionService transactionService;
+    @MockBean private BookingLedgerService bookingLedgerService;
+    @MockBean private PropertyDashboardService propertyDashboardService;
 
     private Booking sampleBooking(long id) {
         Booking b = new Booking();
@@ -52,6 +59,21 @@ class DashboardAndBookingControllerTest {
         return b;
     }
 
+    private PropertyDashboardService.BookingSummary sampleSummary(long id) {
+        BookingDashboardRow row = mock(BookingDashboardRow.class);
+        when(row.getId()).thenReturn(id);
+        when(row.getRoomId()).thenReturn(id);
+        when(row.getRoomNumber()).thenReturn("10" + id);
+        when(row.getGuestFirstName()).thenReturn("Jane");
+        when(row.getGuestLastName()).thenReturn("Doe");
+        when(row.getCheckInDate()).thenReturn(LocalDateTime.now().minusDays(1));
+        when(row.getBookingStatus()).thenReturn("ACTIVE");
+        when(row.getPaymentStatus()).thenReturn("PENDING");
+        when(row.getCurrentBalance()).thenReturn(new BigDecimal("100"));
+        when(row.getCreatedAt()).thenReturn(LocalDateTime.now());
+        return new PropertyDashboardService.BookingSummary(row);
+    }
+
     @Test
     @DisplayName("Dashboard redirects when unauthenticated")
     void dashboardRedirectsWhenNotAuthed() throws Exception {
@@ -63,17 +85,19 @@ class DashboardAndBookingControllerTest {
     @Test
     @DisplayName("Dashboard loads with statistics")
     void dashboardLoadsWithStats() throws Exception {
-        when(roomRepository.count()).thenReturn(5L);
-        when(roomRepository.countVacantRooms()).thenReturn(3L);
-        when(roomRepository.countOccupiedRooms()).thenReturn(2L);
-        when(bookingRepository.countActiveBookings()).thenReturn(4L);
-        when(bookingRepository.countPendingPayments()).thenReturn(1L);
-        when(bookingRepository.countOverduePayments()).thenReturn(1L);
-        when(bookingRepository.getTotalOutstandingBalance()).thenReturn(new BigDecimal("250.00"));
-        List<Booking> recent = List.of(sampleBooking(1L), sampleBooking(2L));
-        when(bookingRepository.findByIsActiveTrueOrderByCreatedAtDesc()).thenReturn(recent);
-        when(bookingRepository.findOverdueBookings()).thenReturn(Collections.emptyList());
-        when(bookingRepository.findBookingsWithOutstandingBalance()).thenReturn(Collections.emptyList());
+        PropertyDashboardService.Snapshot snapshot = mock(PropertyDashboardService.Snapshot.class);
+        when(snapshot.getTotalRooms()).thenReturn(5L);
+        when(snapshot.getVacantRooms()).thenReturn(3L);
+        when(snapshot.getOccupiedRooms()).thenReturn(2L);
+        when(snapshot.getActiveBookings()).thenReturn(4L);
+        when(snapshot.getPendingPayments()).thenReturn(1L);
+        when(snapshot.getOverduePayments()).thenReturn(1L);
+        when(snapshot.getTotalOutstanding()).thenReturn(new BigDecimal("250.00"));
+        List<PropertyDashboardService.BookingSummary> recent = List.of(sampleSummary(1L), sampleSummary(2L));
+        when(snapshot.getRecentBookings()).thenReturn(recent);
+        when(snapshot.getOverdueBookings()).thenReturn(Collections.emptyList());
+        when(snapshot.getOutstandingBookings()).thenReturn(Collections.emptyList());
+        when(propertyDashboardService.snapshot()).thenReturn(snapshot);
 
         mockMvc.perform(get("/property/dashboard").sessionAttr("propertyAuthenticated", true))
             .andExpect(status().isOk())
@@ -84,7 +108,8 @@ class DashboardAndBookingControllerTest {
             .andExpect(model().attribute("occupiedRooms", 2L))
             .andExpect(model().attribute("activeBookings", 4L))
             .andExpect(model().attribute("pendingPayments", 1L))
-            .andExpect(model().attribute("overduePayments", 1L));
+            .andExpect(model().attribute("overduePayments", 1L))
+            .andExpect(model().attribute("recentBookings", recent));
     }
 
     @Test
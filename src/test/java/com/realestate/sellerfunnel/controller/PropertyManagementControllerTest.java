@@ -5,7 +5,10 @@ import com.realestate.sellerfunnel.repository.BookingRepository;
 import com.realestate.sellerfunnel.repository.GuestRepository;
 import com.realestate.sellerfunnel.repository.PaymentRepository;
 import com.realestate.sellerfunnel.repository.RoomRepository;
+import com.realestate.sellerfunnel.service.BookingLedgerService;
 import com.realestate.sellerfunnel.service.PaymentService;
+import com.realestate.sellerfunnel.service.PropertyDashboardService;
+import com.realestate.sellerfunnel.service.TransactionService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,6 +41,9 @@ class PropertyManagementControllerTest {
     @MockBean private BookingRepository bookingRepository;
     @MockBean private PaymentRepository paymentRepository;
     @MockBean private PaymentService paymentService;
+    @MockBean private TransactionService transactionService;
+    @MockBean private BookingLedgerService bookingLedgerService;
+    @MockBean private PropertyDashboardService propertyDashboardService;
 
     @Test
     @DisplayName("Unauthenticated access to /property/rooms redirects to login")
@@ -0,0 +1,116 @@
+package com.realestate.sellerfunnel.repository;
+
+import com.realestate.sellerfunnel.model.Business;
+import com.realestate.sellerfunnel.model.Client;
+import com.realestate.sellerfunnel.service.RecipientCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class ClientRepositoryTest {
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private BusinessRepository businessRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        // clients.business_id defaults to this business and is a foreign key
+        businessRepository.save(new Business("real-estate", "Real Estate Connect", "real-estate", "Test business"));
+    }
+
+    private Client client(String email, String type, String leadSource, boolean active, boolean optedIn) {
+        Client c = new Client();
+        c.setFirstName("First");
+        c.setLastName("Last");
+        c.setEmail(email);
+        c.setClientType(type);
+        c.setLeadSource(leadSource);
+        c.setIsActive(active);
+        c.setEmailOptedIn(optedIn);
+        return clientRepository.save(c);
+    }
+
+    @Test
+    @DisplayName("Email audience filters by type, lead source, activity and opt-in in the query")
+    void emailAudienceFilters() {
+        client("a@x.com", "SELLER", "WEBSITE", true, true);
+        client("b@x.com", "SELLER", "REFERRAL", true, true);
+        client("c@x.com", "BUYER", "WEBSITE", true, true);
+        client("d@x.com", "SELLER", "WEBSITE", false, true);  // inactive
+        client("e@x.com", "SELLER", "WEBSITE", true, false);  // opted out
+
+        assertThat(clientRepository.count(ClientSpecifications.emailAudience("ALL", null, null))).isEqualTo(3);
+        assertThat(clientRepository.count(ClientSpecifications.emailAudience("SELLER", "", null))).isEqualTo(2);
+        assertThat(clientRepository.findAll(ClientSpecifications.emailAudience(null, "SELLER", "WEBSITE")))
+            .extracting(Client::getEmail).containsExactly("a@x.com");
+    }
+
+    @Test
+    @DisplayName("Recipient cursor walks every match in id order across pages")
+    void cursorReadsAllPages() {
+        for (int i = 0; i < 7; i++) {
+            client("p" + i + "@x.com", "BUYER", "WEBSITE", true, true);
+        }
+        client("skip@x.com", "BUYER", "WEBSITE", true, false);
+
+        List<String> emails = new ArrayList<>();
+        new RecipientCursor(clientRepository, ClientSpecifications.emailAudience("BUYER", null, null), 3)
+            .forEach(c -> emails.add(c.getEmail()));
+
+        assertThat(emails).containsExactly(
+            "p0@x.com", "p1@x.com", "p2@x.com", "p3@x.com", "p4@x.com", "p5@x.com", "p6@x.com");
+    }
+
+    @Test
+    @DisplayName("Bulk contact update increments counters only for the given ids")
+    void incrementsContactCountsInBulk() {
+        Client a = client("a@x.com", "SELLER", "WEBSITE", true, true);
+        Client b = client("b@x.com", "SELLER", "WEBSITE", true, true);
+        Client c = client("c@x.com", "SELLER", "WEBSITE", true, true);
+        LocalDateTime now = LocalDateTime.now();
+
+        int updated = clientRepository.incrementEmailContacts(List.of(a.getId(), b.getId()), now);
+        clientRepository.incrementEmailContacts(List.of(a.getId()), now);
+        clientRepository.incrementSmsContacts(List.of(c.getId()), now);
+        entityManager.clear();
+
+        assertThat(updated).isEqualTo(2);
+        Client reloadedA = clientRepository.findById(a.getId()).orElseThrow();
+        assertThat(reloadedA.getEmailContactCount()).isEqualTo(2);
+        assertThat(reloadedA.getTotalContactCount()).isEqualTo(2);
+        assertThat(reloadedA.getLastContactDate()).isNotNull();
+        assertThat(clientRepository.findById(b.getId()).orElseThrow().getEmailContactCount()).isEqualTo(1);
+        Client reloadedC = clientRepository.findById(c.getId()).orElseThrow();
+        assertThat(reloadedC.getEmailContactCount()).isZero();
+        assertThat(reloadedC.getSmsContactCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Existing emails are matched case-insensitively in one query")
+    void findsExistingEmailsIgnoringCase() {
+        client("Jane@Example.com", "SELLER", "WEBSITE", true, true);
+        client("jane@example.com", "SELLER", "WEBSITE", true, true);  // duplicate already on file
+        client("bob@example.com", "BUYER", "WEBSITE", true, true);
+
+        assertThat(clientRepository.findExistingEmails(List.of("jane@example.com", "new@example.com")))
+            .containsExactly("jane@example.com");
+    }
+}
@@ -0,0 +1,82 @@
+package com.realestate.sellerfunnel.repository;
+
+import com.realestate.sellerfunnel.model.EmailCampaign;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class EmailCampaignRepositoryTest {
+
+    @Autowired
+    private EmailCampaignRepository emailCampaignRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private EmailCampaign campaign(String name, String status, LocalDateTime scheduledDate) {
+        EmailCampaign c = new EmailCampaign(name, "Subject", "Body");
+        c.setStatus(status);
+        c.setScheduledDate(scheduledDate);
+        return emailCampaignRepository.save(c);
+    }
+
+    @Test
+    @DisplayName("Only due scheduled campaigns are returned, oldest first and up to the limit")
+    void findDueScheduledCampaignIds() {
+        LocalDateTime now = LocalDateTime.now();
+        EmailCampaign older = campaign("older", "SCHEDULED", now.minusHours(2));
+        EmailCampaign newer = campaign("newer", "SCHEDULED", now.minusMinutes(5));
+        campaign("future", "SCHEDULED", now.plusHours(1));
+        campaign("sent", "SENT", now.minusHours(3));
+
+        assertThat(emailCampaignRepository.findDueScheduledCampaignIds(now, PageRequest.of(0, 10)))
+            .containsExactly(older.getId(), newer.getId());
+        assertThat(emailCampaignRepository.findDueScheduledCampaignIds(now, PageRequest.of(0, 1)))
+            .containsExactly(older.getId());
+    }
+
+    @Test
+    @DisplayName("A scheduled campaign can be claimed only once")
+    void claimScheduledCampaignOnce() {
+        EmailCampaign due = campaign("due", "SCHEDULED", LocalDateTime.now().minusMinutes(1));
+
+        assertThat(emailCampaignRepository.claimScheduledCampaign(due.getId(), LocalDateTime.now())).isEqualTo(1);
+        assertThat(emailCampaignRepository.claimScheduledCampaign(due.getId(), LocalDateTime.now())).isZero();
+
+        entityManager.clear();
+        assertThat(emailCampaignRepository.findById(due.getId()).orElseThrow().getStatus()).isEqualTo("SENDING");
+    }
+
+    @Test
+    @DisplayName("Only claims that were not kept alive are failed")
+    void failStaleSendingCampaigns() {
+        LocalDateTime now = LocalDateTime.now();
+        EmailCampaign abandoned = campaign("abandoned", "SCHEDULED", now.minusHours(1));
+        EmailCampaign alive = campaign("alive", "SCHEDULED", now.minusHours(1));
+        abandoned.setIsScheduled(true);
+        alive.setIsScheduled(true);
+        entityManager.flush();
+        emailCampaignRepository.claimScheduledCampaign(abandoned.getId(), now.minusMinutes(30));
+        emailCampaignRepository.claimScheduledCampaign(alive.getId(), now.minusMinutes(30));
+        emailCampaignRepository.touchSendingCampaigns(List.of(alive.getId()), now);
+
+        assertThat(emailCampaignRepository.failStaleSendingCampaigns(now.minusMinutes(10), now)).isEqualTo(1);
+
+        entityManager.clear();
+        EmailCampaign failed = emailCampaignRepository.findById(abandoned.getId()).orElseThrow();
+        assertThat(failed.getStatus()).isEqualTo("FAILED");
+        assertThat(failed.getNotes()).contains("Sending was interrupted");
+        assertThat(emailCampaignRepository.findById(alive.getId()).orElseThrow().getStatus()).isEqualTo("SENDING");
+    }
+}
@@ -0,0 +1,139 @@
+package com.realestate.sellerfunnel.repository;
+
+import com.realestate.sellerfunnel.model.Booking;
+import com.realestate.sellerfunnel.model.Guest;
+import com.realestate.sellerfunnel.model.Payment;
+import com.realestate.sellerfunnel.model.Room;
+import com.realestate.sellerfunnel.model.Transaction;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Each list view loads its rows and everything its template shows of them in
+ * one statement. Rows span several rooms and guests, so a lazy association
+ * touched per row would show up as extra statements.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class ListViewFetchTest {
+
+    @Autowired private BookingRepository bookingRepository;
+    @Autowired private PaymentRepository paymentRepository;
+    @Autowired private TransactionRepository transactionRepository;
+    @Autowired private RoomRepository roomRepository;
+    @Autowired private GuestRepository guestRepository;
+    @Autowired private TestEntityManager entityManager;
+
+    private Statistics statistics;
+    private Room firstRoom;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+            .unwrap(SessionFactory.class).getStatistics();
+        for (int i = 1; i <= 3; i++) {
+            Room room = roomRepository.save(new Room("20" + i, "Suite " + i, "Single", new BigDecimal("80")));
+            Guest guest = guestRepository.save(new Guest("Guest", "Number" + i, "guest" + i + "@test.com", "555-010" + i));
+            Booking booking = new Booking(room, guest, LocalDateTime.now().minusDays(i), new BigDecimal("80"), "WEEKLY");
+            booking.setTotalCharges(new BigDecimal("80"));
+            bookingRepository.save(booking);
+            Payment payment = new Payment(booking, new BigDecimal("40"), "CASH");
+            payment.setDescription("Rent week " + i);
+            paymentRepository.save(payment);
+            transactionRepository.save(new Transaction(room, "Rent", new BigDecimal("80"), "Guest " + i));
+            if (firstRoom == null) {
+                firstRoom = room;
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Booking lists load each booking's room and guest with it")
+    void bookingLists() {
+        assertOneStatement(() -> bookingRepository.findByIsActiveTrueOrderByCreatedAtDesc(), this::showBookings);
+        assertOneStatement(() -> bookingRepository.findByBookingStatusAndIsActiveTrue("ACTIVE"), this::showBookings);
+        assertOneStatement(() -> bookingRepository.findBySearchTerm("Number"), this::showBookings);
+    }
+
+    @Test
+    @DisplayName("Payment lists load each payment's booking, room and guest with it")
+    void paymentLists() {
+        assertOneStatement(() -> paymentRepository.findTop10ByIsActiveTrueOrderByCreatedAtDesc(), this::showPayments);
+        assertOneStatement(() -> paymentRepository.searchByDescription("Rent"), this::showPayments);
+        assertOneStatement(() -> paymentRepository.findByPaymentMethodAndIsActiveTrue("CASH"), this::showPayments);
+    }
+
+    @Test
+    @DisplayName("Ledger lists load each line's room with it")
+    void ledgerLists() {
+        assertOneStatement(() -> transactionRepository.findTop50ByOrderByCreatedAtDesc(), this::showTransactions);
+        assertOneStatement(() -> transactionRepository.findByDateRange(
+            LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1)), this::showTransactions);
+    }
+
+    @Test
+    @DisplayName("The room page loads the room's ledger with it and its bookings with their guests")
+    void roomPage() {
+        Long roomId = firstRoom.getId();
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        Room room = roomRepository.findWithTransactionsById(roomId).orElseThrow();
+        assertThat(room.getTransactions()).extracting(Transaction::getDescription).containsExactly("Rent");
+        showBookings(bookingRepository.findByRoomAndIsActiveTrueOrderByCreatedAtDesc(room));
+        bookingRepository.findActiveBookingByRoom(room).map(List::of).ifPresent(this::showBookings);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("The guest page loads the guest's bookings with their rooms")
+    void guestPage() {
+        Guest guest = bookingRepository.findByIsActiveTrueOrderByCreatedAtDesc().get(0).getGuest();
+        assertOneStatement(() -> bookingRepository.findByGuestAndIsActiveTrueOrderByCreatedAtDesc(guest),
+                           this::showBookings);
+        assertOneStatement(() -> bookingRepository.findActiveBookingsByGuest(guest), this::showBookings);
+    }
+
+    private <T> void assertOneStatement(Supplier<List<T>> query, Consumer<List<T>> render) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<T> rows = query.get();
+        render.accept(rows);
+
+        assertThat(rows).isNotEmpty();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    /** Touch what the booking templates show. */
+    private void showBookings(List<Booking> bookings) {
+        bookings.forEach(b -> assertThat(b.getRoom().getRoomNumber() + b.getGuest().getFullName()).isNotBlank());
+    }
+
+    private void showPayments(List<Payment> payments) {
+        payments.forEach(p -> assertThat(p.getBooking().getRoom().getRoomNumber()
+            + p.getBooking().getGuest().getFullName()).isNotBlank());
+    }
+
+    private void showTransactions(List<Transaction> transactions) {
+        transactions.forEach(t -> assertThat(t.getRoom().getDisplayName()).isNotBlank());
+    }
+}
@@ -0,0 +1,92 @@
+package com.realestate.sellerfunnel.repository;
+
+import com.realestate.sellerfunnel.model.OutboxMessage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class OutboxMessageRepositoryTest {
+
+    private static final String CAMPAIGN = "00000000-0000-0000-0000-000000000001";
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private OutboxMessage message(long clientId, String status, LocalDateTime lockedUntil) {
+        OutboxMessage m = new OutboxMessage(CAMPAIGN, clientId, "client" + clientId + "@x.com");
+        m.setStatus(status);
+        m.setLockedUntil(lockedUntil);
+        return outboxMessageRepository.save(m);
+    }
+
+    @Test
+    @DisplayName("Claimable rows are pending ones and sends whose lease has expired, in id order")
+    void lockClaimableSkipsLiveLeasesAndFinishedRows() {
+        LocalDateTime now = LocalDateTime.now();
+        OutboxMessage pending = message(1, "PENDING", null);
+        OutboxMessage expired = message(2, "SENDING", now.minusMinutes(1));
+        message(3, "SENDING", now.plusMinutes(5));
+        message(4, "SENT", null);
+        message(5, "FAILED", null);
+        OutboxMessage other = new OutboxMessage("another-campaign", 6L, "client6@x.com");
+        other.setStatus("PENDING");
+        outboxMessageRepository.save(other);
+
+        List<OutboxMessage> claimable = outboxMessageRepository.lockClaimable(CAMPAIGN, now, PageRequest.of(0, 10));
+
+        assertThat(claimable).extracting(OutboxMessage::getId).containsExactly(pending.getId(), expired.getId());
+        assertThat(outboxMessageRepository.lockClaimable(CAMPAIGN, now, PageRequest.of(0, 1))).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("A row returned for retry is not claimable until its next attempt is due")
+    void retriedRowWaitsForNextAttempt() {
+        LocalDateTime now = LocalDateTime.now();
+        OutboxMessage retried = message(1, "SENDING", now.plusMinutes(5));
+
+        outboxMessageRepository.markRetry(retried.getId(), "Connection refused", now.plusMinutes(2));
+        entityManager.clear();
+
+        assertThat(outboxMessageRepository.findById(retried.getId()).orElseThrow().getStatus()).isEqualTo("PENDING");
+        assertThat(outboxMessageRepository.lockClaimable(CAMPAIGN, now, PageRequest.of(0, 10))).isEmpty();
+        assertThat(outboxMessageRepository.lockClaimable(CAMPAIGN, now.plusMinutes(3), PageRequest.of(0, 10)))
+            .extracting(OutboxMessage::getId).containsExactly(retried.getId());
+    }
+
+    @Test
+    @DisplayName("Marking rows sent and counting by status drive campaign progress")
+    void markSentAndCountOutstanding() {
+        OutboxMessage first = message(1, "SENDING", LocalDateTime.now().plusMinutes(5));
+        OutboxMessage second = message(2, "SENDING", LocalDateTime.now().plusMinutes(5));
+        message(3, "PENDING", null);
+
+        assertThat(outboxMessageRepository.findMaxClientId(CAMPAIGN)).isEqualTo(3L);
+        assertThat(outboxMessageRepository.countOutstanding(CAMPAIGN)).isEqualTo(3);
+
+        outboxMessageRepository.markSent(List.of(first.getId()), LocalDateTime.now());
+        outboxMessageRepository.markFinished(second.getId(), "FAILED", "Mailbox unavailable");
+        entityManager.clear();
+
+        assertThat(outboxMessageRepository.countOutstanding(CAMPAIGN)).isEqualTo(1);
+        assertThat(outboxMessageRepository.findById(first.getId()).orElseThrow().getSentAt()).isNotNull();
+        assertThat(outboxMessageRepository.findTop10ByCampaignIdAndLastErrorIsNotNullOrderByIdDesc(CAMPAIGN))
+            .extracting(OutboxMessage::getLastError).containsExactly("Mailbox unavailable");
+        assertThat(outboxMessageRepository.countByStatus(CAMPAIGN))
+            .extracting(row -> row[0] + "=" + row[1])
+            .containsExactlyInAnyOrder("SENT=1", "FAILED=1", "PENDING=1");
+    }
+}
@@ -0,0 +1,108 @@
+package com.realestate.sellerfunnel.service;
+
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class BulkEmailSenderTest {
+
+    private final JavaMailSender mailSender = mock(JavaMailSender.class);
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final BulkEmailSender bulkEmailSender = new BulkEmailSender();
+
+    @BeforeEach
+    void setUp() {
+        SendRateLimiter sendRateLimiter = new SendRateLimiter();
+        ReflectionTestUtils.setField(sendRateLimiter, "environment", new MockEnvironment());
+        ReflectionTestUtils.setField(bulkEmailSender, "mailSender", mailSender);
+        ReflectionTestUtils.setField(bulkEmailSender, "sendRateLimiter", sendRateLimiter);
+        ReflectionTestUtils.setField(bulkEmailSender, "mailExecutor", executor);
+        ReflectionTestUtils.setField(bulkEmailSender, "workers", 2);
+        ReflectionTestUtils.setField(bulkEmailSender, "maxMessagesPerConnection", 100);
+        ReflectionTestUtils.setField(bulkEmailSender, "queueCapacity", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static List<Integer> items(int count) {
+        return IntStream.range(0, count).boxed().toList();
+    }
+
+    @Test
+    @DisplayName("A listener that throws does not stop the workers or turn a sent message into a failure")
+    void listenerErrorsDoNotStopWorkers() {
+        AtomicInteger sent = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        bulkEmailSender.send(items(20), item -> new MimeMessage((Session) null),
+                new BulkEmailSender.DeliveryListener<Integer>() {
+            @Override
+            public void onSent(Integer item, MimeMessage message) {
+                sent.incrementAndGet();
+                throw new IllegalStateException("log table unavailable");
+            }
+
+            @Override
+            public void onFailed(Integer item, MimeMessage message, Exception error) {
+                failed.incrementAndGet();
+            }
+        });
+
+        verify(mailSender, times(20)).send(any(MimeMessage.class));
+        assertThat(sent).hasValue(20);
+        assertThat(failed).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("The caller stops waiting on a full queue once every worker has died")
+    void producerGivesUpWhenWorkersStop() {
+        assertThatThrownBy(() -> bulkEmailSender.send(items(20), item -> {
+            throw new StackOverflowError();
+        }, new BulkEmailSender.DeliveryListener<Integer>() {
+            @Override
+            public void onSent(Integer item, MimeMessage message) {
+            }
+
+            @Override
+            public void onFailed(Integer item, MimeMessage message, Exception error) {
+            }
+        })).isInstanceOf(CompletionException.class).hasCauseInstanceOf(StackOverflowError.class);
+    }
+
+    @Test
+    @DisplayName("A connection opened by the caller sends each message through the mail sender")
+    void callerConnectionSends() throws Exception {
+        try (BulkEmailSender.Connection connection = bulkEmailSender.openConnection()) {
+            for (int i = 0; i < 3; i++) {
+                connection.send(new MimeMessage((Session) null));
+            }
+        }
+
+        verify(mailSender, times(3)).send(any(MimeMessage.class));
+    }
+}
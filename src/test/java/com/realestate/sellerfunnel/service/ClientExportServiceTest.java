@@ -0,0 +1,87 @@
+package com.realestate.sellerfunnel.service;
+
+import com.realestate.sellerfunnel.model.Business;
+import com.realestate.sellerfunnel.model.Client;
+import com.realestate.sellerfunnel.repository.BusinessRepository;
+import com.realestate.sellerfunnel.repository.ClientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(ClientExportService.class)
+class ClientExportServiceTest {
+
+    @Autowired
+    private ClientExportService clientExportService;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private BusinessRepository businessRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        businessRepository.save(new Business("real-estate", "Real Estate Connect", "real-estate", "Test business"));
+    }
+
+    @Test
+    @DisplayName("Active clients are written newest first with every field quoted")
+    void writesActiveClients() throws IOException {
+        Client older = new Client("Jane", "Doe", "jane@example.com");
+        older.setNotes("Wants a \"big\" lanai, ocean view");
+        older.setEmailContactCount(3);
+        older.setLastContactDate(LocalDateTime.of(2024, 1, 15, 14, 30));
+        clientRepository.save(older);
+        Client newer = new Client("Kim", "Lee", "kim@example.com");
+        clientRepository.save(newer);
+        Client inactive = new Client("Bob", "Gone", "bob@example.com");
+        inactive.setIsActive(false);
+        clientRepository.save(inactive);
+        entityManager.flush();
+        // @PrePersist stamps created_at, so set the order explicitly
+        entityManager.getEntityManager()
+            .createQuery("UPDATE Client c SET c.createdAt = :at WHERE c.email = 'jane@example.com'")
+            .setParameter("at", LocalDateTime.of(2024, 1, 1, 9, 0))
+            .executeUpdate();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        clientExportService.writeActiveClientsCsv(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0] + "\n").isEqualTo(ClientExportService.CSV_HEADER);
+        assertThat(lines[1]).startsWith("\"Kim\",\"Lee\",\"kim@example.com\",\"\",");
+        assertThat(lines[2]).isEqualTo("\"Jane\",\"Doe\",\"jane@example.com\",\"\",\"\",\"\",\"\",\"\",\"\",\"\",\"\","
+            + "\"SUSPECT\",\"\",\"3\",\"0\",\"0\",\"01/15/2024 14:30\",\"Wants a \"\"big\"\" lanai, ocean view\","
+            + "\"01/01/2024 09:00\"");
+    }
+
+    @Test
+    @DisplayName("Quotes inside a field are doubled")
+    void doublesQuotes() throws IOException {
+        StringWriter writer = new StringWriter();
+        ClientExportService.writeField(writer, "\"a\" \"\"b");
+        ClientExportService.writeField(writer, null);
+
+        assertThat(writer.toString()).isEqualTo("\"\"\"a\"\" \"\"\"\"b\"\"\"");
+    }
+}
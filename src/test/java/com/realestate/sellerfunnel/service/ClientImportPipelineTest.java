@@ -0,0 +1,176 @@
+package com.realestate.sellerfunnel.service;
+
+import com.realestate.sellerfunnel.model.Client;
+import com.realestate.sellerfunnel.repository.ClientRepository;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ClientImportPipelineTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ClientRepository clientRepository = mock(ClientRepository.class);
+    private final List<Client> saved = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Every sheet of every file is validated, deduplicated and saved")
+    void importsAllSheetsOfAllFiles() throws Exception {
+        File first = workbook("first.xlsx",
+            new String[][] {
+                {"jane@example.com", "(808) 555-0100"},
+                null,  // empty row
+                {"not-an-email", ""},
+                {"existing@example.com", ""}
+            },
+            new String[][] {
+                {"bob@example.com", "808-555-0101"},
+                {"JANE@example.com", ""}  // duplicate of the first sheet
+            });
+        File second = workbook("second.xlsx",
+            new String[][] {
+                {"amy@example.com", "555"},  // invalid phone
+                {"kim@example.com", ""}
+            });
+        when(clientRepository.findExistingEmails(anyCollection())).thenAnswer(call ->
+            ((Collection<?>) call.getArgument(0)).contains("existing@example.com")
+                ? List.of("existing@example.com") : List.of());
+        doAnswer(call -> {
+            call.<Iterable<Client>>getArgument(0).forEach(saved::add);
+            return null;
+        }).when(clientRepository).saveAll(any());
+
+        BatchImportService.ImportProgress progress = new BatchImportService.ImportProgress(0);
+        pipeline(progress).run(List.of(new ClientImportPipeline.Source("first.xlsx", first),
+                                       new ClientImportPipeline.Source("second.xlsx", second)));
+
+        assertThat(saved).extracting(Client::getEmail)
+            .containsExactlyInAnyOrder("jane@example.com", "bob@example.com", "kim@example.com");
+        assertThat(saved).filteredOn(c -> c.getEmail().equals("jane@example.com"))
+            .extracting(Client::getPhoneNumber).containsExactly("+18085550100");
+        assertThat(progress.getTotalRecords()).isEqualTo(8);
+        assertThat(progress.getProcessedRecords()).isEqualTo(8);
+        assertThat(progress.getSuccessCount()).isEqualTo(3);
+        assertThat(progress.getErrorCount()).isEqualTo(2);
+        assertThat(progress.getSkippedCount()).isEqualTo(3);
+        assertThat(progress.getRecentErrors()).anyMatch(e -> e.startsWith("first.xlsx / Clients 1 row 4: Invalid email"));
+        assertThat(progress.getStages()).extracting(BatchImportService.ImportProgress.StageProgress::getName)
+            .contains(ClientImportPipeline.PARSE, ClientImportPipeline.VALIDATE,
+                      ClientImportPipeline.DEDUP, ClientImportPipeline.PERSIST);
+    }
+
+    @Test
+    @DisplayName("A database failure stops every stage and is rethrown")
+    void failureStopsPipeline() throws Exception {
+        String[][] rows = new String[50][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new String[] {"user" + i + "@example.com", ""};
+        }
+        File file = workbook("clients.xlsx", rows);
+        when(clientRepository.findExistingEmails(anyCollection())).thenReturn(List.of());
+        when(clientRepository.saveAll(any())).thenThrow(new IllegalStateException("database down"));
+
+        BatchImportService.ImportProgress progress = new BatchImportService.ImportProgress(0);
+        ClientImportPipeline pipeline = pipeline(progress);
+
+        assertThatThrownBy(() -> pipeline.run(List.of(new ClientImportPipeline.Source("clients.xlsx", file))))
+            .hasMessage("database down");
+        assertThat(progress.getSuccessCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("CSV and JSON lines files go through the same validation and dedup")
+    void importsCsvAndJsonLines() throws Exception {
+        Path csv = tempDir.resolve("crm.csv");
+        Files.writeString(csv, "First Name,Last Name,Email,Phone\n"
+            + "Jane,Doe,jane@example.com,(808) 555-0100\n"
+            + "Kim,Lee,bad-email,\n");
+        Path ndjson = tempDir.resolve("crm.ndjson");
+        Files.writeString(ndjson, "{\"firstName\":\"Bob\",\"lastName\":\"Ray\",\"email\":\"bob@example.com\"}\n"
+            + "{\"first_name\":\"Jane\",\"last_name\":\"Doe\",\"email\":\"JANE@example.com\"}\n"
+            + "{broken\n");
+        when(clientRepository.findExistingEmails(anyCollection())).thenReturn(List.of());
+        doAnswer(call -> {
+            call.<Iterable<Client>>getArgument(0).forEach(saved::add);
+            return null;
+        }).when(clientRepository).saveAll(any());
+
+        BatchImportService.ImportProgress progress = new BatchImportService.ImportProgress(0);
+        pipeline(progress).run(List.of(new ClientImportPipeline.Source("crm.csv", csv.toFile()),
+                                       new ClientImportPipeline.Source("crm.ndjson", ndjson.toFile())));
+
+        assertThat(saved).extracting(Client::getEmail)
+            .containsExactlyInAnyOrder("jane@example.com", "bob@example.com");
+        assertThat(progress.getTotalRecords()).isEqualTo(5);
+        assertThat(progress.getProcessedRecords()).isEqualTo(5);
+        assertThat(progress.getErrorCount()).isEqualTo(2);
+        assertThat(progress.getSkippedCount()).isEqualTo(1);
+    }
+
+    private ClientImportPipeline pipeline(BatchImportService.ImportProgress progress) {
+        // Small queues and batches so the stages actually wait on each other
+        return new ClientImportPipeline(new ClientImportService(), clientRepository, null, executor, progress, 3, 2, 2);
+    }
+
+    /**
+     * One sheet per array of rows, each row an email and a phone; null rows are left empty.
+     */
+    private File workbook(String name, String[][]... sheets) throws IOException {
+        File file = tempDir.resolve(name).toFile();
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            for (int s = 0; s < sheets.length; s++) {
+                Sheet sheet = workbook.createSheet("Clients " + (s + 1));
+                Row header = sheet.createRow(0);
+                header.createCell(0).setCellValue("First Name");
+                header.createCell(1).setCellValue("Last Name");
+                header.createCell(2).setCellValue("Email");
+                header.createCell(3).setCellValue("Phone");
+                for (int r = 0; r < sheets[s].length; r++) {
+                    if (sheets[s][r] == null) {
+                        continue;
+                    }
+                    Row row = sheet.createRow(r + 1);
+                    row.createCell(0).setCellValue("First");
+                    row.createCell(1).setCellValue("Last");
+                    row.createCell(2).setCellValue(sheets[s][r][0]);
+                    row.createCell(3).setCellValue(sheets[s][r][1]);
+                }
+            }
+            try (OutputStream out = new FileOutputStream(file)) {
+                workbook.write(out);
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,159 @@
+package com.realestate.sellerfunnel.service;
+
+import com.realestate.sellerfunnel.model.Business;
+import com.realestate.sellerfunnel.model.Client;
+import com.realestate.sellerfunnel.repository.BusinessRepository;
+import com.realestate.sellerfunnel.repository.ClientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(ClientMergeService.class)
+class ClientMergeServiceTest {
+
+    @Autowired
+    private ClientMergeService clientMergeService;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private BusinessRepository businessRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        businessRepository.save(new Business("real-estate", "Real Estate Connect", "real-estate", "Test business"));
+        // The merge writes through JDBC, so the business row has to be in the database
+        entityManager.flush();
+    }
+
+    private Client client(String email, String status, String leadSource, Integer emailContacts) {
+        Client c = new Client("First", "Last", email);
+        c.setClientStatus(status);
+        c.setLeadSource(leadSource);
+        c.setEmailContactCount(emailContacts);
+        return c;
+    }
+
+    @Test
+    @DisplayName("Existing clients get the changed columns, new ones are inserted, unchanged ones are left alone")
+    void mergesByEmailIgnoringCase() {
+        Client changed = clientRepository.save(client("jane@example.com", "SUSPECT", "WEBSITE", 1));
+        changed.setPhoneNumber("+18085550100");
+        clientRepository.save(changed);
+        clientRepository.save(client("kim@example.com", "LEAD", "REFERRAL", 2));
+        entityManager.flush();
+
+        // No phone in the import: the stored one is kept
+        Client janeUpdate = client("JANE@example.com", "PROSPECT", null, 4);
+        Client kimSame = client("kim@example.com", "LEAD", "REFERRAL", 2);
+        Client bobNew = client("bob@example.com", null, "COLD_CALL", null);
+        bobNew.setNotes("Says \"aloha\", call after 5");
+
+        ClientMergeService.MergeResult result = clientMergeService.merge(List.of(janeUpdate, kimSame, bobNew));
+
+        assertThat(result.getInserted()).isEqualTo(1);
+        assertThat(result.getUpdated()).isEqualTo(1);
+        assertThat(result.getUnchanged()).isEqualTo(1);
+
+        entityManager.clear();
+        Client jane = clientRepository.findByEmail("jane@example.com").orElseThrow();
+        assertThat(jane.getClientStatus()).isEqualTo("PROSPECT");
+        assertThat(jane.getLeadSource()).isEqualTo("WEBSITE");
+        assertThat(jane.getEmailContactCount()).isEqualTo(4);
+        assertThat(jane.getPhoneNumber()).isEqualTo("+18085550100");
+
+        Client bob = clientRepository.findByEmail("bob@example.com").orElseThrow();
+        assertThat(bob.getClientStatus()).isEqualTo("SUSPECT");
+        assertThat(bob.getIsActive()).isTrue();
+        assertThat(bob.getEmailContactCount()).isZero();
+        assertThat(bob.getNotes()).isEqualTo("Says \"aloha\", call after 5");
+        assertThat(bob.getCreatedAt()).isNotNull();
+        assertThat(bob.getSmsOptedIn()).isTrue();
+        assertThat(bob.getTotalContactCount()).isZero();
+        assertThat(clientRepository.count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("A new client keeps its imported date added, which a re-import does not change")
+    void keepsImportedCreatedDate() {
+        Client imported = client("ann@example.com", "LEAD", "WEBSITE", 1);
+        imported.setCreatedAt(LocalDateTime.of(2021, 6, 1, 9, 30));
+        clientMergeService.merge(List.of(imported));
+
+        Client reimported = client("ann@example.com", "LEAD", "WEBSITE", 1);
+        reimported.setCreatedAt(LocalDateTime.of(2024, 1, 1, 0, 0));
+        ClientMergeService.MergeResult result = clientMergeService.merge(List.of(reimported));
+
+        assertThat(result.getUnchanged()).isEqualTo(1);
+        entityManager.clear();
+        assertThat(clientRepository.findByEmail("ann@example.com").orElseThrow().getCreatedAt())
+            .isEqualTo(LocalDateTime.of(2021, 6, 1, 9, 30));
+    }
+
+    @Test
+    @DisplayName("An email on file twice updates both clients and is reported as a duplicate")
+    void reportsDuplicateMatches() {
+        clientRepository.save(client("dup@example.com", "LEAD", "WEBSITE", 1));
+        clientRepository.save(client("DUP@example.com", "LEAD", "REFERRAL", 1));
+        entityManager.flush();
+
+        ClientMergeService.MergeResult result = clientMergeService.merge(List.of(
+            client("dup@example.com", "PROSPECT", null, null), client("new@example.com", null, null, null)));
+
+        assertThat(result.getDuplicates()).isEqualTo(1);
+        assertThat(result.getUpdated()).isEqualTo(1);
+        assertThat(result.getInserted()).isEqualTo(1);
+        assertThat(result.getUnchanged()).isZero();
+        entityManager.clear();
+        assertThat(clientRepository.findAll()).filteredOn(c -> c.getEmail().equalsIgnoreCase("dup@example.com"))
+            .extracting(Client::getClientStatus).containsExactly("PROSPECT", "PROSPECT");
+    }
+
+    @Test
+    @DisplayName("Merging the same batch twice writes nothing the second time")
+    void reimportIsUnchanged() {
+        List<Client> batch = List.of(client("a@example.com", "LEAD", "WEBSITE", 3),
+                                     client("b@example.com", null, null, null));
+
+        ClientMergeService.MergeResult first = clientMergeService.merge(batch);
+        ClientMergeService.MergeResult second = clientMergeService.merge(batch);
+
+        assertThat(first.getInserted()).isEqualTo(2);
+        assertThat(second.getInserted()).isZero();
+        assertThat(second.getUpdated()).isZero();
+        assertThat(second.getUnchanged()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Values are quoted for COPY only when they could be misread")
+    void quotesCopyFields() {
+        StringBuilder csv = new StringBuilder();
+        ClientMergeService.appendCsv(csv, "plain");
+        csv.append(',');
+        ClientMergeService.appendCsv(csv, null);
+        csv.append(',');
+        ClientMergeService.appendCsv(csv, "");
+        csv.append(',');
+        ClientMergeService.appendCsv(csv, "a \"b\", c");
+        csv.append(',');
+        ClientMergeService.appendCsv(csv, true);
+
+        assertThat(csv.toString()).isEqualTo("plain,,\"\",\"a \"\"b\"\", c\",true");
+    }
+}
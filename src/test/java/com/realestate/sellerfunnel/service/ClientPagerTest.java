@@ -0,0 +1,117 @@
+package com.realestate.sellerfunnel.service;
+
+import com.realestate.sellerfunnel.model.Business;
+import com.realestate.sellerfunnel.model.Client;
+import com.realestate.sellerfunnel.repository.BusinessRepository;
+import com.realestate.sellerfunnel.repository.ClientRepository;
+import com.realestate.sellerfunnel.repository.ClientSpecifications;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(ClientPager.class)
+class ClientPagerTest {
+
+    @Autowired
+    private ClientPager clientPager;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private BusinessRepository businessRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        businessRepository.save(new Business("real-estate", "Real Estate Connect", "real-estate", "Test business"));
+    }
+
+    @Test
+    @DisplayName("Pages run newest first, break ties by id and skip nothing")
+    void pagesThroughTies() {
+        for (int i = 1; i <= 7; i++) {
+            clientRepository.save(new Client("Client" + i, "Test", "client" + i + "@example.com"));
+        }
+        Client inactive = new Client("Bob", "Gone", "bob@example.com");
+        inactive.setIsActive(false);
+        clientRepository.save(inactive);
+        entityManager.flush();
+        // Four clients share a timestamp so pages have to split a tie
+        setCreatedAt("client1@example.com", LocalDateTime.of(2024, 1, 1, 9, 0));
+        setCreatedAt("client2@example.com", LocalDateTime.of(2024, 1, 1, 9, 0));
+        setCreatedAt("client3@example.com", LocalDateTime.of(2024, 1, 1, 9, 0));
+        setCreatedAt("client4@example.com", LocalDateTime.of(2024, 1, 1, 9, 0));
+        setCreatedAt("client5@example.com", LocalDateTime.of(2024, 2, 1, 9, 0));
+        setCreatedAt("client6@example.com", LocalDateTime.of(2024, 3, 1, 9, 0));
+        setCreatedAt("client7@example.com", LocalDateTime.of(2024, 4, 1, 9, 0));
+        entityManager.clear();
+
+        List<String> emails = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            ClientPager.ClientPage page = clientPager.page(ClientSpecifications.isActive(), cursor, 3);
+            page.getClients().forEach(client -> emails.add(client.getEmail()));
+            pageSizes.add(page.getClients().size());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(pageSizes).containsExactly(3, 3, 1);
+        assertThat(emails).containsExactly("client7@example.com", "client6@example.com", "client5@example.com",
+            "client4@example.com", "client3@example.com", "client2@example.com", "client1@example.com");
+    }
+
+    @Test
+    @DisplayName("A client added after the first page does not shift the next one")
+    void newClientsDoNotShiftPages() {
+        for (int i = 1; i <= 4; i++) {
+            clientRepository.save(new Client("Client" + i, "Test", "client" + i + "@example.com"));
+            entityManager.flush();
+            setCreatedAt("client" + i + "@example.com", LocalDateTime.of(2024, 1, i, 9, 0));
+        }
+        entityManager.clear();
+
+        ClientPager.ClientPage first = clientPager.page(ClientSpecifications.isActive(), null, 2);
+        clientRepository.save(new Client("Newest", "Test", "newest@example.com"));
+        entityManager.flush();
+        ClientPager.ClientPage second = clientPager.page(ClientSpecifications.isActive(), first.getNextCursor(), 2);
+
+        assertThat(first.getClients()).extracting(Client::getEmail)
+            .containsExactly("client4@example.com", "client3@example.com");
+        assertThat(second.getClients()).extracting(Client::getEmail)
+            .containsExactly("client2@example.com", "client1@example.com");
+        assertThat(second.isHasMore()).isFalse();
+    }
+
+    @Test
+    @DisplayName("A cursor that was not issued by the pager is rejected")
+    void rejectsForgedCursor() {
+        assertThatThrownBy(() -> clientPager.page(ClientSpecifications.isActive(), "not-a-cursor", 10))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void setCreatedAt(String email, LocalDateTime createdAt) {
+        entityManager.getEntityManager()
+            .createQuery("UPDATE Client c SET c.createdAt = :at WHERE c.email = :email")
+            .setParameter("at", createdAt)
+            .setParameter("email", email)
+            .executeUpdate();
+    }
+}
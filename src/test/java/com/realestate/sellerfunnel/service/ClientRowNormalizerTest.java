@@ -0,0 +1,57 @@
+package com.realestate.sellerfunnel.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClientRowNormalizerTest {
+
+    @Test
+    @DisplayName("Phone numbers are converted to E.164")
+    void normalizesPhoneNumbers() {
+        assertThat(ClientRowNormalizer.normalizePhone("(808) 555-0100")).isEqualTo("+18085550100");
+        assertThat(ClientRowNormalizer.normalizePhone("1-808-555-0100")).isEqualTo("+18085550100");
+        assertThat(ClientRowNormalizer.normalizePhone("+44 20 7946 0958")).isEqualTo("+442079460958");
+        assertThat(ClientRowNormalizer.normalizePhone("0044 20 7946 0958")).isEqualTo("+442079460958");
+
+        assertThatThrownBy(() -> ClientRowNormalizer.normalizePhone("555-0100"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ClientRowNormalizer.normalizePhone("+1234"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Dates are parsed month first, falling back to day first")
+    void parsesDates() {
+        assertThat(ClientRowNormalizer.normalizeDate("2024-03-05")).isEqualTo(LocalDateTime.of(2024, 3, 5, 0, 0));
+        assertThat(ClientRowNormalizer.normalizeDate("2024-03-05 14:30:00")).isEqualTo(LocalDateTime.of(2024, 3, 5, 14, 30));
+        assertThat(ClientRowNormalizer.normalizeDate("3/5/2024")).isEqualTo(LocalDateTime.of(2024, 3, 5, 0, 0));
+        assertThat(ClientRowNormalizer.normalizeDate("3/5/24")).isEqualTo(LocalDateTime.of(2024, 3, 5, 0, 0));
+        assertThat(ClientRowNormalizer.normalizeDate("25/12/2024")).isEqualTo(LocalDateTime.of(2024, 12, 25, 0, 0));
+
+        assertThatThrownBy(() -> ClientRowNormalizer.normalizeDate("2024-02-30"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("A row is normalized in place and a bad email is rejected")
+    void normalizesRow() {
+        Map<String, Integer> columns = Map.of("email", 0, "phone", 1, "date added", 2);
+        List<String> values = new ArrayList<>(Arrays.asList("jane@example.com", "808.555.0100", "1/15/2024"));
+
+        ClientRowNormalizer.normalize(values, columns);
+
+        assertThat(values).containsExactly("jane@example.com", "+18085550100", "2024-01-15 00:00:00");
+        assertThatThrownBy(() -> ClientRowNormalizer.normalize(new ArrayList<>(List.of("jane@", "")), columns))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Invalid email");
+    }
+}
@@ -0,0 +1,86 @@
+package com.realestate.sellerfunnel.service;
+
+import com.realestate.sellerfunnel.model.Business;
+import com.realestate.sellerfunnel.model.Client;
+import com.realestate.sellerfunnel.repository.BusinessRepository;
+import com.realestate.sellerfunnel.repository.ClientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Covers the substring fallback used on H2; the trigram path needs PostgreSQL with pg_trgm.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(ClientSearchService.class)
+class ClientSearchServiceTest {
+
+    @Autowired
+    private ClientSearchService clientSearchService;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private BusinessRepository businessRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        businessRepository.save(new Business("real-estate", "Real Estate Connect", "real-estate", "Test business"));
+    }
+
+    @Test
+    @DisplayName("Prefix matches on name or email rank above matches elsewhere")
+    void ranksPrefixMatchesFirst() {
+        Client company = new Client("Kim", "Lee", "kim@example.com");
+        company.setCompanyName("Janeway Realty");
+        clientRepository.save(company);
+        Client name = new Client("Jane", "Doe", "jd@example.com");
+        clientRepository.save(name);
+        Client city = new Client("Bob", "Smith", "bob@example.com");
+        city.setCity("Kaneohe");
+        clientRepository.save(city);
+        entityManager.flush();
+
+        ClientSearchService.SearchPage page = clientSearchService.search("  JANE ", 0, 20);
+
+        assertThat(page.getQuery()).isEqualTo("jane");
+        assertThat(page.getResults()).extracting(ClientSearchService.Hit::getEmail)
+            .containsExactly("jd@example.com", "kim@example.com");
+        assertThat(page.getResults().get(0).getScore()).isGreaterThan(page.getResults().get(1).getScore());
+        assertThat(clientSearchService.search("kaneohe", 0, 20).getResults())
+            .extracting(ClientSearchService.Hit::getLastName).containsExactly("Smith");
+    }
+
+    @Test
+    @DisplayName("Pages are filled in order and report whether more follow")
+    void pagesThroughMatches() {
+        for (int i = 1; i <= 5; i++) {
+            clientRepository.save(new Client("Agent" + i, "Test", "agent" + i + "@example.com"));
+        }
+        clientRepository.save(new Client("100%", "Literal", "percent@example.com"));
+        entityManager.flush();
+
+        ClientSearchService.SearchPage first = clientSearchService.search("agent", 0, 2);
+        ClientSearchService.SearchPage last = clientSearchService.search("agent", 2, 2);
+
+        assertThat(first.getResults()).hasSize(2);
+        assertThat(first.isHasMore()).isTrue();
+        assertThat(last.getResults()).hasSize(1);
+        assertThat(last.isHasMore()).isFalse();
+        assertThat(clientSearchService.search("0%", 0, 20).getResults())
+            .extracting(ClientSearchService.Hit::getEmail).containsExactly("percent@example.com");
+        assertThat(clientSearchService.search("   ", 0, 20).getResults()).isEmpty();
+    }
+}
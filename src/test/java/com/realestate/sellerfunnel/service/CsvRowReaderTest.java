@@ -0,0 +1,136 @@
+package com.realestate.sellerfunnel.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvRowReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Quoted fields, doubled quotes, CRLF, blank lines and a BOM are handled")
+    void parsesQuotedFields() throws IOException {
+        File file = write("﻿First Name,Email,Notes\r\n"
+            + "Jane, jane@example.com ,\"Likes \"\"big\"\" lanais\"\r\n"
+            + "\r\n"
+            + "\"Kim\",kim@example.com,\"Line one\nline two\"\r\n"
+            + ",,\n"
+            + "Bob,bob@example.com");
+
+        List<Integer> rowNums = new ArrayList<>();
+        List<List<String>> rows = new ArrayList<>();
+        AtomicInteger lastRowNum = new AtomicInteger(-1);
+        CsvRowReader.read(file, new RowHandler() {
+            @Override
+            public void lastRowNum(int last) {
+                lastRowNum.set(last);
+            }
+
+            @Override
+            public void row(int rowNum, List<String> values) {
+                rowNums.add(rowNum);
+                rows.add(new ArrayList<>(values));
+            }
+        });
+
+        assertThat(lastRowNum.get()).isEqualTo(5);
+        assertThat(rowNums).containsExactly(0, 1, 3, 5);
+        assertThat(rows.get(0)).containsExactly("First Name", "Email", "Notes");
+        assertThat(rows.get(1)).containsExactly("Jane", "jane@example.com", "Likes \"big\" lanais");
+        assertThat(rows.get(2)).containsExactly("Kim", "kim@example.com", "Line one\nline two");
+        assertThat(rows.get(3)).containsExactly("Bob", "bob@example.com");
+    }
+
+    @Test
+    @DisplayName("Records split across buffer refills are read whole")
+    void readsAcrossBufferBoundaries() throws IOException {
+        StringBuilder csv = new StringBuilder("First Name,Last Name,Email,Notes\n");
+        for (int i = 1; i <= 20_000; i++) {
+            csv.append("First").append(i).append(",Last").append(i).append(",user").append(i)
+               .append("@example.com,\"note, with comma ").append(i).append("\"\n");
+        }
+        File file = write(csv.toString());
+
+        AtomicInteger count = new AtomicInteger();
+        List<String> last = new ArrayList<>();
+        CsvRowReader.read(file, (rowNum, values) -> {
+            assertThat(values.get(2)).isEqualTo(rowNum == 0 ? "Email" : "user" + rowNum + "@example.com");
+            count.incrementAndGet();
+            last.clear();
+            last.addAll(values);
+        });
+
+        assertThat(count.get()).isEqualTo(20_001);
+        assertThat(last).containsExactly("First20000", "Last20000", "user20000@example.com", "note, with comma 20000");
+    }
+
+    @Test
+    @DisplayName("An unterminated quote is reported as an invalid row")
+    void reportsUnterminatedQuote() throws IOException {
+        File file = write("Email,Notes\njane@example.com,\"never closed\n");
+        List<String> errors = new ArrayList<>();
+
+        CsvRowReader.read(file, new RowHandler() {
+            @Override
+            public void row(int rowNum, List<String> values) {
+            }
+
+            @Override
+            public void invalidRow(int rowNum, String message) {
+                errors.add(rowNum + ": " + message);
+            }
+        });
+
+        assertThat(errors).containsExactly("1: Unterminated quoted field");
+    }
+
+    /**
+     * Parses a million rows, reading the three columns a client needs.
+     * Run with: mvn test -Dtest=CsvRowReaderTest -Dbenchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkMillionRows() throws IOException {
+        File file = tempDir.resolve("clients.csv").toFile();
+        try (BufferedWriter out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            out.write("First Name,Last Name,Email,Phone,City,State,Client Type,Notes\n");
+            for (int i = 1; i <= 1_000_000; i++) {
+                out.write("First" + i + ",Last" + i + ",user" + i + "@example.com,808-555-" + (i % 10_000)
+                          + ",Honolulu,HI,SELLER,\"Met at open house, wants a lanai\"\n");
+            }
+        }
+
+        for (int round = 0; round < 3; round++) {
+            AtomicLong chars = new AtomicLong();
+            long start = System.nanoTime();
+            CsvRowReader.read(file, (rowNum, values) ->
+                chars.addAndGet(values.get(0).length() + values.get(1).length() + values.get(2).length()));
+            long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            System.out.printf("round %d: 1,000,000 rows in %d ms (%d rows/min)%n",
+                              round, elapsedMs, 1_000_001L * 60_000 / elapsedMs);
+            assertThat(chars.get()).isPositive();
+        }
+    }
+
+    private File write(String content) throws IOException {
+        Path path = tempDir.resolve("clients.csv");
+        Files.writeString(path, content, StandardCharsets.UTF_8);
+        return path.toFile();
+    }
+}
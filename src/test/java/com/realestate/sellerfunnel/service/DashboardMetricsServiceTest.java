@@ -0,0 +1,113 @@
+package com.realestate.sellerfunnel.service;
+
+import com.realestate.sellerfunnel.model.Business;
+import com.realestate.sellerfunnel.model.Campaign;
+import com.realestate.sellerfunnel.model.Client;
+import com.realestate.sellerfunnel.repository.BusinessRepository;
+import com.realestate.sellerfunnel.repository.CampaignRepository;
+import com.realestate.sellerfunnel.repository.ClientRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(DashboardMetricsService.class)
+class DashboardMetricsServiceTest {
+
+    @Autowired
+    private DashboardMetricsService dashboardMetricsService;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private CampaignRepository campaignRepository;
+
+    @Autowired
+    private BusinessRepository businessRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    @DisplayName("Client tiles are counted in one query and match the filters they replace")
+    void countsClientTiles() {
+        businessRepository.save(new Business("real-estate", "Real Estate Connect", "real-estate", "Test business"));
+        Client contactedToday = new Client("Jane", "Doe", "jane@example.com");
+        contactedToday.setLastContactDate(LocalDateTime.now());
+        contactedToday.setTotalContactCount(2);
+        clientRepository.save(contactedToday);
+        Client optedOut = new Client("Kim", "Lee", "kim@example.com");
+        optedOut.setEmailOptedIn(false);
+        optedOut.setSmsOptedIn(false);
+        optedOut.setLastContactDate(LocalDateTime.now().minusMonths(1));
+        clientRepository.save(optedOut);
+        Client inactive = new Client("Bob", "Gone", "bob@example.com");
+        inactive.setIsActive(false);
+        clientRepository.save(inactive);
+        entityManager.flush();
+
+        DashboardMetricsService.ClientMetrics metrics = dashboardMetricsService.clientMetrics();
+
+        assertThat(metrics.getTotal()).isEqualTo(3);
+        assertThat(metrics.getActive()).isEqualTo(clientRepository.countByIsActiveTrue()).isEqualTo(2);
+        assertThat(metrics.getEmailOptedIn())
+            .isEqualTo(clientRepository.findByEmailOptedInTrueAndIsActiveTrueOrderByCreatedAtDesc().size())
+            .isEqualTo(1);
+        assertThat(metrics.getSmsOptedIn()).isEqualTo(1);
+        assertThat(metrics.getNeedingContact()).isEqualTo(2);
+        assertThat(metrics.getContacted()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Campaign tiles count active campaigns and this month's spend and leads")
+    void countsCampaignTiles() {
+        campaignRepository.save(campaign("Running", "ACTIVE", LocalDateTime.now().plusDays(7), "120.50", 5));
+        campaignRepository.save(campaign("Ended", "ACTIVE", LocalDateTime.now().minusDays(1), "30.00", 1));
+        Campaign old = campaignRepository.save(campaign("Last year", "COMPLETED", null, "999.00", 40));
+        entityManager.flush();
+        entityManager.getEntityManager()
+            .createQuery("UPDATE Campaign c SET c.createdAt = :at WHERE c.id = :id")
+            .setParameter("at", LocalDateTime.now().minusYears(1))
+            .setParameter("id", old.getId())
+            .executeUpdate();
+
+        DashboardMetricsService.CampaignMetrics metrics = dashboardMetricsService.campaignMetrics();
+
+        assertThat(metrics.getTotal()).isEqualTo(3);
+        assertThat(metrics.getActive()).isEqualTo(1);
+        assertThat(metrics.getMonthlySpend()).isEqualByComparingTo("150.50");
+        assertThat(metrics.getMonthlyLeads()).isEqualTo(6);
+        assertThat(metrics.getCostPerLead()).isEqualTo(150.50 / 6);
+    }
+
+    @Test
+    @DisplayName("Empty tables give zero tiles")
+    void emptyTablesGiveZeros() {
+        assertThat(dashboardMetricsService.clientMetrics().getActive()).isZero();
+        assertThat(dashboardMetricsService.campaignMetrics().getMonthlySpend()).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(dashboardMetricsService.campaignMetrics().getCostPerLead()).isZero();
+    }
+
+    private static Campaign campaign(String name, String status, LocalDateTime endDate, String cost, int leads) {
+        Campaign campaign = new Campaign();
+        campaign.setName(name);
+        campaign.setType("FACEBOOK");
+        campaign.setTargetAudience("SELLERS");
+        campaign.setStatus(status);
+        campaign.setEndDate(endDate);
+        campaign.setCost(new BigDecimal(cost));
+        campaign.setLeads(leads);
+        return campaign;
+    }
+}
@@ -0,0 +1,143 @@
+package com.realestate.sellerfunnel.service;
+
+import com.realestate.sellerfunnel.model.EmailLog;
+import com.realestate.sellerfunnel.repository.EmailLogRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class EmailLogWriterTest {
+
+    @Mock
+    private EmailLogRepository emailLogRepository;
+
+    @InjectMocks
+    private EmailLogWriter emailLogWriter;
+
+    private final List<EmailLog> saved = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(emailLogRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<EmailLog> batch = invocation.getArgument(0);
+            synchronized (saved) {
+                saved.addAll(batch);
+            }
+            return batch;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        emailLogWriter.stop();
+    }
+
+    @Test
+    @DisplayName("Full batches are written together in one saveAll call")
+    void writesFullBatches() {
+        ReflectionTestUtils.setField(emailLogWriter, "batchSize", 5);
+        ReflectionTestUtils.setField(emailLogWriter, "flushIntervalMs", 60_000L);
+        emailLogWriter.start();
+
+        for (int i = 0; i < 5; i++) {
+            emailLogWriter.write(log("t" + i));
+        }
+
+        verify(emailLogRepository, timeout(2000).times(1)).saveAll(anyList());
+        assertThat(saved).hasSize(5);
+        verify(emailLogRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("A partial batch is written once the flush interval passes")
+    void flushesPartialBatchAfterInterval() {
+        ReflectionTestUtils.setField(emailLogWriter, "flushIntervalMs", 50L);
+        emailLogWriter.start();
+
+        emailLogWriter.write(log("a"));
+        emailLogWriter.write(log("b"));
+
+        verify(emailLogRepository, timeout(2000)).saveAll(anyList());
+        assertThat(saved).extracting(EmailLog::getTrackingId).containsExactly("a", "b");
+    }
+
+    @Test
+    @DisplayName("Status updates reach logs still in the buffer and everything is written on shutdown")
+    void updatesBufferedLogAndFlushesOnStop() {
+        ReflectionTestUtils.setField(emailLogWriter, "flushIntervalMs", 60_000L);
+        emailLogWriter.start();
+
+        emailLogWriter.write(log("abc"));
+        boolean updated = emailLogWriter.updatePending("abc", emailLog -> emailLog.setStatus("DELIVERED"));
+
+        assertThat(updated).isTrue();
+        assertThat(emailLogWriter.updatePending("unknown", emailLog -> emailLog.setStatus("DELIVERED"))).isFalse();
+
+        emailLogWriter.stop();
+
+        assertThat(saved).hasSize(1);
+        assertThat(saved.get(0).getStatus()).isEqualTo("DELIVERED");
+        assertThat(emailLogWriter.updatePending("abc", emailLog -> emailLog.setStatus("OPENED"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("A failed batch is retried row by row as new inserts")
+    @SuppressWarnings("unchecked")
+    void retriesFailedBatchWithoutStaleIds() {
+        List<Long> retriedIds = new ArrayList<>();
+        when(emailLogRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<EmailLog> batch = invocation.getArgument(0);
+            long id = 1;
+            for (EmailLog emailLog : batch) {
+                emailLog.setId(id++);
+            }
+            throw new IllegalStateException("Batch insert failed");
+        });
+        when(emailLogRepository.save(any())).thenAnswer(invocation -> {
+            EmailLog emailLog = invocation.getArgument(0);
+            retriedIds.add(emailLog.getId());
+            return emailLog;
+        });
+        ReflectionTestUtils.setField(emailLogWriter, "flushIntervalMs", 60_000L);
+        emailLogWriter.start();
+
+        emailLogWriter.write(log("a"));
+        emailLogWriter.write(log("b"));
+        emailLogWriter.stop();
+
+        assertThat(retriedIds).containsExactly(null, null);
+    }
+
+    @Test
+    @DisplayName("A log written after shutdown is saved straight away")
+    void writesAfterStopAreSaved() {
+        emailLogWriter.start();
+        emailLogWriter.stop();
+
+        emailLogWriter.write(log("late"));
+
+        verify(emailLogRepository).save(argThat(emailLog -> "late".equals(emailLog.getTrackingId())));
+        assertThat(emailLogWriter.getQueuedCount()).isZero();
+    }
+
+    private EmailLog log(String trackingId) {
+        EmailLog emailLog = new EmailLog();
+        emailLog.setTrackingId(trackingId);
+        emailLog.setRecipientEmail(trackingId + "@example.com");
+        emailLog.setStatus("SENT");
+        return emailLog;
+    }
+}
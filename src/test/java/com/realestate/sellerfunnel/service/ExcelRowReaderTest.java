@@ -0,0 +1,173 @@
+package com.realestate.sellerfunnel.service;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExcelRowReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Rows are read in order with formatted, trimmed values and gaps as null")
+    void readsRowsWithGaps() throws IOException {
+        File file = tempDir.resolve("clients.xlsx").toFile();
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet();
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("First Name");
+            header.createCell(1).setCellValue("Email");
+            header.createCell(2).setCellValue("Email Contact Count");
+            Row first = sheet.createRow(1);
+            first.createCell(0).setCellValue("  Jane ");
+            first.createCell(2).setCellValue(3);
+            // Row 2 left empty
+            Row third = sheet.createRow(3);
+            third.createCell(1).setCellValue("john@example.com");
+            try (OutputStream out = new FileOutputStream(file)) {
+                workbook.write(out);
+            }
+        }
+
+        List<Integer> rowNums = new ArrayList<>();
+        List<List<String>> rows = new ArrayList<>();
+        AtomicInteger lastRowNum = new AtomicInteger(-1);
+        ExcelRowReader.read(file, new RowHandler() {
+            @Override
+            public void lastRowNum(int last) {
+                lastRowNum.set(last);
+            }
+
+            @Override
+            public void row(int rowNum, List<String> values) {
+                rowNums.add(rowNum);
+                rows.add(new ArrayList<>(values));
+            }
+        });
+
+        assertThat(lastRowNum.get()).isEqualTo(3);
+        assertThat(rowNums).containsExactly(0, 1, 3);
+        assertThat(rows.get(0)).containsExactly("First Name", "Email", "Email Contact Count");
+        assertThat(rows.get(1)).containsExactly("Jane", null, "3");
+        assertThat(rows.get(2)).containsExactly(null, "john@example.com");
+    }
+
+    @Test
+    @DisplayName("Files that are not .xlsx are reported as IOException")
+    void rejectsInvalidFiles() throws IOException {
+        File file = tempDir.resolve("clients.xlsx").toFile();
+        Files.writeString(file.toPath(), "first name,email\nJane,jane@example.com\n");
+
+        assertThatThrownBy(() -> ExcelRowReader.read(file, (rowNum, values) -> { }))
+            .isInstanceOf(IOException.class);
+    }
+
+    /**
+     * Compares the streaming reader with loading the whole workbook.
+     * Run with: mvn test -Dtest=ExcelRowReaderTest -Dbenchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkAgainstWorkbook() throws IOException {
+        for (int rows : new int[] {100_000, 500_000}) {
+            File file = tempDir.resolve("clients-" + rows + ".xlsx").toFile();
+            writeClients(file, rows);
+
+            System.gc();
+            resetPeakHeap();
+            AtomicInteger read = new AtomicInteger();
+            long start = System.nanoTime();
+            ExcelRowReader.read(file, (rowNum, values) -> read.incrementAndGet());
+            report("streaming", rows, start, read.get());
+
+            if (rows > 100_000) {
+                // XSSFWorkbook needs several GB of heap at this size
+                continue;
+            }
+            System.gc();
+            resetPeakHeap();
+            start = System.nanoTime();
+            int loaded;
+            try (Workbook workbook = new XSSFWorkbook(new FileInputStream(file))) {
+                loaded = workbook.getSheetAt(0).getPhysicalNumberOfRows();
+            }
+            report("XSSFWorkbook", rows, start, loaded);
+        }
+    }
+
+    private static void writeClients(File file, int rows) throws IOException {
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(100)) {
+            Sheet sheet = workbook.createSheet();
+            List<String> headers = Arrays.asList("First Name", "Last Name", "Email", "Phone", "City", "State",
+                                                 "Client Type", "Email Contact Count");
+            Row header = sheet.createRow(0);
+            for (int c = 0; c < headers.size(); c++) {
+                header.createCell(c).setCellValue(headers.get(c));
+            }
+            for (int r = 1; r <= rows; r++) {
+                Row row = sheet.createRow(r);
+                row.createCell(0).setCellValue("First" + r);
+                row.createCell(1).setCellValue("Last" + r);
+                row.createCell(2).setCellValue("user" + r + "@example.com");
+                row.createCell(3).setCellValue("808-555-" + (r % 10_000));
+                row.createCell(4).setCellValue("Honolulu");
+                row.createCell(5).setCellValue("HI");
+                row.createCell(6).setCellValue("SELLER");
+                row.createCell(7).setCellValue(r % 5);
+            }
+            try (OutputStream out = new FileOutputStream(file)) {
+                workbook.write(out);
+            }
+        }
+    }
+
+    private static void report(String mode, int rows, long startNanos, int read) {
+        long elapsedMs = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+        System.out.printf("%s %d rows: %d ms, %d rows/s, peak heap %d MB%n",
+                          mode, rows, elapsedMs, read * 1000L / elapsedMs, peakHeap() / (1024 * 1024));
+        assertThat(read).isEqualTo(rows + 1);
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
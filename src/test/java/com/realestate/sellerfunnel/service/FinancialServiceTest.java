@@ -0,0 +1,94 @@
+package com.realestate.sellerfunnel.service;
+
+import com.realestate.sellerfunnel.model.Room;
+import com.realestate.sellerfunnel.model.Transaction;
+import com.realestate.sellerfunnel.repository.RoomRepository;
+import com.realestate.sellerfunnel.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(FinancialService.class)
+class FinancialServiceTest {
+
+    @Autowired
+    private FinancialService financialService;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Room ocean;
+    private Room garden;
+
+    @BeforeEach
+    void setUp() {
+        ocean = roomRepository.save(new Room("101", "Ocean View", "Suite", BigDecimal.valueOf(250)));
+        garden = roomRepository.save(new Room("102", null, "Single", BigDecimal.valueOf(100)));
+        transaction(ocean, "January rent", "1200.00", LocalDateTime.of(2023, 1, 5, 10, 0));
+        transaction(garden, "Deposit, \"refundable\"", "500.00", LocalDateTime.of(2023, 6, 1, 9, 30));
+        transaction(ocean, "February rent", "1200.00", LocalDateTime.of(2024, 2, 5, 10, 0));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private void transaction(Room room, String description, String amount, LocalDateTime at) {
+        Transaction t = transactionRepository.save(new Transaction(room, description, new BigDecimal(amount), "Guest"));
+        entityManager.flush();
+        // createdAt is stamped on persist
+        entityManager.getEntityManager()
+            .createQuery("UPDATE Transaction t SET t.createdAt = :at WHERE t.id = :id")
+            .setParameter("at", at)
+            .setParameter("id", t.getId())
+            .executeUpdate();
+    }
+
+    private String export(Long roomId, LocalDateTime start, LocalDateTime end) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        financialService.exportCsv(roomId, start, end, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("The whole ledger is exported newest first with room names joined in")
+    void exportsWholeLedger() throws IOException {
+        String[] lines = export(null, null, null).split("\n");
+
+        assertThat(lines).hasSize(4);
+        assertThat(lines[0]).isEqualTo("date,room,description,type,category,amount,running_balance,paid_by,collected_by,reference,notes");
+        assertThat(lines[1]).isEqualTo("2024-02-05T10:00:00,\"101 - Ocean View\",\"February rent\",\"PAYMENT\",\"RENT\",1200.00,0,\"Guest\",\"\",\"\",\"\"");
+        assertThat(lines[2]).startsWith("2023-06-01T09:30:00,\"102\",\"Deposit, \"\"refundable\"\"\",");
+        assertThat(lines[3]).startsWith("2023-01-05T10:00:00,\"101 - Ocean View\",\"January rent\",");
+    }
+
+    @Test
+    @DisplayName("Room and date range filters combine")
+    void filtersByRoomAndDateRange() throws IOException {
+        String oceanIn2023 = export(ocean.getId(), LocalDateTime.of(2023, 1, 1, 0, 0), LocalDateTime.of(2023, 12, 31, 23, 59));
+        String all2023 = export(null, LocalDateTime.of(2023, 1, 1, 0, 0), LocalDateTime.of(2023, 12, 31, 23, 59));
+
+        assertThat(oceanIn2023.split("\n")).hasSize(2);
+        assertThat(oceanIn2023).contains("January rent").doesNotContain("February rent");
+        assertThat(all2023.split("\n")).hasSize(3);
+    }
+}
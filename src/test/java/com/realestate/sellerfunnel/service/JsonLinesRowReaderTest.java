@@ -0,0 +1,77 @@
+package com.realestate.sellerfunnel.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonLinesRowReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Keys from every line form the header and values line up under them")
+    void readsObjectsAsRows() throws IOException {
+        File file = write("{\"firstName\":\"Jane\",\"email\":\"jane@example.com\",\"emailContactCount\":3}\n"
+            + "\n"
+            + "{\"email\":\"kim@example.com\", \"first_name\":\"Kim\", \"notes\":\"Says \\\"aloha\\\"\\n\\u00e9\"}\r\n"
+            + "not json\n"
+            + "{\"email\":\"bob@example.com\",\"firstName\":null,\"tags\":[\"a\",{\"b\":\"]\"}]}\n");
+
+        List<Integer> rowNums = new ArrayList<>();
+        List<List<String>> rows = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        AtomicInteger lastRowNum = new AtomicInteger(-1);
+        JsonLinesRowReader.read(file, new RowHandler() {
+            @Override
+            public void lastRowNum(int last) {
+                lastRowNum.set(last);
+            }
+
+            @Override
+            public void row(int rowNum, List<String> values) {
+                rowNums.add(rowNum);
+                rows.add(new ArrayList<>(values));
+            }
+
+            @Override
+            public void invalidRow(int rowNum, String message) {
+                errors.add(rowNum + ": " + message);
+            }
+        });
+
+        assertThat(lastRowNum.get()).isEqualTo(5);
+        assertThat(rowNums).containsExactly(0, 1, 3, 5);
+        assertThat(rows.get(0)).containsExactly("first name", "email", "email contact count", "notes", "tags");
+        assertThat(rows.get(1)).containsExactly("Jane", "jane@example.com", "3", null, null);
+        assertThat(rows.get(2)).containsExactly("Kim", "kim@example.com", null, "Says \"aloha\"\né", null);
+        assertThat(rows.get(3)).containsExactly(null, "bob@example.com", null, null, "[\"a\",{\"b\":\"]\"}]");
+        assertThat(errors).containsExactly("4: Line is not a JSON object");
+    }
+
+    @Test
+    @DisplayName("camelCase and snake_case keys are spelled as import column names")
+    void spellsKeysAsColumnNames() {
+        assertThat(JsonLinesRowReader.columnName("firstName")).isEqualTo("first name");
+        assertThat(JsonLinesRowReader.columnName("zip_code")).isEqualTo("zip code");
+        assertThat(JsonLinesRowReader.columnName("Email")).isEqualTo("email");
+        assertThat(JsonLinesRowReader.columnName("emailOptedIn")).isEqualTo("email opted in");
+    }
+
+    private File write(String content) throws IOException {
+        Path path = tempDir.resolve("clients.ndjson");
+        Files.writeString(path, content, StandardCharsets.UTF_8);
+        return path.toFile();
+    }
+}
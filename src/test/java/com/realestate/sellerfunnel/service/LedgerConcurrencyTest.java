@@ -0,0 +1,173 @@
+package com.realestate.sellerfunnel.service;
+
+import com.realestate.sellerfunnel.model.Booking;
+import com.realestate.sellerfunnel.model.Guest;
+import com.realestate.sellerfunnel.model.Room;
+import com.realestate.sellerfunnel.model.Transaction;
+import com.realestate.sellerfunnel.repository.BookingRepository;
+import com.realestate.sellerfunnel.repository.GuestRepository;
+import com.realestate.sellerfunnel.repository.RoomRepository;
+import com.realestate.sellerfunnel.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Posts to a few rooms and bookings from many threads at once and checks that
+ * no update was lost. Each posting commits on its own, so the test runs
+ * outside the usual rolled back test transaction and clears its rows after.
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({TransactionService.class, BookingLedgerService.class, PropertyDashboardService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LedgerConcurrencyTest {
+
+    private static final int POSTINGS = 10_000;
+    private static final int ROOMS = 4;
+    private static final int THREADS = 8;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BookingLedgerService bookingLedgerService;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private GuestRepository guestRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM transactions");
+        jdbcTemplate.update("DELETE FROM bookings");
+        jdbcTemplate.update("DELETE FROM guests");
+        jdbcTemplate.update("DELETE FROM rooms");
+    }
+
+    @Test
+    @DisplayName("Concurrent postings to the same rooms and bookings all count")
+    void concurrentPostingsAllCount() throws Exception {
+        Guest guest = guestRepository.save(new Guest("Load", "Test", "load@test.com", "555-0199"));
+        List<Long> roomIds = new ArrayList<>();
+        List<Long> bookingIds = new ArrayList<>();
+        for (int i = 0; i < ROOMS; i++) {
+            Room room = roomRepository.save(new Room("40" + i, null, "Single", new BigDecimal("50")));
+            roomIds.add(room.getId());
+            Booking booking = new Booking(room, guest, LocalDateTime.now(), new BigDecimal("50"), "DAILY");
+            // Payments may not take a booking below zero
+            booking.setTotalCharges(new BigDecimal("1000.00"));
+            bookingIds.add(bookingRepository.save(booking).getId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> postings = new ArrayList<>();
+            for (int i = 0; i < POSTINGS; i++) {
+                int n = i;
+                postings.add(executor.submit(() -> {
+                    Long roomId = roomIds.get(n % ROOMS);
+                    if (n % 3 == 0) {
+                        transactionService.addPayment(roomId, "Cash", new BigDecimal("7.00"), "Guest", "Desk", null);
+                    } else {
+                        transactionService.addCharge(roomId, "Night", new BigDecimal("10.00"), "RENT", null);
+                    }
+                    if (n % 10 == 0) {
+                        bookingLedgerService.addPayment(bookingIds.get(n / 10 % ROOMS), new BigDecimal("1.00"));
+                    }
+                }));
+            }
+            for (Future<?> posting : postings) {
+                posting.get();
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        for (int r = 0; r < ROOMS; r++) {
+            BigDecimal expected = BigDecimal.ZERO;
+            for (int n = r; n < POSTINGS; n += ROOMS) {
+                expected = n % 3 == 0 ? expected.subtract(new BigDecimal("7.00")) : expected.add(new BigDecimal("10.00"));
+            }
+            Long roomId = roomIds.get(r);
+            assertThat(roomRepository.findById(roomId).orElseThrow().getBalance()).isEqualByComparingTo(expected);
+
+            // Each posting saw the balance left by the one before it
+            List<Transaction> ledger = new ArrayList<>(transactionRepository.findByRoomIdOrderByCreatedAtAsc(roomId));
+            ledger.sort(Comparator.comparing(Transaction::getId));
+            assertThat(ledger).hasSize(POSTINGS / ROOMS);
+            BigDecimal running = BigDecimal.ZERO;
+            for (Transaction transaction : ledger) {
+                running = "PAYMENT".equals(transaction.getTransactionType())
+                    ? running.subtract(transaction.getAmount()) : running.add(transaction.getAmount());
+                assertThat(transaction.getRunningBalance()).isEqualByComparingTo(running);
+            }
+        }
+
+        long bookingPayments = POSTINGS / 10 / ROOMS;
+        for (Long bookingId : bookingIds) {
+            Booking booking = bookingRepository.findById(bookingId).orElseThrow();
+            assertThat(booking.getTotalPayments()).isEqualByComparingTo(BigDecimal.valueOf(bookingPayments));
+            assertThat(booking.getVersion()).isEqualTo(bookingPayments);
+        }
+    }
+
+    @Test
+    @DisplayName("A booking payment rolls back with the transaction that posted it")
+    void bookingPaymentRollsBackWithCaller() {
+        Guest guest = guestRepository.save(new Guest("Roll", "Back", "rollback@test.com", "555-0198"));
+        Room room = roomRepository.save(new Room("499", null, "Single", new BigDecimal("50")));
+        Booking booking = new Booking(room, guest, LocalDateTime.now(), new BigDecimal("50"), "DAILY");
+        booking.setTotalCharges(new BigDecimal("100.00"));
+        Long bookingId = bookingRepository.save(booking).getId();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            bookingLedgerService.addPayment(bookingId, new BigDecimal("40.00"));
+            status.setRollbackOnly();
+        });
+        assertThat(bookingRepository.findById(bookingId).orElseThrow().getTotalPayments()).isEqualByComparingTo("0");
+
+        bookingLedgerService.addCharge(bookingId, new BigDecimal("20.00"), "Minibar");
+        bookingLedgerService.addPayment(bookingId, new BigDecimal("40.00"));
+        Booking posted = bookingRepository.findById(bookingId).orElseThrow();
+        assertThat(posted.getCurrentBalance()).isEqualByComparingTo("80.00");
+        assertThat(posted.getPaymentStatus()).isEqualTo("PARTIAL");
+        assertThat(posted.getNotes()).contains("Added charge: $20.00 - Minibar");
+    }
+}
@@ -33,6 +33,9 @@ class PaymentServiceTest {
     @Mock
     private UniversalPaymentProtocolService uppService;
 
+    @Mock
+    private BookingLedgerService bookingLedgerService;
+
     @InjectMocks
     private PaymentService paymentService;
 
@@ -73,7 +76,7 @@ class PaymentServiceTest {
         assertThat(result.getPayment().getPaymentStatus()).isEqualTo("COMPLETED");
         // Only one save for payment (booking update does not re-save payment)
         verify(paymentRepository, times(1)).save(any(Payment.class));
-        verify(bookingRepository).save(any(Booking.class));
+        verify(bookingLedgerService).addPayment(1L, new BigDecimal("50.00"));
     }
 
     @Test
@@ -99,7 +102,7 @@ class PaymentServiceTest {
         assertThat(result.getPayment().getPaymentStatus()).isEqualTo("COMPLETED");
         assertThat(result.getPayment().getUppTransactionId()).isEqualTo("tx_123");
         verify(uppService).processPayment(any(Payment.class), eq("smartphone"), eq("dev-1"));
-        verify(bookingRepository).save(any(Booking.class));
+        verify(bookingLedgerService).addPayment(1L, new BigDecimal("75.00"));
     }
 
     @Test
@@ -122,6 +125,7 @@ class PaymentServiceTest {
         assertThat(result.isSuccess()).isFalse();
         assertThat(result.getPayment().getPaymentStatus()).isEqualTo("FAILED");
         verify(bookingRepository, never()).save(any());
+        verify(bookingLedgerService, never()).addPayment(any(), any());
     }
 
     @Test
@@ -141,7 +145,7 @@ class PaymentServiceTest {
 
         assertThat(result.isSuccess()).isTrue();
         assertThat(result.getPayment().getAmount()).isEqualTo(new BigDecimal("-25.00"));
-        verify(bookingRepository).save(any(Booking.class));
+        verify(bookingLedgerService).addPayment(1L, new BigDecimal("-25.00"));
     }
 
     @Test
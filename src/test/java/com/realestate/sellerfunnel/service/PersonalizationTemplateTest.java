@@ -0,0 +1,128 @@
+package com.realestate.sellerfunnel.service;
+
+import com.realestate.sellerfunnel.model.Client;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersonalizationTemplateTest {
+
+    @Test
+    @DisplayName("Known placeholders are filled and missing values render empty")
+    void rendersKnownPlaceholders() {
+        Client client = client("Jane", "Doe", "jane@example.com");
+        client.setCity("Honolulu");
+
+        PersonalizationTemplate template = PersonalizationTemplate.compile(
+            "Hi {{firstName}} {{lastName}} ({{fullName}}) <{{email}}> in {{city}}, {{state}}{{company}}");
+
+        assertThat(template.render(client))
+            .isEqualTo("Hi Jane Doe (Jane Doe) <jane@example.com> in Honolulu, ");
+        assertThat(template.hasUnknownPlaceholders()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Unknown placeholders are reported at compile time and kept in the output")
+    void reportsUnknownPlaceholders() {
+        PersonalizationTemplate template = PersonalizationTemplate.compile(
+            "Dear {{firstName}}, your {{propertyType}} near {{zip}} {{ {{lastName}} {{ city }}");
+
+        // Names match exactly, so a padded placeholder is not a field
+        assertThat(template.getUnknownPlaceholders()).containsExactly("propertyType", "zip", " city ");
+        assertThat(template.render(client("Jane", "Doe", "jane@example.com")))
+            .isEqualTo("Dear Jane, your {{propertyType}} near {{zip}} {{ Doe {{ city }}");
+    }
+
+    @Test
+    @DisplayName("Null, plain and unterminated templates render as written")
+    void handlesEdgeCases() {
+        Client client = client("Jane", "Doe", "jane@example.com");
+
+        assertThat(PersonalizationTemplate.compile(null).render(client)).isEmpty();
+        assertThat(PersonalizationTemplate.compile("No tokens").render(client)).isEqualTo("No tokens");
+        assertThat(PersonalizationTemplate.compile("Hi {{firstName").render(client)).isEqualTo("Hi {{firstName");
+    }
+
+    @Test
+    @DisplayName("Matches the old chained String.replace output")
+    void matchesLegacyReplace() {
+        String body = sampleBody(2_000);
+        Client client = client("Jane", "Doe", "jane@example.com");
+        client.setPhoneNumber("808-555-0100");
+        client.setCompanyName("Aloha Realty");
+
+        assertThat(PersonalizationTemplate.compile(body).render(client)).isEqualTo(legacyReplace(body, client));
+    }
+
+    /**
+     * Rough throughput comparison on a 50 KB body and 10k recipients.
+     * Run with: mvn test -Dtest=PersonalizationTemplateTest -Dbenchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkAgainstLegacyReplace() {
+        String body = sampleBody(50 * 1024);
+        List<Client> recipients = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            recipients.add(client("First" + i, "Last" + i, "user" + i + "@example.com"));
+        }
+
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            long legacyChars = 0;
+            for (Client client : recipients) {
+                legacyChars += legacyReplace(body, client).length();
+            }
+            long legacyMs = (System.nanoTime() - start) / 1_000_000;
+
+            start = System.nanoTime();
+            long templateChars = 0;
+            PersonalizationTemplate template = PersonalizationTemplate.compile(body);
+            for (Client client : recipients) {
+                templateChars += template.render(client).length();
+            }
+            long templateMs = (System.nanoTime() - start) / 1_000_000;
+
+            System.out.printf("round %d: String.replace chain %d ms, compiled template %d ms%n",
+                              round, legacyMs, templateMs);
+            assertThat(templateChars).isEqualTo(legacyChars);
+        }
+    }
+
+    private static String sampleBody(int size) {
+        String paragraph = "<p>Hello {{firstName}}, homes in {{city}}, {{state}} are moving fast. "
+            + "Reply to {{email}} or call {{phone}} to talk with {{company}} about your next step.</p>\n";
+        StringBuilder body = new StringBuilder(size + paragraph.length());
+        body.append("<html><body><h1>Market update for {{fullName}}</h1>\n");
+        while (body.length() < size) {
+            body.append(paragraph);
+        }
+        return body.append("</body></html>").toString();
+    }
+
+    // Copy of the replace chain EmailService used before templates were compiled
+    private static String legacyReplace(String content, Client client) {
+        return content
+            .replace("{{firstName}}", client.getFirstName() != null ? client.getFirstName() : "")
+            .replace("{{lastName}}", client.getLastName() != null ? client.getLastName() : "")
+            .replace("{{fullName}}", client.getFullName())
+            .replace("{{email}}", client.getEmail())
+            .replace("{{company}}", client.getCompanyName() != null ? client.getCompanyName() : "")
+            .replace("{{city}}", client.getCity() != null ? client.getCity() : "")
+            .replace("{{state}}", client.getState() != null ? client.getState() : "")
+            .replace("{{phone}}", client.getPhoneNumber() != null ? client.getPhoneNumber() : "");
+    }
+
+    private static Client client(String firstName, String lastName, String email) {
+        Client client = new Client();
+        client.setFirstName(firstName);
+        client.setLastName(lastName);
+        client.setEmail(email);
+        return client;
+    }
+}
@@ -0,0 +1,111 @@
+package com.realestate.sellerfunnel.service;
+
+import com.realestate.sellerfunnel.model.Booking;
+import com.realestate.sellerfunnel.model.Guest;
+import com.realestate.sellerfunnel.model.Room;
+import com.realestate.sellerfunnel.repository.BookingRepository;
+import com.realestate.sellerfunnel.repository.GuestRepository;
+import com.realestate.sellerfunnel.repository.RoomRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(PropertyDashboardService.class)
+class PropertyDashboardServiceTest {
+
+    @Autowired
+    private PropertyDashboardService propertyDashboardService;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private GuestRepository guestRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    @DisplayName("The first snapshot matches the rooms and active bookings in the database")
+    void loadsSnapshot() {
+        Room vacant = roomRepository.save(new Room("101", "Garden", "STANDARD", new BigDecimal("50.00")));
+        Room occupied = new Room("102", "Ocean", "STANDARD", new BigDecimal("60.00"));
+        occupied.setIsVacant(false);
+        roomRepository.save(occupied);
+        Booking booking = bookingRepository.save(booking(occupied, "Jane", "100.00"));
+        Booking completed = booking(vacant, "Kim", "40.00");
+        completed.setIsActive(false);
+        bookingRepository.save(completed);
+        entityManager.flush();
+
+        // The service outlives each test's rolled back data, so load it afresh
+        propertyDashboardService.reconcile();
+        PropertyDashboardService.Snapshot snapshot = propertyDashboardService.snapshot();
+
+        assertThat(snapshot.getTotalRooms()).isEqualTo(2);
+        assertThat(snapshot.getVacantRooms()).isEqualTo(1);
+        assertThat(snapshot.getOccupiedRooms()).isEqualTo(1);
+        assertThat(snapshot.getActiveBookings()).isEqualTo(1);
+        assertThat(snapshot.getPendingPayments()).isEqualTo(1);
+        assertThat(snapshot.getTotalOutstanding()).isEqualByComparingTo("100.00");
+        assertThat(snapshot.getOutstandingBookings()).extracting(PropertyDashboardService.BookingSummary::getId)
+            .containsExactly(booking.getId());
+        assertThat(snapshot.getOutstandingBookings().get(0).getDisplayName()).isEqualTo("102 - Ocean - Jane Doe");
+    }
+
+    @Test
+    @DisplayName("Changed rooms and bookings adjust the counters without a reload")
+    void appliesChanges() {
+        Room room = roomRepository.save(new Room("101", "Garden", "STANDARD", new BigDecimal("50.00")));
+        entityManager.flush();
+        propertyDashboardService.reconcile();
+        PropertyDashboardService.Snapshot before = propertyDashboardService.snapshot();
+        assertThat(before.getVacantRooms()).isEqualTo(1);
+
+        room.setIsVacant(false);
+        Booking booking = bookingRepository.save(booking(room, "Jane", "75.00"));
+        entityManager.flush();
+        propertyDashboardService.apply(Set.of(room.getId()), Set.of(booking.getId()));
+
+        PropertyDashboardService.Snapshot after = propertyDashboardService.snapshot();
+        assertThat(after).isNotSameAs(before);
+        assertThat(after.getVacantRooms()).isZero();
+        assertThat(after.getOccupiedRooms()).isEqualTo(1);
+        assertThat(after.getActiveBookings()).isEqualTo(1);
+        assertThat(after.getTotalOutstanding()).isEqualByComparingTo("75.00");
+        // Snapshots already handed out do not change
+        assertThat(before.getActiveBookings()).isZero();
+
+        booking.setIsActive(false);
+        entityManager.flush();
+        propertyDashboardService.apply(Set.of(), Set.of(booking.getId()));
+
+        PropertyDashboardService.Snapshot closed = propertyDashboardService.snapshot();
+        assertThat(closed.getActiveBookings()).isZero();
+        assertThat(closed.getTotalOutstanding()).isEqualByComparingTo("0");
+        assertThat(closed.getRecentBookings()).isEmpty();
+    }
+
+    private Booking booking(Room room, String firstName, String charges) {
+        Guest guest = guestRepository.save(new Guest(firstName, "Doe", firstName.toLowerCase() + "@example.com", "555-0100"));
+        Booking booking = new Booking(room, guest, LocalDateTime.now().minusDays(2), new BigDecimal("50.00"), "WEEKLY");
+        booking.setTotalCharges(new BigDecimal(charges));
+        booking.setCurrentBalance(new BigDecimal(charges));
+        return booking;
+    }
+}
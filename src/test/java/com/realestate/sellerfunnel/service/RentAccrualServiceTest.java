@@ -0,0 +1,223 @@
+package com.realestate.sellerfunnel.service;
+
+import com.realestate.sellerfunnel.model.Booking;
+import com.realestate.sellerfunnel.model.Guest;
+import com.realestate.sellerfunnel.model.Room;
+import com.realestate.sellerfunnel.model.Transaction;
+import com.realestate.sellerfunnel.repository.BookingRepository;
+import com.realestate.sellerfunnel.repository.GuestRepository;
+import com.realestate.sellerfunnel.repository.RoomRepository;
+import com.realestate.sellerfunnel.repository.TransactionRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({RentAccrualService.class, PropertyDashboardService.class})
+class RentAccrualServiceTest {
+
+    // A Wednesday: the weekly period began Monday the 12th, the monthly one on the 1st
+    private static final LocalDate RUN_DATE = LocalDate.of(2026, 10, 14);
+
+    @Autowired
+    private RentAccrualService rentAccrualService;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private GuestRepository guestRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    @DisplayName("Each booking is charged once for the periods begun since check-in, and late payers are flagged")
+    void accruesDuePeriodsOnce() {
+        Room shared = roomRepository.save(new Room("401", null, "Single", new BigDecimal("50")));
+        Room other = roomRepository.save(new Room("402", null, "Single", new BigDecimal("50")));
+        Booking daily = booking(shared, "2026-10-13T15:00", "50.00", "DAILY", "50.00", "50.00");
+        Booking weekly = booking(shared, "2026-10-06T12:00", "40.00", "weekly", "280.00", "0");
+        // Checked in during their current period, which was charged at check-in
+        Booking monthly = booking(other, "2026-10-05T12:00", "30.00", "MONTHLY", "900.00", "0");
+        Booking lateWeekly = booking(other, "2026-10-13T12:00", "40.00", "WEEKLY", "280.00", "0");
+        Booking completed = booking(other, "2026-09-01T12:00", "40.00", "DAILY", "0", "0");
+        completed.setBookingStatus("COMPLETED");
+        completed.setIsActive(false);
+        bookingRepository.save(completed);
+        Long weeklyVersion = weekly.getVersion();
+        entityManager.flush();
+
+        RentAccrualService.RunResult result = rentAccrualService.accrue(RUN_DATE);
+        entityManager.clear();
+
+        assertThat(result.getAccrued()).isEqualTo(2);
+        assertThat(result.getBookings()).isEqualTo(2);
+        assertThat(result.getOverdue()).isEqualTo(1);
+        assertThat(result.getFailedBatches()).isZero();
+
+        Booking paidUp = bookingRepository.findById(daily.getId()).orElseThrow();
+        assertThat(paidUp.getTotalCharges()).isEqualByComparingTo("100.00");
+        assertThat(paidUp.getCurrentBalance()).isEqualByComparingTo("50.00");
+        assertThat(paidUp.getPaymentStatus()).isEqualTo("PARTIAL");
+        Booking behind = bookingRepository.findById(weekly.getId()).orElseThrow();
+        assertThat(behind.getTotalCharges()).isEqualByComparingTo("560.00");
+        assertThat(behind.getPaymentStatus()).isEqualTo("OVERDUE");
+        assertThat(behind.getVersion()).isGreaterThan(weeklyVersion);
+        assertThat(bookingRepository.findById(monthly.getId()).orElseThrow().getTotalCharges()).isEqualByComparingTo("900.00");
+        assertThat(bookingRepository.findById(lateWeekly.getId()).orElseThrow().getTotalCharges()).isEqualByComparingTo("280.00");
+
+        assertThat(roomRepository.findById(shared.getId()).orElseThrow().getBalance()).isEqualByComparingTo("330.00");
+        // Both lines share the batch's posting time; each carries the balance as of its own charge, oldest period first
+        assertThat(transactionRepository.findByRoomIdOrderByCreatedAtAsc(shared.getId()))
+            .extracting(Transaction::getRunningBalance)
+            .usingElementComparator(BigDecimal::compareTo)
+            .containsExactlyInAnyOrder(new BigDecimal("280.00"), new BigDecimal("330.00"));
+        assertThat(transactionRepository.findByRoomIdOrderByCreatedAtAsc(other.getId())).isEmpty();
+
+        // Running again the same day, or later in the same week, charges nothing new but the daily period
+        assertThat(rentAccrualService.accrue(RUN_DATE).getAccrued()).isZero();
+        assertThat(rentAccrualService.accrue(RUN_DATE.plusDays(1)).getAccrued()).isEqualTo(1);
+        entityManager.clear();
+        assertThat(bookingRepository.findById(weekly.getId()).orElseThrow().getTotalCharges()).isEqualByComparingTo("560.00");
+        assertThat(roomRepository.findById(shared.getId()).orElseThrow().getBalance()).isEqualByComparingTo("380.00");
+        assertThat(rentAccrualService.getMetrics()).containsEntry("lastRunAccrued", 1);
+    }
+
+    @Test
+    @DisplayName("A run after a missed one charges the missed periods too")
+    void backfillsMissedRuns() {
+        Room room = roomRepository.save(new Room("403", null, "Single", new BigDecimal("50")));
+        Booking daily = booking(room, "2026-10-13T15:00", "50.00", "DAILY", "50.00", "50.00");
+        entityManager.flush();
+        assertThat(rentAccrualService.accrue(RUN_DATE).getAccrued()).isEqualTo(1);
+
+        // The run for the 15th never happened
+        RentAccrualService.RunResult result = rentAccrualService.accrue(RUN_DATE.plusDays(2));
+        entityManager.clear();
+
+        assertThat(result.getAccrued()).isEqualTo(2);
+        assertThat(result.getBookings()).isEqualTo(1);
+        Booking charged = bookingRepository.findById(daily.getId()).orElseThrow();
+        assertThat(charged.getTotalCharges()).isEqualByComparingTo("200.00");
+        assertThat(charged.getPaymentStatus()).isEqualTo("OVERDUE");
+        assertThat(transactionRepository.findByRoomIdOrderByCreatedAtAsc(room.getId()))
+            .extracting(Transaction::getRunningBalance)
+            .usingElementComparator(BigDecimal::compareTo)
+            .containsExactlyInAnyOrder(new BigDecimal("50.00"), new BigDecimal("100.00"), new BigDecimal("150.00"));
+        assertThat(rentAccrualService.accrue(RUN_DATE.plusDays(2)).getAccrued()).isZero();
+    }
+
+    @Test
+    @DisplayName("A booking open for weeks before its first run is charged only from the current period")
+    void firstRunDoesNotChargeEarlierPeriods() {
+        Room room = roomRepository.save(new Room("405", null, "Single", new BigDecimal("40")));
+        // Rent for these was posted by hand until accrual was switched on
+        Booking daily = booking(room, "2026-09-01T12:00", "40.00", "DAILY", "1720.00", "1720.00");
+        Booking weekly = booking(room, "2026-09-01T12:00", "40.00", "WEEKLY", "1680.00", "1680.00");
+        Booking monthly = booking(room, "2026-08-15T12:00", "30.00", "MONTHLY", "1800.00", "1800.00");
+        entityManager.flush();
+
+        RentAccrualService.RunResult result = rentAccrualService.accrue(RUN_DATE);
+        entityManager.clear();
+
+        assertThat(result.getAccrued()).isEqualTo(3);
+        assertThat(bookingRepository.findById(daily.getId()).orElseThrow().getTotalCharges())
+            .isEqualByComparingTo("1760.00");
+        assertThat(bookingRepository.findById(weekly.getId()).orElseThrow().getTotalCharges())
+            .isEqualByComparingTo("1960.00");
+        assertThat(bookingRepository.findById(monthly.getId()).orElseThrow().getTotalCharges())
+            .isEqualByComparingTo("2700.00");
+        assertThat(bookingRepository.findById(daily.getId()).orElseThrow().getPaymentStatus()).isEqualTo("PARTIAL");
+
+        // From then on, a missed run is caught up as usual
+        assertThat(rentAccrualService.accrue(RUN_DATE.plusDays(2)).getAccrued()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("A booking that changes frequency is not charged again for nights already charged")
+    void frequencyChangeNeverOverlaps() {
+        Room room = roomRepository.save(new Room("404", null, "Single", new BigDecimal("40")));
+        Booking booking = booking(room, "2026-10-06T12:00", "40.00", "WEEKLY", "280.00", "280.00");
+        entityManager.flush();
+        assertThat(rentAccrualService.accrue(RUN_DATE).getAccrued()).isEqualTo(1);
+
+        jdbcTemplate.update("UPDATE bookings SET payment_frequency = 'DAILY' WHERE id = ?", booking.getId());
+
+        // The week charged on the 12th runs to the 18th; daily charges start on the 19th
+        assertThat(rentAccrualService.accrue(RUN_DATE.plusDays(4)).getAccrued()).isZero();
+        assertThat(rentAccrualService.accrue(RUN_DATE.plusDays(5)).getAccrued()).isEqualTo(1);
+        entityManager.clear();
+        assertThat(bookingRepository.findById(booking.getId()).orElseThrow().getTotalCharges())
+            .isEqualByComparingTo("600.00");
+    }
+
+    @Test
+    @DisplayName("Ten thousand active bookings are charged in batches of a thousand, once")
+    void accruesInBulk() {
+        int bookings = 10_000;
+        List<Long> roomIds = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            roomIds.add(roomRepository.save(new Room("B" + i, null, "Single", new BigDecimal("40"))).getId());
+        }
+        Long guestId = guestRepository.save(new Guest("Bulk", "Guest", "bulk@test.com", "555-0199")).getId();
+        entityManager.flush();
+        List<Object[]> rows = new ArrayList<>();
+        String[] frequencies = {"DAILY", "WEEKLY", "MONTHLY"};
+        for (int i = 0; i < bookings; i++) {
+            rows.add(new Object[] {roomIds.get(i % roomIds.size()), guestId, LocalDateTime.of(2026, 9, 30, 12, 0),
+                new BigDecimal("40.00"), frequencies[i % 3], new BigDecimal("40.00")});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO bookings (room_id, guest_id, check_in_date, nightly_rate, payment_frequency,"
+            + " total_charges, total_payments, current_balance, number_of_nights, booking_status, payment_status,"
+            + " is_active, version) VALUES (?, ?, ?, ?, ?, ?, 0, 40.00, 0, 'ACTIVE', 'PENDING', TRUE, 0)", rows);
+
+        RentAccrualService.RunResult result = rentAccrualService.accrue(RUN_DATE);
+
+        // None has been charged by a run before, so each is charged only its current period
+        int periods = bookings;
+        assertThat(result.getAccrued()).isEqualTo(periods);
+        assertThat(result.getBookings()).isEqualTo(bookings);
+        assertThat(result.getBatches()).isEqualTo(10);
+        assertThat(result.getOverdue()).isEqualTo(bookings);
+        assertThat(result.getDurationMillis()).isLessThan(30_000);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Long.class)).isEqualTo(periods);
+        assertThat(jdbcTemplate.queryForObject("SELECT SUM(balance) FROM rooms", BigDecimal.class))
+            .isEqualByComparingTo(jdbcTemplate.queryForObject(
+                "SELECT SUM(total_charges) - 40.00 * COUNT(*) FROM bookings", BigDecimal.class));
+        assertThat(rentAccrualService.accrue(RUN_DATE).getAccrued()).isZero();
+    }
+
+    private Booking booking(Room room, String checkIn, String nightlyRate, String frequency, String charges, String payments) {
+        Guest guest = guestRepository.save(new Guest("Guest", "Room" + room.getRoomNumber(),
+            "guest" + System.nanoTime() + "@test.com", "555-0100"));
+        Booking booking = new Booking(room, guest, LocalDateTime.parse(checkIn), new BigDecimal(nightlyRate), frequency);
+        booking.setTotalCharges(new BigDecimal(charges));
+        booking.setTotalPayments(new BigDecimal(payments));
+        booking.setCurrentBalance(new BigDecimal(charges).subtract(new BigDecimal(payments)));
+        return bookingRepository.save(booking);
+    }
+}
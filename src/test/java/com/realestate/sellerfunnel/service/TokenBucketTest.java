@@ -0,0 +1,63 @@
+package com.realestate.sellerfunnel.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private void advanceMillis(long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Test
+    @DisplayName("Burst is free, then each permit waits for the refill rate")
+    void burstThenRate() {
+        TokenBucket bucket = new TokenBucket(10, 5, now::get);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.reserve(1));
+        }
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.reserve(1));
+        // The next caller queues behind the first one's debt
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(200), bucket.reserve(1));
+
+        advanceMillis(200);
+        assertEquals(0, bucket.reserve(0));
+    }
+
+    @Test
+    @DisplayName("Refill never exceeds capacity and released permits can be reused")
+    void refillIsCappedAndReleaseReturnsPermits() {
+        TokenBucket bucket = new TokenBucket(10, 5, now::get);
+
+        advanceMillis(10_000);
+        assertEquals(0, bucket.reserve(5));
+        assertTrue(bucket.reserve(1) > 0);
+
+        bucket.release(1);
+        assertEquals(0, bucket.reserve(0));
+    }
+
+    @Test
+    @DisplayName("Async acquire completes once the permits are due without blocking the caller")
+    void asyncAcquire() throws Exception {
+        TokenBucket bucket = new TokenBucket(20, 1);
+
+        assertTrue(bucket.acquire(1, Runnable::run).isDone());
+
+        long start = System.nanoTime();
+        CompletableFuture<Void> delayed = bucket.acquire(1, Runnable::run);
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(40));
+        delayed.get(2, TimeUnit.SECONDS);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(40));
+    }
+}
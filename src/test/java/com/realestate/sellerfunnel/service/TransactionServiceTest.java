@@ -0,0 +1,109 @@
+package com.realestate.sellerfunnel.service;
+
+import com.realestate.sellerfunnel.model.Room;
+import com.realestate.sellerfunnel.model.Transaction;
+import com.realestate.sellerfunnel.repository.RoomRepository;
+import com.realestate.sellerfunnel.repository.TransactionRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import(TransactionService.class)
+class TransactionServiceTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    @DisplayName("Posting moves the balance atomically without loading the room or its ledger")
+    void postsWithoutLoadingLedger() {
+        Long roomId = roomRepository.save(new Room("301", null, "Single", new BigDecimal("70"))).getId();
+        transactionService.addCharge(roomId, "Week 1", new BigDecimal("500.00"), "RENT", null);
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+            .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Transaction payment = transactionService.addPayment(roomId, "Cash", new BigDecimal("200.00"), "Guest", "Desk", null);
+
+        // The balance UPDATE goes through JDBC; Hibernate only inserts the transaction
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(payment.getRunningBalance()).isEqualByComparingTo("300.00");
+        entityManager.flush();
+        entityManager.clear();
+        assertThat(roomRepository.findById(roomId).orElseThrow().getBalance()).isEqualByComparingTo("300.00");
+    }
+
+    @Test
+    @DisplayName("Saving a loaded room does not overwrite the balance kept by the ledger")
+    void roomSaveKeepsBalance() {
+        Long roomId = roomRepository.save(new Room("302", null, "Single", new BigDecimal("70"))).getId();
+        Room stale = roomRepository.findById(roomId).orElseThrow();
+        transactionService.addFee(roomId, "Late fee", new BigDecimal("25.00"), "LATE_FEE", null);
+
+        stale.setNotes("Repainted");
+        roomRepository.save(stale);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(roomRepository.findById(roomId).orElseThrow().getBalance()).isEqualByComparingTo("25.00");
+    }
+
+    @Test
+    @DisplayName("Recalculation rebuilds running balances and the room balance oldest first")
+    void recalculates() {
+        Long roomId = roomRepository.save(new Room("303", null, "Single", new BigDecimal("70"))).getId();
+        transactionService.addCharge(roomId, "Week 1", new BigDecimal("400.00"), "RENT", null);
+        transactionService.addDeposit(roomId, "Deposit", new BigDecimal("100.00"), "Guest", "Desk", null);
+        transactionService.addCharge(roomId, "Week 2", new BigDecimal("400.00"), "RENT", null);
+        entityManager.flush();
+        jdbcTemplate.update("UPDATE transactions SET running_balance = 0 WHERE room_id = ?", roomId);
+        jdbcTemplate.update("UPDATE rooms SET balance = 999 WHERE id = ?", roomId);
+
+        transactionService.recalculateRoomBalance(roomId);
+        entityManager.clear();
+
+        assertThat(transactionRepository.findByRoomIdOrderByCreatedAtAsc(roomId))
+            .extracting(Transaction::getRunningBalance)
+            .usingElementComparator(BigDecimal::compareTo)
+            .containsExactly(new BigDecimal("400.00"), new BigDecimal("300.00"), new BigDecimal("700.00"));
+        assertThat(roomRepository.findById(roomId).orElseThrow().getBalance()).isEqualByComparingTo("700.00");
+    }
+
+    @Test
+    @DisplayName("Posting to a missing room fails without writing anything")
+    void rejectsMissingRoom() {
+        assertThatThrownBy(() -> transactionService.addCharge(-1L, "Week 1", BigDecimal.TEN, "RENT", null))
+            .hasMessageContaining("Room not found");
+        assertThat(transactionRepository.count()).isZero();
+    }
+}
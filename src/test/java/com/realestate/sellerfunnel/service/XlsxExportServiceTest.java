@@ -0,0 +1,234 @@
+package com.realestate.sellerfunnel.service;
+
+import com.realestate.sellerfunnel.model.Booking;
+import com.realestate.sellerfunnel.model.Business;
+import com.realestate.sellerfunnel.model.Guest;
+import com.realestate.sellerfunnel.model.Payment;
+import com.realestate.sellerfunnel.model.Room;
+import com.realestate.sellerfunnel.model.Transaction;
+import com.realestate.sellerfunnel.repository.BookingRepository;
+import com.realestate.sellerfunnel.repository.BusinessRepository;
+import com.realestate.sellerfunnel.repository.GuestRepository;
+import com.realestate.sellerfunnel.repository.PaymentRepository;
+import com.realestate.sellerfunnel.repository.RoomRepository;
+import com.realestate.sellerfunnel.repository.TransactionRepository;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(XlsxExportService.class)
+class XlsxExportServiceTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(XlsxExportServiceTest.class);
+
+    // Heap the million-row export may use on top of what was in use before it
+    private static final long HEAP_BUDGET_BYTES = 512L * 1024 * 1024;
+
+    @Autowired
+    private XlsxExportService xlsxExportService;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private GuestRepository guestRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BusinessRepository businessRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Booking booking() {
+        Room room = roomRepository.save(new Room("101", "Ocean View", "Suite", new BigDecimal("250")));
+        Guest guest = new Guest();
+        guest.setFirstName("Kim");
+        guest.setLastName("Lee");
+        guest.setEmail("kim@example.com");
+        guest = guestRepository.save(guest);
+        Booking booking = new Booking();
+        booking.setRoom(room);
+        booking.setGuest(guest);
+        booking.setCheckInDate(LocalDateTime.of(2024, 3, 1, 15, 0));
+        booking.setNightlyRate(new BigDecimal("250.00"));
+        booking.setTotalCharges(new BigDecimal("1750.00"));
+        booking.setBookingStatus("ACTIVE");
+        booking.setPaymentStatus("PARTIAL");
+        return bookingRepository.save(booking);
+    }
+
+    private Workbook read(ByteArrayOutputStream out) throws IOException {
+        return new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    @Test
+    @DisplayName("Bookings and payments are written with typed cells under a header row")
+    void writesTypedCells() throws IOException {
+        Booking booking = booking();
+        Payment payment = new Payment(booking, new BigDecimal("500.00"), "CASH");
+        payment.setPaymentStatus("COMPLETED");
+        paymentRepository.save(payment);
+        entityManager.flush();
+
+        ByteArrayOutputStream bookings = new ByteArrayOutputStream();
+        xlsxExportService.writeBookings(bookings);
+        ByteArrayOutputStream payments = new ByteArrayOutputStream();
+        xlsxExportService.writePayments(payments);
+
+        try (Workbook workbook = read(bookings)) {
+            Sheet sheet = workbook.getSheet("Bookings");
+            assertThat(sheet.getLastRowNum()).isEqualTo(1);
+            assertThat(sheet.getRow(0).getCell(0).getStringCellValue()).isEqualTo("Booking");
+            Row row = sheet.getRow(1);
+            assertThat(row.getCell(1).getStringCellValue()).isEqualTo("101");
+            assertThat(row.getCell(2).getStringCellValue()).isEqualTo("Kim");
+            assertThat(row.getCell(5).getLocalDateTimeCellValue()).isEqualTo(LocalDateTime.of(2024, 3, 1, 15, 0));
+            assertThat(row.getCell(7)).isNull();
+            assertThat(row.getCell(8).getNumericCellValue()).isEqualTo(250.0);
+            assertThat(row.getCell(8).getCellStyle().getDataFormatString()).isEqualTo("#,##0.00");
+        }
+        try (Workbook workbook = read(payments)) {
+            Row row = workbook.getSheet("Payments").getRow(1);
+            assertThat(row.getCell(1).getNumericCellValue()).isEqualTo(booking.getId().doubleValue());
+            assertThat(row.getCell(3).getNumericCellValue()).isEqualTo(500.0);
+            assertThat(row.getCell(5).getStringCellValue()).isEqualTo("CASH");
+            assertThat(row.getCell(6).getStringCellValue()).isEqualTo("COMPLETED");
+        }
+    }
+
+    @Test
+    @DisplayName("Rows past the per-sheet limit continue on a new sheet with its own header")
+    void continuesOnNewSheet() throws IOException {
+        Room room = booking().getRoom();
+        for (int i = 1; i <= 5; i++) {
+            transactionRepository.save(new Transaction(room, "Rent " + i, new BigDecimal("100.00"), "Kim"));
+        }
+        entityManager.flush();
+        xlsxExportService.maxRowsPerSheet = 2;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        xlsxExportService.writeTransactions(room.getId(), null, null, out);
+
+        try (Workbook workbook = read(out)) {
+            assertThat(workbook.getNumberOfSheets()).isEqualTo(3);
+            assertThat(workbook.getSheetName(2)).isEqualTo("Transactions 3");
+            assertThat(workbook.getSheetAt(0).getLastRowNum()).isEqualTo(2);
+            assertThat(workbook.getSheetAt(2).getLastRowNum()).isEqualTo(1);
+            assertThat(workbook.getSheetAt(2).getRow(0).getCell(3).getStringCellValue()).isEqualTo("Description");
+            assertThat(workbook.getSheetAt(1).getRow(1).getCell(6).getCellType()).isEqualTo(CellType.NUMERIC);
+        }
+    }
+
+    @Test
+    @DisplayName("Text longer than a cell can hold is cut to the cell limit")
+    void truncatesLongText() throws IOException {
+        Room room = booking().getRoom();
+        Transaction transaction = new Transaction(room, "Rent", new BigDecimal("100.00"), "Kim");
+        transaction.setNotes("Paid in cash at the front desk");
+        transactionRepository.save(transaction);
+        entityManager.flush();
+        xlsxExportService.maxTextLength = 10;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        xlsxExportService.writeTransactions(room.getId(), null, null, out);
+
+        try (Workbook workbook = read(out)) {
+            Row row = workbook.getSheet("Transactions").getRow(1);
+            assertThat(row.getCell(11).getStringCellValue()).isEqualTo("Paid in ca");
+            assertThat(row.getCell(3).getStringCellValue()).isEqualTo("Rent");
+        }
+    }
+
+    /**
+     * Exports a million clients with no more than {@link #HEAP_BUDGET_BYTES} of heap
+     * left over for it, so finishing at all shows the export fits the budget. The
+     * in-memory H2 database holding the clients takes about 1 GB, so cap the heap:
+     * mvn test -Dtest=XlsxExportServiceTest -Dbenchmark=true -DargLine=-Xmx1450m
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkMillionClients() throws IOException {
+        businessRepository.save(new Business("real-estate", "Real Estate Connect", "real-estate", "Test business"));
+        entityManager.flush();
+        entityManager.getEntityManager().createNativeQuery(
+            "INSERT INTO clients (business_id, first_name, last_name, email, phone_number, city, state, client_type,"
+            + " client_status, lead_source, notes, is_active, email_contact_count, phone_contact_count,"
+            + " total_contact_count, created_at)"
+            + " SELECT 'real-estate', 'First' || x, 'Last' || x, 'user' || x || '@example.com', '808-555-0100',"
+            + " 'Honolulu', 'HI', 'SELLER', 'LEAD', 'WEBSITE', 'Met at open house, wants a lanai', TRUE,"
+            + " MOD(x, 7), MOD(x, 3), MOD(x, 10), TIMESTAMP '2024-01-01 00:00:00' + x * INTERVAL '1' SECOND"
+            + " FROM SYSTEM_RANGE(1, 1000000)").executeUpdate();
+
+        System.gc();
+        long baseline = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        assertThat(Runtime.getRuntime().maxMemory() - baseline)
+            .as("heap left for the export; lower -Xmx to bring it within the budget")
+            .isLessThanOrEqualTo(HEAP_BUDGET_BYTES);
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+        long[] bytes = {0};
+        OutputStream counter = new OutputStream() {
+            @Override
+            public void write(int b) {
+                bytes[0]++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                bytes[0] += len;
+            }
+        };
+        long start = System.nanoTime();
+        xlsxExportService.writeActiveClients(counter);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        // Peak counts garbage not yet collected, so it is reported rather than asserted
+        logger.info("1,000,000 clients: {} ms, {} MB file, heap {} MB before export, peak {} MB",
+                    elapsedMs, bytes[0] / (1024 * 1024), baseline / (1024 * 1024), peak / (1024 * 1024));
+        assertThat(bytes[0]).isPositive();
+    }
+}